@@ -0,0 +1,122 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.benchmark;
+
+import java.util.Date;
+import java.util.Properties;
+
+import org.quartz.CronScheduleBuilder;
+import org.quartz.Job;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.TriggerBuilder;
+import org.quartz.impl.JobExecutionContextImpl;
+import org.quartz.impl.StdSchedulerFactory;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.TriggerFiredBundle;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.name.Names;
+
+/**
+ * Fixtures shared by the benchmarks.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * @return an {@link Injector} able to provide all arguments of
+     *         {@link BenchmarkTarget#injectedArguments(BenchmarkTarget.BenchmarkService, String, JobExecutionContext)}
+     */
+    public static Injector createInjector() {
+        return Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(BenchmarkTarget.BenchmarkService.class).asEagerSingleton();
+                bindConstant().annotatedWith(Names.named("benchmark.name")).to("benchmark");
+            }
+        });
+    }
+
+    /**
+     * Create a {@link JobExecutionContext} as Quartz would for a fire of the
+     * given job.
+     * 
+     * @param scheduler
+     *            the scheduler (may be null if the job is not expected to
+     *            access it)
+     * @param jobDetail
+     *            the job being fired
+     * @param job
+     *            the job instance
+     * @return the execution context
+     */
+    public static JobExecutionContext createContext(Scheduler scheduler, JobDetail jobDetail, Job job) {
+        OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger().forJob(jobDetail)
+                .withSchedule(CronScheduleBuilder.cronSchedule("0/1 * * * * ?")).build();
+        trigger.computeFirstFireTime(null);
+        Date now = new Date();
+        TriggerFiredBundle bundle = new TriggerFiredBundle(jobDetail, trigger, null, false, now, now, null,
+                trigger.getNextFireTime());
+        return new JobExecutionContextImpl(scheduler, bundle, job);
+    }
+
+    /**
+     * Create a new {@link Scheduler} using a RAMJobStore.
+     * 
+     * @param name
+     *            the instance name of the scheduler
+     * @param threadCount
+     *            the number of worker threads
+     * @return the (not yet started) {@link Scheduler}
+     * @throws SchedulerException
+     *             as thrown by Quartz
+     */
+    public static Scheduler createRamScheduler(String name, int threadCount) throws SchedulerException {
+        return createRamSchedulerFactory(name, threadCount).getScheduler();
+    }
+
+    /**
+     * Create a new {@link StdSchedulerFactory} for a scheduler using a
+     * RAMJobStore.
+     * 
+     * @param name
+     *            the instance name of the scheduler
+     * @param threadCount
+     *            the number of worker threads
+     * @return the {@link StdSchedulerFactory}
+     * @throws SchedulerException
+     *             as thrown by Quartz
+     */
+    public static StdSchedulerFactory createRamSchedulerFactory(String name, int threadCount)
+            throws SchedulerException {
+        Properties properties = new Properties();
+        properties.setProperty("org.quartz.scheduler.instanceName", name);
+        properties.setProperty("org.quartz.scheduler.skipUpdateCheck", "true");
+        properties.setProperty("org.quartz.threadPool.threadCount", Integer.toString(threadCount));
+        properties.setProperty("org.quartz.jobStore.class", "org.quartz.simpl.RAMJobStore");
+        return new StdSchedulerFactory(properties);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.benchmark;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CountDownLatch;
+
+import org.quartz.JobExecutionContext;
+
+import com.google.inject.name.Named;
+
+/**
+ * The "scheduled methods" called by the benchmarks.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class BenchmarkTarget {
+
+    /**
+     * A service injected into {@link #injectedArguments(BenchmarkService, String, JobExecutionContext)}.
+     */
+    public static class BenchmarkService {
+
+        private long calls;
+
+        public void call() {
+            calls++;
+        }
+    }
+
+    private long invocations;
+
+    private volatile CountDownLatch latch;
+
+    public void noArguments() {
+        invocations++;
+    }
+
+    public void contextArgument(JobExecutionContext context) {
+        invocations++;
+    }
+
+    public void injectedArguments(BenchmarkService service, @Named("benchmark.name") String name,
+            JobExecutionContext context) {
+        service.call();
+        invocations++;
+    }
+
+    public void countDown() {
+        CountDownLatch l = latch;
+        if (l != null) {
+            l.countDown();
+        }
+    }
+
+    public void setLatch(CountDownLatch latch) {
+        this.latch = latch;
+    }
+
+    public long getInvocations() {
+        return invocations;
+    }
+
+    /**
+     * @param name
+     *            the name of a method of this class
+     * @return the {@link Method}
+     */
+    public static Method method(String name) {
+        for (Method method : BenchmarkTarget.class.getMethods()) {
+            if (method.getName().equals(name)) {
+                return method;
+            }
+        }
+        throw new IllegalArgumentException("No such method: " + name);
+    }
+}
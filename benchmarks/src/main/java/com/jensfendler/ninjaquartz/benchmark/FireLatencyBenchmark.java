@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.benchmark;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.TriggerBuilder;
+
+import com.jensfendler.ninjaquartz.invoker.ArgumentBindingPlan;
+import com.jensfendler.ninjaquartz.invoker.MethodHandleInvokerFactory;
+import com.jensfendler.ninjaquartz.job.AbstractNinjaQuartzJob;
+import com.jensfendler.ninjaquartz.job.ConcurrentNinjaQuartzJob;
+import com.jensfendler.ninjaquartz.job.NinjaQuartzMethodTask;
+
+/**
+ * Measures the end-to-end latency from scheduling an immediate trigger in a
+ * started scheduler (using a RAMJobStore) until the scheduled method runs.
+ * 
+ * @author Jens Fendler
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FireLatencyBenchmark {
+
+    private Scheduler scheduler;
+
+    private BenchmarkTarget target;
+
+    private JobKey jobKey;
+
+    @Setup
+    public void setup() throws Exception {
+        target = new BenchmarkTarget();
+        Method method = BenchmarkTarget.method("countDown");
+        NinjaQuartzMethodTask task = new NinjaQuartzMethodTask("countDown", method,
+                new MethodHandleInvokerFactory().createInvoker(target, method),
+                ArgumentBindingPlan.create(method, BenchmarkSupport.createInjector()));
+
+        jobKey = JobKey.jobKey("countDown", "benchmark");
+        JobDetail jobDetail = JobBuilder.newJob(ConcurrentNinjaQuartzJob.class).withIdentity(jobKey).storeDurably()
+                .build();
+        jobDetail.getJobDataMap().put(AbstractNinjaQuartzJob.JOB_TASK_KEY, task);
+        jobDetail.getJobDataMap().put(AbstractNinjaQuartzJob.JOB_FORCE_KEEP, true);
+
+        scheduler = BenchmarkSupport.createRamScheduler("FireLatencyBenchmark", 4);
+        scheduler.addJob(jobDetail, false);
+        scheduler.start();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        scheduler.shutdown(true);
+    }
+
+    @Benchmark
+    public void triggerToMethod() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        target.setLatch(latch);
+        scheduler.scheduleJob(TriggerBuilder.newTrigger().forJob(jobKey).startNow().build());
+        if (!latch.await(10, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Scheduled method did not run within 10 seconds.");
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.benchmark;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+
+import com.jensfendler.ninjaquartz.invoker.ArgumentBindingPlan;
+import com.jensfendler.ninjaquartz.invoker.MethodHandleInvokerFactory;
+import com.jensfendler.ninjaquartz.job.AbstractNinjaQuartzJob;
+import com.jensfendler.ninjaquartz.job.NinjaQuartzMethodTask;
+import com.jensfendler.ninjaquartz.job.NonConcurrentNinjaQuartzJob;
+
+/**
+ * Measures {@link AbstractNinjaQuartzJob#execute(JobExecutionContext)}, i.e.
+ * the job wrapper's overhead around the scheduled method (which does nothing
+ * in this benchmark).
+ * 
+ * @author Jens Fendler
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JobExecutionBenchmark {
+
+    private AbstractNinjaQuartzJob job;
+
+    private JobExecutionContext context;
+
+    @Setup
+    public void setup() {
+        Method method = BenchmarkTarget.method("noArguments");
+        NinjaQuartzMethodTask task = new NinjaQuartzMethodTask("noArguments", method,
+                new MethodHandleInvokerFactory().createInvoker(new BenchmarkTarget(), method),
+                ArgumentBindingPlan.create(method, BenchmarkSupport.createInjector()));
+
+        JobDetail jobDetail = JobBuilder.newJob(NonConcurrentNinjaQuartzJob.class).withIdentity("benchmark")
+                .withDescription("Job Execution Benchmark").build();
+        jobDetail.getJobDataMap().put(AbstractNinjaQuartzJob.JOB_TASK_KEY, task);
+        jobDetail.getJobDataMap().put(AbstractNinjaQuartzJob.JOB_REMOVE_ON_RUNTIME_ERROR, false);
+        jobDetail.getJobDataMap().put(AbstractNinjaQuartzJob.JOB_FORCE_KEEP, false);
+
+        job = new NonConcurrentNinjaQuartzJob();
+        context = BenchmarkSupport.createContext(null, jobDetail, job);
+    }
+
+    @Benchmark
+    public void execute() throws Exception {
+        job.execute(context);
+    }
+
+}
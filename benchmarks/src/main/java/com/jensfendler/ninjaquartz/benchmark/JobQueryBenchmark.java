@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.benchmark;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.Scheduler;
+import org.quartz.TriggerBuilder;
+import org.quartz.impl.StdSchedulerFactory;
+
+import com.google.inject.util.Providers;
+import com.jensfendler.ninjaquartz.NinjaQuartzUtil;
+import com.jensfendler.ninjaquartz.NinjaQuartzUtilImpl;
+import com.jensfendler.ninjaquartz.job.ConcurrentNinjaQuartzJob;
+import com.jensfendler.ninjaquartz.limit.CircuitBreakers;
+import com.jensfendler.ninjaquartz.metrics.JobMetricsRegistry;
+import com.jensfendler.ninjaquartz.registry.JobRegistry;
+
+/**
+ * Measures the {@link NinjaQuartzUtil} queries against a RAMJobStore holding
+ * thousands of jobs.
+ * 
+ * @author Jens Fendler
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JobQueryBenchmark {
+
+    /**
+     * The number of jobs per job group.
+     */
+    private static final int JOBS_PER_GROUP = 100;
+
+    @Param({ "1000", "10000" })
+    public int jobCount;
+
+    /**
+     * If true, queries are served from the {@link JobRegistry} snapshot,
+     * otherwise from the job store.
+     */
+    @Param({ "false", "true" })
+    public boolean cached;
+
+    private Scheduler scheduler;
+
+    private NinjaQuartzUtil quartzUtil;
+
+    private String lastJobName;
+
+    private String lastJobGroup;
+
+    @Setup
+    public void setup() throws Exception {
+        StdSchedulerFactory schedulerFactory = BenchmarkSupport.createRamSchedulerFactory("JobQueryBenchmark", 1);
+        scheduler = schedulerFactory.getScheduler();
+        for (int i = 0; i < jobCount; i++) {
+            lastJobName = "job" + i;
+            lastJobGroup = "group" + (i / JOBS_PER_GROUP);
+            JobDetail jobDetail = JobBuilder.newJob(ConcurrentNinjaQuartzJob.class)
+                    .withIdentity(lastJobName, lastJobGroup).build();
+            scheduler.scheduleJob(jobDetail, TriggerBuilder.newTrigger().withIdentity(lastJobName, lastJobGroup)
+                    .withSchedule(CronScheduleBuilder.cronSchedule("0 0 0 1 1 ? 2099")).build());
+        }
+        JobRegistry jobRegistry = new JobRegistry();
+        if (cached) {
+            jobRegistry.attach(scheduler);
+        }
+        quartzUtil = new NinjaQuartzUtilImpl(Providers.of(schedulerFactory), new JobMetricsRegistry(), jobRegistry,
+                new CircuitBreakers());
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        scheduler.shutdown();
+    }
+
+    @Benchmark
+    public Collection<JobDetail> getAllJobDetails() throws Exception {
+        return quartzUtil.getAllJobDetails();
+    }
+
+    @Benchmark
+    public JobDetail getJobDetail() throws Exception {
+        return quartzUtil.getJobDetail(lastJobName, lastJobGroup);
+    }
+
+    @Benchmark
+    public Object getTriggersOfJob() throws Exception {
+        return quartzUtil.getTriggersOfJob(lastJobName, lastJobGroup);
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.benchmark;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+
+import com.google.inject.Injector;
+import com.jensfendler.ninjaquartz.invoker.ArgumentBindingPlan;
+import com.jensfendler.ninjaquartz.invoker.MethodHandleInvokerFactory;
+import com.jensfendler.ninjaquartz.invoker.MethodInvokerFactory;
+import com.jensfendler.ninjaquartz.invoker.ReflectionInvokerFactory;
+import com.jensfendler.ninjaquartz.job.ConcurrentNinjaQuartzJob;
+import com.jensfendler.ninjaquartz.job.NinjaQuartzMethodTask;
+
+/**
+ * Measures the invocation of a scheduled method through the
+ * {@link NinjaQuartzMethodTask} created by the NinjaQuartzScheduleHelper, for
+ * each {@link MethodInvokerFactory} and different kinds of method parameters.
+ * 
+ * @author Jens Fendler
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskInvocationBenchmark {
+
+    @Param({ "methodHandle", "reflection" })
+    public String invokerFactory;
+
+    private NinjaQuartzMethodTask noArgumentsTask;
+
+    private NinjaQuartzMethodTask contextArgumentTask;
+
+    private NinjaQuartzMethodTask injectedArgumentsTask;
+
+    private JobExecutionContext context;
+
+    @Setup
+    public void setup() {
+        MethodInvokerFactory factory = "reflection".equals(invokerFactory) ? new ReflectionInvokerFactory()
+                : new MethodHandleInvokerFactory();
+        Injector injector = BenchmarkSupport.createInjector();
+        BenchmarkTarget target = new BenchmarkTarget();
+
+        noArgumentsTask = createTask(factory, injector, target, "noArguments");
+        contextArgumentTask = createTask(factory, injector, target, "contextArgument");
+        injectedArgumentsTask = createTask(factory, injector, target, "injectedArguments");
+
+        JobDetail jobDetail = JobBuilder.newJob(ConcurrentNinjaQuartzJob.class).withIdentity("benchmark").build();
+        context = BenchmarkSupport.createContext(null, jobDetail, new ConcurrentNinjaQuartzJob());
+    }
+
+    private static NinjaQuartzMethodTask createTask(MethodInvokerFactory factory, Injector injector,
+            BenchmarkTarget target, String methodName) {
+        Method method = BenchmarkTarget.method(methodName);
+        return new NinjaQuartzMethodTask(methodName, method, factory.createInvoker(target, method),
+                ArgumentBindingPlan.create(method, injector));
+    }
+
+    @Benchmark
+    public void noArguments() throws Exception {
+        noArgumentsTask.execute(context);
+    }
+
+    @Benchmark
+    public void contextArgument() throws Exception {
+        contextArgumentTask.execute(context);
+    }
+
+    @Benchmark
+    public void injectedArguments() throws Exception {
+        injectedArgumentsTask.execute(context);
+    }
+
+}
@@ -22,7 +22,13 @@ import org.slf4j.LoggerFactory;
 import com.google.inject.AbstractModule;
 import com.google.inject.Singleton;
 import com.google.inject.matcher.Matchers;
+import com.jensfendler.ninjaquartz.batch.WorkQueues;
+import com.jensfendler.ninjaquartz.limit.CircuitBreakers;
+import com.jensfendler.ninjaquartz.limit.ExecutionWatchdog;
+import com.jensfendler.ninjaquartz.limit.JobGroupLimiters;
+import com.jensfendler.ninjaquartz.metrics.JobMetricsRegistry;
 import com.jensfendler.ninjaquartz.provider.QuartzSchedulerFactoryProvider;
+import com.jensfendler.ninjaquartz.registry.JobRegistry;
 
 /**
  * @author Jens Fendler
@@ -32,6 +38,31 @@ public class NinjaQuartzModule extends AbstractModule {
 
     private static final Logger logger = LoggerFactory.getLogger(NinjaQuartzModule.class);
 
+    /**
+     * If true, only classes listed in the {@link ScheduledClassIndex} are
+     * checked for scheduled methods (if an index is available). Classes from
+     * jars compiled without the annotation processor are not scheduled then.
+     */
+    private final boolean useScheduledClassIndex;
+
+    /**
+     * Create the module, checking all types encountered by Guice for scheduled
+     * methods.
+     */
+    public NinjaQuartzModule() {
+        this(false);
+    }
+
+    /**
+     * @param useScheduledClassIndex
+     *            if true, only the classes listed in the
+     *            {@link ScheduledClassIndex} (if available) are checked for
+     *            scheduled methods, instead of all types encountered by Guice
+     */
+    public NinjaQuartzModule(boolean useScheduledClassIndex) {
+        this.useScheduledClassIndex = useScheduledClassIndex;
+    }
+
     /**
      * @see com.google.inject.AbstractModule#configure()
      */
@@ -47,12 +78,38 @@ public class NinjaQuartzModule extends AbstractModule {
         NinjaQuartzScheduleHelper scheduleHelper = new NinjaQuartzScheduleHelper();
         requestInjection(scheduleHelper);
 
-        bindListener(Matchers.any(), new NinjaQuartzTypeListener(scheduleHelper));
+        ScheduledClassIndex scheduledClassIndex = useScheduledClassIndex ? loadScheduledClassIndex() : null;
+        if (scheduledClassIndex != null) {
+            logger.info("Using scheduled class index with {} classes.", scheduledClassIndex.getClassNames().size());
+            bindListener(scheduledClassIndex, new NinjaQuartzTypeListener(scheduleHelper));
+        } else {
+            logger.info("No scheduled class index used. Checking all types for scheduled methods.");
+            bindListener(Matchers.any(), new NinjaQuartzTypeListener(scheduleHelper));
+        }
         bind(NinjaQuartzScheduleHelper.class).toInstance(scheduleHelper);
 
         bind(NinjaQuartzUtil.class).to(NinjaQuartzUtilImpl.class);
+        bind(NinjaQuartzScheduling.class).to(NinjaQuartzSchedulingImpl.class);
+        bind(JobMetricsRegistry.class);
+        bind(JobRegistry.class);
+        bind(JobGroupLimiters.class);
+        bind(CircuitBreakers.class);
+        bind(ExecutionWatchdog.class);
+        bind(WorkQueues.class);
 
         logger.info("NinjaQuartz Module initialisation completed.");
     }
 
+    /**
+     * @return the {@link ScheduledClassIndex} generated at compile time, or
+     *         null if none is available
+     */
+    private ScheduledClassIndex loadScheduledClassIndex() {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        if (classLoader == null) {
+            classLoader = NinjaQuartzModule.class.getClassLoader();
+        }
+        return ScheduledClassIndex.load(classLoader);
+    }
+
 }
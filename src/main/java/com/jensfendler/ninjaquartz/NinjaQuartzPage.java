@@ -0,0 +1,119 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.util.Collections;
+import java.util.List;
+
+import org.quartz.utils.Key;
+
+/**
+ * A page of the results of a paged {@link NinjaQuartzUtil} query, with the
+ * cursor to pass to the query to get the next page.
+ * 
+ * @author Jens Fendler
+ *
+ * @param <T>
+ *            the type of the results
+ */
+public final class NinjaQuartzPage<T> {
+
+    private static final String CHARSET = "UTF-8";
+
+    private final List<T> items;
+
+    private final String nextCursor;
+
+    /**
+     * @param items
+     *            the results on this page
+     * @param nextCursor
+     *            the cursor of the next page, or null if this is the last page
+     */
+    public NinjaQuartzPage(List<T> items, String nextCursor) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * @return the (unmodifiable) results on this page
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return the (opaque) cursor to get the next page with, or null if this
+     *         is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * @return true if there are more results after this page
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    /**
+     * Encode the position after the given key of a scheduler as a cursor.
+     * 
+     * @param schedulerName
+     *            the name of the scheduler
+     * @param key
+     *            the last key on a page
+     * @return the cursor
+     */
+    static String encodeCursor(String schedulerName, Key<?> key) {
+        try {
+            return URLEncoder.encode(schedulerName, CHARSET) + ":" + URLEncoder.encode(key.getGroup(), CHARSET) + ":"
+                    + URLEncoder.encode(key.getName(), CHARSET);
+        } catch (UnsupportedEncodingException e) {
+            // UTF-8 is always supported
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Decode a cursor created by {@link #encodeCursor(String, Key)}.
+     * 
+     * @param cursor
+     *            the cursor
+     * @return the scheduler name, key group and key name of the cursor
+     * @throws IllegalArgumentException
+     *             if the cursor is invalid
+     */
+    static String[] decodeCursor(String cursor) {
+        String[] parts = cursor.split(":", -1);
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        try {
+            for (int i = 0; i < parts.length; i++) {
+                parts[i] = URLDecoder.decode(parts[i], CHARSET);
+            }
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        return parts;
+    }
+
+}
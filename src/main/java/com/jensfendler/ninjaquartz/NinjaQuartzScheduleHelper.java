@@ -15,46 +15,102 @@
  */
 package com.jensfendler.ninjaquartz;
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.annotation.Annotation;
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.Method;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import org.quartz.CalendarIntervalScheduleBuilder;
+import org.quartz.CalendarIntervalTrigger;
 import org.quartz.CronScheduleBuilder;
 import org.quartz.CronTrigger;
+import org.quartz.DailyTimeIntervalScheduleBuilder;
+import org.quartz.DailyTimeIntervalTrigger;
 import org.quartz.JobBuilder;
 import org.quartz.JobDetail;
-import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
 import org.quartz.ObjectAlreadyExistsException;
+import org.quartz.ScheduleBuilder;
 import org.quartz.Scheduler;
 import org.quartz.SchedulerException;
 import org.quartz.SchedulerFactory;
+import org.quartz.SimpleScheduleBuilder;
+import org.quartz.SimpleTrigger;
+import org.quartz.TimeOfDay;
+import org.quartz.Trigger;
 import org.quartz.TriggerBuilder;
+import org.quartz.TriggerKey;
+import org.quartz.impl.StdSchedulerFactory;
+import org.quartz.impl.matchers.GroupMatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.inject.ConfigurationException;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
+import com.jensfendler.ninjaquartz.annotations.Batch;
 import com.jensfendler.ninjaquartz.annotations.QuartzSchedule;
+import com.jensfendler.ninjaquartz.annotations.QuartzSchedules;
+import com.jensfendler.ninjaquartz.annotations.TriggerType;
+import com.jensfendler.ninjaquartz.batch.WorkQueue;
+import com.jensfendler.ninjaquartz.batch.WorkQueues;
+import com.jensfendler.ninjaquartz.cluster.ClusterMembership;
+import com.jensfendler.ninjaquartz.cluster.ConsistentHashRing;
+import com.jensfendler.ninjaquartz.cluster.JdbcClusterMembership;
+import com.jensfendler.ninjaquartz.cluster.JobPartitioner;
+import com.jensfendler.ninjaquartz.cluster.StaticClusterMembership;
+import com.jensfendler.ninjaquartz.invoker.ArgumentBindingPlan;
+import com.jensfendler.ninjaquartz.invoker.MethodHandleInvokerFactory;
+import com.jensfendler.ninjaquartz.invoker.MethodInvoker;
+import com.jensfendler.ninjaquartz.invoker.MethodInvokerFactory;
 import com.jensfendler.ninjaquartz.job.NinjaQuartzTask;
+import com.jensfendler.ninjaquartz.job.RetryPolicy;
 import com.jensfendler.ninjaquartz.job.AbstractNinjaQuartzJob;
-import com.jensfendler.ninjaquartz.job.AbstractNinjaQuartzTaskImpl;
 import com.jensfendler.ninjaquartz.job.ConcurrentNinjaQuartzJob;
 import com.jensfendler.ninjaquartz.job.ConcurrentStatefulNinjaQuartzJob;
+import com.jensfendler.ninjaquartz.job.MethodReferenceResolver;
+import com.jensfendler.ninjaquartz.job.MethodReferenceTask;
+import com.jensfendler.ninjaquartz.job.NinjaQuartzMethodTask;
 import com.jensfendler.ninjaquartz.job.NonConcurrentNinjaQuartzJob;
 import com.jensfendler.ninjaquartz.job.NonConcurrentStatefulNinjaQuartzJob;
+import com.jensfendler.ninjaquartz.limit.CircuitBreakers;
+import com.jensfendler.ninjaquartz.limit.ExecutionWatchdog;
+import com.jensfendler.ninjaquartz.limit.JobGroupLimiters;
+import com.jensfendler.ninjaquartz.metrics.JobMetricsRegistry;
+import com.jensfendler.ninjaquartz.metrics.MisfireListener;
+import com.jensfendler.ninjaquartz.registry.JobRegistry;
 
+import ninja.lifecycle.Dispose;
+import ninja.lifecycle.Start;
+import ninja.utils.NinjaMode;
 import ninja.utils.NinjaProperties;
+import ninja.utils.NinjaPropertiesImpl;
 
 /**
  * @author Jens Fendler
  *
  */
 @Singleton
-public class NinjaQuartzScheduleHelper {
+public class NinjaQuartzScheduleHelper implements MethodReferenceResolver {
 
     protected static final Logger logger = LoggerFactory.getLogger(NinjaQuartzModule.class);
 
@@ -66,12 +122,12 @@ public class NinjaQuartzScheduleHelper {
     public static final String TRIGGER_DATETIME_FORMAT = "yyyyMMddHHmmSS";
 
     /**
-     * Name prefix for {@link CronTrigger}s.
+     * Name prefix for triggers (of all types, not only {@link CronTrigger}s).
      */
     protected static final String CRON_TRIGGER_NAME_PREFIX = "nqCT-";
 
     /**
-     * Name prefix for {@link CronTrigger} groups.
+     * Name prefix for trigger groups.
      */
     protected static final String CRON_TRIGGER_GROUP_PREFIX = "nqCTG-";
 
@@ -92,6 +148,105 @@ public class NinjaQuartzScheduleHelper {
      */
     protected static final String CONF_KEY_QUARTZ_PROPERTIES = "quartz.properties";
 
+    /**
+     * The key name of the property in application.conf which may contain the
+     * class name of the {@link MethodInvokerFactory} to use for invoking
+     * scheduled methods.
+     */
+    protected static final String CONF_KEY_INVOKER_FACTORY = "quartz.invokerFactory";
+
+    /**
+     * The key name of the property in application.conf which specifies if
+     * jobs and triggers already stored in the scheduler (e.g. in a JDBC job
+     * store) should be replaced by the scheduled methods. Defaults to false,
+     * i.e. existing jobs are kept.
+     */
+    protected static final String CONF_KEY_REPLACE_EXISTING_JOBS = "quartz.replaceExistingJobs";
+
+    /**
+     * The key name of the property in application.conf which enables the
+     * partitioning of scheduled jobs across the nodes of a cluster (see
+     * {@link JobPartitioner}). Defaults to false.
+     */
+    protected static final String CONF_KEY_PARTITION_ENABLED = "quartz.partition.enabled";
+
+    /**
+     * The key name of the property in application.conf which contains the id
+     * of this node. Defaults to the name of the JVM (i.e. pid@hostname).
+     */
+    protected static final String CONF_KEY_PARTITION_NODE_ID = "quartz.partition.nodeId";
+
+    /**
+     * The key name of the property in application.conf which contains a
+     * (comma-separated) static list of the ids of all nodes.
+     */
+    protected static final String CONF_KEY_PARTITION_NODES = "quartz.partition.nodes";
+
+    /**
+     * The key name of the property in application.conf which contains the
+     * name of the Quartz data source of the heartbeat table used to discover
+     * the live nodes. If set, {@link #CONF_KEY_PARTITION_NODES} is ignored.
+     */
+    protected static final String CONF_KEY_PARTITION_DATA_SOURCE = "quartz.partition.dataSource";
+
+    /**
+     * The key name of the property in application.conf which contains the
+     * name of the heartbeat table.
+     */
+    protected static final String CONF_KEY_PARTITION_TABLE = "quartz.partition.table";
+
+    /**
+     * The key name of the property in application.conf which contains the
+     * interval (in seconds) of heartbeats and rebalancing checks. Nodes are
+     * considered to have left after three intervals without a heartbeat.
+     */
+    protected static final String CONF_KEY_PARTITION_INTERVAL = "quartz.partition.interval";
+
+    /**
+     * The default interval (in seconds) of partition heartbeats.
+     */
+    protected static final int DEFAULT_PARTITION_INTERVAL = 10;
+
+    /**
+     * The key name of the property in application.conf which contains the
+     * interval (in seconds) in which the configuration is re-read to
+     * reschedule jobs whose cron schedule (from application.conf) has changed.
+     * Defaults to 0, i.e. the configuration is only re-read on calls of
+     * {@link NinjaQuartzScheduling#reloadSchedules()}.
+     */
+    protected static final String CONF_KEY_RELOAD_INTERVAL = "quartz.reload.interval";
+
+    /**
+     * The prefix of the keys of the properties in application.conf which
+     * configure named schedulers (see {@link QuartzSchedule#scheduler()}). The
+     * properties <code>quartz.schedulers.NAME.*</code> are passed to the
+     * scheduler NAME as <code>org.quartz.*</code>, e.g.
+     * <code>quartz.schedulers.batch.threadPool.threadCount = 4</code>.
+     */
+    protected static final String CONF_KEY_SCHEDULERS = "quartz.schedulers";
+
+    /**
+     * The default number of threads of a named scheduler's thread pool (if
+     * neither the thread pool class nor the thread count are configured).
+     */
+    protected static final int DEFAULT_SCHEDULER_THREAD_COUNT = 10;
+
+    /**
+     * The key of the helper in the scheduler context (for the
+     * {@link ScheduleReloadJob}).
+     */
+    static final String SCHEDULER_CONTEXT_KEY = "nqScheduleHelper";
+
+    /**
+     * The key of the {@link ScheduleReloadJob}.
+     */
+    static final JobKey RELOAD_JOB_KEY = JobKey.jobKey("nqScheduleReload", "nqSystem");
+
+    /**
+     * Part of the name of the subclasses Guice creates for AOP.
+     */
+    private static final String GUICE_ENHANCER_MARKER = "$$EnhancerByGuice$$";
+
     @Inject
     protected Provider<SchedulerFactory> schedulerFactoryProvider;
 
@@ -101,12 +256,96 @@ public class NinjaQuartzScheduleHelper {
     @Inject
     protected Injector injector;
 
+    @Inject
+    protected JobMetricsRegistry jobMetricsRegistry;
+
+    @Inject
+    protected JobRegistry jobRegistry;
+
+    @Inject
+    protected JobGroupLimiters jobGroupLimiters;
+
+    @Inject
+    protected CircuitBreakers circuitBreakers;
+
+    @Inject
+    protected ExecutionWatchdog executionWatchdog;
+
+    @Inject
+    protected WorkQueues workQueues;
+
+    /**
+     * The {@link MethodInvokerFactory} to resolve scheduled methods with.
+     * Created on first use by {@link #getInvokerFactory()}.
+     */
+    protected MethodInvokerFactory invokerFactory;
+
     /**
      * If false, {@link #initialise()} will be called exactly once to read a
      * user-provided quartz.properties file.
      */
     protected static boolean initialised;
 
+    /**
+     * Jobs discovered before the application has started, to be scheduled in
+     * a single batch by {@link #start()}. Guarded by this.
+     */
+    private final List<PendingJob> pendingJobs = new ArrayList<PendingJob>();
+
+    /**
+     * True once {@link #start()} has been called. Guarded by this.
+     */
+    private boolean started;
+
+    /**
+     * The tasks resolved for {@link MethodReferenceTask}s (on this node).
+     */
+    private final ConcurrentMap<MethodReferenceTask, NinjaQuartzMethodTask> resolvedTasks = //
+            new ConcurrentHashMap<MethodReferenceTask, NinjaQuartzMethodTask>();
+
+    /**
+     * The triggers whose cron schedule is read from application.conf, by
+     * trigger key. Checked for changes by {@link #reloadSchedules()}.
+     */
+    private final ConcurrentMap<TriggerKey, ConfiguredTrigger> configuredTriggers = //
+            new ConcurrentHashMap<TriggerKey, ConfiguredTrigger>();
+
+    /**
+     * The {@link JobPartitioner} (if partitioning is enabled). Created on first
+     * use by {@link #getJobPartitioner()}.
+     */
+    private JobPartitioner jobPartitioner;
+
+    /**
+     * True once {@link #getJobPartitioner()} has been called.
+     */
+    private boolean jobPartitionerCreated;
+
+    /**
+     * True for all schedulers whose job store persists jobs, by scheduler
+     * name. Determined on first use by {@link #isPersistentJobStore(String)}.
+     */
+    private final ConcurrentMap<String, Boolean> persistentJobStores = new ConcurrentHashMap<String, Boolean>();
+
+    /**
+     * The named schedulers (see {@link QuartzSchedule#scheduler()}), created
+     * on first use by {@link #getScheduler(String)}. Guarded by itself.
+     */
+    private final Map<String, Scheduler> namedSchedulers = new HashMap<String, Scheduler>();
+
+    /**
+     * The names of the schedulers of all jobs scheduled by this helper, by job
+     * key.
+     */
+    private final ConcurrentMap<JobKey, String> jobSchedulers = new ConcurrentHashMap<JobKey, String>();
+
+    /**
+     * The name of the scheduler running the system jobs (schedule reloading
+     * and partition rebalancing), i.e. of the first scheduler used. Guarded by
+     * this.
+     */
+    private String systemScheduler;
+
     /**
      * Instantiate the helper class, and require initialisation.
      */
@@ -133,9 +372,32 @@ public class NinjaQuartzScheduleHelper {
         initialised = true;
     }
 
+    /**
+     * Get the {@link MethodInvokerFactory} configured in application.conf (or
+     * the default {@link MethodHandleInvokerFactory}).
+     * 
+     * @return the {@link MethodInvokerFactory} to use
+     */
+    protected MethodInvokerFactory getInvokerFactory() {
+        if (invokerFactory == null) {
+            String factoryClassName = ninjaProperties.getWithDefault(CONF_KEY_INVOKER_FACTORY,
+                    MethodHandleInvokerFactory.class.getName());
+            try {
+                Class<?> factoryClass = Class.forName(factoryClassName);
+                invokerFactory = (MethodInvokerFactory) injector.getInstance(factoryClass);
+                logger.info("Using MethodInvokerFactory {}.", factoryClassName);
+            } catch (ClassNotFoundException e) {
+                throw new RuntimeException("MethodInvokerFactory class '" + factoryClassName + "' not found.", e);
+            }
+        }
+        return invokerFactory;
+    }
+
     /**
      * Scans all methods of the given object's class for NinjaQuartz scheduler
      * annotations, and schedules these for execution using the given object.
+     * Before the application has started, the jobs are only collected, and
+     * scheduled together with all other jobs by {@link #start()}.
      * 
      * @param target
      *            the target instance (of the class containing the scheduled
@@ -148,54 +410,585 @@ public class NinjaQuartzScheduleHelper {
 
         logger.debug("Scheduling target object of type {}", target.getClass().getName());
 
+        List<PendingJob> jobs = new ArrayList<PendingJob>();
         Class<?> clazz = target.getClass();
         for (Method method : clazz.getMethods()) {
-            if (method.isAnnotationPresent(QuartzSchedule.class)) {
-                QuartzSchedule quartzSchedule = method.getAnnotation(QuartzSchedule.class);
-                scheduleMethod(target, method, quartzSchedule);
+            List<QuartzSchedule> quartzSchedules = getQuartzSchedules(method);
+            if (!quartzSchedules.isEmpty()) {
+                PendingJob job = createPendingJob(target, method, quartzSchedules);
+                if (job != null) {
+                    jobs.add(job);
+                }
             }
         }
+
+        synchronized (this) {
+            if (!started) {
+                pendingJobs.addAll(jobs);
+                return;
+            }
+        }
+        scheduleJobs(jobs);
     }
 
     /**
-     * Schedules execution of the given method using the given target instance,
-     * based on the given {@link QuartzSchedule}.
+     * Schedules all jobs discovered so far in a single batch (i.e. a single
+     * job store transaction), and starts the scheduler. Jobs discovered
+     * afterwards are scheduled immediately. This is called by Ninja when the
+     * application starts.
+     */
+    @Start(order = 90)
+    public void start() {
+        List<PendingJob> jobs;
+        synchronized (this) {
+            started = true;
+            jobs = new ArrayList<PendingJob>(pendingJobs);
+            pendingJobs.clear();
+        }
+        logger.debug("Scheduling {} jobs discovered during start-up.", jobs.size());
+        scheduleJobs(jobs);
+    }
+
+    /**
+     * Announces that this node leaves the cluster (if jobs are partitioned).
+     * This is called by Ninja when the application stops.
+     */
+    @Dispose(order = 10)
+    public void stop() {
+        JobPartitioner partitioner = getJobPartitioner();
+        if (partitioner != null) {
+            partitioner.leave();
+        }
+        synchronized (namedSchedulers) {
+            for (Map.Entry<String, Scheduler> entry : namedSchedulers.entrySet()) {
+                try {
+                    entry.getValue().shutdown();
+                } catch (SchedulerException e) {
+                    logger.warn("Failed to shut down scheduler '{}': {}", entry.getKey(), e.getMessage());
+                }
+            }
+            namedSchedulers.clear();
+        }
+        executionWatchdog.shutdown();
+    }
+
+    /**
+     * @param schedulerName
+     *            the name of a scheduler configured in application.conf, or
+     *            {@link QuartzSchedule#DEFAULT_SCHEDULER}
+     * @return the scheduler (created on first use)
+     * @throws SchedulerException
+     *             if the scheduler is not configured, or cannot be created
+     */
+    Scheduler getScheduler(String schedulerName) throws SchedulerException {
+        if (QuartzSchedule.DEFAULT_SCHEDULER.equals(schedulerName)) {
+            return schedulerFactoryProvider.get().getScheduler();
+        }
+        synchronized (namedSchedulers) {
+            Scheduler scheduler = namedSchedulers.get(schedulerName);
+            if (scheduler == null) {
+                scheduler = new StdSchedulerFactory(getSchedulerProperties(schedulerName)).getScheduler();
+                namedSchedulers.put(schedulerName, scheduler);
+                logger.info("Created scheduler '{}' with a thread pool of size {}.", schedulerName,
+                        scheduler.getMetaData().getThreadPoolSize());
+            }
+            return scheduler;
+        }
+    }
+
+    /**
+     * Reads the Quartz properties of a named scheduler from application.conf
+     * (see {@link #CONF_KEY_SCHEDULERS}).
+     * 
+     * @param schedulerName
+     *            the name of the scheduler
+     * @return the properties to initialise a {@link StdSchedulerFactory} with
+     * @throws SchedulerException
+     *             if the scheduler is not configured
+     */
+    protected Properties getSchedulerProperties(String schedulerName) throws SchedulerException {
+        String prefix = CONF_KEY_SCHEDULERS + "." + schedulerName + ".";
+        Properties allProperties = ninjaProperties.getAllCurrentNinjaProperties();
+        Properties properties = new Properties();
+        for (String key : allProperties.stringPropertyNames()) {
+            if (key.startsWith(prefix)) {
+                properties.setProperty("org.quartz." + key.substring(prefix.length()), allProperties.getProperty(key));
+            }
+        }
+        if (properties.isEmpty()) {
+            throw new SchedulerException(
+                    "Scheduler '" + schedulerName + "' is not configured. Set " + prefix + "* in application.conf.");
+        }
+
+        if (!properties.containsKey(StdSchedulerFactory.PROP_SCHED_INSTANCE_NAME)) {
+            properties.setProperty(StdSchedulerFactory.PROP_SCHED_INSTANCE_NAME, schedulerName);
+        }
+        if (!properties.containsKey(StdSchedulerFactory.PROP_THREAD_POOL_CLASS)
+                && !properties.containsKey(StdSchedulerFactory.PROP_THREAD_POOL_PREFIX + ".threadCount")) {
+            properties.setProperty(StdSchedulerFactory.PROP_THREAD_POOL_PREFIX + ".threadCount",
+                    Integer.toString(DEFAULT_SCHEDULER_THREAD_COUNT));
+        }
+        return properties;
+    }
+
+    /**
+     * @param method
+     * @return the {@link QuartzSchedule} annotations of the method (either a
+     *         single one, or those in a {@link QuartzSchedules} container), or
+     *         an empty list if the method is not scheduled
+     */
+    static List<QuartzSchedule> getQuartzSchedules(Method method) {
+        List<QuartzSchedule> quartzSchedules = new ArrayList<QuartzSchedule>();
+        QuartzSchedule quartzSchedule = method.getAnnotation(QuartzSchedule.class);
+        if (quartzSchedule != null) {
+            quartzSchedules.add(quartzSchedule);
+        }
+        QuartzSchedules container = method.getAnnotation(QuartzSchedules.class);
+        if (container != null) {
+            quartzSchedules.addAll(Arrays.asList(container.value()));
+        }
+        return quartzSchedules;
+    }
+
+    /**
+     * @param method
+     *            a scheduled method
+     * @return the name of the method to use in default job and trigger names.
+     *         If other methods of the same name are scheduled in the same
+     *         class, the parameter types are appended to keep the names
+     *         unique.
+     */
+    static String getScheduledMethodName(Method method) {
+        for (Method other : method.getDeclaringClass().getMethods()) {
+            if (other.getName().equals(method.getName()) && !other.equals(method) && !other.isBridge()
+                    && !getQuartzSchedules(other).isEmpty()) {
+                StringBuilder sb = new StringBuilder(method.getName()).append('(');
+                Class<?>[] parameterTypes = method.getParameterTypes();
+                for (int i = 0; i < parameterTypes.length; i++) {
+                    if (i > 0) {
+                        sb.append(',');
+                    }
+                    sb.append(parameterTypes[i].getSimpleName());
+                }
+                return sb.append(')').toString();
+            }
+        }
+        return method.getName();
+    }
+
+    /**
+     * Creates the job and triggers to schedule execution of the given method
+     * using the given target instance, based on the given
+     * {@link QuartzSchedule}s. The job is created from the first
+     * {@link QuartzSchedule}, and a trigger from each of them.
      * 
      * @param target
      * @param method
-     * @param quartzSchedule
+     * @param quartzSchedules
+     * @return the job to schedule, or null if it could not be created
      */
-    private void scheduleMethod(Object target, Method method, QuartzSchedule quartzSchedule) {
+    private PendingJob createPendingJob(Object target, Method method, List<QuartzSchedule> quartzSchedules) {
         logger.debug("Scheduling method {} from class {}...", method.getName(), target.getClass().getName());
 
-        JobDetail jobDetail = createJobDetailToSchedule(target, method, quartzSchedule);
+        JobDetail jobDetail = createJobDetailToSchedule(target, method, quartzSchedules.get(0));
         if (jobDetail == null) {
             logger.error("Could not create Quartz job. Not scheduling {}.{}.", method.getDeclaringClass().getName(),
                     method.getName());
-            return;
+            return null;
         }
 
-        CronTrigger cronTrigger = createCronTrigger(method, quartzSchedule);
-        if (cronTrigger == null) {
-            logger.error("Could not create Quartz trigger. Not scheduling {}.{}.", method.getDeclaringClass().getName(),
-                    method.getName());
+        List<Trigger> triggers = new ArrayList<Trigger>(quartzSchedules.size());
+        for (int i = 0; i < quartzSchedules.size(); i++) {
+            Trigger trigger = createTrigger(method, quartzSchedules.get(i), i, ninjaProperties);
+            if (trigger == null) {
+                logger.error("Could not create Quartz trigger. Not scheduling {}.{}.",
+                        method.getDeclaringClass().getName(), method.getName());
+                return null;
+            }
+            triggers.add(trigger);
+        }
+
+        setFlushActions(method, jobDetail.getKey(), quartzSchedules.get(0).scheduler());
+        return new PendingJob(method, quartzSchedules, jobDetail, triggers);
+    }
+
+    /**
+     * Fire the job of a method early when the {@link WorkQueue} of one of its
+     * {@link Batch} parameters reaches the parameter's
+     * {@link Batch#flushAt()} threshold.
+     * 
+     * @param method
+     *            the scheduled method
+     * @param jobKey
+     *            the key of the method's job
+     * @param schedulerName
+     *            the name of the scheduler of the job
+     */
+    private void setFlushActions(Method method, final JobKey jobKey, final String schedulerName) {
+        for (Annotation[] parameterAnnotations : method.getParameterAnnotations()) {
+            for (Annotation annotation : parameterAnnotations) {
+                if (!(annotation instanceof Batch) || (((Batch) annotation).flushAt() <= 0)) {
+                    continue;
+                }
+                Batch batch = (Batch) annotation;
+                workQueues.get(batch.value()).setFlushAction(batch.flushAt(), new Runnable() {
+                    public void run() {
+                        try {
+                            getScheduler(schedulerName).triggerJob(jobKey);
+                        } catch (SchedulerException e) {
+                            // e.g. not scheduled yet, or owned by another node
+                            logger.debug("Cannot fire job {} early: {}", jobKey, e.getMessage());
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Schedules the given jobs using a single call of
+     * {@link Scheduler#scheduleJobs(Map, boolean)}.
+     * 
+     * @param jobs
+     *            the jobs to schedule
+     */
+    private void scheduleJobs(List<PendingJob> jobs) {
+        if (jobs.isEmpty()) {
             return;
         }
 
+        boolean replace = ninjaProperties.getBooleanWithDefault(CONF_KEY_REPLACE_EXISTING_JOBS, false);
         try {
-            Scheduler scheduler = createScheduler(method, quartzSchedule);
-            scheduler.scheduleJob(jobDetail, cronTrigger);
-            logger.info("Scheduled {}::{} with cron schedule '{}'", method.getDeclaringClass().getName(),
-                    method.getName(), cronTrigger.getCronExpression());
+            storeJobs(jobs, replace);
         } catch (SchedulerException e) {
-            if (e instanceof ObjectAlreadyExistsException) {
-                // for some reason we're trying to schedule the same method
-                // multiple times. not to worry - unless the task name/group is
-                // the same
-                logger.debug("Not scheduling " + method.getDeclaringClass().getName() + "." + method.getName()
-                        + " twice: {}", e.getMessage());
+            logger.error("Failed to schedule " + jobs.size() + " jobs.", e);
+        }
+    }
+
+    /**
+     * Schedules the given method once for each of the given schedules (e.g.
+     * {@link QuartzScheduleSpec}s), replacing existing jobs of the same keys.
+     * The jobs are stored using a single call of
+     * {@link Scheduler#scheduleJobs(Map, boolean)}. Used by
+     * {@link NinjaQuartzScheduling}.
+     * 
+     * @param target
+     *            the target instance to invoke the method on
+     * @param method
+     *            the method to schedule
+     * @param quartzSchedules
+     *            the schedules
+     * @return the keys of the scheduled jobs
+     * @throws IllegalArgumentException
+     *             if a job or trigger cannot be created for any of the
+     *             schedules
+     * @throws SchedulerException
+     *             if the jobs could not be stored
+     */
+    List<JobKey> scheduleMethod(Object target, Method method, Collection<? extends QuartzSchedule> quartzSchedules)
+            throws SchedulerException {
+        if (!initialised) {
+            initialise();
+        }
+
+        List<PendingJob> jobs = new ArrayList<PendingJob>(quartzSchedules.size());
+        for (QuartzSchedule quartzSchedule : quartzSchedules) {
+            PendingJob job = createPendingJob(target, method, Collections.singletonList(quartzSchedule));
+            if (job == null) {
+                throw new IllegalArgumentException("Cannot schedule " + method.getDeclaringClass().getName() + "."
+                        + method.getName() + " with " + quartzSchedule + ". See the log for details.");
+            }
+            jobs.add(job);
+        }
+        if (jobs.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<JobKey>(storeJobs(jobs, true));
+    }
+
+    /**
+     * Deletes the given jobs (and their triggers) using a single call of
+     * {@link Scheduler#deleteJobs(List)}, and discards their metrics. Used by
+     * {@link NinjaQuartzScheduling}.
+     * 
+     * @param jobKeys
+     *            the keys of the jobs to delete
+     * @return true if all jobs were found and deleted
+     * @throws SchedulerException
+     *             if the jobs could not be deleted
+     */
+    boolean unscheduleJobs(Collection<JobKey> jobKeys) throws SchedulerException {
+        if (jobKeys.isEmpty()) {
+            return true;
+        }
+
+        JobPartitioner partitioner = getJobPartitioner();
+        Set<String> taskNames = new HashSet<String>();
+        for (JobKey jobKey : jobKeys) {
+            if (partitioner != null) {
+                partitioner.unregister(jobKey);
+            }
+            taskNames.add(jobKey.getName() + "/" + jobKey.getGroup());
+        }
+
+        // delete the jobs of each scheduler in a single call
+        Map<String, List<JobKey>> jobKeysBySchedulerName = new LinkedHashMap<String, List<JobKey>>();
+        for (JobKey jobKey : jobKeys) {
+            String schedulerName = jobSchedulers.remove(jobKey);
+            if (schedulerName == null) {
+                schedulerName = QuartzSchedule.DEFAULT_SCHEDULER;
+            }
+            List<JobKey> schedulerJobKeys = jobKeysBySchedulerName.get(schedulerName);
+            if (schedulerJobKeys == null) {
+                schedulerJobKeys = new ArrayList<JobKey>();
+                jobKeysBySchedulerName.put(schedulerName, schedulerJobKeys);
+            }
+            schedulerJobKeys.add(jobKey);
+        }
+        boolean deleted = true;
+        for (Map.Entry<String, List<JobKey>> entry : jobKeysBySchedulerName.entrySet()) {
+            deleted &= getScheduler(entry.getKey()).deleteJobs(entry.getValue());
+        }
+
+        for (JobKey jobKey : jobKeys) {
+            jobMetricsRegistry.remove(jobKey);
+            circuitBreakers.remove(jobKey);
+        }
+        Iterator<ConfiguredTrigger> configured = configuredTriggers.values().iterator();
+        while (configured.hasNext()) {
+            if (jobKeys.contains(configured.next().job.jobDetail.getKey())) {
+                configured.remove();
+            }
+        }
+        Iterator<MethodReferenceTask> it = resolvedTasks.keySet().iterator();
+        while (it.hasNext()) {
+            if (taskNames.contains(it.next().getTaskName())) {
+                it.remove();
+            }
+        }
+        logger.info("Unscheduled {} jobs.", jobKeys.size());
+        return deleted;
+    }
+
+    /**
+     * Re-reads application.conf (and the external configuration file, if
+     * any), and reschedules the jobs whose cron schedule (read from
+     * application.conf) has changed since it was scheduled or last reloaded.
+     * Triggers whose schedule has not changed are not touched.
+     * 
+     * @return the number of rescheduled triggers
+     * @throws SchedulerException
+     *             if a trigger could not be rescheduled
+     */
+    synchronized int reloadSchedules() throws SchedulerException {
+        if (configuredTriggers.isEmpty()) {
+            return 0;
+        }
+        NinjaProperties properties = loadNinjaProperties();
+        if (properties == null) {
+            return 0;
+        }
+
+        JobPartitioner partitioner = getJobPartitioner();
+        int rescheduled = 0;
+        for (ConfiguredTrigger configured : configuredTriggers.values()) {
+            PendingJob job = configured.job;
+            QuartzSchedule quartzSchedule = job.quartzSchedules.get(configured.index);
+            String cronSchedule = properties.get(quartzSchedule.cronSchedule());
+            if ((cronSchedule == null) || cronSchedule.equals(configured.trigger.getCronExpression())) {
+                continue;
+            }
+            CronTrigger trigger = (CronTrigger) createTrigger(job.method, quartzSchedule, configured.index,
+                    properties);
+            if (trigger == null) {
+                // invalid (and logged). keep the current schedule.
+                continue;
+            }
+            if (partitioner != null) {
+                partitioner.updateTrigger(job.jobDetail.getKey(), trigger);
+            }
+            // the job may have been removed, or be owned by another node
+            Scheduler scheduler = getScheduler(job.quartzSchedule.scheduler());
+            if (scheduler.checkExists(trigger.getKey())) {
+                scheduler.rescheduleJob(trigger.getKey(), trigger);
+                rescheduled++;
+            }
+            logger.info("Changed cron schedule of {}::{} from '{}' to '{}'", job.method.getDeclaringClass().getName(),
+                    job.method.getName(), configured.trigger.getCronExpression(), cronSchedule);
+            configured.trigger = trigger;
+        }
+        return rescheduled;
+    }
+
+    /**
+     * Reads the current configuration (in the mode of the application).
+     * 
+     * @return the {@link NinjaProperties}, or null if they cannot be read
+     */
+    protected NinjaProperties loadNinjaProperties() {
+        NinjaMode mode = ninjaProperties.isProd() ? NinjaMode.prod
+                : (ninjaProperties.isDev() ? NinjaMode.dev : NinjaMode.test);
+        try {
+            return new NinjaPropertiesImpl(mode);
+        } catch (RuntimeException e) {
+            logger.error("Failed to re-read the configuration. Not reloading schedules.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Stores the given jobs using a single call of
+     * {@link Scheduler#scheduleJobs(Map, boolean)}.
+     * 
+     * @param jobs
+     *            the jobs to schedule
+     * @param replace
+     *            true to replace existing jobs, false to keep them
+     * @return the keys of the jobs (including those owned by other nodes, if
+     *         jobs are partitioned)
+     * @throws SchedulerException
+     *             if the jobs could not be stored
+     */
+    private Set<JobKey> storeJobs(List<PendingJob> jobs, boolean replace) throws SchedulerException {
+        // the same method may have been discovered multiple times (e.g. for
+        // multiple instances of its class). only the first one is scheduled.
+        Map<JobKey, PendingJob> jobsByKey = new LinkedHashMap<JobKey, PendingJob>();
+        for (PendingJob job : jobs) {
+            if (jobsByKey.containsKey(job.jobDetail.getKey())) {
+                logger.debug("Not scheduling {}.{} twice.", job.method.getDeclaringClass().getName(),
+                        job.method.getName());
             } else {
-                logger.error("Failed to schedule " + method.getDeclaringClass().getName() + "." + method.getName(), e);
+                jobsByKey.put(job.jobDetail.getKey(), job);
+            }
+        }
+
+        Set<JobKey> jobKeys = new LinkedHashSet<JobKey>(jobsByKey.keySet());
+        for (PendingJob job : jobsByKey.values()) {
+            for (int i = 0; i < job.triggers.size(); i++) {
+                Trigger trigger = job.triggers.get(i);
+                if ((trigger instanceof CronTrigger)
+                        && (ninjaProperties.get(job.quartzSchedules.get(i).cronSchedule()) != null)) {
+                    // cron schedule from application.conf, check for changes
+                    configuredTriggers.put(trigger.getKey(), new ConfiguredTrigger(job, i));
+                }
+            }
+        }
+
+        // the jobs of each scheduler are stored in a single call
+        Map<String, Map<JobKey, PendingJob>> jobsBySchedulerName = //
+                new LinkedHashMap<String, Map<JobKey, PendingJob>>();
+        for (PendingJob job : jobsByKey.values()) {
+            String schedulerName = job.quartzSchedule.scheduler();
+            Map<JobKey, PendingJob> schedulerJobs = jobsBySchedulerName.get(schedulerName);
+            if (schedulerJobs == null) {
+                schedulerJobs = new LinkedHashMap<JobKey, PendingJob>();
+                jobsBySchedulerName.put(schedulerName, schedulerJobs);
+            }
+            schedulerJobs.put(job.jobDetail.getKey(), job);
+        }
+
+        for (Map<JobKey, PendingJob> schedulerJobs : jobsBySchedulerName.values()) {
+            storeSchedulerJobs(schedulerJobs, replace);
+        }
+        return jobKeys;
+    }
+
+    /**
+     * Stores the given jobs of a single scheduler using a single call of
+     * {@link Scheduler#scheduleJobs(Map, boolean)}.
+     * 
+     * @param jobsByKey
+     *            the jobs to schedule (all with the same
+     *            {@link QuartzSchedule#scheduler()})
+     * @param replace
+     *            true to replace existing jobs, false to keep them
+     * @throws SchedulerException
+     *             if the jobs could not be stored
+     */
+    private void storeSchedulerJobs(Map<JobKey, PendingJob> jobsByKey, boolean replace) throws SchedulerException {
+        PendingJob first = jobsByKey.values().iterator().next();
+        Scheduler scheduler = createScheduler(first.method, first.quartzSchedule);
+        for (JobKey jobKey : jobsByKey.keySet()) {
+            jobSchedulers.put(jobKey, first.quartzSchedule.scheduler());
+        }
+
+        // with partitioning, only schedule the jobs owned by this node. all
+        // jobs are registered to be rebalanced when nodes join or leave.
+        JobPartitioner partitioner = getJobPartitioner();
+        if (partitioner != null) {
+            Iterator<PendingJob> it = jobsByKey.values().iterator();
+            while (it.hasNext()) {
+                PendingJob job = it.next();
+                partitioner.register(job.jobDetail, job.triggers, scheduler);
+                if (!partitioner.isLocal(job.jobDetail.getKey())) {
+                    logger.debug("Not scheduling {} on this node (owned by node {}).", job.jobDetail.getKey(),
+                            partitioner.getOwner(job.jobDetail.getKey()));
+                    it.remove();
+                }
+            }
+        }
+
+        try {
+            scheduler.scheduleJobs(toTriggersAndJobs(jobsByKey.values()), replace);
+        } catch (ObjectAlreadyExistsException e) {
+            // some of the jobs have been stored before (e.g. in a
+            // persistent job store). keep these, and schedule the rest.
+            logger.debug("Not scheduling existing jobs again: {}", e.getMessage());
+            removeExistingJobs(scheduler, jobsByKey);
+            scheduler.scheduleJobs(toTriggersAndJobs(jobsByKey.values()), false);
+        }
+
+        for (PendingJob job : jobsByKey.values()) {
+            jobMetricsRegistry.getOrCreate(job.jobDetail.getKey());
+            StringBuilder schedules = new StringBuilder();
+            for (Trigger trigger : job.triggers) {
+                if (schedules.length() > 0) {
+                    schedules.append(" and ");
+                }
+                schedules.append(describeSchedule(trigger));
+            }
+            logger.info("Scheduled {}::{} with {}", job.method.getDeclaringClass().getName(), job.method.getName(),
+                    schedules);
+        }
+    }
+
+    /**
+     * @param jobs
+     *            the jobs to schedule
+     * @return the argument for {@link Scheduler#scheduleJobs(Map, boolean)}
+     */
+    private Map<JobDetail, Set<? extends Trigger>> toTriggersAndJobs(Collection<PendingJob> jobs) {
+        Map<JobDetail, Set<? extends Trigger>> triggersAndJobs = new LinkedHashMap<JobDetail, Set<? extends Trigger>>();
+        for (PendingJob job : jobs) {
+            triggersAndJobs.put(job.jobDetail, new LinkedHashSet<Trigger>(job.triggers));
+        }
+        return triggersAndJobs;
+    }
+
+    /**
+     * Removes all jobs whose job or trigger already exist in the given
+     * scheduler. The existing keys are read with one query each, rather than
+     * checking every job individually.
+     * 
+     * @param scheduler
+     * @param jobsByKey
+     * @throws SchedulerException
+     */
+    private void removeExistingJobs(Scheduler scheduler, Map<JobKey, PendingJob> jobsByKey)
+            throws SchedulerException {
+        Set<JobKey> existingJobKeys = scheduler.getJobKeys(GroupMatcher.anyJobGroup());
+        Set<TriggerKey> existingTriggerKeys = scheduler.getTriggerKeys(GroupMatcher.anyTriggerGroup());
+        Iterator<PendingJob> it = jobsByKey.values().iterator();
+        while (it.hasNext()) {
+            PendingJob job = it.next();
+            boolean exists = existingJobKeys.contains(job.jobDetail.getKey());
+            for (Trigger trigger : job.triggers) {
+                exists |= existingTriggerKeys.contains(trigger.getKey());
+            }
+            if (exists) {
+                logger.debug("Not scheduling {}.{} twice: job or trigger already exists.",
+                        job.method.getDeclaringClass().getName(), job.method.getName());
+                it.remove();
             }
         }
     }
@@ -213,7 +1006,7 @@ public class NinjaQuartzScheduleHelper {
         String jobName = quartzSchedule.jobName();
         if (QuartzSchedule.DEFAULT_JOB_NAME.equals(jobName)) {
             // by default, use a unique job name for all scheduled methods
-            jobName = JOB_NAME_PREFIX + method.getName();
+            jobName = JOB_NAME_PREFIX + getScheduledMethodName(method);
         }
 
         String jobGroup = quartzSchedule.jobGroup();
@@ -233,40 +1026,35 @@ public class NinjaQuartzScheduleHelper {
         boolean allowParallelInvocations = quartzSchedule.allowConcurrent();
         boolean persistent = quartzSchedule.persistent();
 
-        // create the job to execute
-        NinjaQuartzTask task = new AbstractNinjaQuartzTaskImpl(jobName + "/" + jobGroup) {
-            @Override
-            public void execute(JobExecutionContext context)
-                    throws IllegalAccessException, IllegalArgumentException, InvocationTargetException {
-                if (method.getParameterTypes().length == 0) {
-                    // no arguments
-                    method.invoke(target);
-
-                } else {
-                    // multiple arguments. try to inject parameters through
-                    // guice
-                    Object[] parameters = new Object[method.getParameterTypes().length];
-                    int i = 0;
-                    for (Class<?> type : method.getParameterTypes()) {
-                        Object obj = null;
-                        if (JobExecutionContext.class.isAssignableFrom(method.getParameterTypes()[i])) {
-                            // support mix of JobExecutionContext and other
-                            // (injected) arguments
-                            obj = context;
-                        } else {
-                            obj = injector.getInstance(type);
-                        }
-                        if (obj == null) {
-                            // guice did not provide an object
-                            logger.warn("Using null value for parameter of type {} in call to scheduled method {}",
-                                    type.getName(), method.getName());
-                        }
-                        parameters[i++] = obj;
-                    }
-                    method.invoke(target, parameters);
-                }
-            }
-        };
+        RetryPolicy retryPolicy = null;
+        try {
+            retryPolicy = RetryPolicy.of(quartzSchedule);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid retry settings for scheduled method {}.{}: {}", method.getDeclaringClass().getName(),
+                    method.getName(), e.getMessage());
+            return null;
+        }
+        if ((quartzSchedule.circuitBreakerThreshold() > 0) && (quartzSchedule.circuitBreakerDelay() < 0)) {
+            logger.error("Invalid circuit breaker settings for scheduled method {}.{}: delay must not be negative: {}",
+                    method.getDeclaringClass().getName(), method.getName(), quartzSchedule.circuitBreakerDelay());
+            return null;
+        }
+
+        // create the job to execute. the method and the providers of its
+        // (injected) arguments are resolved only once here, not on every fire.
+        String taskName = jobName + "/" + jobGroup;
+        NinjaQuartzMethodTask methodTask = createMethodTask(taskName, target, method);
+        if (methodTask == null) {
+            return null;
+        }
+        NinjaQuartzTask task = methodTask;
+        if (isPersistentJobStore(quartzSchedule.scheduler())) {
+            // the job data will be serialized, so only store a reference to
+            // the method. this node can use the task created above.
+            MethodReferenceTask reference = new MethodReferenceTask(taskName, getTargetClass(target), method);
+            resolvedTasks.put(reference, methodTask);
+            task = reference;
+        }
 
         // determine the job wrapper class to use (the classes provide different
         // annotations to support the requested Quartz functionality)
@@ -305,22 +1093,170 @@ public class NinjaQuartzScheduleHelper {
         jobDetail.getJobDataMap().put(AbstractNinjaQuartzJob.JOB_REMOVE_ON_RUNTIME_ERROR,
                 quartzSchedule.removeOnError());
         jobDetail.getJobDataMap().put(AbstractNinjaQuartzJob.JOB_FORCE_KEEP, quartzSchedule.forceKeep());
+        if (quartzSchedule.coalesce()) {
+            if (allowParallelInvocations) {
+                logger.warn("Not coalescing fires of concurrent job {}.{}.", jobGroup, jobName);
+            } else {
+                jobDetail.getJobDataMap().put(AbstractNinjaQuartzJob.JOB_COALESCE, true);
+            }
+        }
+        if (retryPolicy != null) {
+            jobDetail.getJobDataMap().put(AbstractNinjaQuartzJob.JOB_RETRY_POLICY, retryPolicy);
+        }
+        if (quartzSchedule.circuitBreakerThreshold() > 0) {
+            jobDetail.getJobDataMap().put(AbstractNinjaQuartzJob.JOB_CIRCUIT_BREAKER_THRESHOLD,
+                    quartzSchedule.circuitBreakerThreshold());
+            jobDetail.getJobDataMap().put(AbstractNinjaQuartzJob.JOB_CIRCUIT_BREAKER_DELAY,
+                    quartzSchedule.circuitBreakerDelay());
+        }
+        if (quartzSchedule.timeout() > 0) {
+            jobDetail.getJobDataMap().put(AbstractNinjaQuartzJob.JOB_TIMEOUT, quartzSchedule.timeout());
+        }
 
         logger.debug("Created new job {} in group: {}.", jobName, jobGroup);
         return jobDetail;
     }
 
     /**
+     * Create the {@link NinjaQuartzMethodTask} invoking the given method on the
+     * given target instance.
+     * 
+     * @param taskName
+     * @param target
+     * @param method
+     * @return the task, or null if the method's parameters cannot be injected
+     */
+    private NinjaQuartzMethodTask createMethodTask(String taskName, Object target, Method method) {
+        ArgumentBindingPlan argumentBindingPlan = null;
+        try {
+            argumentBindingPlan = ArgumentBindingPlan.create(method, injector);
+        } catch (ConfigurationException e) {
+            logger.error("Cannot inject parameters of scheduled method " + method.getDeclaringClass().getName() + "."
+                    + method.getName(), e);
+            return null;
+        }
+        MethodInvoker invoker = getInvokerFactory().createInvoker(target, method);
+        return new NinjaQuartzMethodTask(taskName, method, invoker, argumentBindingPlan);
+    }
+
+    /**
+     * @see com.jensfendler.ninjaquartz.job.MethodReferenceResolver#resolve(com.jensfendler.ninjaquartz.job.MethodReferenceTask)
+     */
+    public NinjaQuartzMethodTask resolve(MethodReferenceTask reference) throws ReflectiveOperationException {
+        NinjaQuartzMethodTask task = resolvedTasks.get(reference);
+        if (task == null) {
+            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            if (classLoader == null) {
+                classLoader = NinjaQuartzScheduleHelper.class.getClassLoader();
+            }
+            Class<?> targetClass = reference.loadTargetClass(classLoader);
+            Method method = reference.findMethod(targetClass);
+            task = createMethodTask(reference.getTaskName(), injector.getInstance(targetClass), method);
+            if (task == null) {
+                throw new NoSuchMethodException("Cannot inject parameters of " + reference + ".");
+            }
+            NinjaQuartzMethodTask existing = resolvedTasks.putIfAbsent(reference, task);
+            if (existing != null) {
+                task = existing;
+            }
+            logger.debug("Resolved task {} ({}).", reference.getTaskName(), reference);
+        }
+        return task;
+    }
+
+    /**
+     * Get the {@link JobPartitioner} configured in application.conf.
+     * 
+     * @return the {@link JobPartitioner}, or null if partitioning is not
+     *         enabled
+     */
+    protected synchronized JobPartitioner getJobPartitioner() {
+        if (!jobPartitionerCreated) {
+            jobPartitionerCreated = true;
+            if (!ninjaProperties.getBooleanWithDefault(CONF_KEY_PARTITION_ENABLED, false)) {
+                return null;
+            }
+
+            String nodeId = ninjaProperties.getWithDefault(CONF_KEY_PARTITION_NODE_ID,
+                    ManagementFactory.getRuntimeMXBean().getName());
+            int interval = ninjaProperties.getIntegerWithDefault(CONF_KEY_PARTITION_INTERVAL,
+                    DEFAULT_PARTITION_INTERVAL);
+            String dataSource = ninjaProperties.get(CONF_KEY_PARTITION_DATA_SOURCE);
+            ClusterMembership membership;
+            if (dataSource != null) {
+                membership = new JdbcClusterMembership(dataSource, ninjaProperties.getWithDefault(
+                        CONF_KEY_PARTITION_TABLE, JdbcClusterMembership.DEFAULT_TABLE_NAME), nodeId,
+                        3000L * interval);
+            } else {
+                String[] nodes = ninjaProperties.getStringArray(CONF_KEY_PARTITION_NODES);
+                membership = new StaticClusterMembership(nodeId,
+                        (nodes == null) ? Collections.<String> emptyList() : Arrays.asList(nodes));
+            }
+            logger.info("Partitioning scheduled jobs using {} (this node: {}).", membership.getClass().getSimpleName(),
+                    nodeId);
+            jobPartitioner = new JobPartitioner(membership, ConsistentHashRing.DEFAULT_VIRTUAL_NODES);
+        }
+        return jobPartitioner;
+    }
+
+    /**
+     * @param target
+     *            the target instance of a scheduled method
+     * @return the class of the target instance bound in Guice (i.e. without
+     *         Guice's AOP subclasses)
+     */
+    private Class<?> getTargetClass(Object target) {
+        Class<?> targetClass = target.getClass();
+        while (targetClass.getName().contains(GUICE_ENHANCER_MARKER)) {
+            targetClass = targetClass.getSuperclass();
+        }
+        return targetClass;
+    }
+
+    /**
+     * @param schedulerName
+     *            the name of the scheduler (see
+     *            {@link QuartzSchedule#scheduler()})
+     * @return true if the scheduler's job store persists jobs (e.g. a JDBC
+     *         job store), i.e. the job data must be serializable
+     */
+    boolean isPersistentJobStore(String schedulerName) {
+        Boolean persistentJobStore = persistentJobStores.get(schedulerName);
+        if (persistentJobStore == null) {
+            try {
+                persistentJobStore = getScheduler(schedulerName).getMetaData().isJobStoreSupportsPersistence();
+            } catch (SchedulerException e) {
+                logger.error("Failed to get scheduler meta data. Assuming a non-persistent job store.", e);
+                persistentJobStore = Boolean.FALSE;
+            }
+            persistentJobStores.put(schedulerName, persistentJobStore);
+        }
+        return persistentJobStore;
+    }
+
+    /**
+     * @param method
      * @param quartzSchedule
-     * @return
+     * @param index
+     *            the index of the {@link QuartzSchedule} among those of the
+     *            method
+     * @param properties
+     *            the configuration to read the schedule from (if the
+     *            annotation gives a property key)
+     * @return the trigger, or null if the schedule is invalid
      */
-    private CronTrigger createCronTrigger(Method method, QuartzSchedule quartzSchedule) {
+    private Trigger createTrigger(Method method, QuartzSchedule quartzSchedule, int index,
+            NinjaProperties properties) {
         // get trigger parameters from the annotation
 
         String triggerName = quartzSchedule.triggerName();
         if (QuartzSchedule.DEFAULT_TRIGGER_NAME.equals(triggerName)) {
             // by default, use a unique trigger name for each scheduled method
-            triggerName = CRON_TRIGGER_NAME_PREFIX + method.getName();
+            // (and for each further schedule of the method)
+            triggerName = CRON_TRIGGER_NAME_PREFIX + getScheduledMethodName(method);
+            if (index > 0) {
+                triggerName = triggerName + "-" + (index + 1);
+            }
         }
 
         String triggerGroup = quartzSchedule.triggerGroup();
@@ -333,11 +1269,76 @@ public class NinjaQuartzScheduleHelper {
         Date startAt = parseTriggerDatetime(quartzSchedule.triggerStartAt(), method);
         Date endAt = parseTriggerDatetime(quartzSchedule.triggerEndAt(), method);
         int triggerPriority = quartzSchedule.triggerPriority();
-        int misfirePolicy = quartzSchedule.cronScheduleMisfirePolicy();
+
+        // build the schedule
+        ScheduleBuilder<? extends Trigger> scheduleBuilder;
+        try {
+            switch (getTriggerType(quartzSchedule)) {
+            case SIMPLE:
+                scheduleBuilder = createSimpleSchedule(quartzSchedule);
+                break;
+            case CALENDAR_INTERVAL:
+                scheduleBuilder = createCalendarIntervalSchedule(quartzSchedule);
+                break;
+            case DAILY_TIME_INTERVAL:
+                scheduleBuilder = createDailyTimeIntervalSchedule(quartzSchedule);
+                break;
+            default:
+                scheduleBuilder = createCronSchedule(quartzSchedule, properties);
+                break;
+            }
+        } catch (ParseException | IllegalArgumentException e) {
+            logger.error("Invalid schedule for method " + method.getDeclaringClass().getName() + "."
+                    + method.getName() + ": " + e.getMessage(), e);
+            return null;
+        }
+
+        // build the trigger
+        TriggerBuilder<? extends Trigger> triggerBuilder = TriggerBuilder.newTrigger()
+                .withIdentity(triggerName, triggerGroup).withPriority(triggerPriority).withSchedule(scheduleBuilder);
+        if (startAt != null) {
+            triggerBuilder = triggerBuilder.startAt(startAt);
+        }
+        if (endAt != null) {
+            triggerBuilder = triggerBuilder.endAt(endAt);
+        }
+
+        Trigger trigger = triggerBuilder.build();
+
+        logger.debug("Created new trigger with priority {} and {}", triggerPriority, describeSchedule(trigger));
+        return trigger;
+    }
+
+    /**
+     * @param quartzSchedule
+     * @return the type of trigger to create for the given schedule
+     */
+    private static TriggerType getTriggerType(QuartzSchedule quartzSchedule) {
+        TriggerType triggerType = quartzSchedule.triggerType();
+        if (triggerType == TriggerType.DEFAULT) {
+            boolean hasCronSchedule = !QuartzSchedule.DEFAULT_CRON_SCHEDULE.equals(quartzSchedule.cronSchedule());
+            boolean hasInterval = quartzSchedule.interval() != QuartzSchedule.DEFAULT_INTERVAL;
+            triggerType = (hasInterval && !hasCronSchedule) ? TriggerType.SIMPLE : TriggerType.CRON;
+        }
+        return triggerType;
+    }
+
+    /**
+     * @param quartzSchedule
+     * @param properties
+     * @return the cron schedule (from the annotation, or application.conf)
+     * @throws ParseException
+     *             if the cron expression is invalid
+     */
+    private CronScheduleBuilder createCronSchedule(QuartzSchedule quartzSchedule, NinjaProperties properties)
+            throws ParseException {
+        if (QuartzSchedule.DEFAULT_CRON_SCHEDULE.equals(quartzSchedule.cronSchedule())) {
+            throw new IllegalArgumentException("Neither a cron schedule nor an interval is given.");
+        }
 
         // check for an application.conf key name specified instead of a
         // diretly specified schedule string
-        String appConfCronSchedule = ninjaProperties.get(quartzSchedule.cronSchedule());
+        String appConfCronSchedule = properties.get(quartzSchedule.cronSchedule());
         // if we have a non-null value from application.conf, we use that.
         // otherwise assume a schedule was directly given in the annotation
         String cronSchedule = null;
@@ -350,41 +1351,168 @@ public class NinjaQuartzScheduleHelper {
             logger.debug("Using cronSchedule as provided in annotation: {}", cronSchedule);
         }
 
-        // build the cron schedule
-        CronScheduleBuilder csb = null;
-        try {
-            csb = CronScheduleBuilder.cronScheduleNonvalidatedExpression(cronSchedule);
-        } catch (ParseException e) {
-            logger.error("Invalid cron schedule '" + cronSchedule + "' for method "
-                    + method.getDeclaringClass().getName() + "." + method.getName(), e);
-            return null;
-        }
-        switch (misfirePolicy) {
+        CronScheduleBuilder csb = CronScheduleBuilder.cronScheduleNonvalidatedExpression(cronSchedule);
+        switch (quartzSchedule.cronScheduleMisfirePolicy()) {
         case QuartzSchedule.MISFIRE_POLICY_FIRE_AND_PROCEED:
-            csb = csb.withMisfireHandlingInstructionFireAndProceed();
-            break;
+            return csb.withMisfireHandlingInstructionFireAndProceed();
         case QuartzSchedule.MISFIRE_POLICY_IGNORE:
-            csb = csb.withMisfireHandlingInstructionIgnoreMisfires();
-            break;
+            return csb.withMisfireHandlingInstructionIgnoreMisfires();
         default:
-            csb = csb.withMisfireHandlingInstructionDoNothing();
+            return csb.withMisfireHandlingInstructionDoNothing();
+        }
+    }
+
+    /**
+     * @param quartzSchedule
+     * @return a schedule firing every {@link QuartzSchedule#interval()}
+     *         (converted to milliseconds)
+     */
+    private static SimpleScheduleBuilder createSimpleSchedule(QuartzSchedule quartzSchedule) {
+        long unitMillis;
+        switch (quartzSchedule.intervalUnit()) {
+        case MILLISECOND:
+            unitMillis = 1L;
+            break;
+        case SECOND:
+            unitMillis = 1000L;
+            break;
+        case MINUTE:
+            unitMillis = 60000L;
+            break;
+        case HOUR:
+            unitMillis = 3600000L;
             break;
+        case DAY:
+            unitMillis = 86400000L;
+            break;
+        case WEEK:
+            unitMillis = 604800000L;
+            break;
+        default:
+            throw new IllegalArgumentException("Interval unit " + quartzSchedule.intervalUnit()
+                    + " is not supported by simple triggers. Use a calendar interval trigger.");
+        }
+        if (quartzSchedule.interval() <= 0) {
+            throw new IllegalArgumentException("Interval must be positive: " + quartzSchedule.interval());
         }
 
-        // build the trigger
-        TriggerBuilder<CronTrigger> triggerBuilder = TriggerBuilder.newTrigger().withIdentity(triggerName, triggerGroup)
-                .withPriority(triggerPriority).withSchedule(csb);
-        if (startAt != null) {
-            triggerBuilder = triggerBuilder.startAt(startAt);
+        SimpleScheduleBuilder ssb = SimpleScheduleBuilder.simpleSchedule()
+                .withIntervalInMilliseconds(quartzSchedule.interval() * unitMillis);
+        if (quartzSchedule.repeatCount() == QuartzSchedule.REPEAT_INDEFINITELY) {
+            ssb = ssb.repeatForever();
+        } else {
+            ssb = ssb.withRepeatCount(quartzSchedule.repeatCount());
         }
-        if (endAt != null) {
-            triggerBuilder = triggerBuilder.endAt(endAt);
+        switch (quartzSchedule.cronScheduleMisfirePolicy()) {
+        case QuartzSchedule.MISFIRE_POLICY_FIRE_AND_PROCEED:
+            return ssb.withMisfireHandlingInstructionFireNow();
+        case QuartzSchedule.MISFIRE_POLICY_IGNORE:
+            return ssb.withMisfireHandlingInstructionIgnoreMisfires();
+        default:
+            return ssb.withMisfireHandlingInstructionNextWithRemainingCount();
+        }
+    }
+
+    /**
+     * @param quartzSchedule
+     * @return a schedule firing every {@link QuartzSchedule#interval()}
+     *         calendar units
+     */
+    private static CalendarIntervalScheduleBuilder createCalendarIntervalSchedule(QuartzSchedule quartzSchedule) {
+        CalendarIntervalScheduleBuilder cisb = CalendarIntervalScheduleBuilder.calendarIntervalSchedule()
+                .withInterval(toIntInterval(quartzSchedule), quartzSchedule.intervalUnit());
+        switch (quartzSchedule.cronScheduleMisfirePolicy()) {
+        case QuartzSchedule.MISFIRE_POLICY_FIRE_AND_PROCEED:
+            return cisb.withMisfireHandlingInstructionFireAndProceed();
+        case QuartzSchedule.MISFIRE_POLICY_IGNORE:
+            return cisb.withMisfireHandlingInstructionIgnoreMisfires();
+        default:
+            return cisb.withMisfireHandlingInstructionDoNothing();
         }
+    }
 
-        CronTrigger trigger = triggerBuilder.build();
+    /**
+     * @param quartzSchedule
+     * @return a schedule firing every {@link QuartzSchedule#interval()} within
+     *         the daily time window
+     */
+    private static DailyTimeIntervalScheduleBuilder createDailyTimeIntervalSchedule(QuartzSchedule quartzSchedule) {
+        DailyTimeIntervalScheduleBuilder dtisb = DailyTimeIntervalScheduleBuilder.dailyTimeIntervalSchedule()
+                .withInterval(toIntInterval(quartzSchedule), quartzSchedule.intervalUnit());
+        if (!QuartzSchedule.DEFAULT_DAILY_TIME.equals(quartzSchedule.dailyStartTime())) {
+            dtisb = dtisb.startingDailyAt(parseTimeOfDay(quartzSchedule.dailyStartTime()));
+        }
+        if (!QuartzSchedule.DEFAULT_DAILY_TIME.equals(quartzSchedule.dailyEndTime())) {
+            dtisb = dtisb.endingDailyAt(parseTimeOfDay(quartzSchedule.dailyEndTime()));
+        }
+        if (quartzSchedule.daysOfWeek().length > 0) {
+            Set<Integer> daysOfWeek = new HashSet<Integer>();
+            for (int dayOfWeek : quartzSchedule.daysOfWeek()) {
+                daysOfWeek.add(dayOfWeek);
+            }
+            dtisb = dtisb.onDaysOfTheWeek(daysOfWeek);
+        }
+        if (quartzSchedule.repeatCount() != QuartzSchedule.REPEAT_INDEFINITELY) {
+            dtisb = dtisb.withRepeatCount(quartzSchedule.repeatCount());
+        }
+        switch (quartzSchedule.cronScheduleMisfirePolicy()) {
+        case QuartzSchedule.MISFIRE_POLICY_FIRE_AND_PROCEED:
+            return dtisb.withMisfireHandlingInstructionFireAndProceed();
+        case QuartzSchedule.MISFIRE_POLICY_IGNORE:
+            return dtisb.withMisfireHandlingInstructionIgnoreMisfires();
+        default:
+            return dtisb.withMisfireHandlingInstructionDoNothing();
+        }
+    }
 
-        logger.debug("Created new cron trigger with priority {} and schedule {}", triggerPriority, cronSchedule);
-        return trigger;
+    /**
+     * @param quartzSchedule
+     * @return the {@link QuartzSchedule#interval()} as an int
+     */
+    private static int toIntInterval(QuartzSchedule quartzSchedule) {
+        long interval = quartzSchedule.interval();
+        if ((interval <= 0) || (interval > Integer.MAX_VALUE)) {
+            throw new IllegalArgumentException("Invalid interval: " + interval);
+        }
+        return (int) interval;
+    }
+
+    /**
+     * @param time
+     *            a time of day as <code>HH:mm</code> or <code>HH:mm:ss</code>
+     * @return the {@link TimeOfDay}
+     */
+    private static TimeOfDay parseTimeOfDay(String time) {
+        String[] parts = time.split(":");
+        if ((parts.length < 2) || (parts.length > 3)) {
+            throw new IllegalArgumentException("Invalid time of day '" + time + "'. Expected HH:mm or HH:mm:ss.");
+        }
+        try {
+            return new TimeOfDay(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]),
+                    (parts.length == 3) ? Integer.parseInt(parts[2]) : 0);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid time of day '" + time + "'. Expected HH:mm or HH:mm:ss.");
+        }
+    }
+
+    /**
+     * @param trigger
+     * @return a description of the trigger's schedule (for logging)
+     */
+    private static String describeSchedule(Trigger trigger) {
+        if (trigger instanceof CronTrigger) {
+            return "cron schedule '" + ((CronTrigger) trigger).getCronExpression() + "'";
+        } else if (trigger instanceof SimpleTrigger) {
+            return "interval of " + ((SimpleTrigger) trigger).getRepeatInterval() + " ms";
+        } else if (trigger instanceof CalendarIntervalTrigger) {
+            CalendarIntervalTrigger cit = (CalendarIntervalTrigger) trigger;
+            return "calendar interval of " + cit.getRepeatInterval() + " " + cit.getRepeatIntervalUnit();
+        } else if (trigger instanceof DailyTimeIntervalTrigger) {
+            DailyTimeIntervalTrigger dtit = (DailyTimeIntervalTrigger) trigger;
+            return "daily interval of " + dtit.getRepeatInterval() + " " + dtit.getRepeatIntervalUnit() + " from "
+                    + dtit.getStartTimeOfDay() + " to " + dtit.getEndTimeOfDay();
+        }
+        return "schedule " + trigger;
     }
 
     /**
@@ -396,8 +1524,51 @@ public class NinjaQuartzScheduleHelper {
     private Scheduler createScheduler(Method method, QuartzSchedule quartzSchedule) throws SchedulerException {
         int schedulerDelay = quartzSchedule.schedulerDelay();
 
-        SchedulerFactory sf = schedulerFactoryProvider.get();
-        Scheduler scheduler = sf.getScheduler();
+        Scheduler scheduler = getScheduler(quartzSchedule.scheduler());
+        // make the metrics registry available to the job wrappers
+        scheduler.getContext().put(JobMetricsRegistry.SCHEDULER_CONTEXT_KEY, jobMetricsRegistry);
+        // make the job group limits available to the job wrappers
+        scheduler.getContext().put(JobGroupLimiters.SCHEDULER_CONTEXT_KEY, jobGroupLimiters);
+        // make the circuit breakers available to the job wrappers
+        scheduler.getContext().put(CircuitBreakers.SCHEDULER_CONTEXT_KEY, circuitBreakers);
+        // interrupt executions exceeding their timeout
+        scheduler.getContext().put(ExecutionWatchdog.SCHEDULER_CONTEXT_KEY, executionWatchdog);
+        // resolve tasks loaded from a persistent job store
+        scheduler.getContext().put(MethodReferenceResolver.SCHEDULER_CONTEXT_KEY, this);
+        // count misfires (replaces any listener registered before)
+        scheduler.getListenerManager().addTriggerListener(new MisfireListener(jobMetricsRegistry));
+        // maintain the snapshot of jobs and triggers for NinjaQuartzUtil
+        jobRegistry.attach(scheduler);
+        // the system jobs run in the first scheduler used only
+        boolean systemJobs;
+        synchronized (this) {
+            if (systemScheduler == null) {
+                systemScheduler = quartzSchedule.scheduler();
+            }
+            systemJobs = systemScheduler.equals(quartzSchedule.scheduler());
+        }
+        // check application.conf for changed schedules
+        scheduler.getContext().put(SCHEDULER_CONTEXT_KEY, this);
+        int reloadInterval = ninjaProperties.getIntegerWithDefault(CONF_KEY_RELOAD_INTERVAL, 0);
+        if (systemJobs && (reloadInterval > 0) && !scheduler.checkExists(RELOAD_JOB_KEY)) {
+            scheduler.scheduleJob(JobBuilder.newJob(ScheduleReloadJob.class).withIdentity(RELOAD_JOB_KEY)
+                    .withDescription("NinjaQuartz schedule reloading").build(),
+                    TriggerBuilder.newTrigger().forJob(RELOAD_JOB_KEY)
+                            .startAt(new Date(System.currentTimeMillis() + reloadInterval * 1000L))
+                            .withSchedule(SimpleScheduleBuilder.repeatSecondlyForever(reloadInterval)
+                                    .withMisfireHandlingInstructionNextWithRemainingCount())
+                            .build());
+        }
+        JobPartitioner partitioner = getJobPartitioner();
+        if (partitioner != null) {
+            if (scheduler.getMetaData().isJobStoreClustered()) {
+                logger.warn("Partitioning jobs with a clustered job store. Jobs may still run on any node.");
+            }
+            if (systemJobs) {
+                partitioner.startRebalancing(scheduler, ninjaProperties
+                        .getIntegerWithDefault(CONF_KEY_PARTITION_INTERVAL, DEFAULT_PARTITION_INTERVAL));
+            }
+        }
         if (!scheduler.isStarted()) {
             if (schedulerDelay == -1) {
                 scheduler.start();
@@ -436,4 +1607,60 @@ public class NinjaQuartzScheduleHelper {
         }
     }
 
+    /**
+     * A scheduled job whose cron schedule is read from application.conf.
+     */
+    private static class ConfiguredTrigger {
+
+        private final PendingJob job;
+
+        /**
+         * The index of the trigger (and its {@link QuartzSchedule}) in the job.
+         */
+        private final int index;
+
+        /**
+         * The trigger as last scheduled. Guarded by the helper.
+         */
+        private CronTrigger trigger;
+
+        private ConfiguredTrigger(PendingJob job, int index) {
+            this.job = job;
+            this.index = index;
+            this.trigger = (CronTrigger) job.triggers.get(index);
+        }
+    }
+
+    /**
+     * A job (and its triggers) created for a scheduled method, waiting to be
+     * scheduled.
+     */
+    private static class PendingJob {
+
+        private final Method method;
+
+        /**
+         * The first of the {@link #quartzSchedules}, defining the job.
+         */
+        private final QuartzSchedule quartzSchedule;
+
+        private final List<QuartzSchedule> quartzSchedules;
+
+        private final JobDetail jobDetail;
+
+        /**
+         * The triggers, one for each of the {@link #quartzSchedules}.
+         */
+        private final List<Trigger> triggers;
+
+        private PendingJob(Method method, List<QuartzSchedule> quartzSchedules, JobDetail jobDetail,
+                List<Trigger> triggers) {
+            this.method = method;
+            this.quartzSchedule = quartzSchedules.get(0);
+            this.quartzSchedules = quartzSchedules;
+            this.jobDetail = jobDetail;
+            this.triggers = triggers;
+        }
+    }
+
 }
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.quartz.JobKey;
+import org.quartz.SchedulerException;
+
+import com.jensfendler.ninjaquartz.annotations.QuartzSchedule;
+
+/**
+ * Schedules methods at runtime, as the {@link QuartzSchedule} annotation does
+ * at injection time. The jobs are created with the same job wrapper classes,
+ * naming conventions and error policies as those of annotated methods.
+ * 
+ * To use these methods, inject {@link NinjaQuartzScheduling} into your class
+ * e.g. like this:
+ * 
+ * <pre>
+ * &#64;Inject
+ * NinjaQuartzScheduling scheduling;
+ * 
+ * List&lt;QuartzScheduleSpec&gt; specs = new ArrayList&lt;QuartzScheduleSpec&gt;();
+ * for (Tenant tenant : tenants) {
+ *     specs.add(QuartzScheduleSpec.cron(tenant.getReportSchedule()).withJobName("report-" + tenant.getId()));
+ * }
+ * scheduling.scheduleAll(ReportService.class, "sendReports", specs);
+ * </pre>
+ * 
+ * Scheduling a job with the key of an existing job replaces it (i.e. updates
+ * its schedule).
+ * 
+ * @author Jens Fendler
+ *
+ */
+public interface NinjaQuartzScheduling {
+
+    /**
+     * Schedule (or re-schedule) a method of a class bound in Guice.
+     * 
+     * @param targetClass
+     *            the class whose instance (from the Guice injector) to invoke
+     *            the method on
+     * @param methodName
+     *            the name of the public method to schedule. Its parameters are
+     *            injected as for annotated methods.
+     * @param spec
+     *            the schedule
+     * @return the key of the scheduled job
+     * @throws IllegalArgumentException
+     *             if the method does not exist (or is overloaded), or the
+     *             schedule is invalid
+     * @throws SchedulerException
+     *             if the job could not be stored
+     */
+    public JobKey schedule(Class<?> targetClass, String methodName, QuartzScheduleSpec spec)
+            throws SchedulerException;
+
+    /**
+     * Schedule (or re-schedule) a method of a class bound in Guice once for
+     * each of the given schedules, storing all jobs in a single call of the
+     * scheduler (i.e. a single job store transaction). The schedules should
+     * have different job names.
+     * 
+     * @param targetClass
+     *            the class whose instance (from the Guice injector) to invoke
+     *            the method on
+     * @param methodName
+     *            the name of the public method to schedule
+     * @param specs
+     *            the schedules
+     * @return the keys of the scheduled jobs
+     * @throws IllegalArgumentException
+     *             if the method does not exist (or is overloaded), or any of
+     *             the schedules is invalid (in which case no job is scheduled)
+     * @throws SchedulerException
+     *             if the jobs could not be stored
+     */
+    public List<JobKey> scheduleAll(Class<?> targetClass, String methodName, Collection<QuartzScheduleSpec> specs)
+            throws SchedulerException;
+
+    /**
+     * Schedule (or re-schedule) a {@link Runnable} (e.g. a lambda). As it cannot
+     * be re-created from its class, this is not supported with persistent job
+     * stores; use {@link #schedule(Class, String, QuartzScheduleSpec)} then.
+     * 
+     * @param task
+     *            the task to run
+     * @param spec
+     *            the schedule, which must specify a job name
+     * @return the key of the scheduled job
+     * @throws IllegalArgumentException
+     *             if the schedule is invalid or has no job name
+     * @throws IllegalStateException
+     *             if the job store is persistent
+     * @throws SchedulerException
+     *             if the job could not be stored
+     */
+    public JobKey schedule(Runnable task, QuartzScheduleSpec spec) throws SchedulerException;
+
+    /**
+     * Delete a job (and its triggers) from the scheduler.
+     * 
+     * @param jobKey
+     *            the key of the job
+     * @return true if the job was found and deleted
+     * @throws SchedulerException
+     *             if the job could not be deleted
+     */
+    public boolean unschedule(JobKey jobKey) throws SchedulerException;
+
+    /**
+     * Delete jobs (and their triggers) from the scheduler in a single call of
+     * the scheduler.
+     * 
+     * @param jobKeys
+     *            the keys of the jobs
+     * @return true if all jobs were found and deleted
+     * @throws SchedulerException
+     *             if the jobs could not be deleted
+     */
+    public boolean unscheduleAll(Collection<JobKey> jobKeys) throws SchedulerException;
+
+    /**
+     * Re-read application.conf (and the external configuration file, if any),
+     * and reschedule the jobs whose cron schedule is given as a property key
+     * and whose value has changed. Triggers whose schedule has not changed are
+     * left untouched. Call this e.g. from an administrative endpoint, or set
+     * <code>quartz.reload.interval</code> to check periodically.
+     * 
+     * @return the number of rescheduled triggers
+     * @throws SchedulerException
+     *             if a trigger could not be rescheduled
+     */
+    public int reloadSchedules() throws SchedulerException;
+
+}
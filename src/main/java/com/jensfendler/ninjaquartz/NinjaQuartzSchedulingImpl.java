@@ -0,0 +1,148 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.quartz.JobKey;
+import org.quartz.SchedulerException;
+
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.google.inject.Singleton;
+import com.jensfendler.ninjaquartz.annotations.QuartzSchedule;
+
+/**
+ * The default {@link NinjaQuartzScheduling} implementation, scheduling jobs
+ * through the {@link NinjaQuartzScheduleHelper}.
+ * 
+ * @author Jens Fendler
+ *
+ */
+@Singleton
+public class NinjaQuartzSchedulingImpl implements NinjaQuartzScheduling {
+
+    /**
+     * The method run by {@link #schedule(Runnable, QuartzScheduleSpec)}.
+     */
+    private static final Method RUNNABLE_RUN;
+
+    static {
+        try {
+            RUNNABLE_RUN = Runnable.class.getMethod("run");
+        } catch (NoSuchMethodException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    protected final NinjaQuartzScheduleHelper scheduleHelper;
+
+    protected final Injector injector;
+
+    /**
+     * @param scheduleHelper
+     *            the {@link NinjaQuartzScheduleHelper} to be injected.
+     * @param injector
+     *            the {@link Injector} to get the target instances from.
+     */
+    @Inject
+    public NinjaQuartzSchedulingImpl(NinjaQuartzScheduleHelper scheduleHelper, Injector injector) {
+        this.scheduleHelper = scheduleHelper;
+        this.injector = injector;
+    }
+
+    /**
+     * @see com.jensfendler.ninjaquartz.NinjaQuartzScheduling#schedule(java.lang.Class,
+     *      java.lang.String, com.jensfendler.ninjaquartz.QuartzScheduleSpec)
+     */
+    public JobKey schedule(Class<?> targetClass, String methodName, QuartzScheduleSpec spec)
+            throws SchedulerException {
+        return scheduleAll(targetClass, methodName, Collections.singletonList(spec)).get(0);
+    }
+
+    /**
+     * @see com.jensfendler.ninjaquartz.NinjaQuartzScheduling#scheduleAll(java.lang.Class,
+     *      java.lang.String, java.util.Collection)
+     */
+    public List<JobKey> scheduleAll(Class<?> targetClass, String methodName, Collection<QuartzScheduleSpec> specs)
+            throws SchedulerException {
+        Method method = findMethod(targetClass, methodName);
+        return scheduleHelper.scheduleMethod(injector.getInstance(targetClass), method, specs);
+    }
+
+    /**
+     * @see com.jensfendler.ninjaquartz.NinjaQuartzScheduling#schedule(java.lang.Runnable,
+     *      com.jensfendler.ninjaquartz.QuartzScheduleSpec)
+     */
+    public JobKey schedule(Runnable task, QuartzScheduleSpec spec) throws SchedulerException {
+        if (QuartzSchedule.DEFAULT_JOB_NAME.equals(spec.jobName())) {
+            throw new IllegalArgumentException("A job name is required to schedule a Runnable: " + spec);
+        }
+        if (scheduleHelper.isPersistentJobStore(spec.scheduler())) {
+            throw new IllegalStateException(
+                    "Cannot store a Runnable in a persistent job store. Schedule a method of a Guice-bound class instead.");
+        }
+        return scheduleHelper.scheduleMethod(task, RUNNABLE_RUN, Collections.singletonList(spec)).get(0);
+    }
+
+    /**
+     * @see com.jensfendler.ninjaquartz.NinjaQuartzScheduling#unschedule(org.quartz.JobKey)
+     */
+    public boolean unschedule(JobKey jobKey) throws SchedulerException {
+        return unscheduleAll(Collections.singletonList(jobKey));
+    }
+
+    /**
+     * @see com.jensfendler.ninjaquartz.NinjaQuartzScheduling#unscheduleAll(java.util.Collection)
+     */
+    public boolean unscheduleAll(Collection<JobKey> jobKeys) throws SchedulerException {
+        return scheduleHelper.unscheduleJobs(jobKeys);
+    }
+
+    /**
+     * @see com.jensfendler.ninjaquartz.NinjaQuartzScheduling#reloadSchedules()
+     */
+    public int reloadSchedules() throws SchedulerException {
+        return scheduleHelper.reloadSchedules();
+    }
+
+    /**
+     * @param targetClass
+     * @param methodName
+     * @return the only public method of the given name
+     */
+    private Method findMethod(Class<?> targetClass, String methodName) {
+        Method found = null;
+        for (Method method : targetClass.getMethods()) {
+            if (method.getName().equals(methodName)) {
+                if (found != null) {
+                    throw new IllegalArgumentException(
+                            "Method " + targetClass.getName() + "." + methodName + " is overloaded.");
+                }
+                found = method;
+            }
+        }
+        if (found == null) {
+            throw new IllegalArgumentException(
+                    "No public method " + methodName + " found in class " + targetClass.getName() + ".");
+        }
+        return found;
+    }
+
+}
@@ -25,6 +25,7 @@ import com.google.inject.spi.InjectionListener;
 import com.google.inject.spi.TypeEncounter;
 import com.google.inject.spi.TypeListener;
 import com.jensfendler.ninjaquartz.annotations.QuartzSchedule;
+import com.jensfendler.ninjaquartz.annotations.QuartzSchedules;
 
 /**
  * @author Jens Fendler
@@ -50,10 +51,12 @@ public class NinjaQuartzTypeListener implements TypeListener {
     public <I> void hear(TypeLiteral<I> type, TypeEncounter<I> encounter) {
         Class<?> clazz = type.getRawType();
         for (Method method : clazz.getMethods()) {
-            QuartzSchedule quartzSchedule = method.getAnnotation(QuartzSchedule.class);
-            if (quartzSchedule != null) {
+            if (method.isAnnotationPresent(QuartzSchedule.class)
+                    || method.isAnnotationPresent(QuartzSchedules.class)) {
                 logger.debug("Scheduling methods in class {}.", type.getRawType().getName());
+                // a single listener schedules all methods of the injectee
                 encounter.register(new QuartzScheduleInjectionListener<I>(scheduleHelper));
+                return;
             }
         }
     }
@@ -19,9 +19,16 @@ import java.util.Collection;
 
 import org.quartz.Job;
 import org.quartz.JobDetail;
+import org.quartz.JobKey;
 import org.quartz.Scheduler;
 import org.quartz.SchedulerException;
 import org.quartz.Trigger;
+import org.quartz.TriggerKey;
+import org.quartz.impl.matchers.GroupMatcher;
+
+import com.jensfendler.ninjaquartz.limit.CircuitBreaker;
+import com.jensfendler.ninjaquartz.metrics.JobGroupMetrics;
+import com.jensfendler.ninjaquartz.metrics.JobMetrics;
 
 /**
  * Utility methods which allow users to interact with Quartz objects (i.e.
@@ -93,4 +100,136 @@ public interface NinjaQuartzUtil {
      *             as thrown by the Scheduler
      */
     public JobDetail getJobDetail(String jobName, String jobGroup) throws SchedulerException;
+
+    /**
+     * Returns a page of the {@link JobDetail}s (from all {@link Scheduler}s)
+     * whose keys match the given {@link GroupMatcher}, ordered by scheduler
+     * name and job key. Only the job keys of a scheduler are read at once;
+     * the {@link JobDetail}s are only loaded for the jobs on the page.
+     * Schedulers which fail to list their jobs are skipped (and an error is
+     * logged).
+     * 
+     * @param matcher
+     *            the {@link GroupMatcher} selecting the job groups (e.g.
+     *            <code>GroupMatcher.anyJobGroup()</code>)
+     * @param cursor
+     *            the cursor of the page to get (from
+     *            {@link NinjaQuartzPage#getNextCursor()}), or null for the
+     *            first page
+     * @param limit
+     *            the maximum number of {@link JobDetail}s on the page
+     * @return the page, whose next cursor is null if there are no more jobs
+     *         (the last page may be empty)
+     * @throws SchedulerException
+     *             as thrown by the SchedulerFactory
+     */
+    public NinjaQuartzPage<JobDetail> getJobDetails(GroupMatcher<JobKey> matcher, String cursor, int limit)
+            throws SchedulerException;
+
+    /**
+     * Iterates the {@link JobDetail}s (from all {@link Scheduler}s) whose keys
+     * match the given {@link GroupMatcher}, loading each {@link JobDetail}
+     * only when the iteration reaches it. Schedulers or jobs which fail to
+     * load are skipped (and an error is logged).
+     * 
+     * @param matcher
+     *            the {@link GroupMatcher} selecting the job groups
+     * @return an {@link Iterable} lazily iterating the matching jobs
+     */
+    public Iterable<JobDetail> iterateJobDetails(GroupMatcher<JobKey> matcher);
+
+    /**
+     * Returns a page of the {@link Trigger}s (from all {@link Scheduler}s)
+     * whose keys match the given {@link GroupMatcher}, ordered by scheduler
+     * name and trigger key. See
+     * {@link #getJobDetails(GroupMatcher, String, int)}.
+     * 
+     * @param matcher
+     *            the {@link GroupMatcher} selecting the trigger groups
+     * @param cursor
+     *            the cursor of the page to get, or null for the first page
+     * @param limit
+     *            the maximum number of {@link Trigger}s on the page
+     * @return the page, whose next cursor is null if there are no more
+     *         triggers
+     * @throws SchedulerException
+     *             as thrown by the SchedulerFactory
+     */
+    public NinjaQuartzPage<Trigger> getTriggers(GroupMatcher<TriggerKey> matcher, String cursor, int limit)
+            throws SchedulerException;
+
+    /**
+     * Iterates the {@link Trigger}s (from all {@link Scheduler}s) whose keys
+     * match the given {@link GroupMatcher}, loading each {@link Trigger} only
+     * when the iteration reaches it.
+     * 
+     * @param matcher
+     *            the {@link GroupMatcher} selecting the trigger groups
+     * @return an {@link Iterable} lazily iterating the matching triggers
+     */
+    public Iterable<Trigger> iterateTriggers(GroupMatcher<TriggerKey> matcher);
+
+    /**
+     * Discard the cached snapshot of jobs and triggers which serves
+     * {@link #getJobDetail(String, String)}, {@link #getAllJobDetails()} and
+     * {@link #getTriggersOfJob(String, String)}, so that it is reloaded from
+     * the job store on next use. The snapshot is kept up to date with the
+     * changes made through the local schedulers, so this is only required to
+     * pick up changes made by other nodes sharing a job store.
+     */
+    public void refreshJobRegistry();
+
+    /**
+     * Returns the execution metrics (fire count, success and failure counts,
+     * durations) of the job with the given name and group.
+     * 
+     * @param jobName
+     *            the name of the job
+     * @param jobGroup
+     *            the group name of the job
+     * @return the {@link JobMetrics} of the job, or null if no metrics have
+     *         been recorded for the job
+     */
+    public JobMetrics getJobMetrics(String jobName, String jobGroup);
+
+    /**
+     * @return a {@link Collection} of the execution metrics of all jobs.
+     */
+    public Collection<JobMetrics> getAllJobMetrics();
+
+    /**
+     * Returns the scheduling metrics (lag between scheduled and actual start
+     * of executions, misfire count) of all jobs in the given job group.
+     * 
+     * @param jobGroup
+     *            the group name of the jobs
+     * @return the {@link JobGroupMetrics} of the job group, or null if no job
+     *         of the group has been scheduled
+     */
+    public JobGroupMetrics getJobGroupMetrics(String jobGroup);
+
+    /**
+     * @return a {@link Collection} of the scheduling metrics of all job
+     *         groups.
+     */
+    public Collection<JobGroupMetrics> getAllJobGroupMetrics();
+
+    /**
+     * Returns the circuit breaker (state, consecutive failures) of the job
+     * with the given name and group.
+     * 
+     * @param jobName
+     *            the name of the job
+     * @param jobGroup
+     *            the group name of the job
+     * @return the {@link CircuitBreaker} of the job, or null if the job has no
+     *         circuit breaker (or has not been executed yet)
+     */
+    public CircuitBreaker getCircuitBreaker(String jobName, String jobGroup);
+
+    /**
+     * @return a {@link Collection} of the circuit breakers of all jobs.
+     */
+    public Collection<CircuitBreaker> getAllCircuitBreakers();
+
 }
@@ -15,9 +15,17 @@
  */
 package com.jensfendler.ninjaquartz;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
 
 import org.quartz.JobDetail;
 import org.quartz.JobKey;
@@ -25,12 +33,20 @@ import org.quartz.Scheduler;
 import org.quartz.SchedulerException;
 import org.quartz.SchedulerFactory;
 import org.quartz.Trigger;
+import org.quartz.TriggerKey;
 import org.quartz.impl.matchers.GroupMatcher;
+import org.quartz.utils.Key;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.inject.Inject;
 import com.google.inject.Provider;
+import com.jensfendler.ninjaquartz.limit.CircuitBreaker;
+import com.jensfendler.ninjaquartz.limit.CircuitBreakers;
+import com.jensfendler.ninjaquartz.metrics.JobGroupMetrics;
+import com.jensfendler.ninjaquartz.metrics.JobMetrics;
+import com.jensfendler.ninjaquartz.metrics.JobMetricsRegistry;
+import com.jensfendler.ninjaquartz.registry.JobRegistry;
 
 /**
  * @author Jens Fendler
@@ -45,13 +61,51 @@ public class NinjaQuartzUtilImpl implements NinjaQuartzUtil {
      */
     protected Provider<SchedulerFactory> schedulerFactoryProvider;
 
+    /**
+     * The {@link JobMetricsRegistry} as injected to the constructor.
+     */
+    protected JobMetricsRegistry jobMetricsRegistry;
+
+    /**
+     * The {@link JobRegistry} as injected to the constructor.
+     */
+    protected JobRegistry jobRegistry;
+
+    /**
+     * The {@link CircuitBreakers} as injected to the constructor.
+     */
+    protected CircuitBreakers circuitBreakers;
+
+    /**
+     * Create an instance without the collaborators managed by Guice (for
+     * code constructing this class directly, as before the job registry and
+     * metrics were introduced). All lookups query the schedulers directly,
+     * and no job metrics or circuit breakers are reported.
+     *
+     * @param schedulerFactoryProvider
+     *            the {@link SchedulerFactory} provider.
+     */
+    public NinjaQuartzUtilImpl(Provider<SchedulerFactory> schedulerFactoryProvider) {
+        this(schedulerFactoryProvider, new JobMetricsRegistry(), new JobRegistry(), new CircuitBreakers());
+    }
+
     /**
      * @param schedulerFactoryProvider
      *            the {@link SchedulerFactory} provider to be injected.
+     * @param jobMetricsRegistry
+     *            the {@link JobMetricsRegistry} to be injected.
+     * @param jobRegistry
+     *            the {@link JobRegistry} to be injected.
+     * @param circuitBreakers
+     *            the {@link CircuitBreakers} to be injected.
      */
     @Inject
-    public NinjaQuartzUtilImpl(Provider<SchedulerFactory> schedulerFactoryProvider) {
+    public NinjaQuartzUtilImpl(Provider<SchedulerFactory> schedulerFactoryProvider,
+            JobMetricsRegistry jobMetricsRegistry, JobRegistry jobRegistry, CircuitBreakers circuitBreakers) {
         this.schedulerFactoryProvider = schedulerFactoryProvider;
+        this.jobMetricsRegistry = jobMetricsRegistry;
+        this.jobRegistry = jobRegistry;
+        this.circuitBreakers = circuitBreakers;
     }
 
     /**
@@ -74,8 +128,12 @@ public class NinjaQuartzUtilImpl implements NinjaQuartzUtil {
      */
     public Collection<Trigger> getTriggersOfJob(String jobName, String jobGroup) throws SchedulerException {
         JobKey jk = JobKey.jobKey(jobName, jobGroup);
-        Set<Trigger> allTriggers = new HashSet<Trigger>();
+        Set<Trigger> allTriggers = new HashSet<Trigger>(jobRegistry.getTriggersOfJob(jk));
         for (Scheduler scheduler : getAllSchedulers()) {
+            if (jobRegistry.isAttached(scheduler)) {
+                // already served from the registry
+                continue;
+            }
             try {
                 allTriggers.addAll(scheduler.getTriggersOfJob(jk));
             } catch (SchedulerException se) {
@@ -95,8 +153,11 @@ public class NinjaQuartzUtilImpl implements NinjaQuartzUtil {
      * @see com.jensfendler.ninjaquartz.NinjaQuartzUtil#getAllJobDetails()
      */
     public Collection<JobDetail> getAllJobDetails() throws SchedulerException {
-        Set<JobDetail> allJobDetails = new HashSet<JobDetail>();
+        Set<JobDetail> allJobDetails = new HashSet<JobDetail>(jobRegistry.getAllJobDetails());
         for (Scheduler scheduler : getAllSchedulers()) {
+            if (jobRegistry.isAttached(scheduler)) {
+                continue;
+            }
             for (JobKey jk : scheduler.getJobKeys(GroupMatcher.anyJobGroup())) {
                 allJobDetails.add(scheduler.getJobDetail(jk));
             }
@@ -109,14 +170,326 @@ public class NinjaQuartzUtilImpl implements NinjaQuartzUtil {
      *      java.lang.String)
      */
     public JobDetail getJobDetail(String jobName, String jobGroup) throws SchedulerException {
+        JobKey jk = JobKey.jobKey(jobName, jobGroup);
+        JobDetail jobDetail = jobRegistry.getJobDetail(jk);
+        if (jobDetail != null) {
+            return jobDetail;
+        }
         for (Scheduler scheduler : getAllSchedulers()) {
-            for (JobKey jk : scheduler.getJobKeys(GroupMatcher.jobGroupEquals(jobGroup))) {
-                if (jk.getName().equals(jobName)) {
-                    return scheduler.getJobDetail(jk);
+            if (!jobRegistry.isAttached(scheduler)) {
+                jobDetail = scheduler.getJobDetail(jk);
+                if (jobDetail != null) {
+                    return jobDetail;
                 }
             }
         }
         return null;
     }
 
+    /**
+     * @see com.jensfendler.ninjaquartz.NinjaQuartzUtil#getJobDetails(org.quartz.impl.matchers.GroupMatcher,
+     *      java.lang.String, int)
+     */
+    public NinjaQuartzPage<JobDetail> getJobDetails(GroupMatcher<JobKey> matcher, String cursor, int limit)
+            throws SchedulerException {
+        return new JobDetailQuery(matcher).getPage(getSortedSchedulers(), cursor, limit);
+    }
+
+    /**
+     * @see com.jensfendler.ninjaquartz.NinjaQuartzUtil#iterateJobDetails(org.quartz.impl.matchers.GroupMatcher)
+     */
+    public Iterable<JobDetail> iterateJobDetails(final GroupMatcher<JobKey> matcher) {
+        return new Iterable<JobDetail>() {
+            public Iterator<JobDetail> iterator() {
+                return new JobDetailQuery(matcher).iterator(getSortedSchedulersOrNone());
+            }
+        };
+    }
+
+    /**
+     * @see com.jensfendler.ninjaquartz.NinjaQuartzUtil#getTriggers(org.quartz.impl.matchers.GroupMatcher,
+     *      java.lang.String, int)
+     */
+    public NinjaQuartzPage<Trigger> getTriggers(GroupMatcher<TriggerKey> matcher, String cursor, int limit)
+            throws SchedulerException {
+        return new TriggerQuery(matcher).getPage(getSortedSchedulers(), cursor, limit);
+    }
+
+    /**
+     * @see com.jensfendler.ninjaquartz.NinjaQuartzUtil#iterateTriggers(org.quartz.impl.matchers.GroupMatcher)
+     */
+    public Iterable<Trigger> iterateTriggers(final GroupMatcher<TriggerKey> matcher) {
+        return new Iterable<Trigger>() {
+            public Iterator<Trigger> iterator() {
+                return new TriggerQuery(matcher).iterator(getSortedSchedulersOrNone());
+            }
+        };
+    }
+
+    /**
+     * @return all {@link Scheduler}s, ordered by name
+     * @throws SchedulerException
+     */
+    private List<Scheduler> getSortedSchedulers() throws SchedulerException {
+        List<Scheduler> schedulers = new ArrayList<Scheduler>(getAllSchedulers());
+        Collections.sort(schedulers, new Comparator<Scheduler>() {
+            public int compare(Scheduler s1, Scheduler s2) {
+                return getName(s1).compareTo(getName(s2));
+            }
+        });
+        return schedulers;
+    }
+
+    /**
+     * @return all {@link Scheduler}s, ordered by name, or none if the
+     *         schedulers cannot be listed (for iterators, which cannot throw a
+     *         {@link SchedulerException})
+     */
+    private List<Scheduler> getSortedSchedulersOrNone() {
+        try {
+            return getSortedSchedulers();
+        } catch (SchedulerException e) {
+            LOG.error("Exception while listing schedulers.", e);
+            return Collections.emptyList();
+        }
+    }
+
+    private static String getName(Scheduler scheduler) {
+        try {
+            return scheduler.getSchedulerName();
+        } catch (SchedulerException e) {
+            // only thrown by remote schedulers
+            return "";
+        }
+    }
+
+    /**
+     * A paged or lazily iterated query of the items (jobs or triggers) of all
+     * schedulers, identified by their keys.
+     *
+     * @param <K>
+     *            the type of the keys
+     * @param <T>
+     *            the type of the items
+     */
+    private abstract static class KeyedQuery<K extends Key<K>, T> {
+
+        /**
+         * @return the keys of all matching items of the scheduler
+         */
+        abstract Set<K> getKeys(Scheduler scheduler) throws SchedulerException;
+
+        /**
+         * @return the item with the given key, or null if it does not exist
+         *         (anymore)
+         */
+        abstract T load(Scheduler scheduler, K key) throws SchedulerException;
+
+        abstract K createKey(String name, String group);
+
+        /**
+         * @return the sorted keys of the scheduler, or null if they cannot be
+         *         listed
+         */
+        SortedSet<K> getSortedKeys(Scheduler scheduler) {
+            try {
+                return new TreeSet<K>(getKeys(scheduler));
+            } catch (SchedulerException se) {
+                LOG.error("Exception while listing keys of scheduler " + getName(scheduler) + ". Skipping scheduler.",
+                        se);
+                return null;
+            }
+        }
+
+        /**
+         * @return the item, or null if it does not exist or cannot be loaded
+         */
+        T loadOrSkip(Scheduler scheduler, K key) {
+            try {
+                return load(scheduler, key);
+            } catch (SchedulerException se) {
+                LOG.error("Exception while loading " + key + " from scheduler " + getName(scheduler) + ". Skipping.",
+                        se);
+                return null;
+            }
+        }
+
+        NinjaQuartzPage<T> getPage(List<Scheduler> schedulers, String cursor, int limit) {
+            if (limit <= 0) {
+                throw new IllegalArgumentException("Invalid page size: " + limit);
+            }
+            String[] position = (cursor == null) ? null : NinjaQuartzPage.decodeCursor(cursor);
+
+            List<T> items = new ArrayList<T>(Math.min(limit, 1024));
+            for (Scheduler scheduler : schedulers) {
+                String schedulerName = getName(scheduler);
+                int order = (position == null) ? 1 : schedulerName.compareTo(position[0]);
+                if (order < 0) {
+                    // all items of this scheduler were on previous pages
+                    continue;
+                }
+                SortedSet<K> keys = getSortedKeys(scheduler);
+                if (keys == null) {
+                    continue;
+                }
+                if (order == 0) {
+                    keys = keys.tailSet(createKey(position[2], position[1]));
+                    keys.remove(createKey(position[2], position[1]));
+                }
+                for (K key : keys) {
+                    T item = loadOrSkip(scheduler, key);
+                    if (item != null) {
+                        items.add(item);
+                    }
+                    if (items.size() == limit) {
+                        return new NinjaQuartzPage<T>(items, NinjaQuartzPage.encodeCursor(schedulerName, key));
+                    }
+                }
+            }
+            return new NinjaQuartzPage<T>(items, null);
+        }
+
+        Iterator<T> iterator(final List<Scheduler> schedulers) {
+            return new Iterator<T>() {
+
+                private final Iterator<Scheduler> schedulerIterator = schedulers.iterator();
+
+                private Scheduler scheduler;
+
+                private Iterator<K> keyIterator = Collections.<K> emptySet().iterator();
+
+                private T next;
+
+                public boolean hasNext() {
+                    while (next == null) {
+                        if (keyIterator.hasNext()) {
+                            next = loadOrSkip(scheduler, keyIterator.next());
+                        } else if (schedulerIterator.hasNext()) {
+                            scheduler = schedulerIterator.next();
+                            SortedSet<K> keys = getSortedKeys(scheduler);
+                            if (keys != null) {
+                                keyIterator = keys.iterator();
+                            }
+                        } else {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+
+                public T next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    T item = next;
+                    next = null;
+                    return item;
+                }
+
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+    }
+
+    /**
+     * A {@link KeyedQuery} of {@link JobDetail}s.
+     */
+    private static class JobDetailQuery extends KeyedQuery<JobKey, JobDetail> {
+
+        private final GroupMatcher<JobKey> matcher;
+
+        JobDetailQuery(GroupMatcher<JobKey> matcher) {
+            this.matcher = matcher;
+        }
+
+        Set<JobKey> getKeys(Scheduler scheduler) throws SchedulerException {
+            return scheduler.getJobKeys(matcher);
+        }
+
+        JobDetail load(Scheduler scheduler, JobKey key) throws SchedulerException {
+            return scheduler.getJobDetail(key);
+        }
+
+        JobKey createKey(String name, String group) {
+            return JobKey.jobKey(name, group);
+        }
+    }
+
+    /**
+     * A {@link KeyedQuery} of {@link Trigger}s.
+     */
+    private static class TriggerQuery extends KeyedQuery<TriggerKey, Trigger> {
+
+        private final GroupMatcher<TriggerKey> matcher;
+
+        TriggerQuery(GroupMatcher<TriggerKey> matcher) {
+            this.matcher = matcher;
+        }
+
+        Set<TriggerKey> getKeys(Scheduler scheduler) throws SchedulerException {
+            return scheduler.getTriggerKeys(matcher);
+        }
+
+        Trigger load(Scheduler scheduler, TriggerKey key) throws SchedulerException {
+            return scheduler.getTrigger(key);
+        }
+
+        TriggerKey createKey(String name, String group) {
+            return TriggerKey.triggerKey(name, group);
+        }
+    }
+
+    /**
+     * @see com.jensfendler.ninjaquartz.NinjaQuartzUtil#refreshJobRegistry()
+     */
+    public void refreshJobRegistry() {
+        jobRegistry.refresh();
+    }
+
+    /**
+     * @see com.jensfendler.ninjaquartz.NinjaQuartzUtil#getJobMetrics(java.lang.String,
+     *      java.lang.String)
+     */
+    public JobMetrics getJobMetrics(String jobName, String jobGroup) {
+        return jobMetricsRegistry.get(JobKey.jobKey(jobName, jobGroup));
+    }
+
+    /**
+     * @see com.jensfendler.ninjaquartz.NinjaQuartzUtil#getAllJobMetrics()
+     */
+    public Collection<JobMetrics> getAllJobMetrics() {
+        return jobMetricsRegistry.getAll();
+    }
+
+    /**
+     * @see com.jensfendler.ninjaquartz.NinjaQuartzUtil#getJobGroupMetrics(java.lang.String)
+     */
+    public JobGroupMetrics getJobGroupMetrics(String jobGroup) {
+        return jobMetricsRegistry.getGroup(jobGroup);
+    }
+
+    /**
+     * @see com.jensfendler.ninjaquartz.NinjaQuartzUtil#getAllJobGroupMetrics()
+     */
+    public Collection<JobGroupMetrics> getAllJobGroupMetrics() {
+        return jobMetricsRegistry.getAllGroups();
+    }
+
+    /**
+     * @see com.jensfendler.ninjaquartz.NinjaQuartzUtil#getCircuitBreaker(java.lang.String,
+     *      java.lang.String)
+     */
+    public CircuitBreaker getCircuitBreaker(String jobName, String jobGroup) {
+        return circuitBreakers.get(JobKey.jobKey(jobName, jobGroup));
+    }
+
+    /**
+     * @see com.jensfendler.ninjaquartz.NinjaQuartzUtil#getAllCircuitBreakers()
+     */
+    public Collection<CircuitBreaker> getAllCircuitBreakers() {
+        return circuitBreakers.getAll();
+    }
+
 }
@@ -0,0 +1,529 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz;
+
+import java.lang.annotation.Annotation;
+
+import org.quartz.DateBuilder.IntervalUnit;
+import org.quartz.Trigger;
+
+import com.jensfendler.ninjaquartz.annotations.QuartzSchedule;
+import com.jensfendler.ninjaquartz.annotations.TriggerType;
+
+/**
+ * The schedule of a job created at runtime through {@link NinjaQuartzScheduling}
+ * . It provides the same properties (and defaults) as the
+ * {@link QuartzSchedule} annotation, which it implements, so jobs scheduled
+ * programmatically are created exactly like those of annotated methods.
+ * 
+ * <pre>
+ * QuartzScheduleSpec.cron("0 0/5 * * * ?").withJobName("report-" + tenantId).withAllowConcurrent(true)
+ * QuartzScheduleSpec.interval(250, IntervalUnit.MILLISECOND).withJobName("poll-" + tenantId)
+ * </pre>
+ * 
+ * Unlike for the annotation, the trigger name defaults to a name derived from
+ * the job name (if one is set), so that several jobs of the same method do not
+ * share a trigger.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class QuartzScheduleSpec implements QuartzSchedule {
+
+    private String cronSchedule = DEFAULT_CRON_SCHEDULE;
+
+    private TriggerType triggerType = TriggerType.DEFAULT;
+
+    private long interval = DEFAULT_INTERVAL;
+
+    private IntervalUnit intervalUnit = IntervalUnit.MILLISECOND;
+
+    private int repeatCount = REPEAT_INDEFINITELY;
+
+    private String dailyStartTime = DEFAULT_DAILY_TIME;
+
+    private String dailyEndTime = DEFAULT_DAILY_TIME;
+
+    private int[] daysOfWeek = {};
+
+    private String jobName = DEFAULT_JOB_NAME;
+
+    private String jobGroup = DEFAULT_JOB_GROUP;
+
+    private String jobDescription = DEFAULT_JOB_DESCRIPTION;
+
+    private boolean jobRecovery = DEFAULT_JOB_RECOVERY;
+
+    private boolean jobDurability = DEFAULT_JOB_DURABILITY;
+
+    private String triggerName = DEFAULT_TRIGGER_NAME;
+
+    private String triggerGroup = DEFAULT_TRIGGER_GROUP;
+
+    private String triggerStartAt = DEFAULT_TRIGGER_START_AT;
+
+    private String triggerEndAt = DEFAULT_TRIGGER_END_AT;
+
+    private int triggerPriority = Trigger.DEFAULT_PRIORITY;
+
+    private int schedulerDelay = DEFAULT_SCHEDULER_DELAY;
+
+    private String scheduler = DEFAULT_SCHEDULER;
+
+    private int cronScheduleMisfirePolicy = DEFAULT_MISFIRE_POLICY;
+
+    private boolean allowConcurrent = DEFAULT_ALLOW_PARALLEL_INVOCATIONS;
+
+    private boolean persistent = DEFAULT_PERSISTENT;
+
+    private boolean removeOnError = DEFAULT_REMOVE_ON_ERROR;
+
+    private boolean forceKeep = DEFAULT_FORCE_KEEP;
+
+    private boolean coalesce = DEFAULT_COALESCE;
+
+    private int retryAttempts = DEFAULT_RETRY_ATTEMPTS;
+
+    private long retryDelay = DEFAULT_RETRY_DELAY;
+
+    private double retryMultiplier = DEFAULT_RETRY_MULTIPLIER;
+
+    private long retryMaxDelay = DEFAULT_RETRY_MAX_DELAY;
+
+    private double retryJitter = DEFAULT_RETRY_JITTER;
+
+    @SuppressWarnings("unchecked")
+    private Class<? extends Throwable>[] retryOn = new Class[0];
+
+    private int circuitBreakerThreshold = DEFAULT_CIRCUIT_BREAKER_THRESHOLD;
+
+    private long circuitBreakerDelay = DEFAULT_CIRCUIT_BREAKER_DELAY;
+
+    private long timeout = DEFAULT_TIMEOUT;
+
+    /**
+     * @param cronSchedule
+     *            the cron expression, or the key of a property in
+     *            application.conf containing it (see
+     *            {@link QuartzSchedule#cronSchedule()})
+     */
+    public QuartzScheduleSpec(String cronSchedule) {
+        if (cronSchedule == null) {
+            throw new IllegalArgumentException("Cron schedule must not be null.");
+        }
+        this.cronSchedule = cronSchedule;
+    }
+
+    /**
+     * @param interval
+     *            the interval between fires
+     * @param intervalUnit
+     *            the unit of the interval
+     */
+    public QuartzScheduleSpec(long interval, IntervalUnit intervalUnit) {
+        this.interval = interval;
+        this.intervalUnit = intervalUnit;
+    }
+
+    /**
+     * @param cronSchedule
+     *            the cron expression, or the key of a property in
+     *            application.conf containing it
+     * @return a new {@link QuartzScheduleSpec} with the given schedule
+     */
+    public static QuartzScheduleSpec cron(String cronSchedule) {
+        return new QuartzScheduleSpec(cronSchedule);
+    }
+
+    /**
+     * @param interval
+     *            the interval between fires
+     * @param intervalUnit
+     *            the unit of the interval
+     * @return a new {@link QuartzScheduleSpec} for a simple trigger with the
+     *         given interval (use {@link #withTriggerType(TriggerType)} for
+     *         calendar or daily time interval triggers)
+     */
+    public static QuartzScheduleSpec interval(long interval, IntervalUnit intervalUnit) {
+        return new QuartzScheduleSpec(interval, intervalUnit);
+    }
+
+    public QuartzScheduleSpec withTriggerType(TriggerType triggerType) {
+        this.triggerType = triggerType;
+        return this;
+    }
+
+    public QuartzScheduleSpec withRepeatCount(int repeatCount) {
+        this.repeatCount = repeatCount;
+        return this;
+    }
+
+    /**
+     * @param dailyStartTime
+     *            the time of day as <code>HH:mm</code> or
+     *            <code>HH:mm:ss</code>
+     * @return this
+     */
+    public QuartzScheduleSpec withDailyStartTime(String dailyStartTime) {
+        this.dailyStartTime = dailyStartTime;
+        return this;
+    }
+
+    /**
+     * @param dailyEndTime
+     *            the time of day as <code>HH:mm</code> or
+     *            <code>HH:mm:ss</code>
+     * @return this
+     */
+    public QuartzScheduleSpec withDailyEndTime(String dailyEndTime) {
+        this.dailyEndTime = dailyEndTime;
+        return this;
+    }
+
+    /**
+     * @param daysOfWeek
+     *            the days of the week (e.g. {@link java.util.Calendar#MONDAY})
+     * @return this
+     */
+    public QuartzScheduleSpec withDaysOfWeek(int... daysOfWeek) {
+        this.daysOfWeek = daysOfWeek.clone();
+        return this;
+    }
+
+    public QuartzScheduleSpec withJobName(String jobName) {
+        this.jobName = jobName;
+        return this;
+    }
+
+    public QuartzScheduleSpec withJobGroup(String jobGroup) {
+        this.jobGroup = jobGroup;
+        return this;
+    }
+
+    public QuartzScheduleSpec withJobDescription(String jobDescription) {
+        this.jobDescription = jobDescription;
+        return this;
+    }
+
+    public QuartzScheduleSpec withJobRecovery(boolean jobRecovery) {
+        this.jobRecovery = jobRecovery;
+        return this;
+    }
+
+    public QuartzScheduleSpec withJobDurability(boolean jobDurability) {
+        this.jobDurability = jobDurability;
+        return this;
+    }
+
+    public QuartzScheduleSpec withTriggerName(String triggerName) {
+        this.triggerName = triggerName;
+        return this;
+    }
+
+    public QuartzScheduleSpec withTriggerGroup(String triggerGroup) {
+        this.triggerGroup = triggerGroup;
+        return this;
+    }
+
+    /**
+     * @param triggerStartAt
+     *            a datetime in the format
+     *            {@link NinjaQuartzScheduleHelper#TRIGGER_DATETIME_FORMAT}
+     * @return this
+     */
+    public QuartzScheduleSpec withTriggerStartAt(String triggerStartAt) {
+        this.triggerStartAt = triggerStartAt;
+        return this;
+    }
+
+    /**
+     * @param triggerEndAt
+     *            a datetime in the format
+     *            {@link NinjaQuartzScheduleHelper#TRIGGER_DATETIME_FORMAT}
+     * @return this
+     */
+    public QuartzScheduleSpec withTriggerEndAt(String triggerEndAt) {
+        this.triggerEndAt = triggerEndAt;
+        return this;
+    }
+
+    public QuartzScheduleSpec withTriggerPriority(int triggerPriority) {
+        this.triggerPriority = triggerPriority;
+        return this;
+    }
+
+    public QuartzScheduleSpec withSchedulerDelay(int schedulerDelay) {
+        this.schedulerDelay = schedulerDelay;
+        return this;
+    }
+
+    /**
+     * @param scheduler
+     *            the name of a scheduler configured in application.conf (see
+     *            {@link QuartzSchedule#scheduler()})
+     * @return this
+     */
+    public QuartzScheduleSpec withScheduler(String scheduler) {
+        this.scheduler = scheduler;
+        return this;
+    }
+
+    public QuartzScheduleSpec withCronScheduleMisfirePolicy(int cronScheduleMisfirePolicy) {
+        this.cronScheduleMisfirePolicy = cronScheduleMisfirePolicy;
+        return this;
+    }
+
+    public QuartzScheduleSpec withAllowConcurrent(boolean allowConcurrent) {
+        this.allowConcurrent = allowConcurrent;
+        return this;
+    }
+
+    public QuartzScheduleSpec withPersistent(boolean persistent) {
+        this.persistent = persistent;
+        return this;
+    }
+
+    public QuartzScheduleSpec withRemoveOnError(boolean removeOnError) {
+        this.removeOnError = removeOnError;
+        return this;
+    }
+
+    public QuartzScheduleSpec withForceKeep(boolean forceKeep) {
+        this.forceKeep = forceKeep;
+        return this;
+    }
+
+    public QuartzScheduleSpec withCoalesce(boolean coalesce) {
+        this.coalesce = coalesce;
+        return this;
+    }
+
+    public QuartzScheduleSpec withRetryAttempts(int retryAttempts) {
+        this.retryAttempts = retryAttempts;
+        return this;
+    }
+
+    public QuartzScheduleSpec withRetryDelay(long retryDelay) {
+        this.retryDelay = retryDelay;
+        return this;
+    }
+
+    public QuartzScheduleSpec withRetryMultiplier(double retryMultiplier) {
+        this.retryMultiplier = retryMultiplier;
+        return this;
+    }
+
+    public QuartzScheduleSpec withRetryMaxDelay(long retryMaxDelay) {
+        this.retryMaxDelay = retryMaxDelay;
+        return this;
+    }
+
+    public QuartzScheduleSpec withRetryJitter(double retryJitter) {
+        this.retryJitter = retryJitter;
+        return this;
+    }
+
+    /**
+     * @param retryOn
+     *            the exception types to retry (see
+     *            {@link QuartzSchedule#retryOn()})
+     * @return this
+     */
+    @SafeVarargs
+    public final QuartzScheduleSpec withRetryOn(Class<? extends Throwable>... retryOn) {
+        this.retryOn = retryOn.clone();
+        return this;
+    }
+
+    public QuartzScheduleSpec withCircuitBreakerThreshold(int circuitBreakerThreshold) {
+        this.circuitBreakerThreshold = circuitBreakerThreshold;
+        return this;
+    }
+
+    public QuartzScheduleSpec withCircuitBreakerDelay(long circuitBreakerDelay) {
+        this.circuitBreakerDelay = circuitBreakerDelay;
+        return this;
+    }
+
+    public QuartzScheduleSpec withTimeout(long timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    /**
+     * @see java.lang.annotation.Annotation#annotationType()
+     */
+    public Class<? extends Annotation> annotationType() {
+        return QuartzSchedule.class;
+    }
+
+    public String cronSchedule() {
+        return cronSchedule;
+    }
+
+    public TriggerType triggerType() {
+        return triggerType;
+    }
+
+    public long interval() {
+        return interval;
+    }
+
+    public IntervalUnit intervalUnit() {
+        return intervalUnit;
+    }
+
+    public int repeatCount() {
+        return repeatCount;
+    }
+
+    public String dailyStartTime() {
+        return dailyStartTime;
+    }
+
+    public String dailyEndTime() {
+        return dailyEndTime;
+    }
+
+    public int[] daysOfWeek() {
+        return daysOfWeek.clone();
+    }
+
+    public String jobName() {
+        return jobName;
+    }
+
+    public String jobGroup() {
+        return jobGroup;
+    }
+
+    public String jobDescription() {
+        return jobDescription;
+    }
+
+    public boolean jobRecovery() {
+        return jobRecovery;
+    }
+
+    public boolean jobDurability() {
+        return jobDurability;
+    }
+
+    /**
+     * @return the trigger name, defaulting to a name derived from the job name
+     *         (if set)
+     */
+    public String triggerName() {
+        if (DEFAULT_TRIGGER_NAME.equals(triggerName) && !DEFAULT_JOB_NAME.equals(jobName)) {
+            return NinjaQuartzScheduleHelper.CRON_TRIGGER_NAME_PREFIX + jobName;
+        }
+        return triggerName;
+    }
+
+    public String triggerGroup() {
+        return triggerGroup;
+    }
+
+    public String triggerStartAt() {
+        return triggerStartAt;
+    }
+
+    public String triggerEndAt() {
+        return triggerEndAt;
+    }
+
+    public int triggerPriority() {
+        return triggerPriority;
+    }
+
+    public int schedulerDelay() {
+        return schedulerDelay;
+    }
+
+    public String scheduler() {
+        return scheduler;
+    }
+
+    public int cronScheduleMisfirePolicy() {
+        return cronScheduleMisfirePolicy;
+    }
+
+    public boolean allowConcurrent() {
+        return allowConcurrent;
+    }
+
+    public boolean persistent() {
+        return persistent;
+    }
+
+    public boolean removeOnError() {
+        return removeOnError;
+    }
+
+    public boolean forceKeep() {
+        return forceKeep;
+    }
+
+    public boolean coalesce() {
+        return coalesce;
+    }
+
+    public int retryAttempts() {
+        return retryAttempts;
+    }
+
+    public long retryDelay() {
+        return retryDelay;
+    }
+
+    public double retryMultiplier() {
+        return retryMultiplier;
+    }
+
+    public long retryMaxDelay() {
+        return retryMaxDelay;
+    }
+
+    public double retryJitter() {
+        return retryJitter;
+    }
+
+    public Class<? extends Throwable>[] retryOn() {
+        return retryOn.clone();
+    }
+
+    public int circuitBreakerThreshold() {
+        return circuitBreakerThreshold;
+    }
+
+    public long circuitBreakerDelay() {
+        return circuitBreakerDelay;
+    }
+
+    public long timeout() {
+        return timeout;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        String schedule = DEFAULT_CRON_SCHEDULE.equals(cronSchedule) ? (interval + " " + intervalUnit) : cronSchedule;
+        return "QuartzScheduleSpec[" + schedule + ", job=" + jobName + "/" + jobGroup + "]";
+    }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz;
+
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.SchedulerException;
+
+/**
+ * Quartz {@link Job} periodically calling
+ * {@link NinjaQuartzScheduleHelper#reloadSchedules()} for the helper found in
+ * the scheduler context.
+ * 
+ * @author Jens Fendler
+ *
+ */
+@DisallowConcurrentExecution
+public class ScheduleReloadJob implements Job {
+
+    /**
+     * @see org.quartz.Job#execute(org.quartz.JobExecutionContext)
+     */
+    public void execute(JobExecutionContext context) throws JobExecutionException {
+        try {
+            NinjaQuartzScheduleHelper scheduleHelper = (NinjaQuartzScheduleHelper) context.getScheduler()
+                    .getContext().get(NinjaQuartzScheduleHelper.SCHEDULER_CONTEXT_KEY);
+            if (scheduleHelper != null) {
+                scheduleHelper.reloadSchedules();
+            }
+        } catch (SchedulerException e) {
+            throw new JobExecutionException("Failed to reload schedules.", e);
+        }
+    }
+
+}
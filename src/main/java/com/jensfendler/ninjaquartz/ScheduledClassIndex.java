@@ -0,0 +1,146 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.TypeLiteral;
+import com.google.inject.matcher.AbstractMatcher;
+import com.jensfendler.ninjaquartz.annotations.QuartzSchedule;
+import com.jensfendler.ninjaquartz.processor.QuartzScheduleProcessor;
+
+/**
+ * The index of classes containing {@link QuartzSchedule} annotated methods, as
+ * generated at compile time by the {@link QuartzScheduleProcessor}. Each
+ * archive or classes directory on the classpath may contribute an index file
+ * ({@value #INDEX_RESOURCE}), which lists one binary class name per line.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class ScheduledClassIndex extends AbstractMatcher<TypeLiteral<?>> {
+
+    static final Logger logger = LoggerFactory.getLogger(NinjaQuartzModule.class);
+
+    /**
+     * The name of the index resource(s).
+     */
+    public static final String INDEX_RESOURCE = "META-INF/ninja-quartz/scheduled-classes";
+
+    /**
+     * The binary names of all indexed classes.
+     */
+    private final Set<String> classNames;
+
+    /**
+     * @param classNames
+     *            the binary names of the classes containing scheduled methods
+     */
+    public ScheduledClassIndex(Set<String> classNames) {
+        this.classNames = Collections.unmodifiableSet(new HashSet<String>(classNames));
+    }
+
+    /**
+     * Load the index from all {@value #INDEX_RESOURCE} resources visible to
+     * the given {@link ClassLoader}.
+     * 
+     * @param classLoader
+     *            the {@link ClassLoader} to load the index resources with
+     * @return the index, or null if no index resource has been found (i.e.
+     *         the application has not been compiled with the
+     *         {@link QuartzScheduleProcessor})
+     */
+    public static ScheduledClassIndex load(ClassLoader classLoader) {
+        Set<String> classNames = new HashSet<String>();
+        boolean found = false;
+        try {
+            Enumeration<URL> resources = classLoader.getResources(INDEX_RESOURCE);
+            while (resources.hasMoreElements()) {
+                URL resource = resources.nextElement();
+                logger.debug("Reading scheduled class index {}", resource);
+                readIndex(resource, classNames);
+                found = true;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read scheduled class index " + INDEX_RESOURCE + ".", e);
+        }
+        return found ? new ScheduledClassIndex(classNames) : null;
+    }
+
+    private static void readIndex(URL resource, Set<String> classNames) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(resource.openStream(), "UTF-8"));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    classNames.add(line);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * @return the (unmodifiable) binary names of all indexed classes
+     */
+    public Set<String> getClassNames() {
+        return classNames;
+    }
+
+    /**
+     * Check if a class (or one of its superclasses, from which it may inherit
+     * scheduled methods) is indexed.
+     * 
+     * @param clazz
+     *            the class to check
+     * @return true if the class may contain scheduled methods
+     */
+    public boolean contains(Class<?> clazz) {
+        for (Class<?> c = clazz; (c != null) && (c != Object.class); c = c.getSuperclass()) {
+            if (classNames.contains(c.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @see com.google.inject.matcher.Matcher#matches(java.lang.Object)
+     */
+    public boolean matches(TypeLiteral<?> type) {
+        return contains(type.getRawType());
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "ScheduledClassIndex(" + classNames.size() + " classes)";
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.List;
+
+import com.jensfendler.ninjaquartz.batch.WorkQueue;
+import com.jensfendler.ninjaquartz.batch.WorkQueues;
+
+/**
+ * Marks a {@link List} parameter of a scheduled method which receives a batch
+ * of work items drained from a {@link WorkQueue}. Other threads (e.g. request
+ * handlers) add items to the queue obtained from the {@link WorkQueues}
+ * registry by the same name. On each fire, the method is called with batches
+ * of up to {@link #maxSize()} items until the items queued at the time of the
+ * fire have been drained; it is not called if the queue is empty. If the
+ * method throws an exception (or its asynchronous result fails), the items of
+ * the failed batch are put back at the head of the queue and passed to the
+ * method again on the next fire (or retry).
+ * 
+ * <pre>
+ * &#64;QuartzSchedule(cronSchedule = "0/5 * * * * ?")
+ * public void flushAuditRows(&#64;Batch(value = "audit", maxSize = 500, flushAt = 2000) List&lt;AuditRow&gt; rows) {
+ *     auditDao.insertAll(rows);
+ * }
+ * </pre>
+ * 
+ * @author Jens Fendler
+ *
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface Batch {
+
+    int DEFAULT_MAX_SIZE = 1000;
+
+    int NO_EARLY_FLUSH = 0;
+
+    /**
+     * @return the name of the {@link WorkQueue} to drain
+     */
+    String value();
+
+    /**
+     * @return the maximum number of items passed to a single call of the
+     *         scheduled method
+     */
+    int maxSize() default DEFAULT_MAX_SIZE;
+
+    /**
+     * The number of queued items at which the job is fired early, i.e.
+     * without waiting for its next scheduled fire. By default, the queue is
+     * only drained on the scheduled fires.
+     * 
+     * @return the number of items triggering an early fire
+     */
+    int flushAt() default NO_EARLY_FLUSH;
+
+}
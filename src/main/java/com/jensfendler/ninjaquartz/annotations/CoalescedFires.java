@@ -0,0 +1,53 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.quartz.JobExecutionContext;
+
+/**
+ * Marks an <code>int</code> parameter of a scheduled method which receives
+ * the number of fires handled by the execution. This is 1, unless the method
+ * is scheduled with {@link QuartzSchedule#coalesce()}, and fires which were
+ * backlogged (e.g. during a slow previous execution) have been collapsed into
+ * this execution.
+ * 
+ * <pre>
+ * &#64;QuartzSchedule(cronSchedule = "0/10 * * * * ?", coalesce = true)
+ * public void refresh(&#64;CoalescedFires int fires) { ... }
+ * </pre>
+ * 
+ * The number is also available from the merged job data map of the
+ * {@link JobExecutionContext} (using the key {@link #JOB_DATA_KEY}).
+ * 
+ * @author Jens Fendler
+ *
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface CoalescedFires {
+
+    /**
+     * The key of the number of fires in the merged job data map of the
+     * {@link JobExecutionContext}.
+     */
+    String JOB_DATA_KEY = "nqCoalescedFires";
+
+}
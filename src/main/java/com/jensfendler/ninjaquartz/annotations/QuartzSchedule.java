@@ -24,16 +24,22 @@ import java.lang.reflect.InvocationTargetException;
 import org.quartz.CronExpression;
 import org.quartz.CronScheduleBuilder;
 import org.quartz.CronTrigger;
+import org.quartz.DailyTimeIntervalScheduleBuilder;
+import org.quartz.DateBuilder.IntervalUnit;
 import org.quartz.Job;
 import org.quartz.JobBuilder;
 import org.quartz.JobDataMap;
 import org.quartz.Scheduler;
+import org.quartz.SimpleScheduleBuilder;
 import org.quartz.Trigger;
 import org.quartz.TriggerBuilder;
 
 import com.jensfendler.ninjaquartz.NinjaQuartzScheduleHelper;
 
 /**
+ * Schedules the annotated method. To run a method on several schedules, group
+ * the annotations in {@link QuartzSchedules}.
+ * 
  * @author Jens Fendler
  *
  */
@@ -65,6 +71,8 @@ public @interface QuartzSchedule {
 
     int DEFAULT_SCHEDULER_DELAY = -1;
 
+    String DEFAULT_SCHEDULER = "_defaultScheduler";
+
     String DEFAULT_TRIGGER_START_AT = "_noTriggerStartAt";
 
     String DEFAULT_TRIGGER_END_AT = "_noTriggerEndAt";
@@ -77,6 +85,32 @@ public @interface QuartzSchedule {
 
     boolean DEFAULT_FORCE_KEEP = false;
 
+    boolean DEFAULT_COALESCE = false;
+
+    int DEFAULT_RETRY_ATTEMPTS = 0;
+
+    long DEFAULT_RETRY_DELAY = 1000L;
+
+    double DEFAULT_RETRY_MULTIPLIER = 2.0;
+
+    long DEFAULT_RETRY_MAX_DELAY = 60000L;
+
+    double DEFAULT_RETRY_JITTER = 0.5;
+
+    int DEFAULT_CIRCUIT_BREAKER_THRESHOLD = 0;
+
+    long DEFAULT_CIRCUIT_BREAKER_DELAY = 60000L;
+
+    long DEFAULT_TIMEOUT = 0L;
+
+    String DEFAULT_CRON_SCHEDULE = "_noCronSchedule";
+
+    long DEFAULT_INTERVAL = -1;
+
+    int REPEAT_INDEFINITELY = -1;
+
+    String DEFAULT_DAILY_TIME = "_noDailyTime";
+
     /**
      * The group name of the trigger to use for the scheduled method.
      * 
@@ -105,7 +139,8 @@ public @interface QuartzSchedule {
 
     /**
      * The {@link #cronSchedule()} string defines the UNIX Cron-like execution
-     * schedule to set for an annotated method.
+     * schedule to set for an annotated method. Either this or an
+     * {@link #interval()} is required.
      * 
      * @return the cron expression defining the schedule, <em>or</em> the key
      *         name of a Ninja property (from application.conf) that contains a
@@ -113,7 +148,79 @@ public @interface QuartzSchedule {
      * 
      * @see CronExpression
      */
-    String cronSchedule();
+    String cronSchedule() default DEFAULT_CRON_SCHEDULE;
+
+    /**
+     * The type of trigger to use. By default, a cron trigger is used if a
+     * {@link #cronSchedule()} is given, and a simple (interval) trigger
+     * otherwise.
+     * 
+     * @return the type of trigger
+     */
+    TriggerType triggerType() default TriggerType.DEFAULT;
+
+    /**
+     * The interval (in {@link #intervalUnit()}s) between fires of a
+     * {@link TriggerType#SIMPLE}, {@link TriggerType#CALENDAR_INTERVAL} or
+     * {@link TriggerType#DAILY_TIME_INTERVAL} trigger.
+     * 
+     * @return the interval
+     */
+    long interval() default DEFAULT_INTERVAL;
+
+    /**
+     * The unit of the {@link #interval()}. Simple triggers support units from
+     * milliseconds to weeks, calendar interval triggers from seconds to years,
+     * and daily time interval triggers seconds, minutes and hours.
+     * 
+     * @return the unit of the interval
+     */
+    IntervalUnit intervalUnit() default IntervalUnit.MILLISECOND;
+
+    /**
+     * The number of times a {@link TriggerType#SIMPLE} or
+     * {@link TriggerType#DAILY_TIME_INTERVAL} trigger repeats after its first
+     * fire. Defaults to repeating indefinitely.
+     * 
+     * @return the repeat count
+     * 
+     * @see SimpleScheduleBuilder#withRepeatCount(int)
+     */
+    int repeatCount() default REPEAT_INDEFINITELY;
+
+    /**
+     * The time of day (<code>HH:mm</code> or <code>HH:mm:ss</code>) at which a
+     * {@link TriggerType#DAILY_TIME_INTERVAL} trigger starts firing each day.
+     * Defaults to midnight.
+     * 
+     * @return the daily start time
+     * 
+     * @see DailyTimeIntervalScheduleBuilder#startingDailyAt(org.quartz.TimeOfDay)
+     */
+    String dailyStartTime() default DEFAULT_DAILY_TIME;
+
+    /**
+     * The time of day (<code>HH:mm</code> or <code>HH:mm:ss</code>) at which a
+     * {@link TriggerType#DAILY_TIME_INTERVAL} trigger stops firing each day.
+     * Defaults to the end of the day.
+     * 
+     * @return the daily end time
+     * 
+     * @see DailyTimeIntervalScheduleBuilder#endingDailyAt(org.quartz.TimeOfDay)
+     */
+    String dailyEndTime() default DEFAULT_DAILY_TIME;
+
+    /**
+     * The days of the week (as {@link java.util.Calendar#SUNDAY} to
+     * {@link java.util.Calendar#SATURDAY}) on which a
+     * {@link TriggerType#DAILY_TIME_INTERVAL} trigger fires. Defaults to all
+     * days.
+     * 
+     * @return the days of the week
+     * 
+     * @see DailyTimeIntervalScheduleBuilder#onDaysOfTheWeek(Integer...)
+     */
+    int[] daysOfWeek() default {};
 
     /**
      * The name of the {@link Job} to run for the scheduled method.
@@ -185,7 +292,22 @@ public @interface QuartzSchedule {
     int schedulerDelay() default DEFAULT_SCHEDULER_DELAY;
 
     /**
-     * The misfire strategy to use if the {@link CronTrigger} misfires.
+     * The name of the {@link Scheduler} to run the job in. Named schedulers
+     * (with their own thread pool and job store) are configured in
+     * application.conf, using the Quartz properties without the
+     * <code>org.quartz.</code> prefix, e.g.
+     * <code>quartz.schedulers.batch.threadPool.threadCount = 4</code>. By
+     * default, jobs run in the default scheduler.
+     * 
+     * @return the name of the scheduler
+     */
+    String scheduler() default DEFAULT_SCHEDULER;
+
+    /**
+     * The misfire strategy to use if the {@link CronTrigger} misfires. It is
+     * applied to the other trigger types as well (with "fire and proceed"
+     * meaning "fire now" and "do nothing" meaning "next with remaining count"
+     * for simple triggers).
      * 
      * @return the misfire policy to use for the cron trigger
      * 
@@ -239,4 +361,111 @@ public @interface QuartzSchedule {
      */
     boolean forceKeep() default DEFAULT_FORCE_KEEP;
 
+    /**
+     * If this argument is set to <code>true</code>, fires of a non-concurrent
+     * job which have been backlogged (e.g. while a slow execution or a long
+     * garbage collection pause delayed the job) are collapsed into a single
+     * execution: a fire is skipped if the next fire of its trigger is already
+     * due. The number of fires handled by an execution is passed to a
+     * parameter annotated with {@link CoalescedFires}.
+     * 
+     * This has no effect if {@link #allowConcurrent()} is set, or if the
+     * scheduled method returns an asynchronous result (such fires are skipped
+     * anyway). Defaults to <code>false</code>.
+     * 
+     * @return the coalesce property of the job
+     */
+    boolean coalesce() default DEFAULT_COALESCE;
+
+    /**
+     * The maximum number of retries of an execution which failed with an
+     * exception thrown by the scheduled method. Retries are executed by
+     * one-shot triggers, so no worker thread is blocked while waiting for a
+     * retry. Only if all retries have failed, the failure is handled as
+     * configured by {@link #removeOnError()} and {@link #forceKeep()}.
+     * Defaults to 0 (no retries).
+     * 
+     * @return the maximum number of retries of a failed execution
+     */
+    int retryAttempts() default DEFAULT_RETRY_ATTEMPTS;
+
+    /**
+     * The delay (in milliseconds) before the first retry of a failed
+     * execution. The delay of each further retry is multiplied by
+     * {@link #retryMultiplier()}, up to {@link #retryMaxDelay()}.
+     * 
+     * @return the initial retry delay in milliseconds
+     */
+    long retryDelay() default DEFAULT_RETRY_DELAY;
+
+    /**
+     * The factor by which the delay increases with each retry (exponential
+     * backoff).
+     * 
+     * @return the retry delay multiplier
+     */
+    double retryMultiplier() default DEFAULT_RETRY_MULTIPLIER;
+
+    /**
+     * The maximum delay (in milliseconds) before a retry.
+     * 
+     * @return the maximum retry delay in milliseconds
+     */
+    long retryMaxDelay() default DEFAULT_RETRY_MAX_DELAY;
+
+    /**
+     * The fraction (between 0 and 1) of each retry delay which is randomised,
+     * so that jobs failing at the same time do not retry at the same time.
+     * E.g. with a jitter of 0.5, a delay of 10s results in a retry after 5 to
+     * 10 seconds.
+     * 
+     * @return the retry jitter
+     */
+    double retryJitter() default DEFAULT_RETRY_JITTER;
+
+    /**
+     * The exception types (including their subclasses) which should be
+     * retried. If empty (the default), all exceptions thrown by the scheduled
+     * method are retried.
+     * 
+     * @return the retryable exception types
+     */
+    Class<? extends Throwable>[] retryOn() default {};
+
+    /**
+     * The number of consecutive failed executions after which the job's
+     * circuit breaker opens: its triggers are paused, and a single probe
+     * execution is scheduled after {@link #circuitBreakerDelay()}. A
+     * successful probe resumes the triggers, a failed one pauses them again.
+     * Failures handled by the circuit breaker are neither retried nor
+     * removing the job. Defaults to 0 (no circuit breaker).
+     * 
+     * @return the failure threshold of the circuit breaker
+     */
+    int circuitBreakerThreshold() default DEFAULT_CIRCUIT_BREAKER_THRESHOLD;
+
+    /**
+     * The time (in milliseconds) the circuit breaker stays open before a probe
+     * execution of the job.
+     * 
+     * @return the delay of probe executions
+     */
+    long circuitBreakerDelay() default DEFAULT_CIRCUIT_BREAKER_DELAY;
+
+    /**
+     * The maximum duration (in milliseconds) of an execution of the scheduled
+     * method. Executions exceeding it are interrupted, so that a hung method
+     * (e.g. waiting for stuck I/O) does not hold a worker thread forever. As
+     * interruption is cooperative, the method must respond to it (e.g. by
+     * throwing an {@link InterruptedException} from a blocking call). An
+     * interrupted execution is handled like any other failure. For methods
+     * returning asynchronous results, the execution fails if the result has
+     * not completed within the timeout (a {@link java.util.concurrent.Future}
+     * result is cancelled), so that a result which never completes does not
+     * block further executions. Defaults to 0 (no timeout).
+     * 
+     * @return the timeout of executions in milliseconds
+     */
+    long timeout() default DEFAULT_TIMEOUT;
+
 }
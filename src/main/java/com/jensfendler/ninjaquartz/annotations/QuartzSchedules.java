@@ -0,0 +1,48 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Container of several {@link QuartzSchedule} annotations, to run the same
+ * method on several schedules (e.g. peak and off-peak cadences). The method is
+ * scheduled as a single job with one trigger for each {@link QuartzSchedule}.
+ * The properties of the job (e.g. its name, or whether concurrent executions
+ * are allowed) are taken from the first {@link QuartzSchedule}.
+ * 
+ * <pre>
+ * &#64;QuartzSchedules({ &#64;QuartzSchedule(cronSchedule = "0 0/1 8-18 ? * MON-FRI"),
+ *         &#64;QuartzSchedule(cronSchedule = "0 0/15 0-7,19-23 * * ?") })
+ * public void poll() { ... }
+ * </pre>
+ * 
+ * @author Jens Fendler
+ *
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QuartzSchedules {
+
+    /**
+     * @return the schedules of the method
+     */
+    QuartzSchedule[] value();
+
+}
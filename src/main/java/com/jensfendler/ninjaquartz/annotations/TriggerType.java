@@ -0,0 +1,62 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.annotations;
+
+import org.quartz.CalendarIntervalScheduleBuilder;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.DailyTimeIntervalScheduleBuilder;
+import org.quartz.SimpleScheduleBuilder;
+
+/**
+ * The types of triggers which can be used for a {@link QuartzSchedule}.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public enum TriggerType {
+
+    /**
+     * A {@link #CRON} trigger if a {@link QuartzSchedule#cronSchedule()} is
+     * given, otherwise a {@link #SIMPLE} trigger.
+     */
+    DEFAULT,
+
+    /**
+     * A trigger built with the {@link CronScheduleBuilder}.
+     */
+    CRON,
+
+    /**
+     * A trigger built with the {@link SimpleScheduleBuilder}, firing every
+     * {@link QuartzSchedule#interval()} (down to one millisecond).
+     */
+    SIMPLE,
+
+    /**
+     * A trigger built with the {@link CalendarIntervalScheduleBuilder}, firing
+     * every {@link QuartzSchedule#interval()} calendar units (seconds or
+     * longer, e.g. months).
+     */
+    CALENDAR_INTERVAL,
+
+    /**
+     * A trigger built with the {@link DailyTimeIntervalScheduleBuilder},
+     * firing every {@link QuartzSchedule#interval()} (seconds, minutes or
+     * hours) within a time window on selected days of the week.
+     */
+    DAILY_TIME_INTERVAL
+
+}
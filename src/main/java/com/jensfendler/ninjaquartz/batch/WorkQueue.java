@@ -0,0 +1,182 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.batch;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.jensfendler.ninjaquartz.NinjaQuartzModule;
+import com.jensfendler.ninjaquartz.annotations.Batch;
+
+/**
+ * A queue of work items, filled by any number of threads (e.g. request
+ * handlers) and drained in batches by a scheduled method (see {@link Batch}).
+ * Adding items is lock-free. The queue is not bounded, so the draining job
+ * must keep up with the producers.
+ * 
+ * Once the number of queued items reaches the flush threshold (if any), the
+ * flush action (firing the draining job early) is run once by the adding
+ * thread, until the queue is drained again.
+ * 
+ * The items of a batch whose processing failed can be put back at the head of
+ * the queue with {@link #requeue(List)}, to be drained again first.
+ * 
+ * @author Jens Fendler
+ *
+ * @param <T>
+ *            the type of the work items
+ */
+public class WorkQueue<T> {
+
+    protected static final Logger logger = LoggerFactory.getLogger(NinjaQuartzModule.class);
+
+    private final String name;
+
+    private final ConcurrentLinkedDeque<T> items = new ConcurrentLinkedDeque<T>();
+
+    /**
+     * The number of queued items (as {@link ConcurrentLinkedDeque#size()} is
+     * not a constant-time operation).
+     */
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Set once the flush action has been run, until the queue is drained.
+     */
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private volatile int flushThreshold = Batch.NO_EARLY_FLUSH;
+
+    private volatile Runnable flushAction;
+
+    /**
+     * @param name
+     *            the name of the queue
+     */
+    public WorkQueue(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Add a work item to the queue.
+     * 
+     * @param item
+     *            the item (not null)
+     */
+    public void add(T item) {
+        if (item == null) {
+            throw new NullPointerException("Cannot add null to work queue " + name);
+        }
+        items.offer(item);
+        int queued = size.incrementAndGet();
+
+        int threshold = flushThreshold;
+        Runnable action = flushAction;
+        if ((action != null) && (threshold > 0) && (queued >= threshold) && flushRequested.compareAndSet(false, true)) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                logger.warn("Failed to flush work queue {} early: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Remove up to the given number of items from the queue.
+     * 
+     * @param target
+     *            the collection to add the items to
+     * @param maxItems
+     *            the maximum number of items to remove
+     * @return the number of items removed
+     */
+    public int drainTo(Collection<? super T> target, int maxItems) {
+        int drained = 0;
+        T item;
+        while ((drained < maxItems) && ((item = items.poll()) != null)) {
+            target.add(item);
+            drained++;
+        }
+        size.addAndGet(-drained);
+        flushRequested.set(false);
+        return drained;
+    }
+
+    /**
+     * Put the items of a batch back at the head of the queue (in their
+     * original order), e.g. because processing them has failed. This does not
+     * run the flush action.
+     * 
+     * @param batch
+     *            the items drained with {@link #drainTo(Collection, int)}
+     */
+    public void requeue(List<? extends T> batch) {
+        int requeued = 0;
+        ListIterator<? extends T> it = batch.listIterator(batch.size());
+        while (it.hasPrevious()) {
+            T item = it.previous();
+            if (item != null) {
+                items.offerFirst(item);
+                requeued++;
+            }
+        }
+        size.addAndGet(requeued);
+        if (requeued > 0) {
+            logger.debug("Re-queued {} items in work queue {}.", requeued, name);
+        }
+    }
+
+    /**
+     * Set the action to run when the number of queued items reaches the given
+     * threshold.
+     * 
+     * @param threshold
+     *            the number of items, or {@link Batch#NO_EARLY_FLUSH}
+     * @param action
+     *            the action to run (e.g. firing the draining job)
+     */
+    public void setFlushAction(int threshold, Runnable action) {
+        this.flushAction = action;
+        this.flushThreshold = threshold;
+    }
+
+    /**
+     * @return the number of queued items
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * @return the name of the queue
+     */
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return "WorkQueue[" + name + ": size=" + size() + "]";
+    }
+
+}
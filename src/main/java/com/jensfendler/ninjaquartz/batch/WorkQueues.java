@@ -0,0 +1,73 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.batch;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.inject.Singleton;
+import com.jensfendler.ninjaquartz.annotations.Batch;
+
+/**
+ * The registry of all {@link WorkQueue}s, by name. Inject it into the code
+ * producing work items. The items are consumed by the scheduled method with a
+ * {@link Batch} parameter of the same queue name.
+ * 
+ * <pre>
+ * &#64;Inject
+ * WorkQueues workQueues;
+ * ...
+ * workQueues.&lt;AuditRow&gt; get("audit").add(row);
+ * </pre>
+ * 
+ * @author Jens Fendler
+ *
+ */
+@Singleton
+public class WorkQueues {
+
+    private final ConcurrentMap<String, WorkQueue<?>> queues = new ConcurrentHashMap<String, WorkQueue<?>>();
+
+    /**
+     * Get a work queue, creating it if required.
+     * 
+     * @param name
+     *            the name of the queue
+     * @return the queue
+     */
+    @SuppressWarnings("unchecked")
+    public <T> WorkQueue<T> get(String name) {
+        WorkQueue<?> queue = queues.get(name);
+        if (queue == null) {
+            WorkQueue<T> newQueue = new WorkQueue<T>(name);
+            queue = queues.putIfAbsent(name, newQueue);
+            if (queue == null) {
+                queue = newQueue;
+            }
+        }
+        return (WorkQueue<T>) queue;
+    }
+
+    /**
+     * @return all work queues
+     */
+    public Collection<WorkQueue<?>> getAll() {
+        return new ArrayList<WorkQueue<?>>(queues.values());
+    }
+
+}
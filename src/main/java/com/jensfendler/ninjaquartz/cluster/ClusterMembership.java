@@ -0,0 +1,57 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.cluster;
+
+import java.util.Set;
+
+/**
+ * Provides the nodes currently participating in the partitioning of
+ * scheduled jobs.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public interface ClusterMembership {
+
+    /**
+     * @return the id of this node
+     */
+    public String getLocalNodeId();
+
+    /**
+     * Announce that this node is (still) alive. Called periodically.
+     * 
+     * @throws Exception
+     *             if the announcement failed
+     */
+    public void heartbeat() throws Exception;
+
+    /**
+     * @return the ids of all live nodes (including this node)
+     * @throws Exception
+     *             if the nodes could not be determined
+     */
+    public Set<String> getLiveNodes() throws Exception;
+
+    /**
+     * Announce that this node leaves the cluster (e.g. on shutdown).
+     * 
+     * @throws Exception
+     *             if the announcement failed
+     */
+    public void leave() throws Exception;
+
+}
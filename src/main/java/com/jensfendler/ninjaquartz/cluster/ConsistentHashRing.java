@@ -0,0 +1,112 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.cluster;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * A consistent hash ring assigning keys (e.g. job keys) to nodes. Each node is
+ * placed on the ring a number of times (as "virtual nodes") to spread the
+ * keys evenly. When a node joins or leaves, only the keys of the ring
+ * segments it takes over (or gives up) move to another node.
+ * 
+ * The positions are derived from MD5 digests, so all nodes compute the same
+ * assignment.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public final class ConsistentHashRing {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * The default number of virtual nodes per node.
+     */
+    public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    private final TreeMap<Long, String> ring = new TreeMap<Long, String>();
+
+    private final Collection<String> nodes;
+
+    /**
+     * @param nodes
+     *            the ids of the nodes on the ring
+     */
+    public ConsistentHashRing(Collection<String> nodes) {
+        this(nodes, DEFAULT_VIRTUAL_NODES);
+    }
+
+    /**
+     * @param nodes
+     *            the ids of the nodes on the ring
+     * @param virtualNodes
+     *            the number of positions of each node on the ring
+     */
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        this.nodes = Collections.unmodifiableSet(new TreeSet<String>(nodes));
+        for (String node : this.nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(node + "#" + i), node);
+            }
+        }
+    }
+
+    /**
+     * @param key
+     *            the key to assign
+     * @return the id of the node owning the key, or null if the ring has no
+     *         nodes
+     */
+    public String getOwner(String key) {
+        if (ring.isEmpty()) {
+            return null;
+        }
+        // the first node clockwise from the key's position
+        Map.Entry<Long, String> entry = ring.ceilingEntry(hash(key));
+        return (entry != null) ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    /**
+     * @return the (sorted, unmodifiable) ids of the nodes on the ring
+     */
+    public Collection<String> getNodes() {
+        return nodes;
+    }
+
+    private static long hash(String value) {
+        MessageDigest md5;
+        try {
+            md5 = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support MD5
+            throw new IllegalStateException(e);
+        }
+        byte[] digest = md5.digest(value.getBytes(UTF8));
+        long hash = 0;
+        for (int i = 0; i < 8; i++) {
+            hash = (hash << 8) | (digest[i] & 0xff);
+        }
+        return hash;
+    }
+}
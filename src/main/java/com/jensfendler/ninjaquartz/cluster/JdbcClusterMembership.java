@@ -0,0 +1,201 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.cluster;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.quartz.utils.DBConnectionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.jensfendler.ninjaquartz.NinjaQuartzModule;
+
+/**
+ * A {@link ClusterMembership} based on a heartbeat table in a shared database
+ * (similar to the <code>SCHEDULER_STATE</code> table of Quartz' clustered
+ * JDBC job stores). Every node periodically updates its check-in time, and
+ * nodes which have not checked in within the node timeout are considered to
+ * have left the cluster.
+ * 
+ * Connections are obtained from a data source configured in the Quartz
+ * properties (<code>org.quartz.dataSource.NAME.*</code>). The table is
+ * created on first use if it does not exist:
+ * 
+ * <code>
+ * CREATE TABLE NQ_PARTITION_NODES (NODE_ID VARCHAR(200) NOT NULL PRIMARY KEY, LAST_CHECKIN BIGINT NOT NULL)
+ * </code>
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class JdbcClusterMembership implements ClusterMembership {
+
+    static final Logger logger = LoggerFactory.getLogger(NinjaQuartzModule.class);
+
+    /**
+     * The default name of the heartbeat table.
+     */
+    public static final String DEFAULT_TABLE_NAME = "NQ_PARTITION_NODES";
+
+    private final String dataSourceName;
+
+    private final String tableName;
+
+    private final String localNodeId;
+
+    private final long nodeTimeoutMillis;
+
+    private volatile boolean tableChecked;
+
+    /**
+     * @param dataSourceName
+     *            the name of the Quartz data source to use
+     * @param tableName
+     *            the name of the heartbeat table
+     * @param localNodeId
+     *            the id of this node
+     * @param nodeTimeoutMillis
+     *            the time (in milliseconds) after which a node which has not
+     *            checked in is considered to have left
+     */
+    public JdbcClusterMembership(String dataSourceName, String tableName, String localNodeId,
+            long nodeTimeoutMillis) {
+        this.dataSourceName = dataSourceName;
+        this.tableName = tableName;
+        this.localNodeId = localNodeId;
+        this.nodeTimeoutMillis = nodeTimeoutMillis;
+    }
+
+    /**
+     * @see com.jensfendler.ninjaquartz.cluster.ClusterMembership#getLocalNodeId()
+     */
+    public String getLocalNodeId() {
+        return localNodeId;
+    }
+
+    /**
+     * @see com.jensfendler.ninjaquartz.cluster.ClusterMembership#heartbeat()
+     */
+    public void heartbeat() throws SQLException {
+        Connection connection = getConnection();
+        try {
+            long now = System.currentTimeMillis();
+            PreparedStatement update = connection
+                    .prepareStatement("UPDATE " + tableName + " SET LAST_CHECKIN = ? WHERE NODE_ID = ?");
+            try {
+                update.setLong(1, now);
+                update.setString(2, localNodeId);
+                if (update.executeUpdate() > 0) {
+                    return;
+                }
+            } finally {
+                update.close();
+            }
+
+            PreparedStatement insert = connection
+                    .prepareStatement("INSERT INTO " + tableName + " (NODE_ID, LAST_CHECKIN) VALUES (?, ?)");
+            try {
+                insert.setString(1, localNodeId);
+                insert.setLong(2, now);
+                insert.executeUpdate();
+            } finally {
+                insert.close();
+            }
+        } finally {
+            connection.close();
+        }
+    }
+
+    /**
+     * @see com.jensfendler.ninjaquartz.cluster.ClusterMembership#getLiveNodes()
+     */
+    public Set<String> getLiveNodes() throws SQLException {
+        Set<String> nodes = new TreeSet<String>();
+        Connection connection = getConnection();
+        try {
+            PreparedStatement select = connection
+                    .prepareStatement("SELECT NODE_ID FROM " + tableName + " WHERE LAST_CHECKIN >= ?");
+            try {
+                select.setLong(1, System.currentTimeMillis() - nodeTimeoutMillis);
+                ResultSet rs = select.executeQuery();
+                while (rs.next()) {
+                    nodes.add(rs.getString(1));
+                }
+                rs.close();
+            } finally {
+                select.close();
+            }
+        } finally {
+            connection.close();
+        }
+        return nodes;
+    }
+
+    /**
+     * @see com.jensfendler.ninjaquartz.cluster.ClusterMembership#leave()
+     */
+    public void leave() throws SQLException {
+        Connection connection = getConnection();
+        try {
+            PreparedStatement delete = connection.prepareStatement("DELETE FROM " + tableName + " WHERE NODE_ID = ?");
+            try {
+                delete.setString(1, localNodeId);
+                delete.executeUpdate();
+            } finally {
+                delete.close();
+            }
+        } finally {
+            connection.close();
+        }
+    }
+
+    /**
+     * @return a connection (with auto-commit enabled) from the Quartz data
+     *         source, after making sure the heartbeat table exists
+     * @throws SQLException
+     */
+    private Connection getConnection() throws SQLException {
+        Connection connection = DBConnectionManager.getInstance().getConnection(dataSourceName);
+        if (!connection.getAutoCommit()) {
+            connection.setAutoCommit(true);
+        }
+        if (!tableChecked) {
+            createTableIfMissing(connection);
+            tableChecked = true;
+        }
+        return connection;
+    }
+
+    private void createTableIfMissing(Connection connection) throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            statement.executeQuery("SELECT COUNT(*) FROM " + tableName).close();
+        } catch (SQLException e) {
+            logger.info("Creating partition heartbeat table {}.", tableName);
+            statement.executeUpdate("CREATE TABLE " + tableName
+                    + " (NODE_ID VARCHAR(200) NOT NULL PRIMARY KEY, LAST_CHECKIN BIGINT NOT NULL)");
+        } finally {
+            statement.close();
+        }
+    }
+
+}
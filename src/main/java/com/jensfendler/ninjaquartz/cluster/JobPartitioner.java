@@ -0,0 +1,350 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.cluster;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.SimpleScheduleBuilder;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.jensfendler.ninjaquartz.NinjaQuartzModule;
+
+/**
+ * Partitions scheduled jobs across the nodes of a cluster: each job is
+ * scheduled only on the node owning its {@link JobKey} on a
+ * {@link ConsistentHashRing} of the live nodes (as provided by the
+ * {@link ClusterMembership}). The partitioner periodically announces this
+ * node and checks the live nodes (using the {@link PartitionRebalanceJob});
+ * when nodes join or leave, the jobs of this node are rescheduled or
+ * unscheduled accordingly.
+ * 
+ * All jobs are registered with the partitioner of every node, but each node's
+ * scheduler (using a non-clustered job store) only stores the jobs it owns.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class JobPartitioner {
+
+    static final Logger logger = LoggerFactory.getLogger(NinjaQuartzModule.class);
+
+    /**
+     * The key of the {@link JobPartitioner} in the scheduler context.
+     */
+    public static final String SCHEDULER_CONTEXT_KEY = "nqPartitioner";
+
+    /**
+     * The key of the {@link PartitionRebalanceJob}.
+     */
+    public static final JobKey REBALANCE_JOB_KEY = JobKey.jobKey("nqPartitionRebalance", "nqSystem");
+
+    private final ClusterMembership membership;
+
+    private final int virtualNodes;
+
+    /**
+     * All registered jobs (owned by any node), with their triggers. Guarded by
+     * this.
+     */
+    private final Map<JobKey, List<Trigger>> triggers = new LinkedHashMap<JobKey, List<Trigger>>();
+
+    /**
+     * The schedulers of the registered jobs which do not run in the scheduler
+     * passed to {@link #rebalance(Scheduler)}. Guarded by this.
+     */
+    private final Map<JobKey, Scheduler> schedulers = new HashMap<JobKey, Scheduler>();
+
+    /**
+     * All registered jobs. Guarded by this.
+     */
+    private final Map<JobKey, JobDetail> jobDetails = new LinkedHashMap<JobKey, JobDetail>();
+
+    /**
+     * The ring of the live nodes, as of the last {@link #refresh()}.
+     */
+    private volatile ConsistentHashRing ring;
+
+    /**
+     * @param membership
+     *            the {@link ClusterMembership} providing the live nodes
+     * @param virtualNodes
+     *            the number of positions of each node on the
+     *            {@link ConsistentHashRing}
+     */
+    public JobPartitioner(ClusterMembership membership, int virtualNodes) {
+        this.membership = membership;
+        this.virtualNodes = virtualNodes;
+    }
+
+    /**
+     * Register a job with the partitioner. The job is not scheduled by this
+     * method.
+     * 
+     * @param jobDetail
+     *            the job
+     * @param trigger
+     *            the trigger of the job
+     */
+    public void register(JobDetail jobDetail, Trigger trigger) {
+        register(jobDetail, Collections.singletonList(trigger));
+    }
+
+    /**
+     * Register a job with several triggers with the partitioner. The job is
+     * not scheduled by this method.
+     * 
+     * @param jobDetail
+     *            the job
+     * @param jobTriggers
+     *            the triggers of the job
+     */
+    public void register(JobDetail jobDetail, Collection<? extends Trigger> jobTriggers) {
+        register(jobDetail, jobTriggers, null);
+    }
+
+    /**
+     * Register a job with several triggers with the partitioner, to be
+     * scheduled in the given scheduler. The job is not scheduled by this
+     * method.
+     * 
+     * @param jobDetail
+     *            the job
+     * @param jobTriggers
+     *            the triggers of the job
+     * @param scheduler
+     *            the scheduler to schedule the job in, or null for the
+     *            scheduler passed to {@link #rebalance(Scheduler)}
+     */
+    public synchronized void register(JobDetail jobDetail, Collection<? extends Trigger> jobTriggers,
+            Scheduler scheduler) {
+        jobDetails.put(jobDetail.getKey(), jobDetail);
+        triggers.put(jobDetail.getKey(), new ArrayList<Trigger>(jobTriggers));
+        if (scheduler != null) {
+            schedulers.put(jobDetail.getKey(), scheduler);
+        } else {
+            schedulers.remove(jobDetail.getKey());
+        }
+    }
+
+    /**
+     * Replace the trigger (with the same key) of a registered job. The job is
+     * not rescheduled by this method.
+     * 
+     * @param jobKey
+     *            the key of the job
+     * @param trigger
+     *            the new trigger
+     */
+    public synchronized void updateTrigger(JobKey jobKey, Trigger trigger) {
+        List<Trigger> jobTriggers = triggers.get(jobKey);
+        if (jobTriggers == null) {
+            return;
+        }
+        for (int i = 0; i < jobTriggers.size(); i++) {
+            if (jobTriggers.get(i).getKey().equals(trigger.getKey())) {
+                jobTriggers.set(i, trigger);
+            }
+        }
+    }
+
+    /**
+     * Remove a job from the partitioner. The job is not unscheduled by this
+     * method.
+     * 
+     * @param jobKey
+     *            the key of the job
+     */
+    public synchronized void unregister(JobKey jobKey) {
+        jobDetails.remove(jobKey);
+        triggers.remove(jobKey);
+        schedulers.remove(jobKey);
+    }
+
+    /**
+     * Announce this node and update the ring of live nodes.
+     * 
+     * @return true if the live nodes have changed
+     */
+    public boolean refresh() {
+        String localNodeId = membership.getLocalNodeId();
+        Set<String> liveNodes;
+        try {
+            membership.heartbeat();
+            liveNodes = new TreeSet<String>(membership.getLiveNodes());
+            liveNodes.add(localNodeId);
+        } catch (Exception e) {
+            if (ring != null) {
+                logger.error("Failed to update cluster membership. Keeping current partitioning.", e);
+                return false;
+            }
+            logger.error("Failed to determine cluster membership. Assuming a single node.", e);
+            liveNodes = new TreeSet<String>();
+            liveNodes.add(localNodeId);
+        }
+
+        ConsistentHashRing currentRing = ring;
+        if ((currentRing != null) && currentRing.getNodes().equals(liveNodes)) {
+            return false;
+        }
+        logger.info("Partitioning scheduled jobs across nodes {} (this node: {}).", liveNodes, localNodeId);
+        ring = new ConsistentHashRing(liveNodes, virtualNodes);
+        return true;
+    }
+
+    /**
+     * @param jobKey
+     *            the key of a job
+     * @return the id of the node owning the job
+     */
+    public String getOwner(JobKey jobKey) {
+        if (ring == null) {
+            refresh();
+        }
+        return ring.getOwner(jobKey.toString());
+    }
+
+    /**
+     * @param jobKey
+     *            the key of a job
+     * @return true if the job is owned by this node
+     */
+    public boolean isLocal(JobKey jobKey) {
+        return membership.getLocalNodeId().equals(getOwner(jobKey));
+    }
+
+    /**
+     * Update the ring of live nodes, and (if it has changed) schedule the
+     * registered jobs now owned by this node and unschedule the jobs now owned
+     * by other nodes.
+     * 
+     * @param defaultScheduler
+     *            the (non-clustered) scheduler of this node, for jobs
+     *            registered without a scheduler
+     * @throws SchedulerException
+     *             if a job could not be scheduled or unscheduled
+     */
+    public void rebalance(Scheduler defaultScheduler) throws SchedulerException {
+        if (!refresh()) {
+            return;
+        }
+
+        List<JobDetail> registered;
+        Map<JobKey, Scheduler> registeredSchedulers;
+        synchronized (this) {
+            registered = new ArrayList<JobDetail>(jobDetails.values());
+            registeredSchedulers = new HashMap<JobKey, Scheduler>(schedulers);
+        }
+
+        int added = 0;
+        int removed = 0;
+        for (JobDetail jobDetail : registered) {
+            Scheduler scheduler = registeredSchedulers.get(jobDetail.getKey());
+            if (scheduler == null) {
+                scheduler = defaultScheduler;
+            }
+            boolean local = isLocal(jobDetail.getKey());
+            boolean scheduled = scheduler.checkExists(jobDetail.getKey());
+            if (local && !scheduled) {
+                scheduler.scheduleJob(jobDetail, createTriggers(jobDetail.getKey()), false);
+                added++;
+            } else if (!local && scheduled) {
+                scheduler.deleteJob(jobDetail.getKey());
+                removed++;
+            }
+        }
+        logger.info("Rebalanced scheduled jobs: {} jobs added to, {} jobs removed from this node.", added, removed);
+    }
+
+    /**
+     * Schedule the {@link PartitionRebalanceJob} on the given scheduler (if
+     * not scheduled yet).
+     * 
+     * @param scheduler
+     *            the scheduler of this node
+     * @param intervalSeconds
+     *            the interval (in seconds) between rebalancing checks
+     * @throws SchedulerException
+     *             if the job could not be scheduled
+     */
+    public void startRebalancing(Scheduler scheduler, int intervalSeconds) throws SchedulerException {
+        scheduler.getContext().put(SCHEDULER_CONTEXT_KEY, this);
+        if (scheduler.checkExists(REBALANCE_JOB_KEY)) {
+            return;
+        }
+        JobDetail jobDetail = JobBuilder.newJob(PartitionRebalanceJob.class)
+                .withIdentity(REBALANCE_JOB_KEY).withDescription("NinjaQuartz partition rebalancing").build();
+        Trigger trigger = TriggerBuilder.newTrigger().forJob(jobDetail)
+                .startAt(new Date(System.currentTimeMillis() + intervalSeconds * 1000L))
+                .withSchedule(SimpleScheduleBuilder.repeatSecondlyForever(intervalSeconds)
+                        .withMisfireHandlingInstructionNextWithRemainingCount())
+                .build();
+        scheduler.scheduleJob(jobDetail, trigger);
+    }
+
+    /**
+     * Announce that this node leaves the cluster.
+     */
+    public void leave() {
+        try {
+            membership.leave();
+        } catch (Exception e) {
+            logger.warn("Failed to leave the cluster: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return the {@link ClusterMembership} of this partitioner
+     */
+    public ClusterMembership getMembership() {
+        return membership;
+    }
+
+    /**
+     * @param jobKey
+     *            the key of a registered job
+     * @return new triggers for the job, starting no earlier than now
+     */
+    private synchronized Set<Trigger> createTriggers(JobKey jobKey) {
+        Set<Trigger> jobTriggers = new LinkedHashSet<Trigger>();
+        Date now = new Date();
+        for (Trigger trigger : triggers.get(jobKey)) {
+            if ((trigger.getStartTime() != null) && trigger.getStartTime().after(now)) {
+                jobTriggers.add(trigger.getTriggerBuilder().build());
+            } else {
+                jobTriggers.add(trigger.getTriggerBuilder().startAt(now).build());
+            }
+        }
+        return jobTriggers;
+    }
+}
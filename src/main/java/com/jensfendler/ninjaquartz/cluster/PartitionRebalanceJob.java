@@ -0,0 +1,49 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.cluster;
+
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.SchedulerException;
+
+/**
+ * Quartz {@link Job} periodically calling {@link JobPartitioner#rebalance}
+ * for the {@link JobPartitioner} found in the scheduler context.
+ * 
+ * @author Jens Fendler
+ *
+ */
+@DisallowConcurrentExecution
+public class PartitionRebalanceJob implements Job {
+
+    /**
+     * @see org.quartz.Job#execute(org.quartz.JobExecutionContext)
+     */
+    public void execute(JobExecutionContext context) throws JobExecutionException {
+        try {
+            JobPartitioner partitioner = (JobPartitioner) context.getScheduler().getContext()
+                    .get(JobPartitioner.SCHEDULER_CONTEXT_KEY);
+            if (partitioner != null) {
+                partitioner.rebalance(context.getScheduler());
+            }
+        } catch (SchedulerException e) {
+            throw new JobExecutionException("Failed to rebalance scheduled jobs.", e);
+        }
+    }
+
+}
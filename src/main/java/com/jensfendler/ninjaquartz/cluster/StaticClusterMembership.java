@@ -0,0 +1,78 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.cluster;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A {@link ClusterMembership} with a fixed set of nodes (e.g. configured in
+ * application.conf). Nodes are assumed to be always alive, so jobs are only
+ * rebalanced when the configuration changes.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class StaticClusterMembership implements ClusterMembership {
+
+    private final String localNodeId;
+
+    private final Set<String> nodes;
+
+    /**
+     * @param localNodeId
+     *            the id of this node
+     * @param nodes
+     *            the ids of all nodes (this node is added if missing)
+     */
+    public StaticClusterMembership(String localNodeId, Collection<String> nodes) {
+        this.localNodeId = localNodeId;
+        Set<String> allNodes = new TreeSet<String>(nodes);
+        allNodes.add(localNodeId);
+        this.nodes = Collections.unmodifiableSet(allNodes);
+    }
+
+    /**
+     * @see com.jensfendler.ninjaquartz.cluster.ClusterMembership#getLocalNodeId()
+     */
+    public String getLocalNodeId() {
+        return localNodeId;
+    }
+
+    /**
+     * @see com.jensfendler.ninjaquartz.cluster.ClusterMembership#heartbeat()
+     */
+    public void heartbeat() {
+        // nothing to announce
+    }
+
+    /**
+     * @see com.jensfendler.ninjaquartz.cluster.ClusterMembership#getLiveNodes()
+     */
+    public Set<String> getLiveNodes() {
+        return nodes;
+    }
+
+    /**
+     * @see com.jensfendler.ninjaquartz.cluster.ClusterMembership#leave()
+     */
+    public void leave() {
+        // nothing to announce
+    }
+
+}
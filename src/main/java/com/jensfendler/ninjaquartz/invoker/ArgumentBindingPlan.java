@@ -0,0 +1,381 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.invoker;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.inject.Qualifier;
+
+import org.quartz.JobExecutionContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.BindingAnnotation;
+import com.google.inject.ConfigurationException;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Provider;
+import com.google.inject.spi.Message;
+import com.jensfendler.ninjaquartz.NinjaQuartzModule;
+import com.jensfendler.ninjaquartz.annotations.Batch;
+import com.jensfendler.ninjaquartz.annotations.CoalescedFires;
+import com.jensfendler.ninjaquartz.annotations.QuartzSchedule;
+import com.jensfendler.ninjaquartz.batch.WorkQueue;
+import com.jensfendler.ninjaquartz.batch.WorkQueues;
+
+/**
+ * The binding plan for the arguments of a scheduled method (i.e. a method
+ * annotated with {@link QuartzSchedule}). The plan is compiled once per method
+ * at scheduling time: each parameter is either bound to the Quartz
+ * {@link JobExecutionContext}, or to a Guice {@link Provider} which has been
+ * looked up for the parameter's {@link Key} (including any binding annotation,
+ * such as <code>&#64;Named</code>).
+ *
+ * On every fire, {@link #bind(JobExecutionContext)} fills a per-thread
+ * argument array from these providers, which must be handed back with
+ * {@link #release(Object[])} after the invocation.
+ *
+ * @author Jens Fendler
+ *
+ */
+public class ArgumentBindingPlan {
+
+    protected static final Logger logger = LoggerFactory.getLogger(NinjaQuartzModule.class);
+
+    /**
+     * An empty argument array, shared by all methods without parameters.
+     */
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    /**
+     * The name of the method this plan was created for (for log messages).
+     */
+    private final String methodName;
+
+    /**
+     * The keys of all parameters, or <code>null</code> for
+     * {@link JobExecutionContext} parameters.
+     */
+    private final Key<?>[] keys;
+
+    /**
+     * The providers for all parameters, or <code>null</code> for
+     * {@link JobExecutionContext} parameters.
+     */
+    private final Provider<?>[] providers;
+
+    /**
+     * The marker provider of {@link CoalescedFires} parameters.
+     */
+    private static final Provider<Integer> COALESCED_FIRES = new Provider<Integer>() {
+        public Integer get() {
+            return 1;
+        }
+    };
+
+    /**
+     * The providers of all {@link Batch} parameters (empty if there are none).
+     */
+    private final BatchProvider[] batchProviders;
+
+    /**
+     * Argument arrays are re-used by each worker thread.
+     */
+    private final ThreadLocal<Object[]> argumentArrays;
+
+    /**
+     * Create a new {@link ArgumentBindingPlan}. Use
+     * {@link #create(Method, Injector)} to compile a plan for a method.
+     *
+     * @param methodName
+     *            the name of the method
+     * @param keys
+     *            the parameter keys (null for context slots)
+     * @param providers
+     *            the parameter providers (null for context slots)
+     */
+    protected ArgumentBindingPlan(String methodName, Key<?>[] keys, Provider<?>[] providers) {
+        this.methodName = methodName;
+        this.keys = keys;
+        this.providers = providers;
+        List<BatchProvider> batches = new ArrayList<BatchProvider>();
+        for (Provider<?> provider : providers) {
+            if (provider instanceof BatchProvider) {
+                batches.add((BatchProvider) provider);
+            }
+        }
+        this.batchProviders = batches.toArray(new BatchProvider[batches.size()]);
+        final int parameterCount = providers.length;
+        this.argumentArrays = new ThreadLocal<Object[]>() {
+            @Override
+            protected Object[] initialValue() {
+                return new Object[parameterCount];
+            }
+        };
+    }
+
+    /**
+     * Compile the {@link ArgumentBindingPlan} for the given method.
+     *
+     * @param method
+     *            the scheduled method
+     * @param injector
+     *            the {@link Injector} to look up parameter providers from
+     * @return the binding plan for the method's parameters
+     * @throws ConfigurationException
+     *             if Guice cannot provide one of the method's parameters
+     */
+    public static ArgumentBindingPlan create(Method method, Injector injector) throws ConfigurationException {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        Type[] genericParameterTypes = method.getGenericParameterTypes();
+        Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+
+        Key<?>[] keys = new Key<?>[parameterTypes.length];
+        Provider<?>[] providers = new Provider<?>[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (JobExecutionContext.class.isAssignableFrom(parameterTypes[i])) {
+                // support mix of JobExecutionContext and other (injected)
+                // arguments
+                continue;
+            }
+            if (isCoalescedFires(parameterTypes[i], parameterAnnotations[i])) {
+                providers[i] = COALESCED_FIRES;
+                continue;
+            }
+            Batch batch = findBatch(parameterTypes[i], parameterAnnotations[i]);
+            if (batch != null) {
+                providers[i] = new BatchProvider(injector.getInstance(WorkQueues.class).get(batch.value()),
+                        batch.maxSize());
+                continue;
+            }
+            Annotation bindingAnnotation = findBindingAnnotation(parameterAnnotations[i]);
+            Key<?> key = bindingAnnotation == null ? Key.get(genericParameterTypes[i])
+                    : Key.get(genericParameterTypes[i], bindingAnnotation);
+            keys[i] = key;
+            providers[i] = injector.getProvider(key);
+        }
+        return new ArgumentBindingPlan(method.getName(), keys, providers);
+    }
+
+    /**
+     * @param annotations
+     *            the annotations of a method parameter
+     * @return the Guice binding annotation (or JSR-330 qualifier) among the
+     *         given annotations, or null if there is none
+     */
+    private static Annotation findBindingAnnotation(Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            Class<? extends Annotation> annotationType = annotation.annotationType();
+            if (annotationType.isAnnotationPresent(BindingAnnotation.class)
+                    || annotationType.isAnnotationPresent(Qualifier.class)) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param parameterType
+     *            the type of a method parameter
+     * @param annotations
+     *            the annotations of the method parameter
+     * @return true if the parameter receives the number of
+     *         {@link CoalescedFires}
+     */
+    private static boolean isCoalescedFires(Class<?> parameterType, Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof CoalescedFires) {
+                if ((parameterType != int.class) && (parameterType != Integer.class)) {
+                    throw new ConfigurationException(Collections.singleton(new Message(
+                            "Parameters annotated with @CoalescedFires must be of type int, not " + parameterType)));
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param parameterType
+     *            the type of a method parameter
+     * @param annotations
+     *            the annotations of the method parameter
+     * @return the {@link Batch} annotation of the parameter, or null if it is
+     *         not a batch parameter
+     */
+    private static Batch findBatch(Class<?> parameterType, Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof Batch) {
+                if (!parameterType.isAssignableFrom(ArrayList.class)) {
+                    throw new ConfigurationException(Collections.singleton(new Message(
+                            "Parameters annotated with @Batch must be of type List, not " + parameterType)));
+                }
+                return (Batch) annotation;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the number of parameters of the scheduled method
+     */
+    public int getParameterCount() {
+        return providers.length;
+    }
+
+    /**
+     * @return true if the method has {@link Batch} parameters
+     */
+    public boolean isBatching() {
+        return batchProviders.length > 0;
+    }
+
+    /**
+     * @return the number of batches (of the largest {@link Batch} parameter)
+     *         which are currently queued, but at least 1
+     */
+    public int getQueuedBatches() {
+        int batches = 1;
+        for (BatchProvider batchProvider : batchProviders) {
+            int queued = batchProvider.queue.size();
+            batches = Math.max(batches, (queued + batchProvider.maxSize - 1) / batchProvider.maxSize);
+        }
+        return batches;
+    }
+
+    /**
+     * @param arguments
+     *            the arguments obtained from {@link #bind(JobExecutionContext)}
+     * @return true if the method has {@link Batch} parameters, and all of the
+     *         batches are empty
+     */
+    public boolean isEmptyBatch(Object[] arguments) {
+        if (batchProviders.length == 0) {
+            return false;
+        }
+        for (int i = 0; i < providers.length; i++) {
+            if ((providers[i] instanceof BatchProvider) && !((List<?>) arguments[i]).isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Put the batches of a failed invocation back at the head of their
+     * {@link WorkQueue}s, to be passed to the scheduled method again.
+     *
+     * @param arguments
+     *            the arguments obtained from {@link #bind(JobExecutionContext)}
+     *            (or a copy of them)
+     */
+    @SuppressWarnings("unchecked")
+    public void requeue(Object[] arguments) {
+        for (int i = 0; i < providers.length; i++) {
+            if ((providers[i] instanceof BatchProvider) && (arguments[i] instanceof List)) {
+                ((BatchProvider) providers[i]).queue.requeue((List<Object>) arguments[i]);
+            }
+        }
+    }
+
+    /**
+     * Get the arguments for an invocation of the scheduled method.
+     *
+     * @param context
+     *            the {@link JobExecutionContext} of the current execution
+     * @return the argument array (owned by the calling thread until passed to
+     *         {@link #release(Object[])})
+     */
+    public Object[] bind(JobExecutionContext context) {
+        if (providers.length == 0) {
+            return NO_ARGUMENTS;
+        }
+        Object[] arguments = argumentArrays.get();
+        for (int i = 0; i < providers.length; i++) {
+            Object obj;
+            if (providers[i] == null) {
+                obj = context;
+            } else if (providers[i] == COALESCED_FIRES) {
+                obj = getCoalescedFires(context);
+            } else {
+                obj = providers[i].get();
+                if (obj == null) {
+                    // guice did not provide an object
+                    logger.warn("Using null value for parameter {} in call to scheduled method {}", keys[i],
+                            methodName);
+                }
+            }
+            arguments[i] = obj;
+        }
+        return arguments;
+    }
+
+    /**
+     * @param context
+     *            the {@link JobExecutionContext} of the current execution
+     * @return the number of fires handled by the execution
+     */
+    private static Integer getCoalescedFires(JobExecutionContext context) {
+        Object fires = context.getMergedJobDataMap().get(CoalescedFires.JOB_DATA_KEY);
+        return (fires instanceof Integer) ? (Integer) fires : COALESCED_FIRES.get();
+    }
+
+    /**
+     * Provides the batches of a {@link Batch} parameter, draining them from a
+     * {@link WorkQueue}.
+     */
+    private static class BatchProvider implements Provider<List<Object>> {
+
+        private final WorkQueue<Object> queue;
+
+        private final int maxSize;
+
+        private BatchProvider(WorkQueue<Object> queue, int maxSize) {
+            this.queue = queue;
+            this.maxSize = Math.max(1, maxSize);
+        }
+
+        /**
+         * @see com.google.inject.Provider#get()
+         */
+        public List<Object> get() {
+            List<Object> batch = new ArrayList<Object>(Math.min(maxSize, queue.size()));
+            queue.drainTo(batch, maxSize);
+            return batch;
+        }
+    }
+
+    /**
+     * Release an argument array obtained from
+     * {@link #bind(JobExecutionContext)}, so that the arguments can be garbage
+     * collected.
+     *
+     * @param arguments
+     *            the argument array to release
+     */
+    public void release(Object[] arguments) {
+        if (arguments.length > 0) {
+            Arrays.fill(arguments, null);
+        }
+    }
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.invoker;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.jensfendler.ninjaquartz.NinjaQuartzModule;
+
+/**
+ * The default {@link MethodInvokerFactory}. It resolves each scheduled method
+ * once into a {@link MethodHandle} which is pre-bound to the target instance
+ * and adapted to a generic <code>(Object[])Object</code> signature, so it can
+ * be called with {@link MethodHandle#invokeExact(Object...)} on every fire.
+ *
+ * If a method handle cannot be obtained for a method (e.g. due to access
+ * restrictions), the invoker from the {@link ReflectionInvokerFactory} is used
+ * instead.
+ *
+ * @author Jens Fendler
+ *
+ */
+public class MethodHandleInvokerFactory implements MethodInvokerFactory {
+
+    protected static final Logger logger = LoggerFactory.getLogger(NinjaQuartzModule.class);
+
+    /**
+     * The generic type all method handles are adapted to.
+     */
+    private static final MethodType GENERIC_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    /**
+     * The factory to use if no {@link MethodHandle} can be created.
+     */
+    private final MethodInvokerFactory fallbackFactory = new ReflectionInvokerFactory();
+
+    /**
+     * @see com.jensfendler.ninjaquartz.invoker.MethodInvokerFactory#createInvoker(java.lang.Object,
+     *      java.lang.reflect.Method)
+     */
+    public MethodInvoker createInvoker(Object target, Method method) {
+        try {
+            MethodHandle handle = unreflect(method);
+            if (!Modifier.isStatic(method.getModifiers())) {
+                handle = handle.bindTo(target);
+            }
+            int parameterCount = method.getParameterTypes().length;
+            handle = handle.asSpreader(Object[].class, parameterCount).asType(GENERIC_TYPE);
+            return new MethodHandleInvoker(handle, method);
+
+        } catch (IllegalAccessException | RuntimeException e) {
+            logger.warn("Cannot create MethodHandle for scheduled method {}.{} ({}). Using reflection instead.",
+                    method.getDeclaringClass().getName(), method.getName(), e.getMessage());
+            return fallbackFactory.createInvoker(target, method);
+        }
+    }
+
+    /**
+     * Get a {@link MethodHandle} for the given method, suppressing access
+     * checks if required (e.g. for public methods of non-public classes).
+     *
+     * @param method
+     *            the method to resolve
+     * @return the (unbound) {@link MethodHandle} for the method
+     * @throws IllegalAccessException
+     *             if the method is not accessible
+     */
+    private MethodHandle unreflect(Method method) throws IllegalAccessException {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            return lookup.unreflect(method);
+        } catch (IllegalAccessException e) {
+            method.setAccessible(true);
+            return lookup.unreflect(method);
+        }
+    }
+
+    /**
+     * A {@link MethodInvoker} calling a pre-bound {@link MethodHandle}.
+     *
+     * @author Jens Fendler
+     *
+     */
+    private static class MethodHandleInvoker implements MethodInvoker {
+
+        private final MethodHandle handle;
+
+        /**
+         * The parameter types of the method (with primitive types replaced
+         * by their wrapper types).
+         */
+        private final Class<?>[] parameterTypes;
+
+        /**
+         * True for all primitive parameters (which do not accept null).
+         */
+        private final boolean[] primitive;
+
+        private final Method method;
+
+        private MethodHandleInvoker(MethodHandle handle, Method method) {
+            this.handle = handle;
+            this.method = method;
+            Class<?>[] types = method.getParameterTypes();
+            this.parameterTypes = new Class<?>[types.length];
+            this.primitive = new boolean[types.length];
+            for (int i = 0; i < types.length; i++) {
+                primitive[i] = types[i].isPrimitive();
+                parameterTypes[i] = primitive[i] ? MethodType.methodType(types[i]).wrap().returnType() : types[i];
+            }
+        }
+
+        /**
+         * @see com.jensfendler.ninjaquartz.invoker.MethodInvoker#invoke(java.lang.Object[])
+         */
+        public Object invoke(Object[] arguments)
+                throws IllegalAccessException, IllegalArgumentException, InvocationTargetException {
+            if (arguments.length != parameterTypes.length) {
+                throw new IllegalArgumentException("Expected " + parameterTypes.length + " arguments for method "
+                        + method.getName() + ", but got " + arguments.length);
+            }
+            // check the arguments before the call (as Method.invoke() does),
+            // so that a ClassCastException from the adapted handle is not
+            // mistaken for an exception thrown by the scheduled method
+            for (int i = 0; i < parameterTypes.length; i++) {
+                if ((arguments[i] == null) ? primitive[i] : !parameterTypes[i].isInstance(arguments[i])) {
+                    throw new IllegalArgumentException("Argument type mismatch for parameter " + i + " of method "
+                            + method.getName() + ": expected " + parameterTypes[i].getName() + ", but got "
+                            + ((arguments[i] == null) ? "null" : arguments[i].getClass().getName()));
+                }
+            }
+            try {
+                return (Object) handle.invokeExact(arguments);
+            } catch (WrongMethodTypeException e) {
+                throw new IllegalArgumentException("Cannot invoke method " + method.getName() + ": " + e.getMessage(),
+                        e);
+            } catch (Throwable t) {
+                // same contract as Method.invoke(): anything thrown by the
+                // scheduled method is wrapped
+                throw new InvocationTargetException(t);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "MethodHandleInvoker[" + method + "]";
+        }
+    }
+
+}
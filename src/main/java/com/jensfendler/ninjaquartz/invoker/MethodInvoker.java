@@ -0,0 +1,54 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.invoker;
+
+import java.lang.reflect.InvocationTargetException;
+
+import com.jensfendler.ninjaquartz.annotations.QuartzSchedule;
+
+/**
+ * A {@link MethodInvoker} calls a single scheduled method (i.e. a method
+ * annotated with {@link QuartzSchedule}) on the target instance it has been
+ * bound to when it was created by a {@link MethodInvokerFactory}.
+ *
+ * Implementations must be thread-safe, as the same invoker may be used by
+ * concurrent executions of the same job.
+ *
+ * @author Jens Fendler
+ *
+ */
+public interface MethodInvoker {
+
+    /**
+     * Invoke the scheduled method with the given arguments.
+     *
+     * @param arguments
+     *            the arguments to pass to the scheduled method. Must have
+     *            exactly as many elements as the method has parameters.
+     * @return the return value of the scheduled method (or null for void
+     *         methods)
+     * @throws IllegalAccessException
+     *             if the scheduled method cannot be called due to access
+     *             restrictions
+     * @throws IllegalArgumentException
+     *             if the given arguments do not match the method's parameters
+     * @throws InvocationTargetException
+     *             wrapping any exception thrown by the scheduled method itself
+     */
+    public Object invoke(Object[] arguments)
+            throws IllegalAccessException, IllegalArgumentException, InvocationTargetException;
+
+}
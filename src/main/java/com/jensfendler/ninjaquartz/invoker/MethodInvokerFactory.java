@@ -0,0 +1,48 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.invoker;
+
+import java.lang.reflect.Method;
+
+/**
+ * Strategy for creating {@link MethodInvoker}s. A factory is asked once per
+ * scheduled method (at scheduling time) to resolve the method into an invoker,
+ * so that no method lookups are required when the job fires.
+ *
+ * The implementation to use can be configured with the
+ * <code>quartz.invokerFactory</code> property in application.conf. It must
+ * provide a public no-argument constructor (or be injectable through Guice).
+ *
+ * @author Jens Fendler
+ *
+ */
+public interface MethodInvokerFactory {
+
+    /**
+     * Create a new {@link MethodInvoker} for the given method, bound to the
+     * given target instance.
+     *
+     * @param target
+     *            the instance to invoke the method on (ignored for static
+     *            methods)
+     * @param method
+     *            the scheduled method
+     * @return the {@link MethodInvoker} to use for every execution of the
+     *         scheduled method
+     */
+    public MethodInvoker createInvoker(Object target, Method method);
+
+}
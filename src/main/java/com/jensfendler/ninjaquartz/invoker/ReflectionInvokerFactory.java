@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.invoker;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.jensfendler.ninjaquartz.NinjaQuartzModule;
+
+/**
+ * A {@link MethodInvokerFactory} creating invokers which call the scheduled
+ * method through {@link Method#invoke(Object, Object...)}. This is the
+ * behaviour of NinjaQuartz prior to the introduction of invoker strategies, and
+ * the fallback of the {@link MethodHandleInvokerFactory}.
+ *
+ * @author Jens Fendler
+ *
+ */
+public class ReflectionInvokerFactory implements MethodInvokerFactory {
+
+    protected static final Logger logger = LoggerFactory.getLogger(NinjaQuartzModule.class);
+
+    /**
+     * @see com.jensfendler.ninjaquartz.invoker.MethodInvokerFactory#createInvoker(java.lang.Object,
+     *      java.lang.reflect.Method)
+     */
+    public MethodInvoker createInvoker(Object target, Method method) {
+        if (!method.isAccessible()) {
+            try {
+                // avoids the access check on every invocation, and allows
+                // public methods of non-public classes to be called
+                method.setAccessible(true);
+            } catch (SecurityException e) {
+                logger.debug("Cannot suppress access checks for {}.{}: {}", method.getDeclaringClass().getName(),
+                        method.getName(), e.getMessage());
+            }
+        }
+        return new ReflectionInvoker(target, method);
+    }
+
+    /**
+     * A {@link MethodInvoker} using {@link Method#invoke(Object, Object...)}.
+     *
+     * @author Jens Fendler
+     *
+     */
+    private static class ReflectionInvoker implements MethodInvoker {
+
+        private final Object target;
+
+        private final Method method;
+
+        private ReflectionInvoker(Object target, Method method) {
+            this.target = target;
+            this.method = method;
+        }
+
+        /**
+         * @see com.jensfendler.ninjaquartz.invoker.MethodInvoker#invoke(java.lang.Object[])
+         */
+        public Object invoke(Object[] arguments)
+                throws IllegalAccessException, IllegalArgumentException, InvocationTargetException {
+            return method.invoke(target, arguments);
+        }
+
+        @Override
+        public String toString() {
+            return "ReflectionInvoker[" + method + "]";
+        }
+    }
+
+}
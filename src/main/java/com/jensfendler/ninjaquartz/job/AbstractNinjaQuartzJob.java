@@ -16,24 +16,37 @@
 package com.jensfendler.ninjaquartz.job;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.Date;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-import org.quartz.Job;
+import org.quartz.InterruptableJob;
 import org.quartz.JobDataMap;
 import org.quartz.JobDetail;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 import org.quartz.JobKey;
 import org.quartz.SchedulerException;
+import org.quartz.SimpleScheduleBuilder;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.quartz.UnableToInterruptJobException;
+import org.quartz.utils.Key;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.jensfendler.ninjaquartz.annotations.QuartzSchedule;
+import com.jensfendler.ninjaquartz.annotations.CoalescedFires;
+import com.jensfendler.ninjaquartz.limit.CircuitBreaker;
+import com.jensfendler.ninjaquartz.metrics.JobMetrics;
 
 /**
  * @author Jens Fendler
  *
  */
-public abstract class AbstractNinjaQuartzJob implements Job {
+public abstract class AbstractNinjaQuartzJob implements InterruptableJob {
 
     protected static final Logger LOG = LoggerFactory.getLogger(NinjaQuartzTask.class);
 
@@ -66,76 +79,673 @@ public abstract class AbstractNinjaQuartzJob implements Job {
      */
     public static final String JOB_FORCE_KEEP = "forceKeepingOfJob";
 
+    /**
+     * The key name of a boolean property of the job's {@link JobDataMap},
+     * indicating if backlogged fires of this (non-concurrent) job should be
+     * collapsed into a single execution.
+     * 
+     * The default for this property is <code>false</code>.
+     */
+    public static final String JOB_COALESCE = "coalesceFires";
+
+    /**
+     * The key name of the {@link RetryPolicy} in the job's {@link JobDataMap}.
+     * Without a policy, failed executions are not retried.
+     */
+    public static final String JOB_RETRY_POLICY = "nqRetryPolicy";
+
+    /**
+     * The key name of the retry number in the {@link JobDataMap} of a one-shot
+     * retry trigger.
+     */
+    public static final String RETRY_ATTEMPT_KEY = "nqRetryAttempt";
+
+    /**
+     * The group of the one-shot triggers retrying failed executions.
+     */
+    public static final String RETRY_TRIGGER_GROUP = "nqRetry";
+
+    /**
+     * The key name of the int property of the job's {@link JobDataMap} holding
+     * the number of consecutive failures opening its {@link CircuitBreaker}.
+     * Without this property, the job has no circuit breaker.
+     */
+    public static final String JOB_CIRCUIT_BREAKER_THRESHOLD = "nqCircuitBreakerThreshold";
+
+    /**
+     * The key name of the long property of the job's {@link JobDataMap}
+     * holding the time (in milliseconds) its {@link CircuitBreaker} stays open
+     * before a probe execution.
+     */
+    public static final String JOB_CIRCUIT_BREAKER_DELAY = "nqCircuitBreakerDelay";
+
+    /**
+     * The group of the one-shot triggers probing jobs with an open
+     * {@link CircuitBreaker}.
+     */
+    public static final String PROBE_TRIGGER_GROUP = "nqProbe";
+
+    /**
+     * The key name of the long property of the job's {@link JobDataMap}
+     * holding the timeout (in milliseconds) of its executions. Without this
+     * property, executions are not timed out.
+     */
+    public static final String JOB_TIMEOUT = "nqTimeout";
+
+    /**
+     * The thread running the (synchronous) execution of this job instance, or
+     * null if not executing.
+     */
+    private Thread executingThread;
+
+    /**
+     * Set if the execution of this job instance has been interrupted.
+     */
+    private boolean interrupted;
+
     public AbstractNinjaQuartzJob() {
     }
 
+    /**
+     * Interrupt the thread executing the scheduled method. The method must
+     * respond to the interruption itself (e.g. by throwing an
+     * {@link InterruptedException} from a blocking call).
+     * 
+     * @see org.quartz.InterruptableJob#interrupt()
+     */
+    public void interrupt() throws UnableToInterruptJobException {
+        interruptExecution();
+    }
+
     /**
      * @see org.quartz.Job#execute(org.quartz.JobExecutionContext)
      */
     public void execute(JobExecutionContext context) throws JobExecutionException {
-        // get NinjaQuartz settings from the context
-        boolean forceKeepJob = context.getMergedJobDataMap().containsKey(JOB_FORCE_KEEP)
-                ? context.getMergedJobDataMap().getBooleanValue(JOB_FORCE_KEEP) : QuartzSchedule.DEFAULT_FORCE_KEEP;
-        boolean removeOnInvocationTargetException = context.getMergedJobDataMap()
-                .containsKey(JOB_REMOVE_ON_RUNTIME_ERROR)
-                        ? context.getMergedJobDataMap().getBooleanValue(JOB_REMOVE_ON_RUNTIME_ERROR)
-                        : QuartzSchedule.DEFAULT_REMOVE_ON_ERROR;
-
         NinjaQuartzTask task = (NinjaQuartzTask) context.getJobDetail().getJobDataMap().get(JOB_TASK_KEY);
         if (task == null) {
             LOG.error(
-                    "JobTask object for task {} is null. Nothing to do in this Quartz Job, so it will be removed from the schedule.");
-            if (!forceKeepJob) {
+                    "JobTask object for task {} is null. Nothing to do in this Quartz Job, so it will be removed from the schedule.",
+                    context.getJobDetail().getKey());
+            if (!JobSettings.isForceKeep(context.getMergedJobDataMap())) {
                 removeSelf("NULL-TASK", context);
             }
             return;
         }
 
-        // ensure we have a task name to use.
-        String taskName = task.getTaskName();
-        if (taskName == null) {
-            taskName = task.toString();
+        if (task instanceof MethodReferenceTask) {
+            // the job has been loaded from a persistent job store
+            task = resolveReference((MethodReferenceTask) task, context);
+            if (task == null) {
+                return;
+            }
+        }
+
+        // get NinjaQuartz settings from the context (only once per task)
+        JobSettings settings = getJobSettings(task, context);
+        if (settings.asynchronous) {
+            executeAsynchronously((NinjaQuartzMethodTask) task, settings, context);
+            return;
         }
 
+        if (settings.coalesce && !coalesce(settings, context)) {
+            return;
+        }
+        if (!acquireLimits(settings)) {
+            return;
+        }
+        if (!passCircuitBreaker(settings, context)) {
+            return;
+        }
+
+        long startTime = recordFire(settings, context);
+        ScheduledFuture<?> watch = startExecution(settings, context);
+        Throwable failure = null;
+        boolean success = false;
+
         try {
 
-            LOG.debug("Executing Ninja Quartz task {}{}.", taskName, context.getJobDetail().getDescription() != null
-                    ? " (" + context.getJobDetail().getDescription() : ")");
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Executing Ninja Quartz task {} ({}).", settings.taskName,
+                        context.getJobDetail().getDescription());
+            }
 
-            // invokd the scheduled method
+            // invoke the scheduled method
             task.execute(context);
+            if (isInterrupted()) {
+                // the scheduled method has swallowed the interruption
+                throw new InvocationTargetException(new InterruptedException(
+                        "Execution of Ninja Quartz task " + settings.taskName + " has been interrupted."));
+            }
+
+        } catch (Throwable t) {
+            failure = t;
+        } finally {
+            // clear a pending interrupt before the outcome is handled, as it
+            // would make the scheduler calls below fail (e.g. in a JDBC job
+            // store)
+            endExecution(watch);
+        }
+
+        try {
+            if (failure == null) {
+                success = true;
+                closeCircuitBreaker(settings, context);
+
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Ninja Quartz task {} execution finished. Next fire time will be: {}",
+                            settings.taskName, context.getNextFireTime());
+                }
+            } else {
+                failed(failure, settings, context);
+            }
+        } finally {
+            if (settings.metrics != null) {
+                settings.metrics.recordExecution(System.nanoTime() - startTime, success);
+            }
+            if (settings.limiter != null) {
+                settings.limiter.release();
+            }
+        }
+    }
+
+    /**
+     * Collapse backlogged fires of a job into a single execution. A fire is
+     * skipped if the next fire of its trigger is already due, i.e. it would be
+     * executed right after this one. The number of fires collapsed into an
+     * execution is put into the merged {@link JobDataMap} of its context.
+     * 
+     * @param settings
+     *            the job's settings
+     * @param context
+     *            the {@link JobExecutionContext} of the job
+     * @return true if the job should be executed, false if the fire has been
+     *         collapsed into the next one
+     */
+    private boolean coalesce(JobSettings settings, JobExecutionContext context) {
+        Date nextFireTime = context.getNextFireTime();
+        if ((nextFireTime != null) && (nextFireTime.getTime() <= System.currentTimeMillis())) {
+            int collapsed = settings.collapsedFires.incrementAndGet();
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Collapsing fire of Ninja Quartz task {} into its next fire ({} fires collapsed).",
+                        settings.taskName, collapsed);
+            }
+            return false;
+        }
+        context.getMergedJobDataMap().put(CoalescedFires.JOB_DATA_KEY, settings.collapsedFires.getAndSet(0) + 1);
+        return true;
+    }
+
+    /**
+     * Wait for the limits of the job's group (if any) to allow its execution.
+     * Fires which are not allowed within the group's maximum wait time are
+     * skipped (and counted as misfires of the job group).
+     * 
+     * @param settings
+     *            the job's settings
+     * @return true if the job may be executed. In this case, the limiter must
+     *         be released once the execution has completed.
+     */
+    private boolean acquireLimits(JobSettings settings) {
+        if ((settings.limiter == null) || settings.limiter.acquire()) {
+            return true;
+        }
+        LOG.debug("Skipping execution of Ninja Quartz task {}: limits of job group {} exceeded.", settings.taskName,
+                settings.limiter.getJobGroup());
+        if (settings.metrics != null) {
+            settings.metrics.getJobGroupMetrics().recordMisfire();
+        }
+        return false;
+    }
+
+    /**
+     * Register the current thread as executing this job instance, and watch
+     * the execution if the job has a timeout.
+     * 
+     * @param settings
+     *            the job's settings
+     * @param context
+     *            the {@link JobExecutionContext} of the job
+     * @return the watch of the execution, or null if the job has no timeout
+     */
+    private ScheduledFuture<?> startExecution(final JobSettings settings, final JobExecutionContext context) {
+        synchronized (this) {
+            executingThread = Thread.currentThread();
+        }
+        if (settings.watchdog == null) {
+            return null;
+        }
+        return settings.watchdog.watch(new Runnable() {
+            public void run() {
+                if (interruptExecution()) {
+                    LOG.warn("Interrupted Ninja Quartz task {} after exceeding its timeout of {}ms.",
+                            settings.taskName, settings.timeout);
+                    if (settings.metrics != null) {
+                        settings.metrics.recordTimeout();
+                    }
+                }
+            }
+        }, settings.timeout);
+    }
+
+    /**
+     * Complete the execution of this job instance. After this, the executing
+     * thread is not interrupted anymore, and an interrupt which has not been
+     * consumed by the scheduled method is cleared (so that it does not affect
+     * the worker thread).
+     * 
+     * @param watch
+     *            the watch of the execution, or null
+     */
+    private void endExecution(ScheduledFuture<?> watch) {
+        if (watch != null) {
+            watch.cancel(false);
+        }
+        boolean wasInterrupted;
+        synchronized (this) {
+            executingThread = null;
+            wasInterrupted = interrupted;
+        }
+        if (wasInterrupted) {
+            Thread.interrupted();
+        }
+    }
+
+    /**
+     * @return true if the execution of this job instance has been
+     *         interrupted (e.g. after exceeding its timeout)
+     */
+    private synchronized boolean isInterrupted() {
+        return interrupted;
+    }
+
+    /**
+     * @return true if the executing thread has been interrupted, false if
+     *         this job instance is not executing
+     */
+    private synchronized boolean interruptExecution() {
+        if (executingThread == null) {
+            return false;
+        }
+        interrupted = true;
+        executingThread.interrupt();
+        return true;
+    }
+
+    /**
+     * Check the circuit breaker of the job (if any). Fires of a job with an
+     * open circuit are skipped, except for the probe fire, which makes the
+     * circuit half-open. The permit of the job group's limiter (if any) is
+     * released for skipped fires.
+     * 
+     * @param settings
+     *            the job's settings
+     * @param context
+     *            the {@link JobExecutionContext} of the job
+     * @return true if the job may be executed
+     */
+    private boolean passCircuitBreaker(JobSettings settings, JobExecutionContext context) {
+        CircuitBreaker circuitBreaker = settings.circuitBreaker;
+        if ((circuitBreaker == null) || circuitBreaker.allowExecution(isProbe(context))) {
+            return true;
+        }
+        LOG.debug("Skipping execution of Ninja Quartz task {}: circuit breaker is {}.", settings.taskName,
+                circuitBreaker.getState());
+        if (settings.limiter != null) {
+            settings.limiter.release();
+        }
+        return false;
+    }
 
-            LOG.debug("Ninja Quartz task{} execution finished. Next fire time will be: {}", taskName,
-                    context.getNextFireTime().toString());
+    /**
+     * Record a successful execution with the job's circuit breaker (if any),
+     * resuming the job's triggers if this has closed the circuit. The triggers
+     * are also resumed after any successful probe: with a persistent job
+     * store, the paused triggers and the probe survive a restart, while the
+     * circuit breaker starts closed.
+     * 
+     * @param settings
+     *            the job's settings
+     * @param context
+     *            the {@link JobExecutionContext} of the job
+     */
+    private void closeCircuitBreaker(JobSettings settings, JobExecutionContext context) {
+        boolean closed = (settings.circuitBreaker != null) && settings.circuitBreaker.recordSuccess();
+        if (!closed && !isProbe(context)) {
+            return;
+        }
+        JobKey jobKey = context.getJobDetail().getKey();
+        try {
+            context.getScheduler().resumeJob(jobKey);
+            LOG.info("Closed circuit breaker of Ninja Quartz task {}. Resumed job {}.", settings.taskName, jobKey);
+        } catch (SchedulerException e) {
+            LOG.error("Cannot resume job " + jobKey + " after closing its circuit breaker.", e);
+        }
+    }
+
+    /**
+     * @param context
+     *            the {@link JobExecutionContext} of the job
+     * @return true if the job has been fired by the probe trigger of its
+     *         circuit breaker
+     */
+    private boolean isProbe(JobExecutionContext context) {
+        return PROBE_TRIGGER_GROUP.equals(context.getTrigger().getKey().getGroup());
+    }
+
+    /**
+     * Record a failed execution with the job's circuit breaker (if any). If
+     * this opens the circuit, the job's triggers are paused, and a probe
+     * execution is scheduled.
+     * 
+     * @param t
+     *            the exception
+     * @param settings
+     *            the job's settings
+     * @param context
+     *            the {@link JobExecutionContext} of the failed execution
+     * @return true if the circuit is open, i.e. the failure has been handled
+     *         by the circuit breaker
+     */
+    private boolean openCircuitBreaker(Throwable t, JobSettings settings, JobExecutionContext context) {
+        CircuitBreaker circuitBreaker = settings.circuitBreaker;
+        if ((circuitBreaker == null) || !(t instanceof InvocationTargetException)) {
+            return false;
+        }
+        if (circuitBreaker.recordFailure()) {
+            JobKey jobKey = context.getJobDetail().getKey();
+            Trigger probeTrigger = TriggerBuilder.newTrigger()
+                    .withIdentity(Key.createUniqueName(PROBE_TRIGGER_GROUP), PROBE_TRIGGER_GROUP).forJob(jobKey)
+                    .withPriority(context.getTrigger().getPriority())
+                    .startAt(new Date(System.currentTimeMillis() + circuitBreaker.getOpenMillis()))
+                    .withSchedule(SimpleScheduleBuilder.simpleSchedule().withMisfireHandlingInstructionFireNow())
+                    .build();
+            try {
+                context.getScheduler().pauseJob(jobKey);
+                context.getScheduler().scheduleJob(probeTrigger);
+            } catch (SchedulerException e) {
+                LOG.error("Cannot pause job " + jobKey + " after opening its circuit breaker.", e);
+            }
+            LOG.warn("Opened circuit breaker of Ninja Quartz task {} after {} consecutive failures ({}). "
+                    + "Probing in {}ms.", settings.taskName, circuitBreaker.getConsecutiveFailures(), t.getCause(),
+                    circuitBreaker.getOpenMillis());
+        }
+        return circuitBreaker.getState() != CircuitBreaker.State.CLOSED;
+    }
+
+    /**
+     * Handle a failed execution: open the job's circuit breaker, retry the
+     * execution, or handle the failure as configured (in this order).
+     * 
+     * @param t
+     *            the exception
+     * @param settings
+     *            the job's settings
+     * @param context
+     *            the {@link JobExecutionContext} of the failed execution
+     */
+    private void failed(Throwable t, JobSettings settings, JobExecutionContext context) {
+        if (!openCircuitBreaker(t, settings, context) && !scheduleRetry(t, settings, context)) {
+            handleFailure(t, settings, context);
+        }
+    }
 
-        } catch (IllegalAccessException e) {
-            LOG.error("Illegal access exception while trying to execute task " + taskName + ".", e);
+    /**
+     * Execute a task whose scheduled method returns an asynchronous result.
+     * The worker thread is released as soon as the method returns; the
+     * execution is completed (metrics, error handling) once the result
+     * completes. For non-concurrent jobs, fires occurring while a previous
+     * result is still pending are skipped (and counted as misfires).
+     * 
+     * @param task
+     *            the task to execute
+     * @param settings
+     *            the job's settings
+     * @param context
+     *            the {@link JobExecutionContext} of the job
+     */
+    private void executeAsynchronously(NinjaQuartzMethodTask task, final JobSettings settings,
+            final JobExecutionContext context) {
+        if (!settings.concurrent && !settings.running.compareAndSet(false, true)) {
+            LOG.debug("Skipping execution of Ninja Quartz task {}: previous asynchronous execution still running.",
+                    settings.taskName);
+            if (settings.metrics != null) {
+                settings.metrics.getJobGroupMetrics().recordMisfire();
+            }
+            return;
+        }
+        if (!acquireLimits(settings) || !passCircuitBreaker(settings, context)) {
+            if (!settings.concurrent) {
+                settings.running.set(false);
+            }
+            return;
+        }
+
+        final long startTime = recordFire(settings, context);
+        Object result;
+        try {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Executing asynchronous Ninja Quartz task {} ({}).", settings.taskName,
+                        context.getJobDetail().getDescription());
+            }
+            result = task.invoke(context);
+        } catch (Throwable t) {
+            completeAsynchronousExecution(t, startTime, settings, context);
+            return;
+        }
+
+        // the execution is completed once, either by the result or by the
+        // watchdog
+        final AtomicBoolean completed = new AtomicBoolean();
+        final ScheduledFuture<?> watch = watchAsynchronousResult(result, completed, startTime, settings, context);
+        AsyncResults.whenComplete(result, new AsyncResults.Callback() {
+            public void completed(Throwable failure) {
+                if (!completed.compareAndSet(false, true)) {
+                    return;
+                }
+                if (watch != null) {
+                    watch.cancel(false);
+                }
+                // failures of the result are handled like exceptions thrown
+                // by the scheduled method
+                completeAsynchronousExecution(failure == null ? null : new InvocationTargetException(failure),
+                        startTime, settings, context);
+            }
+        });
+    }
+
+    /**
+     * Watch an asynchronous result if the job has a timeout. If the result
+     * has not completed in time, the execution fails (and a {@link Future}
+     * result is cancelled), so that a result which never completes does not
+     * block further executions of a non-concurrent job.
+     * 
+     * @param result
+     *            the asynchronous result
+     * @param completed
+     *            set once the execution has been completed
+     * @param startTime
+     *            the start time of the execution (from
+     *            {@link System#nanoTime()})
+     * @param settings
+     *            the job's settings
+     * @param context
+     *            the {@link JobExecutionContext} of the job
+     * @return the watch of the result, or null if the job has no timeout
+     */
+    private ScheduledFuture<?> watchAsynchronousResult(final Object result, final AtomicBoolean completed,
+            final long startTime, final JobSettings settings, final JobExecutionContext context) {
+        if (settings.watchdog == null) {
+            return null;
+        }
+        return settings.watchdog.watch(new Runnable() {
+            public void run() {
+                if (!completed.compareAndSet(false, true)) {
+                    return;
+                }
+                LOG.warn("Asynchronous result of Ninja Quartz task {} has not completed within its timeout of {}ms.",
+                        settings.taskName, settings.timeout);
+                if (settings.metrics != null) {
+                    settings.metrics.recordTimeout();
+                }
+                if (result instanceof Future) {
+                    ((Future<?>) result).cancel(true);
+                }
+                completeAsynchronousExecution(
+                        new InvocationTargetException(new TimeoutException("Asynchronous result of Ninja Quartz task "
+                                + settings.taskName + " has not completed within " + settings.timeout + "ms.")),
+                        startTime, settings, context);
+            }
+        }, settings.timeout);
+    }
+
+    /**
+     * Complete an asynchronous execution.
+     * 
+     * @param failure
+     *            the failure of the execution, or null
+     * @param startTime
+     *            the start time of the execution (from
+     *            {@link System#nanoTime()})
+     * @param settings
+     *            the job's settings
+     * @param context
+     *            the {@link JobExecutionContext} of the job
+     */
+    private void completeAsynchronousExecution(Throwable failure, long startTime, JobSettings settings,
+            JobExecutionContext context) {
+        try {
+            if (settings.metrics != null) {
+                settings.metrics.recordExecution(System.nanoTime() - startTime, failure == null);
+            }
+            if (failure != null) {
+                failed(failure, settings, context);
+            } else {
+                closeCircuitBreaker(settings, context);
+                LOG.debug("Asynchronous Ninja Quartz task {} execution finished.", settings.taskName);
+            }
+        } finally {
+            if (settings.limiter != null) {
+                settings.limiter.release();
+            }
+            if (!settings.concurrent) {
+                settings.running.set(false);
+            }
+        }
+    }
+
+    /**
+     * Record the start of an execution in the job's metrics.
+     * 
+     * @param settings
+     *            the job's settings
+     * @param context
+     *            the {@link JobExecutionContext} of the job
+     * @return the start time of the execution (from {@link System#nanoTime()})
+     */
+    private long recordFire(JobSettings settings, JobExecutionContext context) {
+        JobMetrics metrics = settings.metrics;
+        if (metrics != null) {
+            Date scheduledFireTime = context.getScheduledFireTime();
+            // triggers may fire slightly before their scheduled fire time
+            metrics.recordFire(scheduledFireTime == null ? -1L
+                    : Math.max(0L, System.currentTimeMillis() - scheduledFireTime.getTime()));
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Schedule a retry of a failed execution, if allowed by the job's
+     * {@link RetryPolicy}. Only exceptions thrown by the scheduled method are
+     * retried. The retry is executed by a one-shot trigger, carrying the
+     * number of the retry in its {@link JobDataMap}.
+     * 
+     * @param t
+     *            the exception
+     * @param settings
+     *            the job's settings
+     * @param context
+     *            the {@link JobExecutionContext} of the failed execution
+     * @return true if a retry has been scheduled, false if the failure must be
+     *         handled
+     */
+    private boolean scheduleRetry(Throwable t, JobSettings settings, JobExecutionContext context) {
+        RetryPolicy retryPolicy = settings.retryPolicy;
+        if ((retryPolicy == null) || !(t instanceof InvocationTargetException)) {
+            return false;
+        }
+        Throwable cause = (t.getCause() == null) ? t : t.getCause();
+        JobDataMap triggerDataMap = context.getTrigger().getJobDataMap();
+        int attempt = (triggerDataMap.containsKey(RETRY_ATTEMPT_KEY) ? triggerDataMap.getIntValue(RETRY_ATTEMPT_KEY)
+                : 0) + 1;
+        if (!retryPolicy.allowsAttempt(attempt) || !retryPolicy.isRetryable(cause)) {
+            if (attempt > 1) {
+                LOG.warn("Giving up on Ninja Quartz task {} after {} retries.", settings.taskName, attempt - 1);
+            }
+            return false;
+        }
+
+        long delay = retryPolicy.getDelay(attempt, ThreadLocalRandom.current());
+        Trigger retryTrigger = TriggerBuilder.newTrigger()
+                .withIdentity(Key.createUniqueName(RETRY_TRIGGER_GROUP), RETRY_TRIGGER_GROUP)
+                .forJob(context.getJobDetail().getKey()).usingJobData(RETRY_ATTEMPT_KEY, attempt)
+                .withPriority(context.getTrigger().getPriority())
+                .startAt(new Date(System.currentTimeMillis() + delay))
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule().withMisfireHandlingInstructionFireNow()).build();
+        try {
+            context.getScheduler().scheduleJob(retryTrigger);
+        } catch (SchedulerException e) {
+            LOG.error("Cannot schedule retry of Ninja Quartz task " + settings.taskName + ".", e);
+            return false;
+        }
+        LOG.warn("Execution of {} failed: {}. Retrying in {}ms (retry {} of {}).", settings.taskName, cause,
+                delay, attempt, retryPolicy.getMaxAttempts());
+        return true;
+    }
+
+    /**
+     * Handle an exception thrown while executing a task, removing the job
+     * from the scheduler if required by its settings.
+     * 
+     * @param t
+     *            the exception
+     * @param settings
+     *            the job's settings
+     * @param context
+     *            the {@link JobExecutionContext} of the job
+     */
+    private void handleFailure(Throwable t, JobSettings settings, JobExecutionContext context) {
+        String taskName = settings.taskName;
+        boolean forceKeepJob = settings.forceKeep;
+
+        if (t instanceof IllegalAccessException) {
+            LOG.error("Illegal access exception while trying to execute task " + taskName + ".", t);
             if (!forceKeepJob) {
                 removeSelf(taskName, context);
             }
 
-        } catch (IllegalArgumentException e) {
+        } else if (t instanceof IllegalArgumentException) {
             LOG.error("Illegal argument exception while trying to execute task " + taskName
-                    + ". Your scheduled method should not require any parameters!", e);
+                    + ". Your scheduled method should not require any parameters!", t);
             if (!forceKeepJob) {
                 removeSelf(taskName, context);
             }
 
-        } catch (InvocationTargetException e) {
+        } else if (t instanceof InvocationTargetException) {
             // check if we should ignore this exception
-            if (forceKeepJob || !removeOnInvocationTargetException) {
+            if (forceKeepJob || !settings.removeOnError) {
                 // if we ignore it, only log a brief exception message in WARN
                 // level and do not remove the job from the scheduler
-                LOG.warn("Ignoring InvocationTargetException during execution of {}: {}", taskName, e.getMessage());
+                LOG.warn("Ignoring InvocationTargetException during execution of {}: {}", taskName, t.getMessage());
             } else {
                 // we should not ignore this. log the full exception at ERROR
                 // level and remove the job.
                 LOG.error(
                         "Removing scheduled job after InvocationTargetException during execution of " + taskName + ".",
-                        e);
+                        t);
                 removeSelf(taskName, context);
             }
-        } catch (Throwable t) {
+
+        } else {
             // fallback for any other problem in the scheduled method
             LOG.error("Exception during execution of quartz task " + taskName + ".", t);
             if (!forceKeepJob) {
@@ -144,6 +754,53 @@ public abstract class AbstractNinjaQuartzJob implements Job {
         }
     }
 
+    /**
+     * Resolve a {@link MethodReferenceTask} (see
+     * {@link MethodReferenceTask#resolve(JobExecutionContext)}). The job is
+     * not removed if the reference cannot be resolved, as other nodes sharing
+     * the job store might still be able to execute it.
+     * 
+     * @param reference
+     *            the reference to resolve
+     * @param context
+     *            the {@link JobExecutionContext} of the job
+     * @return the resolved task, or null if it cannot be resolved
+     */
+    private NinjaQuartzTask resolveReference(MethodReferenceTask reference, JobExecutionContext context) {
+        try {
+            return reference.resolve(context);
+        } catch (SchedulerException | ReflectiveOperationException | RuntimeException e) {
+            LOG.error("Cannot resolve task " + reference.getTaskName() + " (" + reference + ").", e);
+            return null;
+        }
+    }
+
+    /**
+     * Get the settings of the job executing the given task. For tasks derived
+     * from {@link AbstractNinjaQuartzTaskImpl}, the settings are resolved only
+     * on the first execution and then cached with the task.
+     * 
+     * @param task
+     *            the task to execute
+     * @param context
+     *            the {@link JobExecutionContext} of the job
+     * @return the job's settings
+     */
+    private JobSettings getJobSettings(NinjaQuartzTask task, JobExecutionContext context) {
+        if (!(task instanceof AbstractNinjaQuartzTaskImpl)) {
+            return JobSettings.resolve(task, context);
+        }
+        AbstractNinjaQuartzTaskImpl taskImpl = (AbstractNinjaQuartzTaskImpl) task;
+        JobSettings settings = taskImpl.getJobSettings();
+        if (settings == null) {
+            // concurrent first executions may both resolve the settings, which
+            // is harmless
+            settings = JobSettings.resolve(task, context);
+            taskImpl.setJobSettings(settings);
+        }
+        return settings;
+    }
+
     /**
      * @param context
      */
@@ -31,6 +31,12 @@ public abstract class AbstractNinjaQuartzTaskImpl implements NinjaQuartzTask, Se
      */
     protected String taskName;
 
+    /**
+     * The settings of the job executing this task, resolved on its first
+     * execution.
+     */
+    private transient volatile JobSettings jobSettings;
+
     /**
      * Create a new {@link AbstractNinjaQuartzTaskImpl} object.
      * 
@@ -54,4 +60,20 @@ public abstract class AbstractNinjaQuartzTaskImpl implements NinjaQuartzTask, Se
         return taskName;
     }
 
+    /**
+     * @return the cached settings of the job executing this task (or null, if
+     *         not yet resolved)
+     */
+    JobSettings getJobSettings() {
+        return jobSettings;
+    }
+
+    /**
+     * @param jobSettings
+     *            the resolved settings of the job executing this task
+     */
+    void setJobSettings(JobSettings jobSettings) {
+        this.jobSettings = jobSettings;
+    }
+
 }
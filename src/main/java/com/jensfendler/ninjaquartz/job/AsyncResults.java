@@ -0,0 +1,218 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.job;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Support for scheduled methods returning a <code>CompletionStage</code> or a
+ * {@link Future}: registers a {@link Callback} to be called when such a
+ * result completes.
+ * 
+ * NinjaQuartz is compiled for Java 7, so <code>CompletionStage</code> (Java 8)
+ * is only accessed through reflection. Plain {@link Future}s do not provide
+ * completion callbacks, so they are polled (with increasing delays) by a
+ * single shared daemon thread.
+ * 
+ * @author Jens Fendler
+ *
+ */
+final class AsyncResults {
+
+    /**
+     * Callback for the completion of an asynchronous result.
+     */
+    interface Callback {
+
+        /**
+         * @param failure
+         *            the exception the result completed with, or null if it
+         *            completed normally
+         */
+        void completed(Throwable failure);
+    }
+
+    /**
+     * Initial delay (in milliseconds) for polling {@link Future}s.
+     */
+    private static final long MIN_POLL_DELAY = 1L;
+
+    /**
+     * Maximum delay (in milliseconds) for polling {@link Future}s.
+     */
+    private static final long MAX_POLL_DELAY = 100L;
+
+    private static final Class<?> COMPLETION_STAGE_CLASS = loadClass("java.util.concurrent.CompletionStage");
+
+    private static final Class<?> COMPLETION_EXCEPTION_CLASS = loadClass("java.util.concurrent.CompletionException");
+
+    private static final Class<?> BI_CONSUMER_CLASS = loadClass("java.util.function.BiConsumer");
+
+    private static final Method WHEN_COMPLETE = COMPLETION_STAGE_CLASS == null ? null
+            : getMethod(COMPLETION_STAGE_CLASS, "whenComplete", BI_CONSUMER_CLASS);
+
+    private static ScheduledExecutorService poller;
+
+    private AsyncResults() {
+    }
+
+    private static Class<?> loadClass(String className) {
+        try {
+            return Class.forName(className);
+        } catch (ClassNotFoundException e) {
+            // running on Java 7
+            return null;
+        }
+    }
+
+    private static Method getMethod(Class<?> clazz, String name, Class<?>... parameterTypes) {
+        try {
+            return clazz.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param type
+     *            the return type of a scheduled method
+     * @return true if the method returns an asynchronous result (a
+     *         <code>CompletionStage</code> or {@link Future})
+     */
+    static boolean isAsynchronousType(Class<?> type) {
+        return Future.class.isAssignableFrom(type)
+                || (COMPLETION_STAGE_CLASS != null && COMPLETION_STAGE_CLASS.isAssignableFrom(type));
+    }
+
+    /**
+     * Call the given callback once the given result has completed. A null
+     * result is treated as completed normally.
+     * 
+     * @param result
+     *            the return value of a scheduled method
+     * @param callback
+     *            the {@link Callback} to call (from the thread completing the
+     *            result, the polling thread, or the calling thread if the
+     *            result has completed already)
+     */
+    static void whenComplete(Object result, Callback callback) {
+        if (result == null) {
+            callback.completed(null);
+        } else if (WHEN_COMPLETE != null && COMPLETION_STAGE_CLASS.isInstance(result)) {
+            whenStageComplete(result, callback);
+        } else if (result instanceof Future) {
+            poll((Future<?>) result, callback, MIN_POLL_DELAY);
+        } else {
+            callback.completed(null);
+        }
+    }
+
+    /**
+     * Register the callback with <code>CompletionStage.whenComplete()</code>,
+     * using a dynamic proxy implementing <code>BiConsumer</code>.
+     */
+    private static void whenStageComplete(Object stage, final Callback callback) {
+        Object biConsumer = Proxy.newProxyInstance(AsyncResults.class.getClassLoader(),
+                new Class<?>[] { BI_CONSUMER_CLASS }, new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if ("accept".equals(method.getName()) && (args != null) && (args.length == 2)) {
+                            callback.completed(unwrap((Throwable) args[1]));
+                            return null;
+                        } else if ("equals".equals(method.getName())) {
+                            return proxy == args[0];
+                        } else if ("hashCode".equals(method.getName())) {
+                            return System.identityHashCode(proxy);
+                        } else if ("toString".equals(method.getName())) {
+                            return "NinjaQuartzCompletionCallback";
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        try {
+            WHEN_COMPLETE.invoke(stage, biConsumer);
+        } catch (Exception e) {
+            callback.completed(e);
+        }
+    }
+
+    /**
+     * @param failure
+     *            the failure of a <code>CompletionStage</code>
+     * @return the cause of a <code>CompletionException</code>, or the given
+     *         failure
+     */
+    private static Throwable unwrap(Throwable failure) {
+        if ((failure != null) && (failure.getCause() != null) && (COMPLETION_EXCEPTION_CLASS != null)
+                && COMPLETION_EXCEPTION_CLASS.isInstance(failure)) {
+            return failure.getCause();
+        }
+        return failure;
+    }
+
+    private static void poll(final Future<?> future, final Callback callback, final long delay) {
+        if (future.isDone()) {
+            callback.completed(getFailure(future));
+            return;
+        }
+        getPoller().schedule(new Runnable() {
+            public void run() {
+                poll(future, callback, Math.min(delay * 2, MAX_POLL_DELAY));
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param future
+     *            a completed {@link Future}
+     * @return the exception the future completed with, or null
+     */
+    private static Throwable getFailure(Future<?> future) {
+        try {
+            future.get();
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause() != null ? e.getCause() : e;
+        } catch (CancellationException e) {
+            return e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return e;
+        }
+    }
+
+    private static synchronized ScheduledExecutorService getPoller() {
+        if (poller == null) {
+            poller = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "NinjaQuartz_FuturePoller");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return poller;
+    }
+
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.job;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.quartz.JobDataMap;
+import org.quartz.JobExecutionContext;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+
+import com.jensfendler.ninjaquartz.annotations.QuartzSchedule;
+import com.jensfendler.ninjaquartz.limit.CircuitBreaker;
+import com.jensfendler.ninjaquartz.limit.CircuitBreakers;
+import com.jensfendler.ninjaquartz.limit.ExecutionWatchdog;
+import com.jensfendler.ninjaquartz.limit.JobGroupLimiter;
+import com.jensfendler.ninjaquartz.limit.JobGroupLimiters;
+import com.jensfendler.ninjaquartz.metrics.JobMetrics;
+import com.jensfendler.ninjaquartz.metrics.JobMetricsRegistry;
+
+/**
+ * The NinjaQuartz settings of a job, as resolved from its {@link JobDataMap}
+ * on the first execution of the job's {@link NinjaQuartzTask}. They are cached
+ * with the task, so that further executions do not need to look them up again.
+ * 
+ * @author Jens Fendler
+ *
+ */
+final class JobSettings {
+
+    /**
+     * The name of the task (never null).
+     */
+    final String taskName;
+
+    /**
+     * Keep the job despite any exception.
+     */
+    final boolean forceKeep;
+
+    /**
+     * Remove the job after an exception thrown by the scheduled method.
+     */
+    final boolean removeOnError;
+
+    /**
+     * The metrics to record executions in (null if no
+     * {@link JobMetricsRegistry} is available).
+     */
+    final JobMetrics metrics;
+
+    /**
+     * The task's scheduled method returns an asynchronous result.
+     */
+    final boolean asynchronous;
+
+    /**
+     * Concurrent executions of the job are allowed.
+     */
+    final boolean concurrent;
+
+    /**
+     * Backlogged fires of the (non-concurrent) job are collapsed into a single
+     * execution.
+     */
+    final boolean coalesce;
+
+    /**
+     * The number of fires collapsed into the next execution (if
+     * {@link #coalesce} is set).
+     */
+    final AtomicInteger collapsedFires = new AtomicInteger();
+
+    /**
+     * The limits of the job's group (null if the group is not limited).
+     */
+    final JobGroupLimiter limiter;
+
+    /**
+     * The retry policy of the job (null if failed executions are not
+     * retried).
+     */
+    final RetryPolicy retryPolicy;
+
+    /**
+     * The circuit breaker of the job (null if the job has no circuit breaker).
+     */
+    final CircuitBreaker circuitBreaker;
+
+    /**
+     * The timeout (in milliseconds) of synchronous executions, or 0.
+     */
+    final long timeout;
+
+    /**
+     * The watchdog interrupting executions exceeding the {@link #timeout}
+     * (null if the job has no timeout).
+     */
+    final ExecutionWatchdog watchdog;
+
+    /**
+     * Set while an asynchronous execution of a non-concurrent job is running.
+     */
+    final AtomicBoolean running = new AtomicBoolean();
+
+    private JobSettings(String taskName, boolean forceKeep, boolean removeOnError, JobMetrics metrics,
+            boolean asynchronous, boolean concurrent, boolean coalesce, JobGroupLimiter limiter,
+            RetryPolicy retryPolicy, CircuitBreaker circuitBreaker, long timeout, ExecutionWatchdog watchdog) {
+        this.taskName = taskName;
+        this.forceKeep = forceKeep;
+        this.removeOnError = removeOnError;
+        this.metrics = metrics;
+        this.asynchronous = asynchronous;
+        this.concurrent = concurrent;
+        this.coalesce = coalesce;
+        this.limiter = limiter;
+        this.retryPolicy = retryPolicy;
+        this.circuitBreaker = circuitBreaker;
+        this.timeout = timeout;
+        this.watchdog = watchdog;
+    }
+
+    /**
+     * Resolve the settings of a job from its execution context.
+     * 
+     * @param task
+     *            the task of the job
+     * @param context
+     *            the {@link JobExecutionContext} of the job
+     * @return the resolved settings
+     */
+    static JobSettings resolve(NinjaQuartzTask task, JobExecutionContext context) {
+        JobDataMap jobDataMap = context.getMergedJobDataMap();
+
+        // ensure we have a task name to use.
+        String taskName = task.getTaskName();
+        if (taskName == null) {
+            taskName = task.toString();
+        }
+
+        boolean asynchronous = (task instanceof NinjaQuartzMethodTask)
+                && ((NinjaQuartzMethodTask) task).isAsynchronous();
+        boolean concurrent = !context.getJobDetail().isConcurrentExectionDisallowed();
+
+        long timeout = jobDataMap.containsKey(AbstractNinjaQuartzJob.JOB_TIMEOUT)
+                ? jobDataMap.getLongValue(AbstractNinjaQuartzJob.JOB_TIMEOUT) : QuartzSchedule.DEFAULT_TIMEOUT;
+
+        return new JobSettings(taskName, isForceKeep(jobDataMap), isRemoveOnError(jobDataMap),
+                resolveMetrics(context), asynchronous, concurrent, !concurrent && isCoalesce(jobDataMap),
+                resolveLimiter(context), getRetryPolicy(jobDataMap), resolveCircuitBreaker(context), timeout,
+                (timeout > 0) ? resolveWatchdog(context) : null);
+    }
+
+    /**
+     * @param context
+     *            the {@link JobExecutionContext} of the job
+     * @return the {@link JobGroupLimiter} of the job's group, or null if the
+     *         group is not limited (or the scheduler does not provide
+     *         {@link JobGroupLimiters})
+     */
+    private static JobGroupLimiter resolveLimiter(JobExecutionContext context) {
+        Scheduler scheduler = context.getScheduler();
+        if (scheduler == null) {
+            return null;
+        }
+        try {
+            Object limiters = scheduler.getContext().get(JobGroupLimiters.SCHEDULER_CONTEXT_KEY);
+            if (limiters instanceof JobGroupLimiters) {
+                return ((JobGroupLimiters) limiters).get(context.getJobDetail().getKey().getGroup());
+            }
+        } catch (SchedulerException e) {
+            AbstractNinjaQuartzJob.LOG.warn("Cannot access scheduler context to limit job {}: {}",
+                    context.getJobDetail().getKey(), e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * @param context
+     *            the {@link JobExecutionContext} of the job
+     * @return the {@link CircuitBreaker} of the job, or null if the job has no
+     *         circuit breaker threshold (or the scheduler does not provide
+     *         {@link CircuitBreakers})
+     */
+    private static CircuitBreaker resolveCircuitBreaker(JobExecutionContext context) {
+        JobDataMap jobDataMap = context.getMergedJobDataMap();
+        Scheduler scheduler = context.getScheduler();
+        if ((scheduler == null) || !jobDataMap.containsKey(AbstractNinjaQuartzJob.JOB_CIRCUIT_BREAKER_THRESHOLD)) {
+            return null;
+        }
+        try {
+            Object circuitBreakers = scheduler.getContext().get(CircuitBreakers.SCHEDULER_CONTEXT_KEY);
+            if (circuitBreakers instanceof CircuitBreakers) {
+                return ((CircuitBreakers) circuitBreakers).getOrCreate(context.getJobDetail().getKey(),
+                        jobDataMap.getIntValue(AbstractNinjaQuartzJob.JOB_CIRCUIT_BREAKER_THRESHOLD),
+                        jobDataMap.containsKey(AbstractNinjaQuartzJob.JOB_CIRCUIT_BREAKER_DELAY)
+                                ? jobDataMap.getLongValue(AbstractNinjaQuartzJob.JOB_CIRCUIT_BREAKER_DELAY)
+                                : QuartzSchedule.DEFAULT_CIRCUIT_BREAKER_DELAY);
+            }
+        } catch (SchedulerException e) {
+            AbstractNinjaQuartzJob.LOG.warn("Cannot access scheduler context to protect job {}: {}",
+                    context.getJobDetail().getKey(), e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * @param context
+     *            the {@link JobExecutionContext} of the job
+     * @return the {@link ExecutionWatchdog} of the scheduler, or null if the
+     *         scheduler does not provide one
+     */
+    private static ExecutionWatchdog resolveWatchdog(JobExecutionContext context) {
+        Scheduler scheduler = context.getScheduler();
+        if (scheduler == null) {
+            return null;
+        }
+        try {
+            Object watchdog = scheduler.getContext().get(ExecutionWatchdog.SCHEDULER_CONTEXT_KEY);
+            if (watchdog instanceof ExecutionWatchdog) {
+                return (ExecutionWatchdog) watchdog;
+            }
+        } catch (SchedulerException e) {
+            AbstractNinjaQuartzJob.LOG.warn("Cannot access scheduler context to watch job {}: {}",
+                    context.getJobDetail().getKey(), e.getMessage());
+        }
+        AbstractNinjaQuartzJob.LOG.warn("No execution watchdog available. Not enforcing the timeout of job {}.",
+                context.getJobDetail().getKey());
+        return null;
+    }
+
+    /**
+     * @param context
+     *            the {@link JobExecutionContext} of the job
+     * @return the {@link JobMetrics} of the job, or null if the scheduler does
+     *         not provide a {@link JobMetricsRegistry}
+     */
+    private static JobMetrics resolveMetrics(JobExecutionContext context) {
+        Scheduler scheduler = context.getScheduler();
+        if (scheduler == null) {
+            return null;
+        }
+        try {
+            Object registry = scheduler.getContext().get(JobMetricsRegistry.SCHEDULER_CONTEXT_KEY);
+            if (registry instanceof JobMetricsRegistry) {
+                return ((JobMetricsRegistry) registry).getOrCreate(context.getJobDetail().getKey());
+            }
+        } catch (SchedulerException e) {
+            AbstractNinjaQuartzJob.LOG.warn("Cannot access scheduler context to record metrics of job {}: {}",
+                    context.getJobDetail().getKey(), e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * @param jobDataMap
+     *            the (merged) {@link JobDataMap} of a job
+     * @return the value of the {@link AbstractNinjaQuartzJob#JOB_FORCE_KEEP}
+     *         property (or its default)
+     */
+    static boolean isForceKeep(JobDataMap jobDataMap) {
+        return jobDataMap.containsKey(AbstractNinjaQuartzJob.JOB_FORCE_KEEP)
+                ? jobDataMap.getBooleanValue(AbstractNinjaQuartzJob.JOB_FORCE_KEEP) : QuartzSchedule.DEFAULT_FORCE_KEEP;
+    }
+
+    /**
+     * @param jobDataMap
+     *            the (merged) {@link JobDataMap} of a job
+     * @return the value of the
+     *         {@link AbstractNinjaQuartzJob#JOB_RETRY_POLICY} property (or
+     *         null)
+     */
+    static RetryPolicy getRetryPolicy(JobDataMap jobDataMap) {
+        Object retryPolicy = jobDataMap.get(AbstractNinjaQuartzJob.JOB_RETRY_POLICY);
+        return (retryPolicy instanceof RetryPolicy) ? (RetryPolicy) retryPolicy : null;
+    }
+
+    /**
+     * @param jobDataMap
+     *            the (merged) {@link JobDataMap} of a job
+     * @return the value of the {@link AbstractNinjaQuartzJob#JOB_COALESCE}
+     *         property (or its default)
+     */
+    static boolean isCoalesce(JobDataMap jobDataMap) {
+        return jobDataMap.containsKey(AbstractNinjaQuartzJob.JOB_COALESCE)
+                ? jobDataMap.getBooleanValue(AbstractNinjaQuartzJob.JOB_COALESCE) : QuartzSchedule.DEFAULT_COALESCE;
+    }
+
+    /**
+     * @param jobDataMap
+     *            the (merged) {@link JobDataMap} of a job
+     * @return the value of the
+     *         {@link AbstractNinjaQuartzJob#JOB_REMOVE_ON_RUNTIME_ERROR}
+     *         property (or its default)
+     */
+    static boolean isRemoveOnError(JobDataMap jobDataMap) {
+        return jobDataMap.containsKey(AbstractNinjaQuartzJob.JOB_REMOVE_ON_RUNTIME_ERROR)
+                ? jobDataMap.getBooleanValue(AbstractNinjaQuartzJob.JOB_REMOVE_ON_RUNTIME_ERROR)
+                : QuartzSchedule.DEFAULT_REMOVE_ON_ERROR;
+    }
+
+}
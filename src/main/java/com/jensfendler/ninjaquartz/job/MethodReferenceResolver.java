@@ -0,0 +1,47 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.job;
+
+/**
+ * Resolves {@link MethodReferenceTask}s (as stored in persistent job stores)
+ * into executable {@link NinjaQuartzMethodTask}s. The resolver is made
+ * available to the job wrappers through the scheduler context (which is not
+ * persisted) under the {@link #SCHEDULER_CONTEXT_KEY}.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public interface MethodReferenceResolver {
+
+    /**
+     * The key of the {@link MethodReferenceResolver} in the scheduler
+     * context.
+     */
+    public static final String SCHEDULER_CONTEXT_KEY = "nqResolver";
+
+    /**
+     * Resolve a {@link MethodReferenceTask}, getting the target instance of the
+     * referenced method from the Guice injector.
+     * 
+     * @param reference
+     *            the reference to resolve
+     * @return the {@link NinjaQuartzMethodTask} executing the referenced method
+     * @throws ReflectiveOperationException
+     *             if the referenced class or method cannot be found
+     */
+    public NinjaQuartzMethodTask resolve(MethodReferenceTask reference) throws ReflectiveOperationException;
+
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.job;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.quartz.JobExecutionContext;
+import org.quartz.SchedulerException;
+
+/**
+ * A serializable {@link NinjaQuartzTask} referencing a scheduled method by
+ * the names of its class, the method and its parameter types only. It is used
+ * instead of a {@link NinjaQuartzMethodTask} (which holds the target instance
+ * and the {@link Method}) for job stores persisting the job data, such as a
+ * (clustered) JDBC job store. On execution, the reference is resolved by the
+ * {@link MethodReferenceResolver} found in the scheduler context, getting the
+ * target instance from the Guice injector of the executing node.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class MethodReferenceTask extends AbstractNinjaQuartzTaskImpl {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Map<String, Class<?>> PRIMITIVE_TYPES = new HashMap<String, Class<?>>();
+
+    static {
+        for (Class<?> type : new Class<?>[] { boolean.class, byte.class, char.class, short.class, int.class,
+                long.class, float.class, double.class }) {
+            PRIMITIVE_TYPES.put(type.getName(), type);
+        }
+    }
+
+    /**
+     * The name of the class of the target instance (i.e. the class bound in
+     * Guice).
+     */
+    protected final String targetClassName;
+
+    /**
+     * The name of the scheduled method.
+     */
+    protected final String methodName;
+
+    /**
+     * The names of the parameter types of the scheduled method.
+     */
+    protected final String[] parameterTypeNames;
+
+    /**
+     * Create a new {@link MethodReferenceTask}.
+     * 
+     * @param taskName
+     *            the name of the task
+     * @param targetClass
+     *            the class of the target instance
+     * @param method
+     *            the scheduled method
+     */
+    public MethodReferenceTask(String taskName, Class<?> targetClass, Method method) {
+        super(taskName);
+        this.targetClassName = targetClass.getName();
+        this.methodName = method.getName();
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        this.parameterTypeNames = new String[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            parameterTypeNames[i] = parameterTypes[i].getName();
+        }
+    }
+
+    /**
+     * Resolves this reference, and executes the referenced method. The job
+     * wrappers resolve references themselves (see {@link #resolve(JobExecutionContext)}),
+     * so this is only used if the task is executed directly.
+     * 
+     * @see com.jensfendler.ninjaquartz.job.AbstractNinjaQuartzTaskImpl#execute(org.quartz.JobExecutionContext)
+     */
+    @Override
+    public void execute(JobExecutionContext context)
+            throws IllegalAccessException, IllegalArgumentException, InvocationTargetException {
+        NinjaQuartzMethodTask task;
+        try {
+            task = resolve(context);
+        } catch (SchedulerException | ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Cannot resolve task " + taskName + ".", e);
+        }
+        task.execute(context);
+    }
+
+    /**
+     * Resolve this reference through the {@link MethodReferenceResolver} of
+     * the scheduler executing the job.
+     * 
+     * @param context
+     *            the {@link JobExecutionContext} of the job
+     * @return the resolved task
+     * @throws SchedulerException
+     *             if the scheduler context cannot be read, or contains no
+     *             {@link MethodReferenceResolver}
+     * @throws ReflectiveOperationException
+     *             if the referenced class or method cannot be found
+     */
+    public NinjaQuartzMethodTask resolve(JobExecutionContext context)
+            throws SchedulerException, ReflectiveOperationException {
+        MethodReferenceResolver resolver = (MethodReferenceResolver) context.getScheduler().getContext()
+                .get(MethodReferenceResolver.SCHEDULER_CONTEXT_KEY);
+        if (resolver == null) {
+            throw new SchedulerException("No MethodReferenceResolver in scheduler context.");
+        }
+        return resolver.resolve(this);
+    }
+
+    /**
+     * @return the name of the class of the target instance
+     */
+    public String getTargetClassName() {
+        return targetClassName;
+    }
+
+    /**
+     * @return the name of the scheduled method
+     */
+    public String getMethodName() {
+        return methodName;
+    }
+
+    /**
+     * Load the class of the target instance.
+     * 
+     * @param classLoader
+     *            the {@link ClassLoader} to use
+     * @return the class of the target instance
+     * @throws ClassNotFoundException
+     *             if the class cannot be found
+     */
+    public Class<?> loadTargetClass(ClassLoader classLoader) throws ClassNotFoundException {
+        return Class.forName(targetClassName, false, classLoader);
+    }
+
+    /**
+     * Find the referenced method in the given class.
+     * 
+     * @param targetClass
+     *            the class of the target instance
+     * @return the (public) scheduled method
+     * @throws ClassNotFoundException
+     *             if a parameter type cannot be found
+     * @throws NoSuchMethodException
+     *             if the method does not exist
+     */
+    public Method findMethod(Class<?> targetClass) throws ClassNotFoundException, NoSuchMethodException {
+        Class<?>[] parameterTypes = new Class<?>[parameterTypeNames.length];
+        for (int i = 0; i < parameterTypeNames.length; i++) {
+            Class<?> type = PRIMITIVE_TYPES.get(parameterTypeNames[i]);
+            parameterTypes[i] = (type != null) ? type
+                    : Class.forName(parameterTypeNames[i], false, targetClass.getClassLoader());
+        }
+        return targetClass.getMethod(methodName, parameterTypes);
+    }
+
+    /**
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        return (31 * targetClassName.hashCode() + methodName.hashCode()) * 31 + Arrays.hashCode(parameterTypeNames);
+    }
+
+    /**
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof MethodReferenceTask)) {
+            return false;
+        }
+        MethodReferenceTask other = (MethodReferenceTask) obj;
+        return targetClassName.equals(other.targetClassName) && methodName.equals(other.methodName)
+                && Arrays.equals(parameterTypeNames, other.parameterTypeNames) && taskName.equals(other.taskName);
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return targetClassName + "::" + methodName + Arrays.toString(parameterTypeNames);
+    }
+
+}
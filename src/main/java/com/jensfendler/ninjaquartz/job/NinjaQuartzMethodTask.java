@@ -0,0 +1,218 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.job;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.Future;
+
+import org.quartz.JobExecutionContext;
+
+import com.jensfendler.ninjaquartz.annotations.QuartzSchedule;
+import com.jensfendler.ninjaquartz.invoker.ArgumentBindingPlan;
+import com.jensfendler.ninjaquartz.invoker.MethodInvoker;
+
+/**
+ * The {@link NinjaQuartzTask} wrapping a method annotated with
+ * {@link QuartzSchedule}. The method is called through a {@link MethodInvoker}
+ * which has been resolved once when the method was scheduled, with arguments
+ * provided by the method's {@link ArgumentBindingPlan}.
+ *
+ * Methods returning a <code>CompletionStage</code> or a {@link Future} are
+ * asynchronous: the job wrapper does not wait for their result, but completes
+ * the execution (error handling and metrics) once the result completes.
+ *
+ * @author Jens Fendler
+ *
+ */
+public class NinjaQuartzMethodTask extends AbstractNinjaQuartzTaskImpl {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The scheduled method.
+     */
+    protected final transient Method method;
+
+    /**
+     * The invoker calling the scheduled method on its target instance.
+     */
+    protected final transient MethodInvoker invoker;
+
+    /**
+     * The pre-compiled binding plan for the method's arguments.
+     */
+    protected final transient ArgumentBindingPlan argumentBindingPlan;
+
+    /**
+     * True if the method returns an asynchronous result.
+     */
+    protected final boolean asynchronous;
+
+    /**
+     * Create a new {@link NinjaQuartzMethodTask}.
+     *
+     * @param taskName
+     *            the name of the task
+     * @param method
+     *            the scheduled method
+     * @param invoker
+     *            the {@link MethodInvoker} bound to the target instance
+     * @param argumentBindingPlan
+     *            the {@link ArgumentBindingPlan} providing the method arguments
+     */
+    public NinjaQuartzMethodTask(String taskName, Method method, MethodInvoker invoker,
+            ArgumentBindingPlan argumentBindingPlan) {
+        super(taskName);
+        this.method = method;
+        this.invoker = invoker;
+        this.argumentBindingPlan = argumentBindingPlan;
+        this.asynchronous = AsyncResults.isAsynchronousType(method.getReturnType());
+    }
+
+    /**
+     * @see com.jensfendler.ninjaquartz.job.AbstractNinjaQuartzTaskImpl#execute(org.quartz.JobExecutionContext)
+     */
+    @Override
+    public void execute(JobExecutionContext context)
+            throws IllegalAccessException, IllegalArgumentException, InvocationTargetException {
+        invoke(context);
+    }
+
+    /**
+     * Invoke the scheduled method.
+     *
+     * @param context
+     *            the Quartz job's execution context
+     * @return the return value of the scheduled method
+     * @throws IllegalAccessException
+     *             if the scheduled method cannot be called due to access
+     *             restrictions
+     * @throws IllegalArgumentException
+     *             if the scheduled method cannot be called due to invalid
+     *             arguments
+     * @throws InvocationTargetException
+     *             wrapping any exception thrown by the scheduled method
+     */
+    public Object invoke(JobExecutionContext context)
+            throws IllegalAccessException, IllegalArgumentException, InvocationTargetException {
+        if (argumentBindingPlan.isBatching()) {
+            return invokeBatches(context);
+        }
+        Object[] arguments = argumentBindingPlan.bind(context);
+        try {
+            return invoker.invoke(arguments);
+        } finally {
+            argumentBindingPlan.release(arguments);
+        }
+    }
+
+    /**
+     * Invoke the scheduled method with batches of work items, until the items
+     * queued at the time of the fire have been drained. The method is not
+     * invoked if there are no queued items. Asynchronous methods are invoked
+     * with a single batch per fire.
+     *
+     * @param context
+     *            the Quartz job's execution context
+     * @return the return value of the last invocation of the scheduled method
+     * @throws IllegalAccessException
+     *             if the scheduled method cannot be called due to access
+     *             restrictions
+     * @throws IllegalArgumentException
+     *             if the scheduled method cannot be called due to invalid
+     *             arguments
+     * @throws InvocationTargetException
+     *             wrapping any exception thrown by the scheduled method (the
+     *             items passed to the failed invocation are queued again)
+     */
+    private Object invokeBatches(JobExecutionContext context)
+            throws IllegalAccessException, IllegalArgumentException, InvocationTargetException {
+        int batches = asynchronous ? 1 : argumentBindingPlan.getQueuedBatches();
+        Object result = null;
+        for (int i = 0; i < batches; i++) {
+            Object[] arguments = argumentBindingPlan.bind(context);
+            try {
+                if (argumentBindingPlan.isEmptyBatch(arguments)) {
+                    break;
+                }
+                result = invokeBatch(arguments);
+            } finally {
+                argumentBindingPlan.release(arguments);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Invoke the scheduled method with a single batch of work items. If the
+     * invocation fails (or the asynchronous result completes with a failure),
+     * the items are put back at the head of their queues, to be passed to the
+     * method again on the next fire (or retry).
+     *
+     * @param arguments
+     *            the arguments including the batches
+     * @return the return value of the scheduled method
+     * @throws IllegalAccessException
+     *             if the scheduled method cannot be called due to access
+     *             restrictions
+     * @throws IllegalArgumentException
+     *             if the scheduled method cannot be called due to invalid
+     *             arguments
+     * @throws InvocationTargetException
+     *             wrapping any exception thrown by the scheduled method
+     */
+    private Object invokeBatch(Object[] arguments)
+            throws IllegalAccessException, IllegalArgumentException, InvocationTargetException {
+        boolean invoked = false;
+        try {
+            Object result = invoker.invoke(arguments);
+            invoked = true;
+            if (asynchronous) {
+                // the arguments are released before the result completes
+                final Object[] batches = arguments.clone();
+                AsyncResults.whenComplete(result, new AsyncResults.Callback() {
+                    public void completed(Throwable failure) {
+                        if (failure != null) {
+                            argumentBindingPlan.requeue(batches);
+                        }
+                    }
+                });
+            }
+            return result;
+        } finally {
+            if (!invoked) {
+                argumentBindingPlan.requeue(arguments);
+            }
+        }
+    }
+
+    /**
+     * @return true if the scheduled method returns an asynchronous result
+     *         (a <code>CompletionStage</code> or a {@link Future})
+     */
+    public boolean isAsynchronous() {
+        return asynchronous;
+    }
+
+    /**
+     * @return the scheduled method
+     */
+    public Method getMethod() {
+        return method;
+    }
+
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.job;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.quartz.JobDataMap;
+
+import com.jensfendler.ninjaquartz.annotations.QuartzSchedule;
+
+/**
+ * The retry policy of a job, stored in its {@link JobDataMap}. Failed
+ * executions are retried after an exponentially increasing, randomised delay.
+ * As policies may be stored in persistent job stores, the retryable exception
+ * types are kept by name.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class RetryPolicy implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int maxAttempts;
+
+    private final long initialDelay;
+
+    private final double multiplier;
+
+    private final long maxDelay;
+
+    private final double jitter;
+
+    private final String[] retryOn;
+
+    /**
+     * @param maxAttempts
+     *            the maximum number of retries of a failed execution
+     * @param initialDelay
+     *            the delay (in milliseconds) before the first retry
+     * @param multiplier
+     *            the factor by which the delay increases with each retry
+     * @param maxDelay
+     *            the maximum delay (in milliseconds) before a retry
+     * @param jitter
+     *            the randomised fraction (between 0 and 1) of each delay
+     * @param retryOn
+     *            the names of the exception types to retry (empty to retry
+     *            all exceptions)
+     */
+    public RetryPolicy(int maxAttempts, long initialDelay, double multiplier, long maxDelay, double jitter,
+            String... retryOn) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Retry attempts must be positive: " + maxAttempts);
+        }
+        if ((initialDelay < 0) || (maxDelay < initialDelay)) {
+            throw new IllegalArgumentException(
+                    "Invalid retry delays (" + initialDelay + "ms initial, " + maxDelay + "ms maximum).");
+        }
+        if (multiplier < 1.0) {
+            throw new IllegalArgumentException("Retry multiplier must not be less than 1: " + multiplier);
+        }
+        if ((jitter < 0.0) || (jitter > 1.0)) {
+            throw new IllegalArgumentException("Retry jitter must be between 0 and 1: " + jitter);
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialDelay = initialDelay;
+        this.multiplier = multiplier;
+        this.maxDelay = maxDelay;
+        this.jitter = jitter;
+        this.retryOn = retryOn.clone();
+    }
+
+    /**
+     * Create the retry policy of a schedule.
+     * 
+     * @param quartzSchedule
+     *            the schedule
+     * @return the retry policy, or null if the schedule does not retry failed
+     *         executions
+     */
+    public static RetryPolicy of(QuartzSchedule quartzSchedule) {
+        if (quartzSchedule.retryAttempts() <= 0) {
+            return null;
+        }
+        Class<? extends Throwable>[] types = quartzSchedule.retryOn();
+        String[] retryOn = new String[types.length];
+        for (int i = 0; i < types.length; i++) {
+            retryOn[i] = types[i].getName();
+        }
+        return new RetryPolicy(quartzSchedule.retryAttempts(), quartzSchedule.retryDelay(),
+                quartzSchedule.retryMultiplier(), quartzSchedule.retryMaxDelay(), quartzSchedule.retryJitter(),
+                retryOn);
+    }
+
+    /**
+     * @param attempt
+     *            the number of the retry (starting at 1)
+     * @return true if the given retry is allowed by this policy
+     */
+    public boolean allowsAttempt(int attempt) {
+        return attempt <= maxAttempts;
+    }
+
+    /**
+     * @param failure
+     *            the exception thrown by the scheduled method
+     * @return true if the failure should be retried
+     */
+    public boolean isRetryable(Throwable failure) {
+        if (retryOn.length == 0) {
+            return true;
+        }
+        for (Class<?> type = failure.getClass(); type != null; type = type.getSuperclass()) {
+            for (String name : retryOn) {
+                if (name.equals(type.getName())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Calculate the delay before a retry.
+     * 
+     * @param attempt
+     *            the number of the retry (starting at 1)
+     * @param random
+     *            the source of the jitter
+     * @return the delay in milliseconds
+     */
+    public long getDelay(int attempt, Random random) {
+        double delay = initialDelay * Math.pow(multiplier, attempt - 1);
+        long cappedDelay = (long) Math.min(delay, maxDelay);
+        return cappedDelay - (long) (cappedDelay * jitter * random.nextDouble());
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "RetryPolicy[" + maxAttempts + " attempts, " + initialDelay + "ms*" + multiplier + "^n (max "
+                + maxDelay + "ms, jitter " + jitter + "), retryOn=" + Arrays.toString(retryOn) + "]";
+    }
+
+}
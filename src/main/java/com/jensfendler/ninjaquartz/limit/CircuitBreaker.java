@@ -0,0 +1,174 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.limit;
+
+import org.quartz.JobKey;
+
+/**
+ * The circuit breaker of a job. After a number of consecutive failed
+ * executions, the circuit opens: the job's triggers are paused, and a single
+ * probe execution is scheduled after a delay. While the probe runs, the
+ * circuit is half-open. A successful probe closes the circuit (resuming the
+ * triggers), a failed one opens it again.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class CircuitBreaker {
+
+    /**
+     * The states of a circuit breaker.
+     */
+    public enum State {
+        /**
+         * The job is executed normally.
+         */
+        CLOSED,
+
+        /**
+         * The job's triggers are paused until a probe execution is due.
+         */
+        OPEN,
+
+        /**
+         * A probe execution is running.
+         */
+        HALF_OPEN
+    }
+
+    private final JobKey jobKey;
+
+    private final int failureThreshold;
+
+    private final long openMillis;
+
+    private State state = State.CLOSED;
+
+    private int consecutiveFailures;
+
+    private long openedAt;
+
+    /**
+     * @param jobKey
+     *            the {@link JobKey} of the job
+     * @param failureThreshold
+     *            the number of consecutive failures opening the circuit
+     * @param openMillis
+     *            the time (in milliseconds) the circuit stays open before a
+     *            probe execution
+     */
+    public CircuitBreaker(JobKey jobKey, int failureThreshold, long openMillis) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("Circuit breaker threshold must be positive: " + failureThreshold);
+        }
+        if (openMillis < 0) {
+            throw new IllegalArgumentException("Circuit breaker delay must not be negative: " + openMillis);
+        }
+        this.jobKey = jobKey;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * Check if a fire of the job may be executed. A probe fire of an open
+     * circuit makes it half-open.
+     * 
+     * @param probe
+     *            true if the fire is the probe scheduled when the circuit
+     *            opened
+     * @return true if the job may be executed, false if the fire should be
+     *         skipped
+     */
+    public synchronized boolean allowExecution(boolean probe) {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (probe && (state == State.OPEN)) {
+            state = State.HALF_OPEN;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Record a successful execution of the job.
+     * 
+     * @return true if this has closed the circuit (i.e. the job's triggers
+     *         must be resumed)
+     */
+    public synchronized boolean recordSuccess() {
+        consecutiveFailures = 0;
+        if (state == State.CLOSED) {
+            return false;
+        }
+        state = State.CLOSED;
+        return true;
+    }
+
+    /**
+     * Record a failed execution of the job.
+     * 
+     * @return true if this has opened the circuit (i.e. the job's triggers
+     *         must be paused, and a probe scheduled)
+     */
+    public synchronized boolean recordFailure() {
+        consecutiveFailures++;
+        if ((state == State.HALF_OPEN) || ((state == State.CLOSED) && (consecutiveFailures >= failureThreshold))) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+            return true;
+        }
+        return false;
+    }
+
+    public JobKey getJobKey() {
+        return jobKey;
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public long getOpenMillis() {
+        return openMillis;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * @return the time (in milliseconds since the epoch) the circuit was last
+     *         opened, or 0 if it has never been opened
+     */
+    public synchronized long getOpenedAt() {
+        return openedAt;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public synchronized String toString() {
+        return "CircuitBreaker[" + jobKey + ": " + state + ", " + consecutiveFailures + "/" + failureThreshold
+                + " failures, " + openMillis + "ms open]";
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.limit;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.quartz.JobKey;
+import org.quartz.SchedulerContext;
+
+import com.google.inject.Singleton;
+
+/**
+ * The {@link CircuitBreaker}s of all jobs with a circuit breaker threshold.
+ * 
+ * The registry is put into the {@link SchedulerContext} of the NinjaQuartz
+ * schedulers (using the key {@link #SCHEDULER_CONTEXT_KEY}), from where the
+ * job wrappers pick it up on their first execution.
+ * 
+ * @author Jens Fendler
+ *
+ */
+@Singleton
+public class CircuitBreakers {
+
+    /**
+     * The key name of the registry in the {@link SchedulerContext}.
+     */
+    public static final String SCHEDULER_CONTEXT_KEY = "nqCircuitBreakers";
+
+    private final ConcurrentMap<JobKey, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<JobKey, CircuitBreaker>();
+
+    /**
+     * Get the circuit breaker of a job, creating it if required.
+     * 
+     * @param jobKey
+     *            the {@link JobKey} of the job
+     * @param failureThreshold
+     *            the number of consecutive failures opening the circuit
+     * @param openMillis
+     *            the time (in milliseconds) the circuit stays open before a
+     *            probe execution
+     * @return the {@link CircuitBreaker} of the job
+     */
+    public CircuitBreaker getOrCreate(JobKey jobKey, int failureThreshold, long openMillis) {
+        CircuitBreaker circuitBreaker = circuitBreakers.get(jobKey);
+        if (circuitBreaker == null) {
+            CircuitBreaker newCircuitBreaker = new CircuitBreaker(jobKey, failureThreshold, openMillis);
+            circuitBreaker = circuitBreakers.putIfAbsent(jobKey, newCircuitBreaker);
+            if (circuitBreaker == null) {
+                circuitBreaker = newCircuitBreaker;
+            }
+        }
+        return circuitBreaker;
+    }
+
+    /**
+     * @param jobKey
+     *            the {@link JobKey} of a job
+     * @return the {@link CircuitBreaker} of the job, or null if the job has no
+     *         circuit breaker (or has not been executed yet)
+     */
+    public CircuitBreaker get(JobKey jobKey) {
+        return circuitBreakers.get(jobKey);
+    }
+
+    /**
+     * @return the circuit breakers of all jobs
+     */
+    public Collection<CircuitBreaker> getAll() {
+        return new ArrayList<CircuitBreaker>(circuitBreakers.values());
+    }
+
+    /**
+     * Remove the circuit breaker of a job (e.g. after it has been
+     * unscheduled).
+     * 
+     * @param jobKey
+     *            the {@link JobKey} of the job
+     */
+    public void remove(JobKey jobKey) {
+        circuitBreakers.remove(jobKey);
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.limit;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.quartz.SchedulerContext;
+
+import com.google.inject.Singleton;
+
+/**
+ * Watches the executions of jobs with a timeout, running a timeout action
+ * (typically interrupting the execution) for executions which have not
+ * completed in time. All executions are watched by a single daemon thread,
+ * which is started on first use.
+ * 
+ * The watchdog is put into the {@link SchedulerContext} of the NinjaQuartz
+ * schedulers (using the key {@link #SCHEDULER_CONTEXT_KEY}), from where the
+ * job wrappers pick it up on their first execution.
+ * 
+ * @author Jens Fendler
+ *
+ */
+@Singleton
+public class ExecutionWatchdog {
+
+    /**
+     * The key name of the watchdog in the {@link SchedulerContext}.
+     */
+    public static final String SCHEDULER_CONTEXT_KEY = "nqWatchdog";
+
+    private ScheduledThreadPoolExecutor executor;
+
+    /**
+     * Watch an execution.
+     * 
+     * @param timeoutAction
+     *            the action to run if the execution has not completed in time
+     * @param timeoutMillis
+     *            the timeout (in milliseconds)
+     * @return the watch, to be cancelled once the execution has completed
+     */
+    public ScheduledFuture<?> watch(Runnable timeoutAction, long timeoutMillis) {
+        return getExecutor().schedule(timeoutAction, timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop watching all executions. The watchdog is restarted when the next
+     * execution is watched.
+     */
+    public synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * @return the executor running the timeout actions (created on first
+     *         use)
+     */
+    private synchronized ScheduledThreadPoolExecutor getExecutor() {
+        if (executor == null) {
+            executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "NinjaQuartzWatchdog");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            // do not keep completed executions in the queue until their
+            // timeout
+            executor.setRemoveOnCancelPolicy(true);
+        }
+        return executor;
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.limit;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The limits of a job group: a bulkhead (the maximum number of concurrently
+ * running jobs of the group), and a rate limit (the maximum number of job
+ * executions per second). A job waits up to a maximum time for the limits to
+ * allow its execution; otherwise, the fire is skipped.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class JobGroupLimiter {
+
+    private final String jobGroup;
+
+    /**
+     * The permits of concurrently running jobs, or null if not limited.
+     */
+    private final Semaphore bulkhead;
+
+    /**
+     * The rate limit, or null if not limited.
+     */
+    private final TokenBucket rateLimit;
+
+    private final long maxWaitMillis;
+
+    /**
+     * @param jobGroup
+     *            the name of the job group
+     * @param maxConcurrent
+     *            the maximum number of concurrently running jobs of the group,
+     *            or 0 for no limit
+     * @param rateLimit
+     *            the rate limit, or null for no limit
+     * @param maxWaitMillis
+     *            the maximum time (in milliseconds) a fire is deferred waiting
+     *            for the limits, before it is skipped
+     */
+    public JobGroupLimiter(String jobGroup, int maxConcurrent, TokenBucket rateLimit, long maxWaitMillis) {
+        this.jobGroup = jobGroup;
+        this.bulkhead = (maxConcurrent > 0) ? new Semaphore(maxConcurrent, true) : null;
+        this.rateLimit = rateLimit;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * Acquire the permission to execute a job of the group, waiting up to the
+     * maximum wait time. If true is returned, {@link #release()} must be
+     * called once the execution has completed.
+     * 
+     * @return true if the job may be executed, false if the fire should be
+     *         skipped
+     */
+    public boolean acquire() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        boolean permitAcquired = false;
+        try {
+            if (bulkhead != null) {
+                if (!bulkhead.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                    return false;
+                }
+                permitAcquired = true;
+            }
+            if ((rateLimit != null)
+                    && !rateLimit.tryAcquire(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                release();
+                return false;
+            }
+            return true;
+        } catch (InterruptedException e) {
+            // interrupted while waiting for the rate limit
+            if (permitAcquired) {
+                release();
+            }
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Release the permission acquired by {@link #acquire()}.
+     */
+    public void release() {
+        if (bulkhead != null) {
+            bulkhead.release();
+        }
+    }
+
+    /**
+     * @return the name of the job group
+     */
+    public String getJobGroup() {
+        return jobGroup;
+    }
+
+    /**
+     * @return the number of jobs of the group which may currently start
+     *         without waiting, or -1 if the concurrency is not limited
+     */
+    public int getAvailableConcurrency() {
+        return (bulkhead == null) ? -1 : bulkhead.availablePermits();
+    }
+
+    @Override
+    public String toString() {
+        return "JobGroupLimiter[" + jobGroup + ": available concurrency=" + getAvailableConcurrency()
+                + ", rate limited=" + (rateLimit != null) + ", maxWait=" + maxWaitMillis + "ms]";
+    }
+
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.limit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.quartz.SchedulerContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.jensfendler.ninjaquartz.NinjaQuartzModule;
+
+import ninja.utils.NinjaProperties;
+
+/**
+ * The {@link JobGroupLimiter}s of all job groups, as configured in
+ * application.conf:
+ * 
+ * <pre>
+ * quartz.jobGroups.GROUP.maxConcurrent = 2
+ * quartz.jobGroups.GROUP.rateLimit = 0.5
+ * quartz.jobGroups.GROUP.rateLimitBurst = 1
+ * quartz.jobGroups.GROUP.maxWait = 5000
+ * </pre>
+ * 
+ * The registry is put into the {@link SchedulerContext} of the NinjaQuartz
+ * schedulers (using the key {@link #SCHEDULER_CONTEXT_KEY}), from where the
+ * job wrappers pick it up on their first execution.
+ * 
+ * @author Jens Fendler
+ *
+ */
+@Singleton
+public class JobGroupLimiters {
+
+    protected static final Logger logger = LoggerFactory.getLogger(NinjaQuartzModule.class);
+
+    /**
+     * The key name of the registry in the {@link SchedulerContext}.
+     */
+    public static final String SCHEDULER_CONTEXT_KEY = "nqLimiters";
+
+    /**
+     * The prefix of the keys of the properties in application.conf which
+     * configure the limits of a job group.
+     */
+    public static final String CONF_KEY_PREFIX = "quartz.jobGroups.";
+
+    /**
+     * The maximum number of concurrently running jobs of the group (default 0,
+     * i.e. no limit).
+     */
+    public static final String CONF_KEY_MAX_CONCURRENT = ".maxConcurrent";
+
+    /**
+     * The maximum number of executions per second (e.g. 0.5 for one
+     * execution every two seconds). By default, the rate is not limited.
+     */
+    public static final String CONF_KEY_RATE_LIMIT = ".rateLimit";
+
+    /**
+     * The number of executions allowed in a burst by the rate limit (default
+     * 1).
+     */
+    public static final String CONF_KEY_RATE_LIMIT_BURST = ".rateLimitBurst";
+
+    /**
+     * The maximum time (in milliseconds) a fire is deferred until the limits
+     * allow its execution (default 0). Fires which cannot be executed in time
+     * are skipped, and counted as misfires of the job group.
+     */
+    public static final String CONF_KEY_MAX_WAIT = ".maxWait";
+
+    /**
+     * Marker for job groups without limits.
+     */
+    private static final JobGroupLimiter UNLIMITED = new JobGroupLimiter("", 0, null, 0L);
+
+    private final NinjaProperties ninjaProperties;
+
+    private final ConcurrentMap<String, JobGroupLimiter> limiters = new ConcurrentHashMap<String, JobGroupLimiter>();
+
+    @Inject
+    public JobGroupLimiters(NinjaProperties ninjaProperties) {
+        this.ninjaProperties = ninjaProperties;
+    }
+
+    /**
+     * Get the limiter of a job group, creating it from the configuration on
+     * first use.
+     * 
+     * @param jobGroup
+     *            the name of the job group
+     * @return the {@link JobGroupLimiter} of the group, or null if the group
+     *         has no limits
+     */
+    public JobGroupLimiter get(String jobGroup) {
+        JobGroupLimiter limiter = limiters.get(jobGroup);
+        if (limiter == null) {
+            JobGroupLimiter newLimiter = createLimiter(jobGroup);
+            limiter = limiters.putIfAbsent(jobGroup, newLimiter);
+            if (limiter == null) {
+                limiter = newLimiter;
+                if (limiter != UNLIMITED) {
+                    logger.info("Limiting job group {}: {}", jobGroup, limiter);
+                }
+            }
+        }
+        return (limiter == UNLIMITED) ? null : limiter;
+    }
+
+    /**
+     * Set the limits of a job group, replacing those from the configuration.
+     * Jobs which have already been executed keep using the previous limits.
+     * 
+     * @param limiter
+     *            the new limits of the job group
+     */
+    public void put(JobGroupLimiter limiter) {
+        limiters.put(limiter.getJobGroup(), limiter);
+    }
+
+    /**
+     * @param jobGroup
+     *            the name of the job group
+     * @return the limiter configured for the group, or {@link #UNLIMITED}
+     */
+    private JobGroupLimiter createLimiter(String jobGroup) {
+        String prefix = CONF_KEY_PREFIX + jobGroup;
+        int maxConcurrent = ninjaProperties.getIntegerWithDefault(prefix + CONF_KEY_MAX_CONCURRENT, 0);
+        String rateLimit = ninjaProperties.get(prefix + CONF_KEY_RATE_LIMIT);
+        if ((maxConcurrent <= 0) && (rateLimit == null)) {
+            return UNLIMITED;
+        }
+
+        TokenBucket tokenBucket = null;
+        if (rateLimit != null) {
+            try {
+                tokenBucket = new TokenBucket(Double.parseDouble(rateLimit),
+                        ninjaProperties.getIntegerWithDefault(prefix + CONF_KEY_RATE_LIMIT_BURST, 1));
+            } catch (IllegalArgumentException e) {
+                // includes NumberFormatException
+                logger.error("Invalid rate limit '{}' of job group {}. Not limiting the rate.", rateLimit, jobGroup);
+            }
+        }
+        long maxWait = ninjaProperties.getIntegerWithDefault(prefix + CONF_KEY_MAX_WAIT, 0);
+        return new JobGroupLimiter(jobGroup, maxConcurrent, tokenBucket, maxWait);
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.limit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket limiting the rate of job executions. Tokens are added at a
+ * fixed rate, up to the capacity of the bucket (i.e. the number of executions
+ * allowed in a burst). Each execution takes one token; if none is available,
+ * the execution may reserve the next token and wait for it.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class TokenBucket {
+
+    private final double nanosPerToken;
+
+    private final double capacity;
+
+    /**
+     * The available tokens (negative if tokens have been reserved). Guarded by
+     * this.
+     */
+    private double tokens;
+
+    /**
+     * The time (from {@link System#nanoTime()}) of the last refill. Guarded by
+     * this.
+     */
+    private long lastRefill;
+
+    /**
+     * @param tokensPerSecond
+     *            the rate at which tokens are added
+     * @param capacity
+     *            the maximum number of tokens (at least 1)
+     */
+    public TokenBucket(double tokensPerSecond, int capacity) {
+        if (tokensPerSecond <= 0) {
+            throw new IllegalArgumentException("The rate of a token bucket must be positive: " + tokensPerSecond);
+        }
+        this.nanosPerToken = TimeUnit.SECONDS.toNanos(1) / tokensPerSecond;
+        this.capacity = Math.max(1, capacity);
+        this.tokens = this.capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Take a token, waiting up to the given time for it to become available.
+     * 
+     * @param timeout
+     *            the maximum time to wait
+     * @param unit
+     *            the unit of the timeout
+     * @return true if a token has been taken, false if none will be available
+     *         within the timeout
+     * @throws InterruptedException
+     *             if interrupted while waiting (the token is lost)
+     */
+    public boolean tryAcquire(long timeout, TimeUnit unit) throws InterruptedException {
+        long waitNanos = reserve(System.nanoTime(), unit.toNanos(timeout));
+        if (waitNanos < 0) {
+            return false;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+        return true;
+    }
+
+    /**
+     * Reserve a token.
+     * 
+     * @param now
+     *            the current time (from {@link System#nanoTime()})
+     * @param maxWaitNanos
+     *            the maximum time to wait for the token
+     * @return the time (in nanoseconds) until the reserved token is available,
+     *         or -1 if none is available within the maximum time
+     */
+    synchronized long reserve(long now, long maxWaitNanos) {
+        if (now > lastRefill) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) / nanosPerToken);
+            lastRefill = now;
+        }
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        long waitNanos = (long) Math.ceil((1 - tokens) * nanosPerToken);
+        if (waitNanos > maxWaitNanos) {
+            return -1;
+        }
+        tokens -= 1;
+        return waitNanos;
+    }
+
+    /**
+     * @return the number of tokens currently available (without refilling)
+     */
+    public synchronized double getAvailableTokens() {
+        return tokens;
+    }
+
+}
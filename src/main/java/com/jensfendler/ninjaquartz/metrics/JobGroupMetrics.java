@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.quartz.JobExecutionContext;
+
+/**
+ * Scheduling metrics of all jobs in a job group: the lag between the scheduled
+ * fire time of a trigger and the actual start of the job's execution, and the
+ * number of misfired triggers. A growing lag (or misfire count) indicates
+ * that the scheduler's thread pool is too small for the jobs it has to run.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class JobGroupMetrics {
+
+    private final String jobGroup;
+
+    private final LatencyHistogram lags = new LatencyHistogram();
+
+    private final StripedCounter misfires = new StripedCounter();
+
+    /**
+     * @param jobGroup
+     *            the name of the job group
+     */
+    public JobGroupMetrics(String jobGroup) {
+        this.jobGroup = jobGroup;
+    }
+
+    /**
+     * Record the lag of an execution of a job in this group.
+     * 
+     * @param lagMillis
+     *            the time (in milliseconds) between the scheduled fire time
+     *            and the start of the execution
+     * @see JobExecutionContext#getScheduledFireTime()
+     */
+    public void recordLag(long lagMillis) {
+        lags.record(TimeUnit.MILLISECONDS.toNanos(lagMillis));
+    }
+
+    /**
+     * Record a misfired trigger of a job in this group.
+     */
+    public void recordMisfire() {
+        misfires.increment();
+    }
+
+    /**
+     * @return the name of the job group
+     */
+    public String getJobGroup() {
+        return jobGroup;
+    }
+
+    /**
+     * @return the {@link LatencyHistogram} of the lags (in nanoseconds, with a
+     *         resolution of one millisecond) between scheduled and actual
+     *         start of all executions
+     */
+    public LatencyHistogram getLags() {
+        return lags;
+    }
+
+    /**
+     * @return the number of misfired triggers
+     */
+    public long getMisfireCount() {
+        return misfires.get();
+    }
+
+    @Override
+    public String toString() {
+        return "JobGroupMetrics[" + jobGroup + ": misfires=" + getMisfireCount() + ", lags=" + lags + "]";
+    }
+
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.metrics;
+
+import org.quartz.JobKey;
+
+import com.jensfendler.ninjaquartz.annotations.QuartzSchedule;
+
+/**
+ * Execution metrics of a single scheduled job (i.e. of a method annotated with
+ * {@link QuartzSchedule}). All counters are updated without locking and
+ * without allocating objects, so recording adds very little overhead to the
+ * execution of a job.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class JobMetrics {
+
+    private final JobKey jobKey;
+
+    private final JobGroupMetrics jobGroupMetrics;
+
+    private final StripedCounter fires = new StripedCounter();
+
+    private final StripedCounter successes = new StripedCounter();
+
+    private final StripedCounter failures = new StripedCounter();
+
+    private final StripedCounter timeouts = new StripedCounter();
+
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    private volatile long lastDuration = -1L;
+
+    private volatile long lastLag = -1L;
+
+    /**
+     * @param jobKey
+     *            the {@link JobKey} of the job
+     * @param jobGroupMetrics
+     *            the {@link JobGroupMetrics} of the job's group
+     */
+    public JobMetrics(JobKey jobKey, JobGroupMetrics jobGroupMetrics) {
+        this.jobKey = jobKey;
+        this.jobGroupMetrics = jobGroupMetrics;
+    }
+
+    /**
+     * Record the start of an execution of the job.
+     * 
+     * @param lagMillis
+     *            the time (in milliseconds) between the scheduled fire time
+     *            and the start of the execution, or a negative value if the
+     *            scheduled fire time is unknown
+     */
+    public void recordFire(long lagMillis) {
+        fires.increment();
+        if (lagMillis >= 0L) {
+            lastLag = lagMillis;
+            jobGroupMetrics.recordLag(lagMillis);
+        }
+    }
+
+    /**
+     * Record the end of an execution of the job.
+     * 
+     * @param durationNanos
+     *            the duration of the execution (in nanoseconds)
+     * @param success
+     *            true if the scheduled method returned normally, false if the
+     *            execution failed
+     */
+    public void recordExecution(long durationNanos, boolean success) {
+        if (success) {
+            successes.increment();
+        } else {
+            failures.increment();
+        }
+        lastDuration = durationNanos;
+        latencies.record(durationNanos);
+    }
+
+    /**
+     * Record an execution of the job which has been interrupted after
+     * exceeding its timeout.
+     */
+    public void recordTimeout() {
+        timeouts.increment();
+    }
+
+    /**
+     * @return the {@link JobKey} of the job
+     */
+    public JobKey getJobKey() {
+        return jobKey;
+    }
+
+    /**
+     * @return the {@link JobGroupMetrics} of the job's group
+     */
+    public JobGroupMetrics getJobGroupMetrics() {
+        return jobGroupMetrics;
+    }
+
+    /**
+     * @return the number of times the job has been fired
+     */
+    public long getFireCount() {
+        return fires.get();
+    }
+
+    /**
+     * @return the number of executions which completed successfully
+     */
+    public long getSuccessCount() {
+        return successes.get();
+    }
+
+    /**
+     * @return the number of executions which failed
+     */
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    /**
+     * @return the number of executions which have been interrupted after
+     *         exceeding their timeout
+     */
+    public long getTimeoutCount() {
+        return timeouts.get();
+    }
+
+    /**
+     * @return the duration (in nanoseconds) of the most recently completed
+     *         execution, or -1 if the job has not completed yet
+     */
+    public long getLastDuration() {
+        return lastDuration;
+    }
+
+    /**
+     * @return the lag (in milliseconds) between the scheduled fire time and
+     *         the start of the most recent execution, or -1 if unknown
+     */
+    public long getLastLag() {
+        return lastLag;
+    }
+
+    /**
+     * @return the {@link LatencyHistogram} of all execution durations
+     */
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    @Override
+    public String toString() {
+        return "JobMetrics[" + jobKey + ": fires=" + getFireCount() + ", successes=" + getSuccessCount()
+                + ", failures=" + getFailureCount() + ", lastDuration=" + getLastDuration() + "ns, lastLag="
+                + getLastLag() + "ms, " + latencies + "]";
+    }
+
+}
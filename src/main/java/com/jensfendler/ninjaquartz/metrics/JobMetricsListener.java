@@ -0,0 +1,62 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.metrics;
+
+/**
+ * Listener to be notified by the {@link JobMetricsRegistry} about the metrics
+ * of new and removed jobs and job groups, e.g. to publish them to a metrics
+ * library.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public interface JobMetricsListener {
+
+    /**
+     * Called once for every new {@link JobMetrics} object.
+     * 
+     * @param jobMetrics
+     *            the metrics of a job
+     */
+    public void jobMetricsAdded(JobMetrics jobMetrics);
+
+    /**
+     * Called once for every new {@link JobGroupMetrics} object.
+     * 
+     * @param jobGroupMetrics
+     *            the metrics of a job group
+     */
+    public void jobGroupMetricsAdded(JobGroupMetrics jobGroupMetrics);
+
+    /**
+     * Called when the {@link JobMetrics} of a job are discarded (e.g. because
+     * the job has been unscheduled).
+     * 
+     * @param jobMetrics
+     *            the discarded metrics of a job
+     */
+    public void jobMetricsRemoved(JobMetrics jobMetrics);
+
+    /**
+     * Called when the {@link JobGroupMetrics} of a job group are discarded
+     * (when the metrics of the last job of the group have been discarded).
+     * 
+     * @param jobGroupMetrics
+     *            the discarded metrics of a job group
+     */
+    public void jobGroupMetricsRemoved(JobGroupMetrics jobGroupMetrics);
+
+}
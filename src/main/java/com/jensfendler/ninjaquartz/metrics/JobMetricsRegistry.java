@@ -0,0 +1,243 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.quartz.JobKey;
+import org.quartz.SchedulerContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Singleton;
+import com.jensfendler.ninjaquartz.NinjaQuartzModule;
+
+/**
+ * The registry of the {@link JobMetrics} of all jobs. The registry is put into
+ * the {@link SchedulerContext} of the NinjaQuartz schedulers (using the key
+ * {@link #SCHEDULER_CONTEXT_KEY}), from where the job wrappers pick it up on
+ * their first execution.
+ * 
+ * @author Jens Fendler
+ *
+ */
+@Singleton
+public class JobMetricsRegistry {
+
+    protected static final Logger logger = LoggerFactory.getLogger(NinjaQuartzModule.class);
+
+    /**
+     * The key name of the registry in the {@link SchedulerContext}.
+     */
+    public static final String SCHEDULER_CONTEXT_KEY = "nqMetrics";
+
+    private final ConcurrentMap<JobKey, JobMetrics> jobMetrics = new ConcurrentHashMap<JobKey, JobMetrics>();
+
+    private final ConcurrentMap<String, JobGroupMetrics> jobGroupMetrics = new ConcurrentHashMap<String, JobGroupMetrics>();
+
+    private final List<JobMetricsListener> listeners = new CopyOnWriteArrayList<JobMetricsListener>();
+
+    /**
+     * Guards the creation and removal of metrics, so that no job metrics are
+     * created for a job group whose metrics are being removed.
+     */
+    private final Object lock = new Object();
+
+    /**
+     * Get the metrics of a job, creating them if required.
+     * 
+     * @param jobKey
+     *            the {@link JobKey} of the job
+     * @return the {@link JobMetrics} of the job
+     */
+    public JobMetrics getOrCreate(JobKey jobKey) {
+        JobMetrics metrics = jobMetrics.get(jobKey);
+        if (metrics != null) {
+            return metrics;
+        }
+        synchronized (lock) {
+            metrics = jobMetrics.get(jobKey);
+            if (metrics == null) {
+                metrics = new JobMetrics(jobKey, getOrCreateGroup(jobKey.getGroup()));
+                jobMetrics.put(jobKey, metrics);
+                for (JobMetricsListener listener : listeners) {
+                    notifyListener(listener, metrics);
+                }
+            }
+            return metrics;
+        }
+    }
+
+    /**
+     * Get the metrics of a job group, creating them if required.
+     * 
+     * @param jobGroup
+     *            the name of the job group
+     * @return the {@link JobGroupMetrics} of the job group
+     */
+    public JobGroupMetrics getOrCreateGroup(String jobGroup) {
+        JobGroupMetrics metrics = jobGroupMetrics.get(jobGroup);
+        if (metrics != null) {
+            return metrics;
+        }
+        synchronized (lock) {
+            metrics = jobGroupMetrics.get(jobGroup);
+            if (metrics == null) {
+                metrics = new JobGroupMetrics(jobGroup);
+                jobGroupMetrics.put(jobGroup, metrics);
+                for (JobMetricsListener listener : listeners) {
+                    notifyListener(listener, metrics);
+                }
+            }
+            return metrics;
+        }
+    }
+
+    /**
+     * @param jobKey
+     *            the {@link JobKey} of a job
+     * @return the {@link JobMetrics} of the job, or null if the job has not
+     *         been executed yet
+     */
+    public JobMetrics get(JobKey jobKey) {
+        return jobMetrics.get(jobKey);
+    }
+
+    /**
+     * @return the {@link JobMetrics} of all jobs which have been executed
+     */
+    public Collection<JobMetrics> getAll() {
+        return new ArrayList<JobMetrics>(jobMetrics.values());
+    }
+
+    /**
+     * @param jobGroup
+     *            the name of a job group
+     * @return the {@link JobGroupMetrics} of the job group, or null if no job
+     *         of the group has been scheduled yet
+     */
+    public JobGroupMetrics getGroup(String jobGroup) {
+        return jobGroupMetrics.get(jobGroup);
+    }
+
+    /**
+     * @return the {@link JobGroupMetrics} of all job groups
+     */
+    public Collection<JobGroupMetrics> getAllGroups() {
+        return new ArrayList<JobGroupMetrics>(jobGroupMetrics.values());
+    }
+
+    /**
+     * Discard the metrics of a job, and the metrics of its job group if no
+     * other job of the group has metrics. The listeners are notified about
+     * the discarded metrics.
+     * 
+     * @param jobKey
+     *            the {@link JobKey} of the job
+     * @return the discarded {@link JobMetrics}, or null
+     */
+    public JobMetrics remove(JobKey jobKey) {
+        synchronized (lock) {
+            JobMetrics metrics = jobMetrics.remove(jobKey);
+            if (metrics == null) {
+                return null;
+            }
+            for (JobMetricsListener listener : listeners) {
+                notifyListenerRemoved(listener, metrics);
+            }
+
+            String jobGroup = jobKey.getGroup();
+            for (JobKey key : jobMetrics.keySet()) {
+                if (key.getGroup().equals(jobGroup)) {
+                    return metrics;
+                }
+            }
+            JobGroupMetrics groupMetrics = jobGroupMetrics.remove(jobGroup);
+            if (groupMetrics != null) {
+                for (JobMetricsListener listener : listeners) {
+                    notifyListenerRemoved(listener, groupMetrics);
+                }
+            }
+            return metrics;
+        }
+    }
+
+    /**
+     * Add a listener, which will also be notified about the metrics of all
+     * jobs and job groups already known.
+     * 
+     * @param listener
+     *            the {@link JobMetricsListener} to add
+     */
+    public void addListener(JobMetricsListener listener) {
+        synchronized (lock) {
+            listeners.add(listener);
+            for (JobGroupMetrics metrics : jobGroupMetrics.values()) {
+                notifyListener(listener, metrics);
+            }
+            for (JobMetrics metrics : jobMetrics.values()) {
+                notifyListener(listener, metrics);
+            }
+        }
+    }
+
+    /**
+     * @param listener
+     *            the {@link JobMetricsListener} to remove
+     */
+    public void removeListener(JobMetricsListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void notifyListener(JobMetricsListener listener, JobMetrics metrics) {
+        try {
+            listener.jobMetricsAdded(metrics);
+        } catch (RuntimeException e) {
+            logger.warn("JobMetricsListener " + listener + " failed for job " + metrics.getJobKey(), e);
+        }
+    }
+
+    private void notifyListener(JobMetricsListener listener, JobGroupMetrics metrics) {
+        try {
+            listener.jobGroupMetricsAdded(metrics);
+        } catch (RuntimeException e) {
+            logger.warn("JobMetricsListener " + listener + " failed for job group " + metrics.getJobGroup(), e);
+        }
+    }
+
+    private void notifyListenerRemoved(JobMetricsListener listener, JobMetrics metrics) {
+        try {
+            listener.jobMetricsRemoved(metrics);
+        } catch (RuntimeException e) {
+            logger.warn("JobMetricsListener " + listener + " failed for removed job " + metrics.getJobKey(), e);
+        }
+    }
+
+    private void notifyListenerRemoved(JobMetricsListener listener, JobGroupMetrics metrics) {
+        try {
+            listener.jobGroupMetricsRemoved(metrics);
+        } catch (RuntimeException e) {
+            logger.warn("JobMetricsListener " + listener + " failed for removed job group " + metrics.getJobGroup(),
+                    e);
+        }
+    }
+
+}
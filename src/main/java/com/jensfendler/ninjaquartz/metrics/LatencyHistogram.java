@@ -0,0 +1,181 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of latencies (in nanoseconds), in the style of an HDR
+ * histogram: values are counted in log-linear buckets, i.e. each power of two
+ * is divided into {@value #SUB_BUCKETS} linear sub-buckets. Recorded values are
+ * therefore kept with a relative error of at most 1/{@value #SUB_BUCKETS}
+ * (6.25%, for values at the low end of a power of two; values below
+ * {@value #SUB_BUCKETS} * 2 nanoseconds are kept exactly), and recording a
+ * value never allocates.
+ * 
+ * Values above {@link #MAX_TRACKABLE_VALUE} (about 9.7 hours) are counted as
+ * {@link #MAX_TRACKABLE_VALUE}.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class LatencyHistogram {
+
+    /**
+     * The number of bits used for the linear sub-buckets.
+     */
+    private static final int SUB_BUCKET_BITS = 5;
+
+    /**
+     * The number of linear sub-buckets per power of two.
+     */
+    private static final int SUB_BUCKETS = 1 << (SUB_BUCKET_BITS - 1);
+
+    /**
+     * The highest value which can be recorded.
+     */
+    public static final long MAX_TRACKABLE_VALUE = (1L << 45) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(bucketIndex(MAX_TRACKABLE_VALUE) + 1);
+
+    private final AtomicLong totalCount = new AtomicLong();
+
+    private final AtomicLong totalValue = new AtomicLong();
+
+    private final AtomicLong maxValue = new AtomicLong();
+
+    /**
+     * @param value
+     *            a (non-negative, trackable) value
+     * @return the index of the bucket counting the value
+     */
+    static int bucketIndex(long value) {
+        if (value < (SUB_BUCKETS << 1)) {
+            return (int) value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+        return (shift * SUB_BUCKETS) + (int) (value >>> shift);
+    }
+
+    /**
+     * @param index
+     *            the index of a bucket
+     * @return the highest value counted in the bucket
+     */
+    static long highestValueOfBucket(int index) {
+        if (index < (SUB_BUCKETS << 1)) {
+            return index;
+        }
+        int shift = (index / SUB_BUCKETS) - 1;
+        long lowestValue = ((long) ((index % SUB_BUCKETS) + SUB_BUCKETS)) << shift;
+        return lowestValue + (1L << shift) - 1;
+    }
+
+    /**
+     * Record a latency.
+     * 
+     * @param nanos
+     *            the latency in nanoseconds (negative values are recorded as
+     *            zero)
+     */
+    public void record(long nanos) {
+        long value = nanos < 0L ? 0L : (nanos > MAX_TRACKABLE_VALUE ? MAX_TRACKABLE_VALUE : nanos);
+        counts.incrementAndGet(bucketIndex(value));
+        totalCount.incrementAndGet();
+        totalValue.addAndGet(value);
+
+        long max = maxValue.get();
+        while (value > max && !maxValue.compareAndSet(max, value)) {
+            max = maxValue.get();
+        }
+    }
+
+    /**
+     * @return the number of recorded values
+     */
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * @return the highest recorded value (in nanoseconds), or 0 if no values
+     *         have been recorded
+     */
+    public long getMax() {
+        return maxValue.get();
+    }
+
+    /**
+     * @return the mean of all recorded values (in nanoseconds), or 0 if no
+     *         values have been recorded
+     */
+    public double getMean() {
+        long count = totalCount.get();
+        return count == 0L ? 0.0 : (double) totalValue.get() / count;
+    }
+
+    /**
+     * Get the value at the given percentile, i.e. the highest value (within
+     * the histogram's precision) which is not exceeded by the given percentage
+     * of all recorded values.
+     * 
+     * @param percentile
+     *            the percentile (between 0.0 and 100.0)
+     * @return the value at the given percentile (in nanoseconds), or 0 if no
+     *         values have been recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = totalCount.get();
+        if (count == 0L) {
+            return 0L;
+        }
+        double p = Math.min(Math.max(percentile, 0.0), 100.0);
+        long rank = Math.max(1L, (long) Math.ceil((p / 100.0) * count));
+        long seen = 0L;
+        int buckets = counts.length();
+        for (int i = 0; i < buckets; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValueOfBucket(i), getMax());
+            }
+        }
+        // concurrent updates may have been counted in totalCount only
+        return getMax();
+    }
+
+    /**
+     * Get the value at the given percentile in the given time unit.
+     * 
+     * @param percentile
+     *            the percentile (between 0.0 and 100.0)
+     * @param unit
+     *            the {@link TimeUnit} of the returned value
+     * @return the value at the given percentile
+     * @see #getValueAtPercentile(double)
+     */
+    public long getValueAtPercentile(double percentile, TimeUnit unit) {
+        return unit.convert(getValueAtPercentile(percentile), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyHistogram[count=" + getCount() + ", mean=" + (long) getMean() + "ns, p50="
+                + getValueAtPercentile(50.0) + "ns, p99=" + getValueAtPercentile(99.0) + "ns, max=" + getMax() + "ns]";
+    }
+
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.inject.Inject;
+
+/**
+ * Publishes the {@link JobMetrics} of all jobs as gauges in a (Dropwizard)
+ * {@link MetricRegistry}, such as the one of Ninja's metrics module. This
+ * requires <code>io.dropwizard.metrics:metrics-core</code> on the classpath.
+ * 
+ * Usage (e.g. in your application's start-up code):
+ * 
+ * <code>
+ * &#64;Inject
+ * MetricsService metricsService;
+ * 
+ * &#64;Inject
+ * MetricRegistryBridge metricRegistryBridge;
+ * 
+ * metricRegistryBridge.registerWith(metricsService.getMetricRegistry());
+ * </code>
+ * 
+ * The gauges are named <code>ninjaquartz.&lt;jobGroup&gt;.&lt;jobName&gt;.&lt;metric&gt;</code>
+ * for jobs, and <code>ninjaquartz.&lt;jobGroup&gt;.&lt;metric&gt;</code> for job
+ * groups, with durations reported in microseconds and lags in milliseconds.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class MetricRegistryBridge {
+
+    /**
+     * The name prefix of all gauges.
+     */
+    public static final String METRIC_NAME_PREFIX = "ninjaquartz";
+
+    /**
+     * The names of the gauges of a job (below the job's prefix).
+     */
+    private static final String[] JOB_GAUGES = { "fires", "successes", "failures", "timeouts", "lastDuration",
+            "lastLag", "p50", "p99", "max" };
+
+    /**
+     * The names of the gauges of a job group (below the group's prefix).
+     */
+    private static final String[] JOB_GROUP_GAUGES = { "misfires", "lag.p50", "lag.p99", "lag.max" };
+
+    private final JobMetricsRegistry jobMetricsRegistry;
+
+    /**
+     * @param jobMetricsRegistry
+     *            the {@link JobMetricsRegistry} to publish
+     */
+    @Inject
+    public MetricRegistryBridge(JobMetricsRegistry jobMetricsRegistry) {
+        this.jobMetricsRegistry = jobMetricsRegistry;
+    }
+
+    /**
+     * Register gauges for the metrics of all current and future jobs with the
+     * given {@link MetricRegistry}. The gauges of a job (or job group) are
+     * removed when its metrics are discarded, and replaced when a job with
+     * the same key is scheduled again.
+     * 
+     * @param metricRegistry
+     *            the {@link MetricRegistry} to register the gauges with
+     */
+    public void registerWith(final MetricRegistry metricRegistry) {
+        jobMetricsRegistry.addListener(new JobMetricsListener() {
+            public void jobMetricsAdded(JobMetrics jobMetrics) {
+                registerGauges(metricRegistry, jobMetrics);
+            }
+
+            public void jobGroupMetricsAdded(JobGroupMetrics jobGroupMetrics) {
+                registerGauges(metricRegistry, jobGroupMetrics);
+            }
+
+            public void jobMetricsRemoved(JobMetrics jobMetrics) {
+                removeGauges(metricRegistry, getPrefix(jobMetrics), JOB_GAUGES);
+            }
+
+            public void jobGroupMetricsRemoved(JobGroupMetrics jobGroupMetrics) {
+                removeGauges(metricRegistry, getPrefix(jobGroupMetrics), JOB_GROUP_GAUGES);
+            }
+        });
+    }
+
+    /**
+     * Register the gauges for a single job.
+     * 
+     * @param metricRegistry
+     *            the {@link MetricRegistry}
+     * @param jobMetrics
+     *            the {@link JobMetrics} of the job
+     */
+    protected void registerGauges(MetricRegistry metricRegistry, final JobMetrics jobMetrics) {
+        String prefix = getPrefix(jobMetrics);
+        // replace the gauges of a previous job with the same key
+        removeGauges(metricRegistry, prefix, JOB_GAUGES);
+
+        metricRegistry.register(MetricRegistry.name(prefix, "fires"), new Gauge<Long>() {
+            public Long getValue() {
+                return jobMetrics.getFireCount();
+            }
+        });
+        metricRegistry.register(MetricRegistry.name(prefix, "successes"), new Gauge<Long>() {
+            public Long getValue() {
+                return jobMetrics.getSuccessCount();
+            }
+        });
+        metricRegistry.register(MetricRegistry.name(prefix, "failures"), new Gauge<Long>() {
+            public Long getValue() {
+                return jobMetrics.getFailureCount();
+            }
+        });
+        metricRegistry.register(MetricRegistry.name(prefix, "timeouts"), new Gauge<Long>() {
+            public Long getValue() {
+                return jobMetrics.getTimeoutCount();
+            }
+        });
+        metricRegistry.register(MetricRegistry.name(prefix, "lastDuration"), new Gauge<Long>() {
+            public Long getValue() {
+                return TimeUnit.NANOSECONDS.toMicros(jobMetrics.getLastDuration());
+            }
+        });
+        metricRegistry.register(MetricRegistry.name(prefix, "lastLag"), new Gauge<Long>() {
+            public Long getValue() {
+                return jobMetrics.getLastLag();
+            }
+        });
+        registerPercentileGauge(metricRegistry, MetricRegistry.name(prefix, "p50"), jobMetrics.getLatencies(), 50.0,
+                TimeUnit.MICROSECONDS);
+        registerPercentileGauge(metricRegistry, MetricRegistry.name(prefix, "p99"), jobMetrics.getLatencies(), 99.0,
+                TimeUnit.MICROSECONDS);
+        registerPercentileGauge(metricRegistry, MetricRegistry.name(prefix, "max"), jobMetrics.getLatencies(), 100.0,
+                TimeUnit.MICROSECONDS);
+    }
+
+    /**
+     * Register the gauges for a job group.
+     * 
+     * @param metricRegistry
+     *            the {@link MetricRegistry}
+     * @param jobGroupMetrics
+     *            the {@link JobGroupMetrics} of the job group
+     */
+    protected void registerGauges(MetricRegistry metricRegistry, final JobGroupMetrics jobGroupMetrics) {
+        String prefix = getPrefix(jobGroupMetrics);
+        removeGauges(metricRegistry, prefix, JOB_GROUP_GAUGES);
+
+        metricRegistry.register(MetricRegistry.name(prefix, "misfires"), new Gauge<Long>() {
+            public Long getValue() {
+                return jobGroupMetrics.getMisfireCount();
+            }
+        });
+        registerPercentileGauge(metricRegistry, MetricRegistry.name(prefix, "lag.p50"), jobGroupMetrics.getLags(),
+                50.0, TimeUnit.MILLISECONDS);
+        registerPercentileGauge(metricRegistry, MetricRegistry.name(prefix, "lag.p99"), jobGroupMetrics.getLags(),
+                99.0, TimeUnit.MILLISECONDS);
+        registerPercentileGauge(metricRegistry, MetricRegistry.name(prefix, "lag.max"), jobGroupMetrics.getLags(),
+                100.0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Remove the gauges of a job or job group.
+     * 
+     * @param metricRegistry
+     *            the {@link MetricRegistry}
+     * @param prefix
+     *            the name prefix of the job or job group
+     * @param names
+     *            the names of the gauges below the prefix
+     */
+    protected void removeGauges(MetricRegistry metricRegistry, String prefix, String[] names) {
+        for (String name : names) {
+            metricRegistry.remove(MetricRegistry.name(prefix, name));
+        }
+    }
+
+    private String getPrefix(JobMetrics jobMetrics) {
+        return MetricRegistry.name(METRIC_NAME_PREFIX, jobMetrics.getJobKey().getGroup(),
+                jobMetrics.getJobKey().getName());
+    }
+
+    private String getPrefix(JobGroupMetrics jobGroupMetrics) {
+        return MetricRegistry.name(METRIC_NAME_PREFIX, jobGroupMetrics.getJobGroup());
+    }
+
+    private void registerPercentileGauge(MetricRegistry metricRegistry, String name,
+            final LatencyHistogram histogram, final double percentile, final TimeUnit unit) {
+        metricRegistry.register(name, new Gauge<Long>() {
+            public Long getValue() {
+                return histogram.getValueAtPercentile(percentile, unit);
+            }
+        });
+    }
+
+}
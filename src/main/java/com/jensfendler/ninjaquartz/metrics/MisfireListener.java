@@ -0,0 +1,85 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.metrics;
+
+import org.quartz.JobExecutionContext;
+import org.quartz.Trigger;
+import org.quartz.Trigger.CompletedExecutionInstruction;
+import org.quartz.TriggerListener;
+
+/**
+ * A {@link TriggerListener} counting misfired triggers in the
+ * {@link JobGroupMetrics} of their job's group.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class MisfireListener implements TriggerListener {
+
+    /**
+     * The name of the listener.
+     */
+    public static final String NAME = "nqMisfireListener";
+
+    private final JobMetricsRegistry jobMetricsRegistry;
+
+    /**
+     * @param jobMetricsRegistry
+     *            the {@link JobMetricsRegistry} to record misfires in
+     */
+    public MisfireListener(JobMetricsRegistry jobMetricsRegistry) {
+        this.jobMetricsRegistry = jobMetricsRegistry;
+    }
+
+    /**
+     * @see org.quartz.TriggerListener#getName()
+     */
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * @see org.quartz.TriggerListener#triggerFired(org.quartz.Trigger,
+     *      org.quartz.JobExecutionContext)
+     */
+    public void triggerFired(Trigger trigger, JobExecutionContext context) {
+    }
+
+    /**
+     * @see org.quartz.TriggerListener#vetoJobExecution(org.quartz.Trigger,
+     *      org.quartz.JobExecutionContext)
+     */
+    public boolean vetoJobExecution(Trigger trigger, JobExecutionContext context) {
+        return false;
+    }
+
+    /**
+     * @see org.quartz.TriggerListener#triggerMisfired(org.quartz.Trigger)
+     */
+    public void triggerMisfired(Trigger trigger) {
+        jobMetricsRegistry.getOrCreateGroup(trigger.getJobKey().getGroup()).recordMisfire();
+    }
+
+    /**
+     * @see org.quartz.TriggerListener#triggerComplete(org.quartz.Trigger,
+     *      org.quartz.JobExecutionContext,
+     *      org.quartz.Trigger.CompletedExecutionInstruction)
+     */
+    public void triggerComplete(Trigger trigger, JobExecutionContext context,
+            CompletedExecutionInstruction triggerInstructionCode) {
+    }
+
+}
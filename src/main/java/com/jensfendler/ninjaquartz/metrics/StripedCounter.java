@@ -0,0 +1,93 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter which spreads concurrent increments over several padded stripes
+ * (selected by the id of the incrementing thread), so that worker threads
+ * executing the same job rarely contend on the same cache line. Reading the
+ * counter sums up all stripes.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class StripedCounter {
+
+    /**
+     * Number of array elements between two stripes (8 longs = 64 bytes, i.e.
+     * one cache line).
+     */
+    private static final int PADDING = 8;
+
+    /**
+     * The maximum number of stripes.
+     */
+    private static final int MAX_STRIPES = 16;
+
+    /**
+     * The number of stripes (a power of two).
+     */
+    private static final int STRIPES = stripes();
+
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+    private static int stripes() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int stripes = 1;
+        while (stripes < processors && stripes < MAX_STRIPES) {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+
+    /**
+     * Increment the counter by one.
+     */
+    public void increment() {
+        add(1L);
+    }
+
+    /**
+     * Add the given value to the counter.
+     * 
+     * @param value
+     *            the value to add
+     */
+    public void add(long value) {
+        int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+        cells.getAndAdd(stripe * PADDING, value);
+    }
+
+    /**
+     * @return the current value of the counter (which may not include
+     *         concurrent updates)
+     */
+    public long get() {
+        long sum = 0L;
+        for (int i = 0; i < STRIPES; i++) {
+            sum += cells.get(i * PADDING);
+        }
+        return sum;
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(get());
+    }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.processor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+import com.jensfendler.ninjaquartz.ScheduledClassIndex;
+import com.jensfendler.ninjaquartz.annotations.QuartzSchedule;
+import com.jensfendler.ninjaquartz.annotations.QuartzSchedules;
+
+/**
+ * Annotation processor writing the {@link ScheduledClassIndex} of all classes
+ * containing {@link QuartzSchedule} annotated methods. The processor is
+ * registered through <code>META-INF/services</code>, so it runs automatically
+ * when compiling against NinjaQuartz (unless annotation processing is
+ * disabled).
+ * 
+ * For incremental compilation, classes listed in a previously generated index
+ * are kept if they still contain scheduled methods.
+ * 
+ * @author Jens Fendler
+ *
+ */
+@SupportedAnnotationTypes({ "com.jensfendler.ninjaquartz.annotations.QuartzSchedule",
+        "com.jensfendler.ninjaquartz.annotations.QuartzSchedules" })
+public class QuartzScheduleProcessor extends AbstractProcessor {
+
+    /**
+     * The binary names of all classes found so far.
+     */
+    private final Set<String> classNames = new TreeSet<String>();
+
+    /**
+     * @see javax.annotation.processing.AbstractProcessor#getSupportedSourceVersion()
+     */
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    /**
+     * @see javax.annotation.processing.AbstractProcessor#process(java.util.Set,
+     *      javax.annotation.processing.RoundEnvironment)
+     */
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeIndex();
+            return false;
+        }
+
+        addEnclosingClasses(roundEnv.getElementsAnnotatedWith(QuartzSchedule.class));
+        // methods with several schedules
+        addEnclosingClasses(roundEnv.getElementsAnnotatedWith(QuartzSchedules.class));
+        return false;
+    }
+
+    private void addEnclosingClasses(Set<? extends Element> elements) {
+        for (Element element : elements) {
+            Element enclosing = element.getEnclosingElement();
+            if ((element.getKind() == ElementKind.METHOD) && (enclosing instanceof TypeElement)) {
+                classNames.add(getBinaryName((TypeElement) enclosing));
+            }
+        }
+    }
+
+    private String getBinaryName(TypeElement typeElement) {
+        return processingEnv.getElementUtils().getBinaryName(typeElement).toString();
+    }
+
+    /**
+     * Add classes from a previously generated index (if any) which still
+     * contain scheduled methods.
+     * 
+     * @return true if a previously generated index has been found
+     */
+    private boolean mergePreviousIndex() {
+        Set<String> previous = new TreeSet<String>();
+        try {
+            FileObject resource = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "",
+                    ScheduledClassIndex.INDEX_RESOURCE);
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(resource.openInputStream(), "UTF-8"));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (!line.isEmpty() && !line.startsWith("#")) {
+                        previous.add(line);
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            // no previous index (e.g. a clean build)
+            return false;
+        } catch (IllegalArgumentException e) {
+            // the Filer does not support reading resources
+            return false;
+        }
+
+        for (String className : previous) {
+            TypeElement typeElement = processingEnv.getElementUtils().getTypeElement(className.replace('$', '.'));
+            if ((typeElement != null) && hasScheduledMethods(typeElement)) {
+                classNames.add(className);
+            }
+        }
+        return true;
+    }
+
+    private boolean hasScheduledMethods(TypeElement typeElement) {
+        for (Element method : ElementFilter.methodsIn(typeElement.getEnclosedElements())) {
+            if ((method.getAnnotation(QuartzSchedule.class) != null)
+                    || (method.getAnnotation(QuartzSchedules.class) != null)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeIndex() {
+        // (over)write a previous index even if it has become empty
+        if (!mergePreviousIndex() && classNames.isEmpty()) {
+            return;
+        }
+
+        try {
+            FileObject resource = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                    ScheduledClassIndex.INDEX_RESOURCE);
+            Writer writer = new OutputStreamWriter(resource.openOutputStream(), "UTF-8");
+            try {
+                for (String className : classNames) {
+                    writer.write(className);
+                    writer.write('\n');
+                }
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Kind.ERROR,
+                    "Failed to write " + ScheduledClassIndex.INDEX_RESOURCE + ": " + e.getMessage());
+        }
+    }
+}
@@ -15,14 +15,23 @@
  */
 package com.jensfendler.ninjaquartz.provider;
 
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+
+import org.quartz.SchedulerException;
 import org.quartz.SchedulerFactory;
+import org.quartz.impl.StdSchedulerFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.google.inject.Key;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
+import com.google.inject.name.Names;
 import com.jensfendler.ninjaquartz.NinjaQuartzModule;
+import com.jensfendler.ninjaquartz.threadpool.ExecutorThreadPool;
 
 import ninja.utils.NinjaProperties;
 
@@ -35,17 +44,56 @@ public class QuartzSchedulerFactoryProvider implements Provider<SchedulerFactory
 
     protected static final Logger logger = LoggerFactory.getLogger(NinjaQuartzModule.class);
 
+    /**
+     * The key name of the property in application.conf which may select the
+     * {@link ExecutorThreadPool} to run jobs with: either
+     * {@link #THREAD_POOL_TYPE_VIRTUAL} or {@link #THREAD_POOL_TYPE_EXECUTOR}.
+     * If not set, the thread pool configured for Quartz (by default a
+     * SimpleThreadPool) is used.
+     */
+    public static final String CONF_KEY_THREAD_POOL_TYPE = "quartz.threadPool.type";
+
+    /**
+     * The key name of the property in application.conf which limits the
+     * number of concurrently running jobs of the {@link ExecutorThreadPool}.
+     */
+    public static final String CONF_KEY_THREAD_POOL_MAX_CONCURRENCY = "quartz.threadPool.maxConcurrency";
+
+    /**
+     * Thread pool type to run each job on a new virtual thread (falling back
+     * to platform threads if virtual threads are not supported by the JVM).
+     */
+    public static final String THREAD_POOL_TYPE_VIRTUAL = "virtual";
+
+    /**
+     * Thread pool type to run jobs on the {@link ExecutorService} bound in
+     * Guice with the name {@link #EXECUTOR_BINDING_NAME}.
+     */
+    public static final String THREAD_POOL_TYPE_EXECUTOR = "executor";
+
+    /**
+     * The name of the Guice binding of the {@link ExecutorService} to use for
+     * the {@link #THREAD_POOL_TYPE_EXECUTOR} thread pool type.
+     */
+    public static final String EXECUTOR_BINDING_NAME = "ninjaquartz.executor";
+
     /**
      * {@link NinjaProperties} as injected in constructor
      */
     private NinjaProperties ninjaProperties;
 
+    /**
+     * {@link Injector} as injected in constructor
+     */
+    private Injector injector;
+
     private static SchedulerFactory schedulerFactory;
 
     @Inject
-    public QuartzSchedulerFactoryProvider(NinjaProperties ninjaProperties) {
+    public QuartzSchedulerFactoryProvider(NinjaProperties ninjaProperties, Injector injector) {
         logger.info("Initialising {}.", getClass().getName());
         this.ninjaProperties = ninjaProperties;
+        this.injector = injector;
     }
 
     /**
@@ -67,6 +115,16 @@ public class QuartzSchedulerFactoryProvider implements Provider<SchedulerFactory
                 "org.quartz.impl.StdSchedulerFactory");
         logger.info("Using Quartz SchedulerFactory from {}.", sfClassName);
 
+        Properties threadPoolProperties = getThreadPoolProperties();
+        if (threadPoolProperties != null) {
+            if (StdSchedulerFactory.class.getName().equals(sfClassName)) {
+                schedulerFactory = new ThreadPoolSchedulerFactory(threadPoolProperties);
+                return;
+            }
+            logger.warn("Ignoring property {}, as it requires the SchedulerFactory {}.", CONF_KEY_THREAD_POOL_TYPE,
+                    StdSchedulerFactory.class.getName());
+        }
+
         try {
             Class<?> sfClass = Class.forName(sfClassName);
             schedulerFactory = (SchedulerFactory) sfClass.newInstance();
@@ -82,4 +140,70 @@ public class QuartzSchedulerFactoryProvider implements Provider<SchedulerFactory
         }
     }
 
+    /**
+     * Get the Quartz properties of the {@link ExecutorThreadPool}, if selected
+     * in application.conf.
+     * 
+     * @return the <code>org.quartz.threadPool.*</code> properties, or null if
+     *         no thread pool type is configured
+     */
+    protected Properties getThreadPoolProperties() {
+        String threadPoolType = ninjaProperties.get(CONF_KEY_THREAD_POOL_TYPE);
+        if (threadPoolType == null) {
+            return null;
+        }
+
+        Properties properties = new Properties();
+        if (THREAD_POOL_TYPE_VIRTUAL.equals(threadPoolType)) {
+            properties.setProperty(StdSchedulerFactory.PROP_THREAD_POOL_PREFIX + ".virtualThreads", "true");
+        } else if (THREAD_POOL_TYPE_EXECUTOR.equals(threadPoolType)) {
+            ExecutorService executor = injector
+                    .getInstance(Key.get(ExecutorService.class, Names.named(EXECUTOR_BINDING_NAME)));
+            ExecutorThreadPool.registerExecutor(EXECUTOR_BINDING_NAME, executor);
+            properties.setProperty(StdSchedulerFactory.PROP_THREAD_POOL_PREFIX + ".executorName",
+                    EXECUTOR_BINDING_NAME);
+        } else {
+            throw new RuntimeException("Unknown thread pool type '" + threadPoolType + "' in property "
+                    + CONF_KEY_THREAD_POOL_TYPE + ". Use '" + THREAD_POOL_TYPE_VIRTUAL + "' or '"
+                    + THREAD_POOL_TYPE_EXECUTOR + "'.");
+        }
+
+        properties.setProperty(StdSchedulerFactory.PROP_THREAD_POOL_CLASS, ExecutorThreadPool.class.getName());
+        properties.setProperty(StdSchedulerFactory.PROP_THREAD_POOL_PREFIX + ".maxConcurrency",
+                Integer.toString(ninjaProperties.getIntegerWithDefault(CONF_KEY_THREAD_POOL_MAX_CONCURRENCY,
+                        ExecutorThreadPool.DEFAULT_MAX_CONCURRENCY)));
+        logger.info("Using {} thread pool type '{}'.", ExecutorThreadPool.class.getSimpleName(), threadPoolType);
+        return properties;
+    }
+
+    /**
+     * A {@link StdSchedulerFactory} which adds the thread pool properties to
+     * the Quartz properties it is initialised with (from the Quartz properties
+     * file, or explicitly), instead of setting them as JVM-wide system
+     * properties.
+     * 
+     * @author Jens Fendler
+     *
+     */
+    protected static class ThreadPoolSchedulerFactory extends StdSchedulerFactory {
+
+        private final Properties threadPoolProperties;
+
+        public ThreadPoolSchedulerFactory(Properties threadPoolProperties) {
+            this.threadPoolProperties = threadPoolProperties;
+        }
+
+        /**
+         * @see org.quartz.impl.StdSchedulerFactory#initialize(java.util.Properties)
+         */
+        @Override
+        public void initialize(Properties props) throws SchedulerException {
+            Properties properties = new Properties();
+            properties.putAll(props);
+            properties.putAll(threadPoolProperties);
+            super.initialize(properties);
+        }
+
+    }
+
 }
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.registry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.TriggerKey;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Singleton;
+import com.jensfendler.ninjaquartz.NinjaQuartzModule;
+
+/**
+ * An in-memory, indexed snapshot of the jobs and triggers of the NinjaQuartz
+ * schedulers, maintained through the events received by a
+ * {@link JobRegistryListener}. Lookups are served from the snapshot without
+ * accessing the job store (which may be a JDBC job store).
+ * 
+ * The snapshot is eventually consistent: the list of all jobs is loaded from
+ * the schedulers on first use and then updated with every job added or
+ * deleted locally. Jobs added or deleted on other nodes of a cluster are only
+ * picked up after a {@link #refresh()}.
+ * The triggers of a job are loaded on first use and then updated when they
+ * are (un)scheduled or fired.
+ * 
+ * @author Jens Fendler
+ *
+ */
+@Singleton
+public class JobRegistry {
+
+    protected static final Logger logger = LoggerFactory.getLogger(NinjaQuartzModule.class);
+
+    private final List<Scheduler> schedulers = new CopyOnWriteArrayList<Scheduler>();
+
+    private final ConcurrentMap<JobKey, JobDetail> jobDetails = new ConcurrentHashMap<JobKey, JobDetail>();
+
+    private final ConcurrentMap<TriggerKey, Trigger> triggers = new ConcurrentHashMap<TriggerKey, Trigger>();
+
+    /**
+     * The keys of the triggers of all jobs whose triggers have been loaded.
+     */
+    private final ConcurrentMap<JobKey, Set<TriggerKey>> triggerKeysByJob = //
+            new ConcurrentHashMap<JobKey, Set<TriggerKey>>();
+
+    /**
+     * True once the list of all jobs has been loaded.
+     */
+    private volatile boolean loaded;
+
+    /**
+     * Start maintaining the snapshot of a scheduler's jobs and triggers, by
+     * registering a {@link JobRegistryListener} with the scheduler.
+     * 
+     * @param scheduler
+     *            the scheduler
+     * @throws SchedulerException
+     *             if the listener cannot be registered
+     */
+    public synchronized void attach(Scheduler scheduler) throws SchedulerException {
+        if (isAttached(scheduler)) {
+            return;
+        }
+        JobRegistryListener listener = new JobRegistryListener(this);
+        scheduler.getListenerManager().addSchedulerListener(listener);
+        scheduler.getListenerManager().addTriggerListener(listener);
+        schedulers.add(scheduler);
+        // the new scheduler's jobs will be loaded with the next full load
+        loaded = false;
+    }
+
+    /**
+     * @param scheduler
+     *            a scheduler
+     * @return true if the snapshot includes the jobs of the scheduler
+     * @throws SchedulerException
+     *             as thrown by the scheduler
+     */
+    public boolean isAttached(Scheduler scheduler) throws SchedulerException {
+        for (Scheduler s : schedulers) {
+            if (s.getSchedulerName().equals(scheduler.getSchedulerName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Discard the snapshot. It will be reloaded from the schedulers on first
+     * use.
+     */
+    public synchronized void refresh() {
+        loaded = false;
+        jobDetails.clear();
+        triggerKeysByJob.clear();
+        triggers.clear();
+    }
+
+    /**
+     * @param jobKey
+     *            the key of the job
+     * @return the {@link JobDetail} of the job, or null if the job does not
+     *         exist
+     * @throws SchedulerException
+     *             as thrown by the schedulers when loading the job
+     */
+    public JobDetail getJobDetail(JobKey jobKey) throws SchedulerException {
+        if (!loaded) {
+            loadAll();
+        }
+        return jobDetails.get(jobKey);
+    }
+
+    /**
+     * @return all jobs of the attached schedulers
+     * @throws SchedulerException
+     *             as thrown by the schedulers when loading the jobs
+     */
+    public Collection<JobDetail> getAllJobDetails() throws SchedulerException {
+        if (!loaded) {
+            loadAll();
+        }
+        return Collections.unmodifiableCollection(jobDetails.values());
+    }
+
+    /**
+     * @param jobKey
+     *            the key of the job
+     * @return the triggers of the job (which may be empty)
+     * @throws SchedulerException
+     *             as thrown by the schedulers when loading the triggers
+     */
+    public Collection<Trigger> getTriggersOfJob(JobKey jobKey) throws SchedulerException {
+        Set<TriggerKey> triggerKeys = triggerKeysByJob.get(jobKey);
+        if (triggerKeys == null) {
+            triggerKeys = loadTriggers(jobKey);
+        }
+        List<Trigger> jobTriggers = new ArrayList<Trigger>(triggerKeys.size());
+        for (TriggerKey triggerKey : triggerKeys) {
+            Trigger trigger = triggers.get(triggerKey);
+            if (trigger != null) {
+                jobTriggers.add(trigger);
+            }
+        }
+        return jobTriggers;
+    }
+
+    private synchronized void loadAll() throws SchedulerException {
+        if (loaded) {
+            return;
+        }
+        for (Scheduler scheduler : schedulers) {
+            for (JobKey jobKey : scheduler.getJobKeys(GroupMatcher.anyJobGroup())) {
+                if (!jobDetails.containsKey(jobKey)) {
+                    JobDetail jobDetail = scheduler.getJobDetail(jobKey);
+                    if (jobDetail != null) {
+                        jobDetails.putIfAbsent(jobKey, jobDetail);
+                    }
+                }
+            }
+        }
+        logger.debug("Loaded {} jobs into the job registry.", jobDetails.size());
+        loaded = true;
+    }
+
+    private Set<TriggerKey> loadTriggers(JobKey jobKey) throws SchedulerException {
+        Set<TriggerKey> triggerKeys = Collections.newSetFromMap(new ConcurrentHashMap<TriggerKey, Boolean>());
+        for (Scheduler scheduler : schedulers) {
+            for (Trigger trigger : scheduler.getTriggersOfJob(jobKey)) {
+                triggers.put(trigger.getKey(), trigger);
+                triggerKeys.add(trigger.getKey());
+            }
+        }
+        Set<TriggerKey> existing = triggerKeysByJob.putIfAbsent(jobKey, triggerKeys);
+        return (existing != null) ? existing : triggerKeys;
+    }
+
+    // the following methods are called by the JobRegistryListener
+
+    void jobAdded(JobDetail jobDetail) {
+        jobDetails.put(jobDetail.getKey(), jobDetail);
+        // triggers scheduled with the job are not always notified separately
+        triggerKeysByJob.remove(jobDetail.getKey());
+    }
+
+    void jobDeleted(JobKey jobKey) {
+        jobDetails.remove(jobKey);
+        Set<TriggerKey> triggerKeys = triggerKeysByJob.remove(jobKey);
+        if (triggerKeys != null) {
+            for (TriggerKey triggerKey : triggerKeys) {
+                triggers.remove(triggerKey);
+            }
+        }
+    }
+
+    void triggerScheduled(Trigger trigger) {
+        Set<TriggerKey> triggerKeys = triggerKeysByJob.get(trigger.getJobKey());
+        if (triggerKeys != null) {
+            triggers.put(trigger.getKey(), trigger);
+            triggerKeys.add(trigger.getKey());
+        }
+    }
+
+    void triggerUpdated(Trigger trigger) {
+        // only replace triggers already in the snapshot
+        triggers.replace(trigger.getKey(), trigger);
+    }
+
+    void triggerRemoved(TriggerKey triggerKey) {
+        triggers.remove(triggerKey);
+        for (Set<TriggerKey> triggerKeys : triggerKeysByJob.values()) {
+            triggerKeys.remove(triggerKey);
+        }
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.registry;
+
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+import org.quartz.Trigger;
+import org.quartz.Trigger.CompletedExecutionInstruction;
+import org.quartz.TriggerKey;
+import org.quartz.TriggerListener;
+import org.quartz.listeners.SchedulerListenerSupport;
+
+/**
+ * Keeps the {@link JobRegistry} up to date with the jobs and triggers added to
+ * or removed from a scheduler, and with the fire times of triggers.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class JobRegistryListener extends SchedulerListenerSupport implements TriggerListener {
+
+    /**
+     * The name of the listener.
+     */
+    public static final String NAME = "nqJobRegistryListener";
+
+    private final JobRegistry jobRegistry;
+
+    /**
+     * @param jobRegistry
+     *            the {@link JobRegistry} to update
+     */
+    public JobRegistryListener(JobRegistry jobRegistry) {
+        this.jobRegistry = jobRegistry;
+    }
+
+    /**
+     * @see org.quartz.TriggerListener#getName()
+     */
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * @see org.quartz.listeners.SchedulerListenerSupport#jobAdded(org.quartz.JobDetail)
+     */
+    @Override
+    public void jobAdded(JobDetail jobDetail) {
+        jobRegistry.jobAdded(jobDetail);
+    }
+
+    /**
+     * @see org.quartz.listeners.SchedulerListenerSupport#jobDeleted(org.quartz.JobKey)
+     */
+    @Override
+    public void jobDeleted(JobKey jobKey) {
+        jobRegistry.jobDeleted(jobKey);
+    }
+
+    /**
+     * @see org.quartz.listeners.SchedulerListenerSupport#jobScheduled(org.quartz.Trigger)
+     */
+    @Override
+    public void jobScheduled(Trigger trigger) {
+        jobRegistry.triggerScheduled(trigger);
+    }
+
+    /**
+     * @see org.quartz.listeners.SchedulerListenerSupport#jobUnscheduled(org.quartz.TriggerKey)
+     */
+    @Override
+    public void jobUnscheduled(TriggerKey triggerKey) {
+        jobRegistry.triggerRemoved(triggerKey);
+    }
+
+    /**
+     * @see org.quartz.listeners.SchedulerListenerSupport#triggerFinalized(org.quartz.Trigger)
+     */
+    @Override
+    public void triggerFinalized(Trigger trigger) {
+        jobRegistry.triggerRemoved(trigger.getKey());
+    }
+
+    /**
+     * @see org.quartz.listeners.SchedulerListenerSupport#schedulingDataCleared()
+     */
+    @Override
+    public void schedulingDataCleared() {
+        jobRegistry.refresh();
+    }
+
+    /**
+     * @see org.quartz.TriggerListener#triggerFired(org.quartz.Trigger,
+     *      org.quartz.JobExecutionContext)
+     */
+    public void triggerFired(Trigger trigger, JobExecutionContext context) {
+        // the fired trigger carries the updated fire times
+        jobRegistry.triggerUpdated(trigger);
+    }
+
+    /**
+     * @see org.quartz.TriggerListener#vetoJobExecution(org.quartz.Trigger,
+     *      org.quartz.JobExecutionContext)
+     */
+    public boolean vetoJobExecution(Trigger trigger, JobExecutionContext context) {
+        return false;
+    }
+
+    /**
+     * @see org.quartz.TriggerListener#triggerMisfired(org.quartz.Trigger)
+     */
+    public void triggerMisfired(Trigger trigger) {
+        jobRegistry.triggerUpdated(trigger);
+    }
+
+    /**
+     * @see org.quartz.TriggerListener#triggerComplete(org.quartz.Trigger,
+     *      org.quartz.JobExecutionContext,
+     *      org.quartz.Trigger.CompletedExecutionInstruction)
+     */
+    public void triggerComplete(Trigger trigger, JobExecutionContext context,
+            CompletedExecutionInstruction triggerInstructionCode) {
+    }
+
+}
@@ -0,0 +1,418 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.threadpool;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.quartz.SchedulerConfigException;
+import org.quartz.simpl.SimpleThreadPool;
+import org.quartz.spi.ThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.jensfendler.ninjaquartz.NinjaQuartzModule;
+
+/**
+ * A Quartz {@link ThreadPool} which runs jobs on an {@link ExecutorService}
+ * instead of a fixed number of worker threads (as Quartz'
+ * {@link SimpleThreadPool} does). The executor is either
+ * <ul>
+ * <li>an executor registered with {@link #registerExecutor(String, ExecutorService)}
+ * and selected with the <code>executorName</code> property, or</li>
+ * <li>an executor starting a new virtual thread for every job (if the
+ * <code>virtualThreads</code> property is true, and the JVM supports virtual
+ * threads), or</li>
+ * <li>a cached pool of platform threads.</li>
+ * </ul>
+ * 
+ * The number of concurrently running jobs is limited to
+ * <code>maxConcurrency</code> (or <code>threadCount</code>, if
+ * <code>maxConcurrency</code> is not set), which is also reported to Quartz as
+ * the pool size. Like all Quartz thread pools, this pool is configured through
+ * the <code>org.quartz.threadPool.*</code> properties, e.g.:
+ * 
+ * <pre>
+ * org.quartz.threadPool.class = com.jensfendler.ninjaquartz.threadpool.ExecutorThreadPool
+ * org.quartz.threadPool.virtualThreads = true
+ * org.quartz.threadPool.maxConcurrency = 1000
+ * </pre>
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class ExecutorThreadPool implements ThreadPool {
+
+    protected static final Logger logger = LoggerFactory.getLogger(NinjaQuartzModule.class);
+
+    /**
+     * The default limit of concurrently running jobs.
+     */
+    public static final int DEFAULT_MAX_CONCURRENCY = 100;
+
+    /**
+     * Executors registered by name (to be used by pools configured from
+     * properties, which are instantiated by Quartz).
+     */
+    private static final ConcurrentMap<String, ExecutorService> registeredExecutors = new ConcurrentHashMap<String, ExecutorService>();
+
+    private int maxConcurrency = -1;
+
+    private int threadCount = -1;
+
+    private int threadPriority = Thread.NORM_PRIORITY;
+
+    private boolean virtualThreads = false;
+
+    private boolean makeThreadsDaemons = false;
+
+    private boolean threadsInheritContextClassLoaderOfInitializingThread = false;
+
+    private String executorName;
+
+    private String threadNamePrefix;
+
+    private String instanceName = "NinjaQuartz";
+
+    private ExecutorService executor;
+
+    /**
+     * True if the executor has been created by this pool (and must be shut
+     * down with it).
+     */
+    private boolean ownExecutor;
+
+    private ClassLoader initializingClassLoader;
+
+    private int poolSize;
+
+    private final Object lock = new Object();
+
+    /**
+     * The number of jobs currently running (guarded by {@link #lock}).
+     */
+    private int busy;
+
+    private volatile boolean shutdown;
+
+    /**
+     * Register an {@link ExecutorService} to be used by pools with the given
+     * <code>executorName</code>. The executor will not be shut down by the
+     * pool.
+     * 
+     * @param name
+     *            the name of the executor
+     * @param executor
+     *            the {@link ExecutorService}
+     */
+    public static void registerExecutor(String name, ExecutorService executor) {
+        registeredExecutors.put(name, executor);
+    }
+
+    /**
+     * @param name
+     *            the name of a registered executor
+     * @return the removed {@link ExecutorService}, or null
+     */
+    public static ExecutorService unregisterExecutor(String name) {
+        return registeredExecutors.remove(name);
+    }
+
+    /**
+     * @see org.quartz.spi.ThreadPool#initialize()
+     */
+    public void initialize() throws SchedulerConfigException {
+        poolSize = maxConcurrency > 0 ? maxConcurrency : (threadCount > 0 ? threadCount : DEFAULT_MAX_CONCURRENCY);
+        if (threadsInheritContextClassLoaderOfInitializingThread) {
+            initializingClassLoader = Thread.currentThread().getContextClassLoader();
+        }
+        if (threadNamePrefix == null) {
+            threadNamePrefix = instanceName + "_Worker-";
+        }
+
+        if (executorName != null) {
+            executor = registeredExecutors.get(executorName);
+            if (executor == null) {
+                throw new SchedulerConfigException("No ExecutorService registered with name '" + executorName + "'.");
+            }
+            ownExecutor = false;
+            logger.info("Running Quartz jobs of {} on ExecutorService '{}' (max. {} concurrent jobs).", instanceName,
+                    executorName, poolSize);
+            return;
+        }
+
+        ownExecutor = true;
+        if (virtualThreads) {
+            executor = createVirtualThreadExecutor();
+            if (executor != null) {
+                logger.info("Running Quartz jobs of {} on virtual threads (max. {} concurrent jobs).", instanceName,
+                        poolSize);
+                return;
+            }
+        }
+        executor = Executors.newCachedThreadPool(new WorkerThreadFactory());
+        logger.info("Running Quartz jobs of {} on a cached thread pool (max. {} concurrent jobs).", instanceName,
+                poolSize);
+    }
+
+    /**
+     * Create an executor starting a new (named) virtual thread for each task.
+     * Virtual threads are looked up through reflection, so that this class
+     * works on JVMs without virtual threads as well.
+     * 
+     * @return the {@link ExecutorService}, or null if virtual threads are not
+     *         supported
+     */
+    private ExecutorService createVirtualThreadExecutor() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, threadNamePrefix, 1L);
+            ThreadFactory threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            Method newExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) newExecutor.invoke(null, threadFactory);
+        } catch (Exception e) {
+            logger.warn("Virtual threads are not available in this JVM ({}). Using platform threads instead.",
+                    e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * @see org.quartz.spi.ThreadPool#blockForAvailableThreads()
+     */
+    public int blockForAvailableThreads() {
+        synchronized (lock) {
+            while (busy >= poolSize && !shutdown) {
+                try {
+                    lock.wait(500L);
+                } catch (InterruptedException e) {
+                    // ignore, like SimpleThreadPool does
+                }
+            }
+            return poolSize - busy;
+        }
+    }
+
+    /**
+     * @see org.quartz.spi.ThreadPool#runInThread(java.lang.Runnable)
+     */
+    public boolean runInThread(final Runnable runnable) {
+        if (runnable == null) {
+            return false;
+        }
+        synchronized (lock) {
+            while (busy >= poolSize && !shutdown) {
+                try {
+                    lock.wait(500L);
+                } catch (InterruptedException e) {
+                    // ignore
+                }
+            }
+            if (shutdown) {
+                return false;
+            }
+            busy++;
+        }
+
+        try {
+            executor.execute(new Runnable() {
+                public void run() {
+                    ClassLoader previousClassLoader = null;
+                    if (initializingClassLoader != null) {
+                        previousClassLoader = Thread.currentThread().getContextClassLoader();
+                        Thread.currentThread().setContextClassLoader(initializingClassLoader);
+                    }
+                    try {
+                        runnable.run();
+                    } finally {
+                        if (initializingClassLoader != null) {
+                            Thread.currentThread().setContextClassLoader(previousClassLoader);
+                        }
+                        release();
+                    }
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            logger.error("ExecutorService of " + instanceName + " rejected a job.", e);
+            release();
+            return false;
+        }
+    }
+
+    private void release() {
+        synchronized (lock) {
+            busy--;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * @see org.quartz.spi.ThreadPool#shutdown(boolean)
+     */
+    public void shutdown(boolean waitForJobsToComplete) {
+        shutdown = true;
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+
+        if (ownExecutor) {
+            executor.shutdown();
+        }
+        if (!waitForJobsToComplete) {
+            return;
+        }
+        synchronized (lock) {
+            while (busy > 0) {
+                try {
+                    lock.wait(500L);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+        if (ownExecutor) {
+            try {
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * @see org.quartz.spi.ThreadPool#getPoolSize()
+     */
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    /**
+     * @return the number of jobs currently running
+     */
+    public int getBusyCount() {
+        synchronized (lock) {
+            return busy;
+        }
+    }
+
+    /**
+     * @see org.quartz.spi.ThreadPool#setInstanceId(java.lang.String)
+     */
+    public void setInstanceId(String schedInstId) {
+    }
+
+    /**
+     * @see org.quartz.spi.ThreadPool#setInstanceName(java.lang.String)
+     */
+    public void setInstanceName(String schedName) {
+        this.instanceName = schedName;
+    }
+
+    /**
+     * @param maxConcurrency
+     *            the maximum number of concurrently running jobs
+     */
+    public void setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * @param threadCount
+     *            the maximum number of concurrently running jobs, if
+     *            <code>maxConcurrency</code> is not set (for compatibility
+     *            with the {@link SimpleThreadPool} configuration)
+     */
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * @param threadPriority
+     *            the priority of platform worker threads
+     */
+    public void setThreadPriority(int threadPriority) {
+        this.threadPriority = threadPriority;
+    }
+
+    /**
+     * @param virtualThreads
+     *            true to run each job on a new virtual thread (if supported)
+     */
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * @param makeThreadsDaemons
+     *            true to create platform worker threads as daemon threads
+     */
+    public void setMakeThreadsDaemons(boolean makeThreadsDaemons) {
+        this.makeThreadsDaemons = makeThreadsDaemons;
+    }
+
+    /**
+     * @param inherit
+     *            true to run jobs with the context class loader of the thread
+     *            initializing the pool
+     */
+    public void setThreadsInheritContextClassLoaderOfInitializingThread(boolean inherit) {
+        this.threadsInheritContextClassLoaderOfInitializingThread = inherit;
+    }
+
+    /**
+     * @param executorName
+     *            the name of a registered {@link ExecutorService} to run the
+     *            jobs on
+     * @see #registerExecutor(String, ExecutorService)
+     */
+    public void setExecutorName(String executorName) {
+        this.executorName = executorName;
+    }
+
+    /**
+     * @param threadNamePrefix
+     *            the name prefix of worker threads
+     */
+    public void setThreadNamePrefix(String threadNamePrefix) {
+        this.threadNamePrefix = threadNamePrefix;
+    }
+
+    /**
+     * Factory for (named) platform worker threads.
+     */
+    private class WorkerThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, threadNamePrefix + threadNumber.getAndIncrement());
+            thread.setDaemon(makeThreadsDaemons);
+            thread.setPriority(threadPriority);
+            return thread;
+        }
+    }
+
+}
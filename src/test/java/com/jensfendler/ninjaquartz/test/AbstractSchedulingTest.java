@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.test;
+
+import static org.junit.Assert.fail;
+
+import java.util.Properties;
+import java.util.concurrent.Callable;
+
+import org.junit.After;
+import org.junit.Before;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerFactory;
+import org.quartz.impl.StdSchedulerFactory;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.jensfendler.ninjaquartz.NinjaQuartzScheduleHelper;
+import com.jensfendler.ninjaquartz.NinjaQuartzScheduling;
+import com.jensfendler.ninjaquartz.NinjaQuartzSchedulingImpl;
+import com.jensfendler.ninjaquartz.metrics.JobMetricsRegistry;
+
+import ninja.utils.NinjaMode;
+import ninja.utils.NinjaProperties;
+import ninja.utils.NinjaPropertiesImpl;
+
+/**
+ * The base class of tests running jobs in a scheduler of their own, named
+ * after the test class, with the ninja-quartz services created by Guice.
+ * 
+ * Subclasses overriding {@link #before()} or {@link #after()} must call the
+ * overridden method.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public abstract class AbstractSchedulingTest {
+
+    protected Scheduler scheduler;
+
+    protected Injector injector;
+
+    protected NinjaQuartzScheduling scheduling;
+
+    protected NinjaQuartzScheduleHelper scheduleHelper;
+
+    protected JobMetricsRegistry jobMetricsRegistry;
+
+    @Before
+    public void before() throws Exception {
+        final SchedulerFactory schedulerFactory = new StdSchedulerFactory(getSchedulerProperties());
+        scheduler = schedulerFactory.getScheduler();
+
+        injector = Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(NinjaProperties.class).toInstance(new NinjaPropertiesImpl(NinjaMode.test));
+                bind(SchedulerFactory.class).toInstance(schedulerFactory);
+                bind(NinjaQuartzScheduling.class).to(NinjaQuartzSchedulingImpl.class);
+            }
+        });
+        scheduling = injector.getInstance(NinjaQuartzScheduling.class);
+        scheduleHelper = injector.getInstance(NinjaQuartzScheduleHelper.class);
+        jobMetricsRegistry = injector.getInstance(JobMetricsRegistry.class);
+    }
+
+    @After
+    public void after() throws Exception {
+        scheduleHelper.stop();
+        scheduler.shutdown(true);
+    }
+
+    /**
+     * @return the properties of the scheduler, with a single worker thread
+     *         unless overridden
+     */
+    protected Properties getSchedulerProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("org.quartz.scheduler.instanceName", getClass().getSimpleName());
+        properties.setProperty("org.quartz.threadPool.threadCount", "1");
+        return properties;
+    }
+
+    /**
+     * Waits for a condition to be met, e.g. by jobs running in the scheduler.
+     * 
+     * @param condition
+     *            the condition to poll
+     * @param timeoutMillis
+     *            the maximum time to wait (in milliseconds)
+     * @throws Exception
+     *             if the condition cannot be evaluated
+     */
+    protected static void awaitCondition(Callable<Boolean> condition, long timeoutMillis) throws Exception {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (!condition.call()) {
+            if (System.currentTimeMillis() >= deadline) {
+                fail("Condition not met within " + timeoutMillis + "ms.");
+            }
+            Thread.sleep(20);
+        }
+    }
+
+}
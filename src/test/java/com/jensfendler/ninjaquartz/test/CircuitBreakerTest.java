@@ -0,0 +1,169 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.DateBuilder.IntervalUnit;
+import org.quartz.JobKey;
+import org.quartz.Trigger.TriggerState;
+import org.quartz.TriggerBuilder;
+import org.quartz.TriggerKey;
+import org.quartz.impl.matchers.GroupMatcher;
+
+import com.jensfendler.ninjaquartz.QuartzScheduleSpec;
+import com.jensfendler.ninjaquartz.job.AbstractNinjaQuartzJob;
+import com.jensfendler.ninjaquartz.limit.CircuitBreaker;
+import com.jensfendler.ninjaquartz.limit.CircuitBreakers;
+
+/**
+ * Tests for the circuit breakers of repeatedly failing jobs.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class CircuitBreakerTest extends AbstractSchedulingTest {
+
+    /**
+     * A service whose dependency is down for a number of invocations.
+     */
+    public static class BrokenService {
+
+        static final AtomicInteger remainingFailures = new AtomicInteger();
+
+        static final AtomicInteger invocations = new AtomicInteger();
+
+        public void check() {
+            invocations.incrementAndGet();
+            if (remainingFailures.getAndDecrement() > 0) {
+                throw new IllegalStateException("dependency down");
+            }
+        }
+    }
+
+    private CircuitBreakers circuitBreakers;
+
+    @Override
+    @Before
+    public void before() throws Exception {
+        BrokenService.remainingFailures.set(0);
+        BrokenService.invocations.set(0);
+
+        super.before();
+        circuitBreakers = injector.getInstance(CircuitBreakers.class);
+    }
+
+    @Test
+    public void testCircuitOpens() throws Exception {
+        BrokenService.remainingFailures.set(Integer.MAX_VALUE);
+        final JobKey jobKey = scheduling.schedule(BrokenService.class, "check",
+                QuartzScheduleSpec.interval(50, IntervalUnit.MILLISECOND).withJobName("broken").withForceKeep(true)
+                        .withCircuitBreakerThreshold(3).withCircuitBreakerDelay(60000));
+        TriggerKey triggerKey = scheduler.getTriggersOfJob(jobKey).get(0).getKey();
+        awaitCondition(new Callable<Boolean>() {
+            public Boolean call() throws Exception {
+                return (getState(jobKey) == CircuitBreaker.State.OPEN) && (getProbeTriggerCount() > 0);
+            }
+        }, 10000L);
+
+        // the trigger is paused after three consecutive failures, and a
+        // probe is scheduled
+        assertEquals(CircuitBreaker.State.OPEN, getState(jobKey));
+        assertEquals(TriggerState.PAUSED, scheduler.getTriggerState(triggerKey));
+        assertEquals(3, BrokenService.invocations.get());
+        assertEquals(1, getProbeTriggerCount());
+    }
+
+    @Test
+    public void testProbeClosesCircuit() throws Exception {
+        BrokenService.remainingFailures.set(3);
+        final JobKey jobKey = scheduling.schedule(BrokenService.class, "check",
+                QuartzScheduleSpec.interval(50, IntervalUnit.MILLISECOND).withJobName("recovering")
+                        .withForceKeep(true).withCircuitBreakerThreshold(3).withCircuitBreakerDelay(200));
+        final TriggerKey triggerKey = scheduler.getTriggersOfJob(jobKey).get(0).getKey();
+        awaitCondition(new Callable<Boolean>() {
+            public Boolean call() throws Exception {
+                return (circuitBreakers.get(jobKey) != null) && (circuitBreakers.get(jobKey).getOpenedAt() > 0)
+                        && (getState(jobKey) == CircuitBreaker.State.CLOSED)
+                        && (scheduler.getTriggerState(triggerKey) == TriggerState.NORMAL);
+            }
+        }, 10000L);
+
+        // the circuit has been opened, and closed again by a successful probe
+        CircuitBreaker circuitBreaker = circuitBreakers.get(jobKey);
+        assertNotNull(circuitBreaker);
+        assertTrue(circuitBreaker.getOpenedAt() > 0);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(TriggerState.NORMAL, scheduler.getTriggerState(triggerKey));
+        assertTrue(BrokenService.invocations.get() > 3);
+    }
+
+    @Test
+    public void testProbeResumesAfterRestart() throws Exception {
+        JobKey jobKey = scheduling.schedule(BrokenService.class, "check",
+                QuartzScheduleSpec.interval(1, IntervalUnit.HOUR).withJobName("restarted").withForceKeep(true)
+                        .withCircuitBreakerThreshold(3).withCircuitBreakerDelay(200));
+        final TriggerKey triggerKey = scheduler.getTriggersOfJob(jobKey).get(0).getKey();
+        awaitCondition(new Callable<Boolean>() {
+            public Boolean call() throws Exception {
+                return (BrokenService.invocations.get() > 0) && scheduler.getCurrentlyExecutingJobs().isEmpty()
+                        && (scheduler.getTriggerState(triggerKey) == TriggerState.NORMAL);
+            }
+        }, 10000L);
+
+        // as after a restart with a persistent job store: the triggers are
+        // paused and a probe is pending, but the circuit breaker is closed
+        scheduler.pauseJob(jobKey);
+        assertEquals(TriggerState.PAUSED, scheduler.getTriggerState(triggerKey));
+        circuitBreakers.remove(jobKey);
+        scheduler.scheduleJob(TriggerBuilder.newTrigger()
+                .withIdentity("probe", AbstractNinjaQuartzJob.PROBE_TRIGGER_GROUP).forJob(jobKey).startNow().build());
+
+        awaitCondition(new Callable<Boolean>() {
+            public Boolean call() throws Exception {
+                return scheduler.getTriggerState(triggerKey) == TriggerState.NORMAL;
+            }
+        }, 10000L);
+
+        // the successful probe resumes the job
+        assertEquals(TriggerState.NORMAL, scheduler.getTriggerState(triggerKey));
+        assertEquals(2, BrokenService.invocations.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCircuitBreakerSettings() throws Exception {
+        scheduling.schedule(BrokenService.class, "check", QuartzScheduleSpec.interval(1, IntervalUnit.HOUR)
+                .withJobName("misconfigured").withCircuitBreakerThreshold(3).withCircuitBreakerDelay(-1));
+    }
+
+    private int getProbeTriggerCount() throws Exception {
+        return scheduler.getTriggerKeys(GroupMatcher.triggerGroupEquals(AbstractNinjaQuartzJob.PROBE_TRIGGER_GROUP))
+                .size();
+    }
+
+    private CircuitBreaker.State getState(JobKey jobKey) {
+        CircuitBreaker circuitBreaker = circuitBreakers.get(jobKey);
+        return (circuitBreaker == null) ? null : circuitBreaker.getState();
+    }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.DateBuilder.IntervalUnit;
+
+import com.google.inject.Singleton;
+import com.jensfendler.ninjaquartz.QuartzScheduleSpec;
+import com.jensfendler.ninjaquartz.annotations.CoalescedFires;
+
+/**
+ * Tests for collapsing backlogged fires of non-concurrent jobs.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class CoalescingTest extends AbstractSchedulingTest {
+
+    /**
+     * A slow method collapsing its backlogged fires.
+     */
+    @Singleton
+    public static class CoalescingService {
+
+        static final List<Integer> fires = new CopyOnWriteArrayList<Integer>();
+
+        public void refresh(@CoalescedFires int coalescedFires) throws InterruptedException {
+            fires.add(coalescedFires);
+            if (fires.size() == 1) {
+                // the first execution stalls
+                Thread.sleep(500);
+            }
+        }
+    }
+
+    @Override
+    @Before
+    public void before() throws Exception {
+        CoalescingService.fires.clear();
+
+        super.before();
+    }
+
+    @Test
+    public void testCoalescedFires() throws Exception {
+        scheduling.schedule(CoalescingService.class, "refresh", QuartzScheduleSpec
+                .interval(50, IntervalUnit.MILLISECOND).withJobName("coalescing").withCoalesce(true));
+        awaitCondition(new Callable<Boolean>() {
+            public Boolean call() throws Exception {
+                return CoalescingService.fires.size() >= 3;
+            }
+        }, 10000L);
+        scheduler.standby();
+
+        // the fires backlogged by the first execution are collapsed into one
+        List<Integer> fires = CoalescingService.fires;
+        assertTrue("Too few executions: " + fires, fires.size() > 2);
+        assertEquals(Integer.valueOf(1), fires.get(0));
+        assertTrue("Fires not collapsed: " + fires, fires.get(1) > 1);
+    }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.DateBuilder.IntervalUnit;
+import org.quartz.JobKey;
+
+import com.jensfendler.ninjaquartz.QuartzScheduleSpec;
+import com.jensfendler.ninjaquartz.limit.CircuitBreaker;
+import com.jensfendler.ninjaquartz.limit.CircuitBreakers;
+import com.jensfendler.ninjaquartz.metrics.JobMetrics;
+
+/**
+ * Tests for interrupting executions exceeding their timeout.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class ExecutionTimeoutTest extends AbstractSchedulingTest {
+
+    /**
+     * A service hanging on stuck I/O until it is interrupted.
+     */
+    public static class HangingService {
+
+        static volatile CountDownLatch interrupted;
+
+        public void poll() {
+            try {
+                Thread.sleep(60000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        }
+    }
+
+    /**
+     * A service returning results which never complete.
+     */
+    public static class PendingService {
+
+        static final AtomicInteger invocations = new AtomicInteger();
+
+        static final List<Future<Void>> results = new CopyOnWriteArrayList<Future<Void>>();
+
+        public Future<Void> request() {
+            invocations.incrementAndGet();
+            Future<Void> result = new FutureTask<Void>(new Callable<Void>() {
+                public Void call() {
+                    return null;
+                }
+            });
+            results.add(result);
+            return result;
+        }
+    }
+
+    private CircuitBreakers circuitBreakers;
+
+    @Override
+    @Before
+    public void before() throws Exception {
+        HangingService.interrupted = new CountDownLatch(1);
+        PendingService.invocations.set(0);
+        PendingService.results.clear();
+
+        super.before();
+        circuitBreakers = injector.getInstance(CircuitBreakers.class);
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        JobKey jobKey = scheduling.schedule(HangingService.class, "poll",
+                QuartzScheduleSpec.interval(1, IntervalUnit.HOUR).withJobName("hanging").withTimeout(200));
+
+        // the hanging execution is interrupted, releasing the worker thread
+        assertTrue(HangingService.interrupted.await(10, TimeUnit.SECONDS));
+        final JobMetrics metrics = jobMetricsRegistry.get(jobKey);
+        awaitCondition(new Callable<Boolean>() {
+            public Boolean call() throws Exception {
+                return metrics.getFailureCount() > 0;
+            }
+        }, 10000L);
+
+        // the method swallowed the interruption, but the execution failed
+        assertEquals(1, metrics.getTimeoutCount());
+        assertEquals(1, metrics.getFailureCount());
+        assertEquals(0, metrics.getSuccessCount());
+        assertTrue(scheduler.getCurrentlyExecutingJobs().isEmpty());
+    }
+
+    @Test
+    public void testAsynchronousTimeout() throws Exception {
+        JobKey jobKey = scheduling.schedule(PendingService.class, "request",
+                QuartzScheduleSpec.interval(50, IntervalUnit.MILLISECOND).withJobName("pending").withTimeout(200));
+        JobMetrics metrics = jobMetricsRegistry.get(jobKey);
+        awaitCondition(new Callable<Boolean>() {
+            public Boolean call() throws Exception {
+                return PendingService.invocations.get() >= 2;
+            }
+        }, 10000L);
+        scheduler.standby();
+
+        // the pending result has failed and been cancelled, unblocking the
+        // next execution of the non-concurrent job
+        assertTrue(PendingService.invocations.get() >= 2);
+        assertTrue(metrics.getTimeoutCount() >= 1);
+        assertTrue(metrics.getFailureCount() >= 1);
+        assertTrue(PendingService.results.get(0).isCancelled());
+    }
+
+    @Test
+    public void testTimeoutOpensCircuitBreaker() throws Exception {
+        final JobKey jobKey = scheduling.schedule(HangingService.class, "poll",
+                QuartzScheduleSpec.interval(1, IntervalUnit.HOUR).withJobName("breaking").withTimeout(200)
+                        .withCircuitBreakerThreshold(1).withCircuitBreakerDelay(60000));
+        assertTrue(HangingService.interrupted.await(10, TimeUnit.SECONDS));
+        awaitCondition(new Callable<Boolean>() {
+            public Boolean call() throws Exception {
+                return (circuitBreakers.get(jobKey) != null)
+                        && (circuitBreakers.get(jobKey).getState() == CircuitBreaker.State.OPEN);
+            }
+        }, 10000L);
+
+        // the timed out execution counts as a failure of the job
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreakers.get(jobKey).getState());
+    }
+
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+import org.quartz.Scheduler;
+import org.quartz.impl.StdSchedulerFactory;
+
+import com.jensfendler.ninjaquartz.threadpool.ExecutorThreadPool;
+
+/**
+ * Tests for the {@link ExecutorThreadPool}.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class ExecutorThreadPoolTest {
+
+    private ExecutorThreadPool pool;
+
+    @After
+    public void after() {
+        if (pool != null) {
+            pool.shutdown(false);
+        }
+        ExecutorThreadPool.unregisterExecutor("rejecting");
+    }
+
+    @Test
+    public void testBusyCount() throws Exception {
+        pool = createPool(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 2; i++) {
+            assertTrue(pool.runInThread(new Runnable() {
+                public void run() {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }));
+        }
+        assertEquals(2, pool.getBusyCount());
+
+        // with all threads busy, the scheduler thread blocks
+        final AtomicInteger available = new AtomicInteger(-1);
+        Thread scheduler = new Thread() {
+            @Override
+            public void run() {
+                available.set(pool.blockForAvailableThreads());
+            }
+        };
+        scheduler.start();
+        Thread.sleep(100);
+        assertEquals(-1, available.get());
+
+        release.countDown();
+        scheduler.join(10000L);
+        assertTrue(available.get() > 0);
+        long deadline = System.currentTimeMillis() + 10000L;
+        while ((pool.getBusyCount() > 0) && (System.currentTimeMillis() < deadline)) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, pool.getBusyCount());
+        assertEquals(2, pool.blockForAvailableThreads());
+    }
+
+    @Test
+    public void testRejection() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        ExecutorThreadPool.registerExecutor("rejecting", executor);
+        pool = new ExecutorThreadPool();
+        pool.setExecutorName("rejecting");
+        pool.setMaxConcurrency(1);
+        pool.initialize();
+
+        // a rejected job releases its thread again
+        assertFalse(pool.runInThread(new Runnable() {
+            public void run() {
+            }
+        }));
+        assertEquals(0, pool.getBusyCount());
+        assertEquals(1, pool.blockForAvailableThreads());
+    }
+
+    @Test
+    public void testShutdown() throws Exception {
+        pool = createPool(2);
+        final AtomicBoolean completed = new AtomicBoolean();
+        assertTrue(pool.runInThread(new Runnable() {
+            public void run() {
+                try {
+                    Thread.sleep(200);
+                    completed.set(true);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }));
+
+        // shutdown waits for running jobs, and rejects new ones
+        pool.shutdown(true);
+        assertTrue(completed.get());
+        assertEquals(0, pool.getBusyCount());
+        assertFalse(pool.runInThread(new Runnable() {
+            public void run() {
+            }
+        }));
+    }
+
+    @Test
+    public void testSchedulerThreadPool() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(StdSchedulerFactory.PROP_SCHED_INSTANCE_NAME, "ExecutorThreadPoolTest");
+        properties.setProperty(StdSchedulerFactory.PROP_THREAD_POOL_CLASS, ExecutorThreadPool.class.getName());
+        properties.setProperty(StdSchedulerFactory.PROP_THREAD_POOL_PREFIX + ".maxConcurrency", "3");
+        Scheduler scheduler = new StdSchedulerFactory(properties).getScheduler();
+        try {
+            assertEquals(ExecutorThreadPool.class, scheduler.getMetaData().getThreadPoolClass());
+            assertEquals(3, scheduler.getMetaData().getThreadPoolSize());
+        } finally {
+            scheduler.shutdown(true);
+        }
+    }
+
+    private ExecutorThreadPool createPool(int maxConcurrency) throws Exception {
+        ExecutorThreadPool pool = new ExecutorThreadPool();
+        pool.setMaxConcurrency(maxConcurrency);
+        pool.setMakeThreadsDaemons(true);
+        pool.initialize();
+        return pool;
+    }
+
+}
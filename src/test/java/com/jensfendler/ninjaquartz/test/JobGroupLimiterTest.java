@@ -0,0 +1,161 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.quartz.DateBuilder.IntervalUnit;
+
+import com.google.inject.Singleton;
+import com.jensfendler.ninjaquartz.NinjaQuartzScheduling;
+import com.jensfendler.ninjaquartz.QuartzScheduleSpec;
+import com.jensfendler.ninjaquartz.limit.JobGroupLimiter;
+import com.jensfendler.ninjaquartz.limit.JobGroupLimiters;
+import com.jensfendler.ninjaquartz.limit.TokenBucket;
+import com.jensfendler.ninjaquartz.metrics.JobMetricsRegistry;
+
+/**
+ * Tests for the concurrency and rate limits of job groups.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class JobGroupLimiterTest extends AbstractSchedulingTest {
+
+    /**
+     * The target of the limited job, recording the maximum number of
+     * concurrent executions.
+     */
+    @Singleton
+    public static class LimitedService {
+
+        static final AtomicInteger running = new AtomicInteger();
+
+        static final AtomicInteger maxRunning = new AtomicInteger();
+
+        public void callDownstream() throws InterruptedException {
+            int current = running.incrementAndGet();
+            while (current > maxRunning.get()) {
+                maxRunning.compareAndSet(maxRunning.get(), current);
+            }
+            Thread.sleep(100);
+            running.decrementAndGet();
+        }
+    }
+
+    @Override
+    protected Properties getSchedulerProperties() {
+        Properties properties = super.getSchedulerProperties();
+        properties.setProperty("org.quartz.threadPool.threadCount", "4");
+        return properties;
+    }
+
+    @Test
+    public void testBulkhead() {
+        JobGroupLimiter limiter = new JobGroupLimiter("bulkhead", 1, null, 0L);
+        assertTrue(limiter.acquire());
+        assertFalse(limiter.acquire());
+        limiter.release();
+        assertTrue(limiter.acquire());
+    }
+
+    @Test
+    public void testDeferredUntilReleased() throws Exception {
+        final JobGroupLimiter limiter = new JobGroupLimiter("deferred", 1, null, 5000L);
+        assertTrue(limiter.acquire());
+        new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    // release anyway
+                }
+                limiter.release();
+            }
+        }.start();
+        assertTrue(limiter.acquire());
+    }
+
+    @Test
+    public void testInterruptedAcquire() throws Exception {
+        // one token every 5 seconds, which is taken right away
+        TokenBucket tokenBucket = new TokenBucket(0.2, 1);
+        assertTrue(tokenBucket.tryAcquire(0, TimeUnit.MILLISECONDS));
+        final JobGroupLimiter limiter = new JobGroupLimiter("interrupted", 2, tokenBucket, 10000L);
+        final AtomicBoolean acquired = new AtomicBoolean(true);
+        Thread waiting = new Thread() {
+            @Override
+            public void run() {
+                acquired.set(limiter.acquire());
+            }
+        };
+        waiting.start();
+        // wait for the thread to hold a permit while waiting for a token
+        awaitCondition(new Callable<Boolean>() {
+            public Boolean call() throws Exception {
+                return limiter.getAvailableConcurrency() < 2;
+            }
+        }, 10000L);
+        assertEquals(1, limiter.getAvailableConcurrency());
+        waiting.interrupt();
+        waiting.join(10000L);
+
+        // the permit of the interrupted acquire has been released
+        assertFalse(acquired.get());
+        assertEquals(2, limiter.getAvailableConcurrency());
+    }
+
+    @Test
+    public void testRateLimit() throws Exception {
+        // 10 tokens per second, bursts of 2
+        TokenBucket tokenBucket = new TokenBucket(10.0, 2);
+        assertTrue(tokenBucket.tryAcquire(0, TimeUnit.MILLISECONDS));
+        assertTrue(tokenBucket.tryAcquire(0, TimeUnit.MILLISECONDS));
+        assertFalse(tokenBucket.tryAcquire(0, TimeUnit.MILLISECONDS));
+
+        // the next token is available within 100ms
+        long start = System.nanoTime();
+        assertTrue(tokenBucket.tryAcquire(500, TimeUnit.MILLISECONDS));
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+    }
+
+    @Test
+    public void testLimitedJobGroup() throws Exception {
+        injector.getInstance(JobGroupLimiters.class).put(new JobGroupLimiter("limited", 1, null, 0L));
+
+        NinjaQuartzScheduling scheduling = injector.getInstance(NinjaQuartzScheduling.class);
+        scheduling.schedule(LimitedService.class, "callDownstream",
+                QuartzScheduleSpec.interval(20, IntervalUnit.MILLISECOND).withJobName("limited")
+                        .withJobGroup("limited").withAllowConcurrent(true));
+        Thread.sleep(1000);
+        scheduler.standby();
+
+        // fires exceeding the limit have been skipped
+        assertEquals(1, LimitedService.maxRunning.get());
+        assertTrue(injector.getInstance(JobMetricsRegistry.class).getGroup("limited").getMisfireCount() > 0);
+    }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.quartz.impl.StdSchedulerFactory;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.quartz.utils.ConnectionProvider;
+import org.quartz.utils.DBConnectionManager;
+
+import com.jensfendler.ninjaquartz.cluster.ConsistentHashRing;
+import com.jensfendler.ninjaquartz.cluster.JdbcClusterMembership;
+import com.jensfendler.ninjaquartz.cluster.JobPartitioner;
+import com.jensfendler.ninjaquartz.job.NonConcurrentNinjaQuartzJob;
+
+/**
+ * Tests for the partitioning of jobs across nodes, using a heartbeat table in
+ * an embedded H2 database.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class JobPartitionerTest {
+
+    private static final String DATA_SOURCE = "nqPartitionTest";
+
+    private static final int JOBS = 60;
+
+    private Scheduler schedulerA;
+
+    private Scheduler schedulerB;
+
+    @Before
+    public void before() throws Exception {
+        DBConnectionManager.getInstance().addConnectionProvider(DATA_SOURCE, new ConnectionProvider() {
+            public Connection getConnection() throws SQLException {
+                return DriverManager.getConnection("jdbc:h2:mem:nqPartitionTest;DB_CLOSE_DELAY=-1");
+            }
+
+            public void shutdown() {
+            }
+
+            public void initialize() {
+            }
+        });
+        schedulerA = createScheduler("nodeA");
+        schedulerB = createScheduler("nodeB");
+    }
+
+    @After
+    public void after() throws Exception {
+        schedulerA.shutdown();
+        schedulerB.shutdown();
+    }
+
+    @Test
+    public void testRingDistribution() {
+        ConsistentHashRing ring = new ConsistentHashRing(Arrays.asList("node1", "node2", "node3"));
+        Map<String, String> owners = new HashMap<String, String>();
+        Map<String, Integer> counts = new HashMap<String, Integer>();
+        for (int i = 0; i < 3000; i++) {
+            String owner = ring.getOwner("job" + i);
+            owners.put("job" + i, owner);
+            counts.put(owner, counts.containsKey(owner) ? counts.get(owner) + 1 : 1);
+        }
+        for (String node : ring.getNodes()) {
+            assertTrue("Uneven distribution: " + counts, counts.get(node) > 600 && counts.get(node) < 1400);
+        }
+
+        // a joining node only takes over keys, other keys stay where they are
+        ConsistentHashRing grownRing = new ConsistentHashRing(Arrays.asList("node1", "node2", "node3", "node4"));
+        for (Map.Entry<String, String> entry : owners.entrySet()) {
+            String owner = grownRing.getOwner(entry.getKey());
+            assertTrue(owner.equals(entry.getValue()) || owner.equals("node4"));
+        }
+    }
+
+    @Test
+    public void testRebalancing() throws Exception {
+        JobPartitioner partitionerA = createPartitioner("nodeA");
+        JobPartitioner partitionerB = createPartitioner("nodeB");
+
+        // both nodes are alive
+        partitionerB.getMembership().heartbeat();
+        partitionerA.rebalance(schedulerA);
+        partitionerB.rebalance(schedulerB);
+
+        Set<JobKey> jobsA = schedulerA.getJobKeys(GroupMatcher.anyJobGroup());
+        Set<JobKey> jobsB = schedulerB.getJobKeys(GroupMatcher.anyJobGroup());
+        assertEquals(JOBS, jobsA.size() + jobsB.size());
+        assertTrue("Uneven distribution: " + jobsA.size() + "/" + jobsB.size(),
+                jobsA.size() > JOBS / 4 && jobsB.size() > JOBS / 4);
+        for (JobKey jobKey : jobsA) {
+            assertTrue(partitionerA.isLocal(jobKey));
+            assertTrue(!jobsB.contains(jobKey));
+        }
+
+        // node B leaves, node A takes over all jobs
+        partitionerB.leave();
+        partitionerA.rebalance(schedulerA);
+        assertEquals(JOBS, schedulerA.getJobKeys(GroupMatcher.anyJobGroup()).size());
+
+        // node B joins again, node A gives up its jobs again
+        partitionerB.rebalance(schedulerB);
+        partitionerA.rebalance(schedulerA);
+        assertEquals(jobsA, schedulerA.getJobKeys(GroupMatcher.anyJobGroup()));
+    }
+
+    private JobPartitioner createPartitioner(String nodeId) {
+        JobPartitioner partitioner = new JobPartitioner(
+                new JdbcClusterMembership(DATA_SOURCE, JdbcClusterMembership.DEFAULT_TABLE_NAME, nodeId, 60000L),
+                ConsistentHashRing.DEFAULT_VIRTUAL_NODES);
+        for (int i = 0; i < JOBS; i++) {
+            JobDetail jobDetail = JobBuilder.newJob(NonConcurrentNinjaQuartzJob.class).withIdentity("job" + i)
+                    .build();
+            Trigger trigger = TriggerBuilder.newTrigger().withIdentity("trigger" + i)
+                    .withSchedule(CronScheduleBuilder.cronSchedule("0 0 * * * ?")).build();
+            partitioner.register(jobDetail, trigger);
+        }
+        return partitioner;
+    }
+
+    private Scheduler createScheduler(String nodeId) throws Exception {
+        // schedulers which are never started
+        Properties properties = new Properties();
+        properties.setProperty("org.quartz.scheduler.instanceName", "JobPartitionerTest-" + nodeId);
+        properties.setProperty("org.quartz.threadPool.threadCount", "1");
+        return new StdSchedulerFactory(properties).getScheduler();
+    }
+
+}
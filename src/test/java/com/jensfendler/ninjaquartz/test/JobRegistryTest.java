@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.quartz.impl.StdSchedulerFactory;
+
+import com.jensfendler.ninjaquartz.job.ConcurrentNinjaQuartzJob;
+import com.jensfendler.ninjaquartz.registry.JobRegistry;
+
+/**
+ * Tests for the {@link JobRegistry} snapshot of a scheduler's jobs and
+ * triggers.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class JobRegistryTest {
+
+    private Scheduler scheduler;
+
+    private JobRegistry jobRegistry;
+
+    @Before
+    public void before() throws Exception {
+        // a scheduler which is never started
+        Properties properties = new Properties();
+        properties.setProperty("org.quartz.scheduler.instanceName", "JobRegistryTest");
+        properties.setProperty("org.quartz.threadPool.threadCount", "1");
+        scheduler = new StdSchedulerFactory(properties).getScheduler();
+        scheduler.scheduleJob(createJob("job1"), createTrigger("job1"));
+
+        jobRegistry = new JobRegistry();
+        jobRegistry.attach(scheduler);
+    }
+
+    @After
+    public void after() throws Exception {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testSnapshotFollowsChanges() throws Exception {
+        // existing jobs are loaded on first use
+        assertEquals(1, jobRegistry.getAllJobDetails().size());
+        JobDetail job1 = jobRegistry.getJobDetail(JobKey.jobKey("job1"));
+        assertEquals(JobKey.jobKey("job1"), job1.getKey());
+        assertSame(job1, jobRegistry.getJobDetail(JobKey.jobKey("job1")));
+
+        // jobs added later are added to the snapshot
+        scheduler.scheduleJob(createJob("job2"), createTrigger("job2"));
+        Map<JobDetail, Set<? extends Trigger>> batch = new HashMap<JobDetail, Set<? extends Trigger>>();
+        batch.put(createJob("job3"), Collections.singleton(createTrigger("job3")));
+        scheduler.scheduleJobs(batch, false);
+        assertEquals(3, jobRegistry.getAllJobDetails().size());
+        assertEquals(1, jobRegistry.getTriggersOfJob(JobKey.jobKey("job3")).size());
+
+        // triggers added and removed later
+        Trigger secondTrigger = TriggerBuilder.newTrigger().withIdentity("job3-2").forJob("job3")
+                .withSchedule(CronScheduleBuilder.cronSchedule("0 30 * * * ?")).build();
+        scheduler.scheduleJob(secondTrigger);
+        assertEquals(2, jobRegistry.getTriggersOfJob(JobKey.jobKey("job3")).size());
+        scheduler.unscheduleJob(secondTrigger.getKey());
+        assertEquals(1, jobRegistry.getTriggersOfJob(JobKey.jobKey("job3")).size());
+
+        // deleted jobs are removed
+        scheduler.deleteJob(JobKey.jobKey("job2"));
+        assertNull(jobRegistry.getJobDetail(JobKey.jobKey("job2")));
+        assertTrue(jobRegistry.getTriggersOfJob(JobKey.jobKey("job2")).isEmpty());
+        assertEquals(2, jobRegistry.getAllJobDetails().size());
+    }
+
+    private JobDetail createJob(String name) {
+        return JobBuilder.newJob(ConcurrentNinjaQuartzJob.class).withIdentity(name).build();
+    }
+
+    private Trigger createTrigger(String name) {
+        return TriggerBuilder.newTrigger().withIdentity(name)
+                .withSchedule(CronScheduleBuilder.cronSchedule("0 0 * * * ?")).build();
+    }
+
+}
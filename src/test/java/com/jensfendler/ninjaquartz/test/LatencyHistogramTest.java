@@ -0,0 +1,82 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.jensfendler.ninjaquartz.metrics.LatencyHistogram;
+
+/**
+ * Tests for the {@link LatencyHistogram}.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testEmptyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0L, histogram.getCount());
+        assertEquals(0L, histogram.getMax());
+        assertEquals(0L, histogram.getValueAtPercentile(99.0));
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10; value++) {
+            histogram.record(value);
+        }
+        assertEquals(10L, histogram.getCount());
+        assertEquals(5L, histogram.getValueAtPercentile(50.0));
+        assertEquals(10L, histogram.getValueAtPercentile(100.0));
+        assertEquals(5.5, histogram.getMean(), 0.0001);
+    }
+
+    @Test
+    public void testPercentilesWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100000; value++) {
+            histogram.record(value * 1000L);
+        }
+        assertEquals(100000L, histogram.getCount());
+        assertEquals(100000000L, histogram.getMax());
+        assertWithinPrecision(50000000L, histogram.getValueAtPercentile(50.0));
+        assertWithinPrecision(99000000L, histogram.getValueAtPercentile(99.0));
+        assertEquals(100000000L, histogram.getValueAtPercentile(100.0));
+    }
+
+    @Test
+    public void testOutOfRangeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5L);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(2L, histogram.getCount());
+        assertEquals(0L, histogram.getValueAtPercentile(50.0));
+        assertEquals(LatencyHistogram.MAX_TRACKABLE_VALUE, histogram.getMax());
+        assertEquals(LatencyHistogram.MAX_TRACKABLE_VALUE, histogram.getValueAtPercentile(100.0));
+    }
+
+    private void assertWithinPrecision(long expected, long actual) {
+        assertTrue("Expected " + expected + ", but got " + actual, actual >= expected);
+        assertTrue("Expected " + expected + ", but got " + actual, actual <= expected + (expected / 16));
+    }
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import com.jensfendler.ninjaquartz.invoker.MethodHandleInvokerFactory;
+import com.jensfendler.ninjaquartz.invoker.MethodInvoker;
+import com.jensfendler.ninjaquartz.invoker.MethodInvokerFactory;
+import com.jensfendler.ninjaquartz.invoker.ReflectionInvokerFactory;
+
+/**
+ * Tests that all {@link MethodInvokerFactory} implementations create invokers
+ * with the same contract as {@link Method#invoke(Object, Object...)}.
+ * 
+ * @author Jens Fendler
+ *
+ */
+@RunWith(Parameterized.class)
+public class MethodInvokerTest {
+
+    /**
+     * The target of the invokers.
+     */
+    public static class Target {
+
+        public String greet(String name, int times) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < times; i++) {
+                sb.append("Hello ").append(name).append('.');
+            }
+            return sb.toString();
+        }
+
+        public void run() {
+        }
+
+        public static long twice(long value) {
+            return 2 * value;
+        }
+
+        public void fail(Object value) {
+            // a ClassCastException thrown by the method itself
+            ((Number) value).intValue();
+        }
+    }
+
+    /**
+     * A public method of a non-public class.
+     */
+    static class HiddenTarget {
+
+        public String hidden() {
+            return "hidden";
+        }
+    }
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> factories() {
+        return Arrays.asList(new Object[][] { { "MethodHandle", new MethodHandleInvokerFactory() }, //
+                { "Reflection", new ReflectionInvokerFactory() } });
+    }
+
+    private final MethodInvokerFactory factory;
+
+    public MethodInvokerTest(String name, MethodInvokerFactory factory) {
+        this.factory = factory;
+    }
+
+    @Test
+    public void testInvoke() throws Exception {
+        MethodInvoker invoker = createInvoker(new Target(), "greet", String.class, int.class);
+        assertEquals("Hello Ninja.Hello Ninja.", invoker.invoke(new Object[] { "Ninja", 2 }));
+    }
+
+    @Test
+    public void testVoidAndStaticMethods() throws Exception {
+        assertNull(createInvoker(new Target(), "run").invoke(new Object[0]));
+        assertEquals(42L, createInvoker(null, "twice", long.class).invoke(new Object[] { 21L }));
+        assertEquals("hidden",
+                factory.createInvoker(new HiddenTarget(), HiddenTarget.class.getMethod("hidden")).invoke(new Object[0]));
+    }
+
+    @Test
+    public void testExceptionOfMethod() throws Exception {
+        MethodInvoker invoker = createInvoker(new Target(), "fail", Object.class);
+        try {
+            invoker.invoke(new Object[] { "not a number" });
+            fail("Invocation did not fail.");
+        } catch (InvocationTargetException e) {
+            assertTrue(e.getCause() instanceof ClassCastException);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongArgumentCount() throws Exception {
+        createInvoker(new Target(), "greet", String.class, int.class).invoke(new Object[] { "Ninja" });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongArgumentType() throws Exception {
+        createInvoker(new Target(), "greet", String.class, int.class).invoke(new Object[] { 2, "Ninja" });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullPrimitiveArgument() throws Exception {
+        createInvoker(new Target(), "greet", String.class, int.class).invoke(new Object[] { "Ninja", null });
+    }
+
+    @Test
+    public void testNullArgument() throws Exception {
+        MethodInvoker invoker = createInvoker(new Target(), "greet", String.class, int.class);
+        assertEquals("Hello null.", invoker.invoke(new Object[] { null, 1 }));
+    }
+
+    private MethodInvoker createInvoker(Object target, String methodName, Class<?>... parameterTypes)
+            throws NoSuchMethodException {
+        return factory.createInvoker(target, Target.class.getMethod(methodName, parameterTypes));
+    }
+
+}
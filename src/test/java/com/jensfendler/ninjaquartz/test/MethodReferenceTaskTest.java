@@ -0,0 +1,130 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.JobBuilder;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.TriggerBuilder;
+import org.quartz.impl.JobExecutionContextImpl;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.TriggerFiredBundle;
+
+import com.google.inject.Guice;
+import com.google.inject.Singleton;
+import com.jensfendler.ninjaquartz.job.AbstractNinjaQuartzJob;
+import com.jensfendler.ninjaquartz.job.MethodReferenceResolver;
+import com.jensfendler.ninjaquartz.job.MethodReferenceTask;
+import com.jensfendler.ninjaquartz.job.NonConcurrentNinjaQuartzJob;
+
+/**
+ * Checks that jobs of scheduled methods can be serialized (as by a JDBC job
+ * store) and executed after being deserialized.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class MethodReferenceTaskTest extends AbstractSchedulingTest {
+
+    /**
+     * The target of the referenced method, as bound in Guice.
+     */
+    @Singleton
+    public static class ReferencedTarget {
+
+        final AtomicInteger invocations = new AtomicInteger();
+
+        public void scheduledMethod(JobExecutionContext context) {
+            invocations.incrementAndGet();
+        }
+    }
+
+    private ReferencedTarget target;
+
+    @Override
+    @Before
+    public void before() throws Exception {
+        // a scheduler which is never started, providing the resolver
+        super.before();
+        target = injector.getInstance(ReferencedTarget.class);
+        scheduler.getContext().put(MethodReferenceResolver.SCHEDULER_CONTEXT_KEY, scheduleHelper);
+    }
+
+    @Test
+    public void testExecuteDeserializedJob() throws Exception {
+        MethodReferenceTask reference = new MethodReferenceTask("referenceTest", ReferencedTarget.class,
+                ReferencedTarget.class.getMethod("scheduledMethod", JobExecutionContext.class));
+
+        JobDetail jobDetail = JobBuilder.newJob(NonConcurrentNinjaQuartzJob.class).withIdentity("referenceTest")
+                .build();
+        jobDetail.getJobDataMap().put(AbstractNinjaQuartzJob.JOB_TASK_KEY, reference);
+        jobDetail.getJobDataMap().put(AbstractNinjaQuartzJob.JOB_REMOVE_ON_RUNTIME_ERROR, false);
+        jobDetail.getJobDataMap().put(AbstractNinjaQuartzJob.JOB_FORCE_KEEP, false);
+
+        // store and load the job data twice, as a JDBC job store would
+        for (int i = 1; i <= 2; i++) {
+            JobDataMap jobDataMap = serializeAndDeserialize(jobDetail.getJobDataMap());
+            assertNotSame(reference, jobDataMap.get(AbstractNinjaQuartzJob.JOB_TASK_KEY));
+            assertEquals(reference, jobDataMap.get(AbstractNinjaQuartzJob.JOB_TASK_KEY));
+
+            JobDetail loadedJobDetail = jobDetail.getJobBuilder().usingJobData(jobDataMap).build();
+            new NonConcurrentNinjaQuartzJob().execute(createContext(loadedJobDetail));
+            assertEquals(i, target.invocations.get());
+        }
+
+        // the reference is resolved only once
+        assertSame(scheduleHelper.resolve(reference), scheduleHelper.resolve(reference));
+    }
+
+    private JobExecutionContext createContext(JobDetail jobDetail) {
+        OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger().forJob(jobDetail)
+                .withSchedule(CronScheduleBuilder.cronSchedule("0/1 * * * * ?")).build();
+        trigger.computeFirstFireTime(null);
+        Date now = new Date();
+        TriggerFiredBundle bundle = new TriggerFiredBundle(jobDetail, trigger, null, false, now, now, null,
+                trigger.getNextFireTime());
+        return new JobExecutionContextImpl(scheduler, bundle, new NonConcurrentNinjaQuartzJob());
+    }
+
+    private JobDataMap serializeAndDeserialize(JobDataMap jobDataMap) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(jobDataMap);
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        try {
+            return (JobDataMap) in.readObject();
+        } finally {
+            in.close();
+        }
+    }
+
+}
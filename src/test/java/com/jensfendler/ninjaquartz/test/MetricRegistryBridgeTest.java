@@ -0,0 +1,103 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.JobKey;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.jensfendler.ninjaquartz.metrics.JobMetrics;
+import com.jensfendler.ninjaquartz.metrics.JobMetricsRegistry;
+import com.jensfendler.ninjaquartz.metrics.MetricRegistryBridge;
+
+/**
+ * Tests for the gauges published by the {@link MetricRegistryBridge}.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class MetricRegistryBridgeTest {
+
+    private static final JobKey JOB_KEY = JobKey.jobKey("job", "group");
+
+    private JobMetricsRegistry jobMetricsRegistry;
+
+    private MetricRegistry metricRegistry;
+
+    @Before
+    public void before() {
+        jobMetricsRegistry = new JobMetricsRegistry();
+        metricRegistry = new MetricRegistry();
+        new MetricRegistryBridge(jobMetricsRegistry).registerWith(metricRegistry);
+    }
+
+    @Test
+    public void testGauges() {
+        JobMetrics metrics = jobMetricsRegistry.getOrCreate(JOB_KEY);
+        metrics.recordFire(5);
+        metrics.recordExecution(1000000L, true);
+
+        assertEquals(1L, getGaugeValue("ninjaquartz.group.job.fires"));
+        assertEquals(1L, getGaugeValue("ninjaquartz.group.job.successes"));
+        assertEquals(1000L, getGaugeValue("ninjaquartz.group.job.lastDuration"));
+        assertTrue(metricRegistry.getGauges().containsKey("ninjaquartz.group.misfires"));
+    }
+
+    @Test
+    public void testRecreatedJob() {
+        JobMetrics metrics = jobMetricsRegistry.getOrCreate(JOB_KEY);
+        metrics.recordFire(5);
+        metrics.recordExecution(1000L, false);
+
+        // deleting the job removes its gauges (and those of its empty group)
+        jobMetricsRegistry.remove(JOB_KEY);
+        assertFalse(metricRegistry.getGauges().containsKey("ninjaquartz.group.job.fires"));
+        assertFalse(metricRegistry.getGauges().containsKey("ninjaquartz.group.misfires"));
+
+        // the gauges of the re-created job read its new metrics
+        JobMetrics newMetrics = jobMetricsRegistry.getOrCreate(JOB_KEY);
+        newMetrics.recordFire(5);
+        newMetrics.recordFire(5);
+        assertEquals(2L, getGaugeValue("ninjaquartz.group.job.fires"));
+        assertEquals(0L, getGaugeValue("ninjaquartz.group.job.failures"));
+        assertTrue(metricRegistry.getGauges().containsKey("ninjaquartz.group.misfires"));
+    }
+
+    @Test
+    public void testGroupOfRemainingJobs() {
+        jobMetricsRegistry.getOrCreate(JOB_KEY);
+        jobMetricsRegistry.getOrCreate(JobKey.jobKey("other", "group"));
+
+        // the group's gauges stay as long as the group has jobs
+        jobMetricsRegistry.remove(JOB_KEY);
+        assertFalse(metricRegistry.getGauges().containsKey("ninjaquartz.group.job.fires"));
+        assertTrue(metricRegistry.getGauges().containsKey("ninjaquartz.group.other.fires"));
+        assertTrue(metricRegistry.getGauges().containsKey("ninjaquartz.group.misfires"));
+    }
+
+    private Object getGaugeValue(String name) {
+        @SuppressWarnings("rawtypes")
+        Gauge gauge = metricRegistry.getGauges().get(name);
+        return gauge.getValue();
+    }
+
+}
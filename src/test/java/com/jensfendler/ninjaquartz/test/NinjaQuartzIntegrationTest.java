@@ -88,7 +88,7 @@ public class NinjaQuartzIntegrationTest {
         assertTrue("Schedules page failed with code " + response.code(), response.isSuccessful());
 
         String[] values = response.body().string().split(",");
-        assertTrue("Expected (5) values not received", (values != null) && (values.length == 5));
+        assertTrue("Expected (8) values not received", (values != null) && (values.length == 8));
 
         for (int i = 0; i < values.length; i++) {
             try {
@@ -101,6 +101,61 @@ public class NinjaQuartzIntegrationTest {
         }
     }
 
+    @Test
+    public void testJobMetrics() throws Exception {
+        // wait for all test jobs to have completed at least one execution
+        String[] lines = null;
+        for (int attempt = 0; attempt < 30; attempt++) {
+            Response response = requestGet("/metrics");
+            assertTrue("Metrics page failed with code " + response.code(), response.isSuccessful());
+            lines = response.body().string().split("\n");
+            if ((lines.length == 8) && allJobsSucceeded(lines)) {
+                break;
+            }
+            Thread.sleep(500);
+        }
+        assertTrue("Expected metrics of (8) jobs not received", (lines != null) && (lines.length == 8));
+
+        for (String line : lines) {
+            String[] values = line.split(",");
+            long fires = Long.parseLong(values[1]);
+            long successes = Long.parseLong(values[2]);
+            long failures = Long.parseLong(values[3]);
+            assertTrue("Job " + values[0] + " has no successful executions", successes > 0);
+            assertEquals("Job " + values[0] + " has failed executions", 0, failures);
+            assertTrue("Job " + values[0] + " has more completed executions than fires",
+                    fires >= successes + failures);
+        }
+    }
+
+    @Test
+    public void testJobGroupMetrics() throws Exception {
+        // all test jobs are in the same (default) job group
+        String[] values = null;
+        for (int attempt = 0; attempt < 30; attempt++) {
+            Response response = requestGet("/groupMetrics");
+            assertTrue("Group metrics page failed with code " + response.code(), response.isSuccessful());
+            values = response.body().string().split(",");
+            if ((values.length == 3) && !"0".equals(values[1])) {
+                break;
+            }
+            Thread.sleep(500);
+        }
+        assertTrue("Expected metrics of (1) job group not received", (values != null) && (values.length == 3));
+        assertEquals("nqJG-ninja.app.modules.TestSchedules", values[0]);
+        assertTrue("No scheduling lags recorded", Long.parseLong(values[1]) > 0);
+    }
+
+    private boolean allJobsSucceeded(String[] lines) {
+        for (String line : lines) {
+            String[] values = line.split(",");
+            if ((values.length != 4) || "0".equals(values[2])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * HTTP Client Helper method to issue a GET request
      * 
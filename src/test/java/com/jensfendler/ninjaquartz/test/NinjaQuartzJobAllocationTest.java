@@ -0,0 +1,148 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.Date;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.Scheduler;
+import org.quartz.TriggerBuilder;
+import org.quartz.impl.JobExecutionContextImpl;
+import org.quartz.impl.StdSchedulerFactory;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.TriggerFiredBundle;
+
+import com.google.inject.Guice;
+import com.jensfendler.ninjaquartz.invoker.ArgumentBindingPlan;
+import com.jensfendler.ninjaquartz.invoker.MethodHandleInvokerFactory;
+import com.jensfendler.ninjaquartz.job.AbstractNinjaQuartzJob;
+import com.jensfendler.ninjaquartz.job.NinjaQuartzMethodTask;
+import com.jensfendler.ninjaquartz.job.NonConcurrentNinjaQuartzJob;
+import com.jensfendler.ninjaquartz.metrics.JobMetrics;
+import com.jensfendler.ninjaquartz.metrics.JobMetricsRegistry;
+
+/**
+ * Checks that the steady-state execution of a job wrapper (including the
+ * recording of its metrics) does not allocate any objects (beyond the ones
+ * created by Quartz itself before the job is executed).
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class NinjaQuartzJobAllocationTest {
+
+    private static final int WARMUP_FIRES = 50000;
+
+    private static final int MEASURED_FIRES = 100000;
+
+    private int invocations;
+
+    private AbstractNinjaQuartzJob job;
+
+    private JobExecutionContext context;
+
+    private Scheduler scheduler;
+
+    private JobMetricsRegistry jobMetricsRegistry;
+
+    /**
+     * The scheduled method.
+     */
+    public void scheduledMethod() {
+        invocations++;
+    }
+
+    @Before
+    public void before() throws Exception {
+        Method method = getClass().getMethod("scheduledMethod");
+        NinjaQuartzMethodTask task = new NinjaQuartzMethodTask("scheduledMethod", method,
+                new MethodHandleInvokerFactory().createInvoker(this, method),
+                ArgumentBindingPlan.create(method, Guice.createInjector()));
+
+        JobDetail jobDetail = JobBuilder.newJob(NonConcurrentNinjaQuartzJob.class).withIdentity("allocationTest")
+                .withDescription("Allocation Test").build();
+        jobDetail.getJobDataMap().put(AbstractNinjaQuartzJob.JOB_TASK_KEY, task);
+        jobDetail.getJobDataMap().put(AbstractNinjaQuartzJob.JOB_REMOVE_ON_RUNTIME_ERROR, false);
+        jobDetail.getJobDataMap().put(AbstractNinjaQuartzJob.JOB_FORCE_KEEP, false);
+
+        OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger().forJob(jobDetail)
+                .withSchedule(CronScheduleBuilder.cronSchedule("0/1 * * * * ?")).build();
+        trigger.computeFirstFireTime(null);
+        Date now = new Date();
+        TriggerFiredBundle bundle = new TriggerFiredBundle(jobDetail, trigger, null, false, now, now, null,
+                trigger.getNextFireTime());
+
+        // a scheduler which is never started, providing the metrics registry
+        Properties properties = new Properties();
+        properties.setProperty("org.quartz.scheduler.instanceName", "NinjaQuartzJobAllocationTest");
+        properties.setProperty("org.quartz.threadPool.threadCount", "1");
+        scheduler = new StdSchedulerFactory(properties).getScheduler();
+        jobMetricsRegistry = new JobMetricsRegistry();
+        scheduler.getContext().put(JobMetricsRegistry.SCHEDULER_CONTEXT_KEY, jobMetricsRegistry);
+
+        job = new NonConcurrentNinjaQuartzJob();
+        context = new JobExecutionContextImpl(scheduler, bundle, job);
+    }
+
+    @After
+    public void after() throws Exception {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testSteadyStateExecutionDoesNotAllocate() throws Exception {
+        java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        assumeTrue("Thread allocation counters are not supported by this JVM",
+                threadMXBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        assumeTrue("Thread allocation counters are not enabled",
+                allocationMXBean.isThreadAllocatedMemorySupported()
+                        && allocationMXBean.isThreadAllocatedMemoryEnabled());
+
+        for (int i = 0; i < WARMUP_FIRES; i++) {
+            job.execute(context);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = allocationMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_FIRES; i++) {
+            job.execute(context);
+        }
+        long allocated = allocationMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        assertEquals(WARMUP_FIRES + MEASURED_FIRES, invocations);
+        JobMetrics jobMetrics = jobMetricsRegistry.get(context.getJobDetail().getKey());
+        assertEquals(WARMUP_FIRES + MEASURED_FIRES, jobMetrics.getSuccessCount());
+        // allow for a few bytes allocated by the measurement itself, but not
+        // for a single object per fire
+        assertTrue("Executing " + MEASURED_FIRES + " fires allocated " + allocated + " bytes",
+                allocated < MEASURED_FIRES);
+    }
+
+}
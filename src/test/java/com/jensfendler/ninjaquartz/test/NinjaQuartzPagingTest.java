@@ -0,0 +1,164 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerFactory;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.quartz.TriggerKey;
+import org.quartz.impl.StdSchedulerFactory;
+import org.quartz.impl.matchers.GroupMatcher;
+
+import com.google.inject.Provider;
+import com.jensfendler.ninjaquartz.NinjaQuartzPage;
+import com.jensfendler.ninjaquartz.NinjaQuartzUtil;
+import com.jensfendler.ninjaquartz.NinjaQuartzUtilImpl;
+import com.jensfendler.ninjaquartz.job.ConcurrentNinjaQuartzJob;
+
+/**
+ * Tests for the paged and iterated job and trigger queries of the
+ * {@link NinjaQuartzUtil}.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class NinjaQuartzPagingTest {
+
+    private static final String GROUP = "pagingTest";
+
+    private static final int JOB_COUNT = 25;
+
+    private Scheduler scheduler;
+
+    private NinjaQuartzUtil quartzUtil;
+
+    @Before
+    public void before() throws Exception {
+        // a scheduler which is never started
+        Properties properties = new Properties();
+        properties.setProperty("org.quartz.scheduler.instanceName", "NinjaQuartzPagingTest");
+        properties.setProperty("org.quartz.threadPool.threadCount", "1");
+        final SchedulerFactory schedulerFactory = new StdSchedulerFactory(properties);
+        scheduler = schedulerFactory.getScheduler();
+        for (int i = 0; i < JOB_COUNT; i++) {
+            JobDetail job = JobBuilder.newJob(ConcurrentNinjaQuartzJob.class).withIdentity("job" + i, GROUP).build();
+            Trigger trigger = TriggerBuilder.newTrigger().withIdentity("trigger" + i, GROUP)
+                    .withSchedule(CronScheduleBuilder.cronSchedule("0 0 * * * ?")).build();
+            scheduler.scheduleJob(job, trigger);
+        }
+
+        // constructed directly (without Guice), as before the job registry
+        quartzUtil = new NinjaQuartzUtilImpl(new Provider<SchedulerFactory>() {
+            public SchedulerFactory get() {
+                return schedulerFactory;
+            }
+        });
+    }
+
+    @After
+    public void after() throws Exception {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testJobPages() throws Exception {
+        Set<JobKey> seen = new HashSet<JobKey>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            NinjaQuartzPage<JobDetail> page = quartzUtil.getJobDetails(GroupMatcher.jobGroupEquals(GROUP), cursor,
+                    10);
+            assertTrue(page.getItems().size() <= 10);
+            for (JobDetail jobDetail : page.getItems()) {
+                assertTrue("Job " + jobDetail.getKey() + " listed twice", seen.add(jobDetail.getKey()));
+            }
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(JOB_COUNT, seen.size());
+        assertEquals(3, pages);
+    }
+
+    @Test
+    public void testJobsDeletedBetweenPages() throws Exception {
+        NinjaQuartzPage<JobDetail> first = quartzUtil.getJobDetails(GroupMatcher.jobGroupEquals(GROUP), null, 5);
+        assertTrue(first.hasNext());
+
+        // deleting the last job of the page does not invalidate its cursor
+        scheduler.deleteJob(first.getItems().get(4).getKey());
+        NinjaQuartzPage<JobDetail> rest = quartzUtil.getJobDetails(GroupMatcher.jobGroupEquals(GROUP),
+                first.getNextCursor(), 100);
+        assertEquals(JOB_COUNT - 5, rest.getItems().size());
+        assertFalse(rest.hasNext());
+        assertNull(rest.getNextCursor());
+    }
+
+    @Test
+    public void testTriggerPages() throws Exception {
+        Set<TriggerKey> seen = new HashSet<TriggerKey>();
+        String cursor = null;
+        do {
+            NinjaQuartzPage<Trigger> page = quartzUtil.getTriggers(GroupMatcher.triggerGroupEquals(GROUP), cursor, 7);
+            for (Trigger trigger : page.getItems()) {
+                assertTrue("Trigger " + trigger.getKey() + " listed twice", seen.add(trigger.getKey()));
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(JOB_COUNT, seen.size());
+    }
+
+    @Test
+    public void testIterators() throws Exception {
+        int jobs = 0;
+        for (JobDetail jobDetail : quartzUtil.iterateJobDetails(GroupMatcher.jobGroupEquals(GROUP))) {
+            assertEquals(GROUP, jobDetail.getKey().getGroup());
+            jobs++;
+        }
+        assertEquals(JOB_COUNT, jobs);
+
+        int triggers = 0;
+        for (Trigger trigger : quartzUtil.iterateTriggers(GroupMatcher.triggerGroupEquals(GROUP))) {
+            assertEquals(GROUP, trigger.getKey().getGroup());
+            triggers++;
+        }
+        assertEquals(JOB_COUNT, triggers);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCursor() throws Exception {
+        quartzUtil.getJobDetails(GroupMatcher.jobGroupEquals(GROUP), "not-a-cursor", 10);
+    }
+
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.CalendarIntervalTrigger;
+import org.quartz.CronTrigger;
+import org.quartz.DailyTimeIntervalTrigger;
+import org.quartz.DateBuilder.IntervalUnit;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.SimpleTrigger;
+import org.quartz.TimeOfDay;
+import org.quartz.Trigger;
+import org.quartz.TriggerKey;
+import org.quartz.impl.StdSchedulerFactory;
+
+import com.google.inject.Guice;
+import com.google.inject.Singleton;
+import com.jensfendler.ninjaquartz.NinjaQuartzScheduling;
+import com.jensfendler.ninjaquartz.QuartzScheduleSpec;
+import com.jensfendler.ninjaquartz.annotations.QuartzSchedule;
+import com.jensfendler.ninjaquartz.annotations.QuartzSchedules;
+import com.jensfendler.ninjaquartz.annotations.TriggerType;
+import com.jensfendler.ninjaquartz.job.NonConcurrentNinjaQuartzJob;
+
+/**
+ * Tests for scheduling jobs at runtime with {@link NinjaQuartzScheduling}.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class NinjaQuartzSchedulingTest extends AbstractSchedulingTest {
+
+    /**
+     * The target of the scheduled method, as bound in Guice.
+     */
+    @Singleton
+    public static class TenantService {
+
+        public void runTenantJob() {
+        }
+    }
+
+    /**
+     * A class with several schedules for the same (overloaded) method.
+     */
+    public static class MultiScheduledService {
+
+        @QuartzSchedules({ @QuartzSchedule(cronSchedule = "0 0 8 * * ?"),
+                @QuartzSchedule(cronSchedule = "0 0 20 * * ?") })
+        public void report() {
+        }
+
+        @QuartzSchedule(cronSchedule = "0 0 12 * * ?")
+        public void report(JobExecutionContext context) {
+        }
+    }
+
+    @Override
+    @Before
+    public void before() throws Exception {
+        super.before();
+    }
+
+    @Test
+    public void testBulkScheduleUpdateAndDelete() throws Exception {
+        List<QuartzScheduleSpec> specs = new ArrayList<QuartzScheduleSpec>();
+        for (int i = 0; i < 100; i++) {
+            specs.add(QuartzScheduleSpec.cron("0 0 * * * ?").withJobName("tenant-" + i));
+        }
+        List<JobKey> jobKeys = scheduling.scheduleAll(TenantService.class, "runTenantJob", specs);
+
+        assertEquals(100, jobKeys.size());
+        JobKey jobKey = JobKey.jobKey("tenant-7", "nqJG-" + TenantService.class.getName());
+        assertEquals(jobKey, jobKeys.get(7));
+        // the same job wrapper as for annotated methods
+        assertEquals(NonConcurrentNinjaQuartzJob.class, scheduler.getJobDetail(jobKey).getJobClass());
+        assertNotNull(jobMetricsRegistry.get(jobKey));
+
+        // each job has its own trigger
+        List<? extends Trigger> triggers = scheduler.getTriggersOfJob(jobKey);
+        assertEquals(1, triggers.size());
+        assertEquals(TriggerKey.triggerKey("nqCT-tenant-7", "nqCTG-" + TenantService.class.getName()),
+                triggers.get(0).getKey());
+
+        // scheduling a job again updates its schedule
+        scheduling.schedule(TenantService.class, "runTenantJob",
+                QuartzScheduleSpec.cron("0 30 * * * ?").withJobName("tenant-7"));
+        triggers = scheduler.getTriggersOfJob(jobKey);
+        assertEquals(1, triggers.size());
+        assertEquals("0 30 * * * ?", ((CronTrigger) triggers.get(0)).getCronExpression());
+
+        assertTrue(scheduling.unscheduleAll(jobKeys));
+        assertFalse(scheduler.checkExists(jobKey));
+        assertNull(jobMetricsRegistry.get(jobKey));
+    }
+
+    @Test
+    public void testScheduleRunnable() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        JobKey jobKey = scheduling.schedule(new Runnable() {
+            public void run() {
+                latch.countDown();
+            }
+        }, QuartzScheduleSpec.cron("0/1 * * * * ?").withJobName("runnable"));
+
+        assertTrue("Runnable not run", latch.await(5, TimeUnit.SECONDS));
+        assertTrue(scheduling.unschedule(jobKey));
+    }
+
+    @Test
+    public void testTriggerTypes() throws Exception {
+        JobKey simple = scheduling.schedule(TenantService.class, "runTenantJob",
+                QuartzScheduleSpec.interval(250, IntervalUnit.MILLISECOND).withJobName("simple"));
+        SimpleTrigger simpleTrigger = (SimpleTrigger) scheduler.getTriggersOfJob(simple).get(0);
+        assertEquals(250, simpleTrigger.getRepeatInterval());
+        assertEquals(SimpleTrigger.REPEAT_INDEFINITELY, simpleTrigger.getRepeatCount());
+
+        JobKey calendar = scheduling.schedule(TenantService.class, "runTenantJob",
+                QuartzScheduleSpec.interval(1, IntervalUnit.MONTH).withTriggerType(TriggerType.CALENDAR_INTERVAL)
+                        .withJobName("calendar"));
+        CalendarIntervalTrigger calendarTrigger = (CalendarIntervalTrigger) scheduler.getTriggersOfJob(calendar)
+                .get(0);
+        assertEquals(IntervalUnit.MONTH, calendarTrigger.getRepeatIntervalUnit());
+
+        JobKey daily = scheduling.schedule(TenantService.class, "runTenantJob",
+                QuartzScheduleSpec.interval(15, IntervalUnit.MINUTE).withTriggerType(TriggerType.DAILY_TIME_INTERVAL)
+                        .withDailyStartTime("08:00").withDailyEndTime("17:30")
+                        .withDaysOfWeek(Calendar.MONDAY, Calendar.FRIDAY).withJobName("daily"));
+        DailyTimeIntervalTrigger dailyTrigger = (DailyTimeIntervalTrigger) scheduler.getTriggersOfJob(daily).get(0);
+        assertEquals(15, dailyTrigger.getRepeatInterval());
+        assertEquals(new TimeOfDay(8, 0), dailyTrigger.getStartTimeOfDay());
+        assertEquals(new TimeOfDay(17, 30), dailyTrigger.getEndTimeOfDay());
+        assertEquals(2, dailyTrigger.getDaysOfWeek().size());
+    }
+
+    @Test
+    public void testRepeatedSchedules() throws Exception {
+        // as after application start
+        scheduleHelper.start();
+        scheduleHelper.scheduleTarget(new MultiScheduledService());
+        String jobGroup = "nqJG-" + MultiScheduledService.class.getName();
+        String triggerGroup = "nqCTG-" + MultiScheduledService.class.getName();
+
+        // one job with a trigger for each schedule
+        JobKey jobKey = JobKey.jobKey("nqJ-report()", jobGroup);
+        List<? extends Trigger> triggers = scheduler.getTriggersOfJob(jobKey);
+        assertEquals(2, triggers.size());
+        assertTrue(scheduler.checkExists(TriggerKey.triggerKey("nqCT-report()", triggerGroup)));
+        assertEquals("0 0 20 * * ?",
+                ((CronTrigger) scheduler.getTrigger(TriggerKey.triggerKey("nqCT-report()-2", triggerGroup)))
+                        .getCronExpression());
+
+        // the overloaded method is a separate job
+        JobKey overloaded = JobKey.jobKey("nqJ-report(JobExecutionContext)", jobGroup);
+        assertEquals(1, scheduler.getTriggersOfJob(overloaded).size());
+        assertTrue(scheduler.checkExists(TriggerKey.triggerKey("nqCT-report(JobExecutionContext)", triggerGroup)));
+    }
+
+    @Test
+    public void testNamedScheduler() throws Exception {
+        JobKey jobKey = scheduling.schedule(TenantService.class, "runTenantJob",
+                QuartzScheduleSpec.cron("0 0 * * * ?").withJobName("batch").withScheduler("batch"));
+
+        // the job runs in the scheduler configured in application.conf only
+        Scheduler batchScheduler = new StdSchedulerFactory().getScheduler("batch");
+        assertNotNull(batchScheduler);
+        assertEquals(2, batchScheduler.getMetaData().getThreadPoolSize());
+        assertTrue(batchScheduler.checkExists(jobKey));
+        assertFalse(scheduler.checkExists(jobKey));
+
+        assertTrue(scheduling.unschedule(jobKey));
+        assertFalse(batchScheduler.checkExists(jobKey));
+    }
+
+    @Test(expected = SchedulerException.class)
+    public void testUnknownScheduler() throws Exception {
+        scheduling.schedule(TenantService.class, "runTenantJob",
+                QuartzScheduleSpec.cron("0 0 * * * ?").withJobName("unknown").withScheduler("noSuchScheduler"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedIntervalUnit() throws Exception {
+        // simple triggers do not support calendar months
+        scheduling.schedule(TenantService.class, "runTenantJob",
+                QuartzScheduleSpec.interval(1, IntervalUnit.MONTH).withJobName("invalid"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSchedule() throws Exception {
+        scheduling.schedule(TenantService.class, "runTenantJob",
+                QuartzScheduleSpec.cron("not a cron expression").withJobName("invalid"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownMethod() throws Exception {
+        scheduling.schedule(TenantService.class, "noSuchMethod", QuartzScheduleSpec.cron("0 0 * * * ?"));
+    }
+
+}
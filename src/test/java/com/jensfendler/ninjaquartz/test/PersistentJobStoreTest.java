@@ -0,0 +1,168 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.DateBuilder.IntervalUnit;
+import org.quartz.JobKey;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.quartz.utils.ConnectionProvider;
+import org.quartz.utils.DBConnectionManager;
+
+import com.google.inject.Singleton;
+import com.jensfendler.ninjaquartz.QuartzScheduleSpec;
+import com.jensfendler.ninjaquartz.job.AbstractNinjaQuartzJob;
+import com.jensfendler.ninjaquartz.job.MethodReferenceTask;
+import com.jensfendler.ninjaquartz.metrics.JobMetrics;
+
+/**
+ * Tests scheduled methods in a JDBC job store (JobStoreTX on an in-memory H2
+ * database), where the jobs reference their methods with a
+ * {@link MethodReferenceTask}.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class PersistentJobStoreTest extends AbstractSchedulingTest {
+
+    private static final String DATA_SOURCE = "nqJobStoreTest";
+
+    private static final String URL = "jdbc:h2:mem:nqJobStoreTest;DB_CLOSE_DELAY=-1";
+
+    /**
+     * The target of the persisted job.
+     */
+    @Singleton
+    public static class PersistedService {
+
+        static final AtomicInteger invocations = new AtomicInteger();
+
+        public void run() {
+            invocations.incrementAndGet();
+        }
+    }
+
+    /**
+     * A service hanging until it is interrupted, restoring the interrupt
+     * status of its thread.
+     */
+    public static class HangingService {
+
+        public void poll() {
+            try {
+                Thread.sleep(60000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    @Before
+    public void before() throws Exception {
+        PersistedService.invocations.set(0);
+        Connection connection = DriverManager.getConnection(URL);
+        try {
+            Statement statement = connection.createStatement();
+            statement.execute("DROP ALL OBJECTS");
+            statement.execute("RUNSCRIPT FROM 'classpath:quartz_tables_h2.sql'");
+            statement.close();
+        } finally {
+            connection.close();
+        }
+        DBConnectionManager.getInstance().addConnectionProvider(DATA_SOURCE, new ConnectionProvider() {
+            public Connection getConnection() throws SQLException {
+                // as drivers doing (interruptible) NIO, unlike the in-memory
+                // database
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new SQLException("Connection attempt interrupted.");
+                }
+                return DriverManager.getConnection(URL);
+            }
+
+            public void shutdown() {
+            }
+
+            public void initialize() {
+            }
+        });
+
+        super.before();
+    }
+
+    @Override
+    protected Properties getSchedulerProperties() {
+        Properties properties = super.getSchedulerProperties();
+        properties.setProperty("org.quartz.threadPool.threadCount", "2");
+        properties.setProperty("org.quartz.jobStore.class", "org.quartz.impl.jdbcjobstore.JobStoreTX");
+        properties.setProperty("org.quartz.jobStore.driverDelegateClass",
+                "org.quartz.impl.jdbcjobstore.StdJDBCDelegate");
+        properties.setProperty("org.quartz.jobStore.dataSource", DATA_SOURCE);
+        return properties;
+    }
+
+    @Test
+    public void testScheduleMethodReference() throws Exception {
+        JobKey jobKey = scheduling.schedule(PersistedService.class, "run",
+                QuartzScheduleSpec.interval(50, IntervalUnit.MILLISECOND).withJobName("persisted"));
+
+        // only a reference to the method has been stored
+        assertTrue(scheduler.getJobDetail(jobKey).getJobDataMap()
+                .get(AbstractNinjaQuartzJob.JOB_TASK_KEY) instanceof MethodReferenceTask);
+
+        // the reference is resolved for each execution of the (loaded) job
+        awaitCondition(new Callable<Boolean>() {
+            public Boolean call() throws Exception {
+                return PersistedService.invocations.get() >= 3;
+            }
+        }, 10000L);
+        assertTrue(PersistedService.invocations.get() >= 3);
+        JobMetrics metrics = jobMetricsRegistry.get(jobKey);
+        assertEquals(0, metrics.getFailureCount());
+    }
+
+    @Test
+    public void testRetryAfterTimeout() throws Exception {
+        JobKey jobKey = scheduling.schedule(HangingService.class, "poll",
+                QuartzScheduleSpec.interval(1, IntervalUnit.HOUR).withJobName("hanging").withTimeout(200)
+                        .withRetryAttempts(1).withRetryDelay(60000));
+        final JobMetrics metrics = jobMetricsRegistry.get(jobKey);
+        awaitCondition(new Callable<Boolean>() {
+            public Boolean call() throws Exception {
+                return metrics.getFailureCount() > 0;
+            }
+        }, 10000L);
+
+        // the retry has been stored, although the method left its thread
+        // interrupted
+        assertEquals(1, metrics.getTimeoutCount());
+        assertEquals(1, scheduler
+                .getTriggerKeys(GroupMatcher.triggerGroupEquals(AbstractNinjaQuartzJob.RETRY_TRIGGER_GROUP)).size());
+    }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.DateBuilder.IntervalUnit;
+import org.quartz.JobKey;
+import org.quartz.impl.matchers.GroupMatcher;
+
+import com.jensfendler.ninjaquartz.QuartzScheduleSpec;
+import com.jensfendler.ninjaquartz.job.AbstractNinjaQuartzJob;
+import com.jensfendler.ninjaquartz.job.RetryPolicy;
+import com.jensfendler.ninjaquartz.metrics.JobMetrics;
+
+/**
+ * Tests for retrying failed executions.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class RetryTest extends AbstractSchedulingTest {
+
+    /**
+     * A service failing transiently (fetch) or permanently (validate).
+     */
+    public static class FlakyService {
+
+        static final AtomicInteger invocations = new AtomicInteger();
+
+        static final AtomicInteger rejections = new AtomicInteger();
+
+        public void fetch() throws IOException {
+            if (invocations.incrementAndGet() < 3) {
+                throw new IOException("downstream unavailable");
+            }
+        }
+
+        public void validate() {
+            rejections.incrementAndGet();
+            throw new IllegalStateException("invalid data");
+        }
+    }
+
+    @Override
+    @Before
+    public void before() throws Exception {
+        FlakyService.invocations.set(0);
+        FlakyService.rejections.set(0);
+
+        super.before();
+    }
+
+    @Test
+    public void testRetries() throws Exception {
+        JobKey jobKey = scheduling.schedule(FlakyService.class, "fetch",
+                QuartzScheduleSpec.interval(1, IntervalUnit.HOUR).withJobName("flaky").withRetryAttempts(3)
+                        .withRetryDelay(50).withRetryJitter(0.0).withRetryOn(IOException.class));
+        final JobMetrics metrics = jobMetricsRegistry.get(jobKey);
+        awaitCondition(new Callable<Boolean>() {
+            public Boolean call() throws Exception {
+                return (metrics.getSuccessCount() > 0) && (getRetryTriggerCount() == 0);
+            }
+        }, 10000L);
+
+        // the first two executions failed and have been retried
+        assertEquals(1, metrics.getSuccessCount());
+        assertEquals(2, metrics.getFailureCount());
+        assertEquals(3, FlakyService.invocations.get());
+        assertEquals(0, getRetryTriggerCount());
+    }
+
+    @Test
+    public void testNonRetryableFailure() throws Exception {
+        JobKey jobKey = scheduling.schedule(FlakyService.class, "validate",
+                QuartzScheduleSpec.interval(1, IntervalUnit.HOUR).withJobName("invalid").withRetryAttempts(3)
+                        .withRetryDelay(50).withRetryOn(IOException.class));
+        final JobMetrics metrics = jobMetricsRegistry.get(jobKey);
+        awaitCondition(new Callable<Boolean>() {
+            public Boolean call() throws Exception {
+                return metrics.getFailureCount() > 0;
+            }
+        }, 10000L);
+
+        // the failure has been handled without scheduling a retry
+        assertEquals(1, metrics.getFailureCount());
+        assertEquals(1, FlakyService.rejections.get());
+        assertEquals(0, getRetryTriggerCount());
+    }
+
+    @Test
+    public void testInvalidRetrySettings() throws Exception {
+        try {
+            scheduling.schedule(FlakyService.class, "fetch", QuartzScheduleSpec.interval(1, IntervalUnit.HOUR)
+                    .withJobName("misconfigured").withRetryAttempts(3).withRetryMultiplier(0.5));
+            fail("Scheduled a job with invalid retry settings.");
+        } catch (IllegalArgumentException e) {
+            // the job has been rejected (and logged), like any other job which
+            // cannot be created
+            assertTrue(e.getMessage().startsWith("Cannot schedule "));
+        }
+    }
+
+    @Test
+    public void testRetryDelays() throws Exception {
+        RetryPolicy retryPolicy = new RetryPolicy(5, 100, 2.0, 500, 0.5);
+        Random random = new Random();
+        for (int i = 0; i < 100; i++) {
+            long delay = retryPolicy.getDelay(3, random);
+            assertTrue("Delay out of range: " + delay, (delay > 200) && (delay <= 400));
+            delay = retryPolicy.getDelay(5, random);
+            assertTrue("Delay not capped: " + delay, (delay > 250) && (delay <= 500));
+        }
+        assertTrue(retryPolicy.allowsAttempt(5));
+        assertFalse(retryPolicy.allowsAttempt(6));
+    }
+
+    private int getRetryTriggerCount() throws Exception {
+        return scheduler.getTriggerKeys(GroupMatcher.triggerGroupEquals(AbstractNinjaQuartzJob.RETRY_TRIGGER_GROUP))
+                .size();
+    }
+
+}
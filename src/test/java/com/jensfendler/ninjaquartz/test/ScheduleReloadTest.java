@@ -0,0 +1,114 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.CronTrigger;
+import org.quartz.JobKey;
+
+import com.google.inject.Singleton;
+import com.jensfendler.ninjaquartz.QuartzScheduleSpec;
+
+import ninja.utils.NinjaProperties;
+
+/**
+ * Tests for rescheduling jobs whose cron schedule in the configuration has
+ * changed.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class ScheduleReloadTest extends AbstractSchedulingTest {
+
+    /**
+     * The target of the scheduled method, as bound in Guice.
+     */
+    @Singleton
+    public static class ReloadedService {
+
+        public void reloadedMethod() {
+        }
+    }
+
+    private File externalConf;
+
+    @Override
+    @Before
+    public void before() throws Exception {
+        externalConf = File.createTempFile("ninja-quartz-reload", ".conf");
+        writeExternalConf("0 0 * * * ?");
+        System.setProperty(NinjaProperties.NINJA_EXTERNAL_CONF, externalConf.getAbsolutePath());
+
+        super.before();
+    }
+
+    @Override
+    @After
+    public void after() throws Exception {
+        System.clearProperty(NinjaProperties.NINJA_EXTERNAL_CONF);
+        super.after();
+        externalConf.delete();
+    }
+
+    @Test
+    public void testReloadChangedSchedule() throws Exception {
+        JobKey configured = scheduling.schedule(ReloadedService.class, "reloadedMethod",
+                QuartzScheduleSpec.cron("schedule.reloadTest").withJobName("configured"));
+        JobKey fixed = scheduling.schedule(ReloadedService.class, "reloadedMethod",
+                QuartzScheduleSpec.cron("0 15 * * * ?").withJobName("fixed"));
+        assertEquals("0 0 * * * ?", getCronExpression(configured));
+
+        // nothing has changed
+        assertEquals(0, scheduling.reloadSchedules());
+
+        writeExternalConf("0 30 * * * ?");
+        assertEquals(1, scheduling.reloadSchedules());
+        assertEquals("0 30 * * * ?", getCronExpression(configured));
+        assertEquals("0 15 * * * ?", getCronExpression(fixed));
+
+        // the change has been applied
+        assertEquals(0, scheduling.reloadSchedules());
+
+        // invalid schedules are not applied
+        writeExternalConf("not a cron expression");
+        assertEquals(0, scheduling.reloadSchedules());
+        assertEquals("0 30 * * * ?", getCronExpression(configured));
+    }
+
+    private String getCronExpression(JobKey jobKey) throws Exception {
+        return ((CronTrigger) scheduler.getTriggersOfJob(jobKey).get(0)).getCronExpression();
+    }
+
+    private void writeExternalConf(String cronSchedule) throws IOException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(externalConf), "UTF-8");
+        try {
+            writer.write("schedule.reloadTest=" + cronSchedule + "\n");
+        } finally {
+            writer.close();
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.google.inject.TypeLiteral;
+import com.jensfendler.ninjaquartz.ScheduledClassIndex;
+import com.jensfendler.ninjaquartz.processor.QuartzScheduleProcessor;
+
+import ninja.app.controllers.Application;
+import ninja.app.modules.TestSchedules;
+
+/**
+ * Tests for the {@link ScheduledClassIndex} generated by the
+ * {@link QuartzScheduleProcessor} when compiling the test application.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class ScheduledClassIndexTest {
+
+    /**
+     * A subclass inheriting scheduled methods.
+     */
+    static class ExtendedTestSchedules extends TestSchedules {
+    }
+
+    @Test
+    public void testIndexGenerated() {
+        ScheduledClassIndex index = ScheduledClassIndex.load(getClass().getClassLoader());
+        assertNotNull("No scheduled class index generated", index);
+        assertTrue(index.getClassNames().contains(TestSchedules.class.getName()));
+        assertFalse(index.getClassNames().contains(Application.class.getName()));
+    }
+
+    @Test
+    public void testMatcher() {
+        ScheduledClassIndex index = ScheduledClassIndex.load(getClass().getClassLoader());
+        assertTrue(index.matches(TypeLiteral.get(TestSchedules.class)));
+        assertTrue(index.matches(TypeLiteral.get(ExtendedTestSchedules.class)));
+        assertFalse(index.matches(TypeLiteral.get(Application.class)));
+        assertFalse(index.matches(TypeLiteral.get(String.class)));
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2016 Fendler Consulting cc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jensfendler.ninjaquartz.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.JobKey;
+
+import com.google.inject.Singleton;
+import com.jensfendler.ninjaquartz.NinjaQuartzScheduling;
+import com.jensfendler.ninjaquartz.QuartzScheduleSpec;
+import com.jensfendler.ninjaquartz.annotations.Batch;
+import com.jensfendler.ninjaquartz.batch.WorkQueue;
+import com.jensfendler.ninjaquartz.batch.WorkQueues;
+
+/**
+ * Tests for draining {@link WorkQueue}s in batches.
+ * 
+ * @author Jens Fendler
+ *
+ */
+public class WorkQueueTest extends AbstractSchedulingTest {
+
+    /**
+     * The target of the batching method, recording the sizes of its batches.
+     */
+    @Singleton
+    public static class BatchingService {
+
+        static final List<Integer> batchSizes = new CopyOnWriteArrayList<Integer>();
+
+        static CountDownLatch items;
+
+        public void flush(@Batch(value = "batchingTest", maxSize = 10, flushAt = 25) List<Integer> batch) {
+            batchSizes.add(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                items.countDown();
+            }
+        }
+    }
+
+    /**
+     * The target of batching methods which fail on their first batch.
+     */
+    @Singleton
+    public static class FailingBatchService {
+
+        static final List<Integer> delivered = new CopyOnWriteArrayList<Integer>();
+
+        static final AtomicInteger invocations = new AtomicInteger();
+
+        public void flush(@Batch(value = "failingTest", maxSize = 10) List<Integer> batch) {
+            if (invocations.incrementAndGet() == 1) {
+                throw new IllegalStateException("Downstream not available.");
+            }
+            delivered.addAll(batch);
+        }
+
+        public Future<Void> flushAsynchronously(
+                @Batch(value = "failingAsyncTest", maxSize = 10) final List<Integer> batch) {
+            final boolean fail = (invocations.incrementAndGet() == 1);
+            FutureTask<Void> result = new FutureTask<Void>(new Callable<Void>() {
+                public Void call() {
+                    if (fail) {
+                        throw new IllegalStateException("Downstream not available.");
+                    }
+                    delivered.addAll(batch);
+                    return null;
+                }
+            });
+            result.run();
+            return result;
+        }
+    }
+
+    @Override
+    @Before
+    public void before() throws Exception {
+        FailingBatchService.delivered.clear();
+        FailingBatchService.invocations.set(0);
+        super.before();
+    }
+
+    @Test
+    public void testDrainTo() {
+        WorkQueue<Integer> queue = new WorkQueue<Integer>("drain");
+        for (int i = 0; i < 5; i++) {
+            queue.add(i);
+        }
+        List<Integer> batch = new ArrayList<Integer>();
+        assertEquals(2, queue.drainTo(batch, 2));
+        assertEquals(3, queue.size());
+        assertEquals(Integer.valueOf(0), batch.get(0));
+        assertEquals(3, queue.drainTo(batch, 10));
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testRequeue() {
+        WorkQueue<Integer> queue = new WorkQueue<Integer>("requeue");
+        for (int i = 0; i < 5; i++) {
+            queue.add(i);
+        }
+        List<Integer> batch = new ArrayList<Integer>();
+        queue.drainTo(batch, 3);
+        queue.add(5);
+
+        // the batch is drained again first, in its original order
+        queue.requeue(batch);
+        assertEquals(6, queue.size());
+        List<Integer> drained = new ArrayList<Integer>();
+        queue.drainTo(drained, 10);
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5), drained);
+    }
+
+    @Test
+    public void testFailedBatchDeliveredAgain() throws Exception {
+        assertFailedBatchDeliveredAgain("flush", "failingTest");
+    }
+
+    @Test
+    public void testFailedAsynchronousBatchDeliveredAgain() throws Exception {
+        assertFailedBatchDeliveredAgain("flushAsynchronously", "failingAsyncTest");
+    }
+
+    private void assertFailedBatchDeliveredAgain(String methodName, String queueName) throws Exception {
+        NinjaQuartzScheduling scheduling = injector.getInstance(NinjaQuartzScheduling.class);
+        // not fired on schedule during the test
+        JobKey jobKey = scheduling.schedule(FailingBatchService.class, methodName,
+                QuartzScheduleSpec.cron("0 0 0 1 1 ? 2099").withJobName(methodName));
+        final WorkQueue<Integer> queue = injector.getInstance(WorkQueues.class).get(queueName);
+        for (int i = 0; i < 5; i++) {
+            queue.add(i);
+        }
+
+        // the first batch fails, and is queued again
+        scheduler.triggerJob(jobKey);
+        awaitCondition(new Callable<Boolean>() {
+            public Boolean call() throws Exception {
+                return (FailingBatchService.invocations.get() >= 1) && (queue.size() >= 5);
+            }
+        }, 10000L);
+        assertEquals(5, queue.size());
+        assertTrue(FailingBatchService.delivered.isEmpty());
+
+        // and is delivered by the next fire
+        scheduler.triggerJob(jobKey);
+        awaitCondition(new Callable<Boolean>() {
+            public Boolean call() throws Exception {
+                return FailingBatchService.delivered.size() >= 5;
+            }
+        }, 10000L);
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), FailingBatchService.delivered);
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testFlushAction() {
+        final AtomicInteger flushes = new AtomicInteger();
+        WorkQueue<Integer> queue = new WorkQueue<Integer>("flush");
+        queue.setFlushAction(3, new Runnable() {
+            public void run() {
+                flushes.incrementAndGet();
+            }
+        });
+        for (int i = 0; i < 5; i++) {
+            queue.add(i);
+        }
+        // the flush is requested once until the queue is drained
+        assertEquals(1, flushes.get());
+        queue.drainTo(new ArrayList<Integer>(), 10);
+        for (int i = 0; i < 3; i++) {
+            queue.add(i);
+        }
+        assertEquals(2, flushes.get());
+    }
+
+    @Test
+    public void testBatchedMethodFlushedEarly() throws Exception {
+        BatchingService.items = new CountDownLatch(25);
+        NinjaQuartzScheduling scheduling = injector.getInstance(NinjaQuartzScheduling.class);
+        // not fired on schedule during the test
+        scheduling.schedule(BatchingService.class, "flush", QuartzScheduleSpec.cron("0 0 0 1 1 ? 2099"));
+
+        WorkQueue<Integer> queue = injector.getInstance(WorkQueues.class).get("batchingTest");
+        for (int i = 0; i < 25; i++) {
+            queue.add(i);
+        }
+
+        assertTrue("Items not drained", BatchingService.items.await(5, TimeUnit.SECONDS));
+        assertEquals(3, BatchingService.batchSizes.size());
+        assertEquals(Integer.valueOf(10), BatchingService.batchSizes.get(0));
+        assertEquals(Integer.valueOf(5), BatchingService.batchSizes.get(2));
+    }
+
+}
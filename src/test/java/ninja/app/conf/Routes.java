@@ -29,6 +29,8 @@ public class Routes implements ApplicationRoutes {
     public void init(Router router) {
         router.GET().route("/").with(Application.class, "index");
         router.GET().route("/schedules").with(Application.class, "schedules");
+        router.GET().route("/metrics").with(Application.class, "metrics");
+        router.GET().route("/groupMetrics").with(Application.class, "groupMetrics");
     }
 
 }
@@ -20,6 +20,9 @@ import org.slf4j.LoggerFactory;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.jensfendler.ninjaquartz.NinjaQuartzUtil;
+import com.jensfendler.ninjaquartz.metrics.JobGroupMetrics;
+import com.jensfendler.ninjaquartz.metrics.JobMetrics;
 
 import ninja.Result;
 import ninja.Results;
@@ -38,6 +41,9 @@ public class Application {
     @Inject
     protected Counter counter;
 
+    @Inject
+    protected NinjaQuartzUtil quartzUtil;
+
     /**
      * @return
      */
@@ -53,7 +59,8 @@ public class Application {
         LOG.info("schedules() controller running.");
 
         String[] keys = new String[] { TestSchedules.SCHEDULE_TEST_1, TestSchedules.SCHEDULE_TEST_2,
-                TestSchedules.SCHEDULE_TEST_3, TestSchedules.SCHEDULE_TEST_4, TestSchedules.SCHEDULE_TEST_5 };
+                TestSchedules.SCHEDULE_TEST_3, TestSchedules.SCHEDULE_TEST_4, TestSchedules.SCHEDULE_TEST_5,
+                TestSchedules.SCHEDULE_TEST_6, TestSchedules.SCHEDULE_TEST_7, TestSchedules.SCHEDULE_TEST_8 };
 
         StringBuffer sb = new StringBuffer();
         for (int i = 0; i < keys.length; i++) {
@@ -68,4 +75,44 @@ public class Application {
         LOG.info("Counter values: {}", response);
         return Results.ok().text().renderRaw(response.getBytes());
     }
+
+    /**
+     * @return
+     */
+    public Result metrics() {
+        LOG.info("metrics() controller running.");
+
+        StringBuffer sb = new StringBuffer();
+        for (JobMetrics jobMetrics : quartzUtil.getAllJobMetrics()) {
+            if (sb.length() > 0) {
+                sb.append("\n");
+            }
+            sb.append(jobMetrics.getJobKey().getName()).append(",").append(jobMetrics.getFireCount()).append(",")
+                    .append(jobMetrics.getSuccessCount()).append(",").append(jobMetrics.getFailureCount());
+        }
+
+        String response = sb.toString();
+        LOG.info("Job metrics: {}", response);
+        return Results.ok().text().renderRaw(response.getBytes());
+    }
+
+    /**
+     * @return
+     */
+    public Result groupMetrics() {
+        LOG.info("groupMetrics() controller running.");
+
+        StringBuffer sb = new StringBuffer();
+        for (JobGroupMetrics jobGroupMetrics : quartzUtil.getAllJobGroupMetrics()) {
+            if (sb.length() > 0) {
+                sb.append("\n");
+            }
+            sb.append(jobGroupMetrics.getJobGroup()).append(",").append(jobGroupMetrics.getLags().getCount())
+                    .append(",").append(jobGroupMetrics.getMisfireCount());
+        }
+
+        String response = sb.toString();
+        LOG.info("Job group metrics: {}", response);
+        return Results.ok().text().renderRaw(response.getBytes());
+    }
 }
@@ -15,13 +15,20 @@
  */
 package ninja.app.modules;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.quartz.JobExecutionContext;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.google.inject.name.Named;
 import com.jensfendler.ninjaquartz.annotations.QuartzSchedule;
 
 import ninja.app.controllers.Application;
+import ninja.lifecycle.Dispose;
 import ninja.utils.NinjaProperties;
 
 /**
@@ -41,9 +48,25 @@ public class TestSchedules {
 
     public static final String SCHEDULE_TEST_5 = "scheduleTest5";
 
+    public static final String SCHEDULE_TEST_6 = "scheduleTest6";
+
+    public static final String SCHEDULE_TEST_7 = "scheduleTest7";
+
+    public static final String SCHEDULE_TEST_8 = "scheduleTest8";
+
+    private final ExecutorService asyncExecutor = Executors.newSingleThreadExecutor();
+
     @Inject
     protected Counter counter;
 
+    /**
+     * Shut down the executor of the asynchronous results.
+     */
+    @Dispose
+    public void shutdown() {
+        asyncExecutor.shutdownNow();
+    }
+
     /**
      * Run every 2 seconds, no arguments
      */
@@ -102,4 +125,45 @@ public class TestSchedules {
                 "\n\n\ntestSchedule5() updated value to {}. Context: {}, Available ninjaProperties: {}\n\n\n", value,
                 context.hashCode(), ninjaProperties.getAllCurrentNinjaProperties().size());
     }
+
+    /**
+     * Run every 2 seconds, guice-injected application.conf property (using a
+     * binding annotation) and JobExecutionContext argument.
+     * 
+     * @param cronSchedule
+     * @param context
+     */
+    @QuartzSchedule(cronSchedule = "0/2 * * * * ?", schedulerDelay = 1, jobDescription = "Test Schedule 6", jobName = "test6")
+    public void testSchedule6(@Named("schedule.testSchedule3") String cronSchedule, JobExecutionContext context) {
+        Integer value = counter.updateValue(SCHEDULE_TEST_6);
+        Application.LOG.info("\n\n\ntestSchedule6() updated value to {}. Injected schedule.testSchedule3: {}\n\n\n",
+                value, cronSchedule);
+    }
+
+    /**
+     * Run every 2 seconds, asynchronous result updating the counter in another
+     * thread.
+     * 
+     * @return the pending result
+     */
+    @QuartzSchedule(cronSchedule = "0/2 * * * * ?", schedulerDelay = 1, jobDescription = "Test Schedule 7", jobName = "test7")
+    public Future<Integer> testSchedule7() {
+        return asyncExecutor.submit(new Callable<Integer>() {
+            public Integer call() throws Exception {
+                Thread.sleep(100);
+                Integer value = counter.updateValue(SCHEDULE_TEST_7);
+                Application.LOG.info("\n\n\ntestSchedule7() asynchronously updated value to {}\n\n\n", value);
+                return value;
+            }
+        });
+    }
+
+    /**
+     * Run every 250 milliseconds (simple trigger), no arguments
+     */
+    @QuartzSchedule(interval = 250, schedulerDelay = 1, jobDescription = "Test Schedule 8", jobName = "test8")
+    public void testSchedule8() {
+        Integer value = counter.updateValue(SCHEDULE_TEST_8);
+        Application.LOG.debug("testSchedule8() updated value to {}", value);
+    }
 }